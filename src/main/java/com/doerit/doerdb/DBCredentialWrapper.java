@@ -1,18 +1,26 @@
 package com.doerit.doerdb;
 
 /**
- * Wraps the Credentials for a DoerDatabase.
+ * Wraps the Credentials for a DoerDatabase, along with the settings of its connection pool.
  */
 public class DBCredentialWrapper {
 
+    public static final int DEFAULT_POOL_SIZE = 8;
+    public static final long DEFAULT_POOL_IDLE_VALIDATION_MILLIS = 30000;
+    public static final long DEFAULT_POOL_BORROW_TIMEOUT_MILLIS = 30000;
+
     public final String hostURL;
     public final int hostPort;
     public final String dbName;
     public final String hostUsername;
     public final String hostPassword;
 
+    public final int poolSize;
+    public final long poolIdleValidationMillis;
+    public final long poolBorrowTimeoutMillis;
+
     /**
-     * Constructor for CredentialsWrapper.
+     * Constructor for CredentialsWrapper, with the default settings of the connection pool.
      * @param hostURL The Host IP of the MySQL server.
      * @param hostPort The Port used by MySQL server.
      * @param dbName Name of the database to connect.
@@ -20,11 +28,37 @@ public class DBCredentialWrapper {
      * @param hostPassword Password to connect to MySQL server.
      */
     public DBCredentialWrapper(String hostURL, int hostPort, String dbName, String hostUsername, String hostPassword) {
+        this(hostURL, hostPort, dbName, hostUsername, hostPassword, DEFAULT_POOL_SIZE, DEFAULT_POOL_IDLE_VALIDATION_MILLIS, DEFAULT_POOL_BORROW_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Constructor for CredentialsWrapper.
+     * @param hostURL The Host IP of the MySQL server.
+     * @param hostPort The Port used by MySQL server.
+     * @param dbName Name of the database to connect.
+     * @param hostUsername Username to connect to MySQL server.
+     * @param hostPassword Password to connect to MySQL server.
+     * @param poolSize The maximum number of pooled connections open at the same time, besides the connection of the DoerDatabase itself.
+     * @param poolIdleValidationMillis The time in milliseconds after which an idle connection is validated before it is used again.
+     * @param poolBorrowTimeoutMillis The maximum time in milliseconds to wait for a pooled connection when every connection is borrowed.
+     */
+    public DBCredentialWrapper(String hostURL, int hostPort, String dbName, String hostUsername, String hostPassword,
+                               int poolSize, long poolIdleValidationMillis, long poolBorrowTimeoutMillis) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("Pool size should be a positive integer.");
+        }
+        if (poolIdleValidationMillis < 0 || poolBorrowTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Pool intervals should not be negative.");
+        }
+
         this.hostURL = hostURL;
         this.hostPort = hostPort;
         this.dbName = dbName;
         this.hostUsername = hostUsername;
         this.hostPassword = hostPassword;
+        this.poolSize = poolSize;
+        this.poolIdleValidationMillis = poolIdleValidationMillis;
+        this.poolBorrowTimeoutMillis = poolBorrowTimeoutMillis;
     }
 
 }
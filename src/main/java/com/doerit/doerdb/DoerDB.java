@@ -2,6 +2,9 @@ package com.doerit.doerdb;
 
 import com.doerit.doerdb.cli.CLIProcessor;
 import com.doerit.doerdb.db.DoerDatabase;
+import com.doerit.doerdb.db.jdbc.ResultSetReader;
+import com.doerit.doerdb.db.jdbc.RowCallback;
+import com.doerit.doerdb.exceptions.ExceptionCodes;
 import com.doerit.doerdb.exceptions.InitializationFailureException;
 import com.doerit.doerdb.exceptions.NotFoundException;
 import com.doerit.doerdb.exceptions.QueryParseException;
@@ -10,6 +13,10 @@ import org.apache.commons.cli.ParseException;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * DoerDB is the base class which wraps two DoerDatabases: Local and Remote DoerDatabase.
@@ -18,6 +25,7 @@ public class DoerDB {
 
     private final DoerDatabase doerLocalDB;
     private final DoerDatabase doerRemoteDB;
+    private String syncOrigin = null;
 
     /**
      * Constructs a DoerDB instance with CredentialWrappers.
@@ -28,8 +36,148 @@ public class DoerDB {
      * @throws NotFoundException If Meta Table / Sync Table / Any trigger(s) are not found in any of the given databases.
      */
     public DoerDB(DBCredentialWrapper localDBCredentials, DBCredentialWrapper remoteDBCredentials) throws SQLException, InitializationFailureException, NotFoundException {
-        this.doerLocalDB = new DoerDatabase(localDBCredentials.hostURL, localDBCredentials.hostPort, localDBCredentials.dbName, localDBCredentials.hostUsername, localDBCredentials.hostPassword, DatabaseType.LOCAL);
-        this.doerRemoteDB = new DoerDatabase(remoteDBCredentials.hostURL, remoteDBCredentials.hostPort, remoteDBCredentials.dbName, remoteDBCredentials.hostUsername, remoteDBCredentials.hostPassword, DatabaseType.REMOTE);
+        this(localDBCredentials, remoteDBCredentials, false);
+    }
+
+    /**
+     * Constructs a DoerDB instance with CredentialWrappers, optionally deferring the validation of the triggers.
+     * The local and remote DoerDatabases are connected and validated concurrently, hence the construction takes as long as the slower of them.
+     * @param localDBCredentials DBCredentialWrapper wrapping the credentials for Local Database.
+     * @param remoteDBCredentials DBCredentialWrapper wrapping the credentials for Remote Database.
+     * @param lazyValidation true to defer the validation of the triggers until validateTriggers is called(e.g. by the first synchronization), false to validate them now.
+     * @throws SQLException If any exception occurs while connecting to databases.
+     * @throws InitializationFailureException If database is invalid DoerDB, or the construction is interrupted.
+     * @throws NotFoundException If Meta Table / Sync Table / Any trigger(s) validated are not found in any of the given databases.
+     */
+    public DoerDB(DBCredentialWrapper localDBCredentials, DBCredentialWrapper remoteDBCredentials, boolean lazyValidation) throws SQLException, InitializationFailureException, NotFoundException {
+        ExecutorService remoteInitializer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "doerdb-remote-init");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        DoerDatabase localDatabase = null;
+        DoerDatabase remoteDatabase = null;
+        try {
+            Future<DoerDatabase> remoteDatabaseFuture = remoteInitializer.submit(() -> new DoerDatabase(remoteDBCredentials, DatabaseType.REMOTE, lazyValidation));
+
+            try {
+                localDatabase = new DoerDatabase(localDBCredentials, DatabaseType.LOCAL, lazyValidation);
+            }
+            finally {
+                remoteDatabase = DoerDB.awaitDatabase(remoteDatabaseFuture, localDatabase != null);
+            }
+        }
+        catch (SQLException | InitializationFailureException | NotFoundException | RuntimeException e) {
+            DoerDB.closeQuietly(localDatabase, e);
+            DoerDB.closeQuietly(remoteDatabase, e);
+            throw e;
+        }
+        finally {
+            remoteInitializer.shutdown();
+        }
+
+        this.doerLocalDB = localDatabase;
+        this.doerRemoteDB = remoteDatabase;
+    }
+
+    /**
+     * Waits for a DoerDatabase initialized on another thread.
+     * @param databaseFuture Future of the DoerDatabase.
+     * @param rethrow boolean true to rethrow the exception of a failed initialization, false if another exception is already being thrown.
+     * @return DoerDatabase The initialized DoerDatabase, null if its initialization failed and rethrow is false.
+     * @throws SQLException If the initialization failed with a SQLException.
+     * @throws InitializationFailureException If the initialization failed with an InitializationFailureException, or the wait is interrupted.
+     * @throws NotFoundException If the initialization failed with a NotFoundException.
+     */
+    private static DoerDatabase awaitDatabase(Future<DoerDatabase> databaseFuture, boolean rethrow) throws SQLException, InitializationFailureException, NotFoundException {
+        try {
+            return databaseFuture.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            databaseFuture.cancel(true);
+            if (rethrow) {
+                throw new InitializationFailureException(ExceptionCodes.INTERRUPTED, "The initialization of the databases was interrupted.");
+            }
+        }
+        catch (ExecutionException e) {
+            if (rethrow) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException) {
+                    throw (SQLException) cause;
+                }
+                else if (cause instanceof InitializationFailureException) {
+                    throw (InitializationFailureException) cause;
+                }
+                else if (cause instanceof NotFoundException) {
+                    throw (NotFoundException) cause;
+                }
+                else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IllegalStateException(cause);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Closes the connections of a DoerDatabase whose counterpart failed to initialize.
+     * @param doerDatabase DoerDatabase The DoerDatabase, may be null.
+     * @param exception Exception The exception being thrown, to which a failure to close is added as suppressed.
+     */
+    private static void closeQuietly(DoerDatabase doerDatabase, Exception exception) {
+        if (doerDatabase == null) {
+            return;
+        }
+
+        try {
+            doerDatabase.close();
+        }
+        catch (SQLException closeException) {
+            exception.addSuppressed(closeException);
+        }
+    }
+
+    /**
+     * Validates the triggers of both DoerDatabases if their validation was deferred and has not been done yet.
+     * @throws SQLException If any exception occurs during the query execution.
+     * @throws NotFoundException If any trigger is missing in either database, in which case every missing trigger of the database is reported.
+     */
+    public void validateTriggers() throws SQLException, NotFoundException {
+        this.doerLocalDB.validateTriggers();
+        this.doerRemoteDB.validateTriggers();
+    }
+
+    /**
+     * Closes the connections and connection pools of both DoerDatabases.
+     * @throws SQLException If any connection cannot be closed.
+     */
+    public void close() throws SQLException {
+        try {
+            this.doerLocalDB.close();
+        }
+        finally {
+            this.doerRemoteDB.close();
+        }
+    }
+
+    /**
+     * Used to obtain the origin identifying the changes applied by this DoerDB, i.e. the UUID of the local server and the name of the local database.
+     * The origin is read on first use. The synchronizer tags only the connections it borrows with it, so that the changes it applies are not recorded back as new changes.
+     * The connections used by applications are never tagged, hence their changes are recorded even while a synchronization is in progress.
+     * @return String The origin of this DoerDB.
+     * @throws SQLException If any exception occurs during the query execution.
+     * @throws InitializationFailureException If DoerDatabase Implementation failed to initialize.
+     */
+    public synchronized String getSyncOrigin() throws SQLException, InitializationFailureException {
+        if (this.syncOrigin == null) {
+            this.syncOrigin = this.doerLocalDB.readServerUUID() + ":" + this.doerLocalDB.getDatabaseName();
+        }
+
+        return this.syncOrigin;
     }
 
     /**
@@ -50,6 +198,7 @@ public class DoerDB {
 
     /**
      * Executes a MySQL Query in Local Database.
+     * <b>Note: The caller is responsible for closing the ResultSet, which also closes its Statement.</b>
      * @param sqlQuery The query to be executed on the databases.
      * @return java.sql.ResultSet returned after executing the query on the databases.
      * @throws SQLException If any exception occurs during the query execution.
@@ -61,6 +210,7 @@ public class DoerDB {
 
     /**
      * Executes a MySQL Query in Remote Database.
+     * <b>Note: The caller is responsible for closing the ResultSet, which also closes its Statement.</b>
      * @param sqlQuery The query to be executed on the databases.
      * @return java.sql.ResultSet returned after executing the query on the databases.
      * @throws SQLException If any exception occurs during the query execution.
@@ -70,6 +220,54 @@ public class DoerDB {
         return this.doerRemoteDB.executeQuery(sqlQuery);
     }
 
+    /**
+     * Executes a MySQL Query in Local Database and reads a value out of its result. The Statement and the ResultSet are closed before returning.
+     * @param sqlQuery The query to be executed on the databases.
+     * @param resultSetReader ResultSetReader Reads the value out of the result.
+     * @param <T> The type of the value read.
+     * @return T The value read.
+     * @throws SQLException If any exception occurs during the query execution or while reading the result.
+     * @throws InitializationFailureException If DoerDatabase Implementation failed to initialize.
+     */
+    public <T> T executeLocalQuery(String sqlQuery, ResultSetReader<T> resultSetReader) throws SQLException, InitializationFailureException {
+        return this.doerLocalDB.executeQuery(sqlQuery, resultSetReader);
+    }
+
+    /**
+     * Executes a MySQL Query in Remote Database and reads a value out of its result. The Statement and the ResultSet are closed before returning.
+     * @param sqlQuery The query to be executed on the databases.
+     * @param resultSetReader ResultSetReader Reads the value out of the result.
+     * @param <T> The type of the value read.
+     * @return T The value read.
+     * @throws SQLException If any exception occurs during the query execution or while reading the result.
+     * @throws InitializationFailureException If DoerDatabase Implementation failed to initialize.
+     */
+    public <T> T executeRemoteQuery(String sqlQuery, ResultSetReader<T> resultSetReader) throws SQLException, InitializationFailureException {
+        return this.doerRemoteDB.executeQuery(sqlQuery, resultSetReader);
+    }
+
+    /**
+     * Executes a MySQL Query in Local Database and passes each row of its result to a callback. The Statement and the ResultSet are closed before returning.
+     * @param sqlQuery The query to be executed on the databases.
+     * @param rowCallback RowCallback Processes the rows in the order of the result.
+     * @throws SQLException If any exception occurs during the query execution or while processing a row.
+     * @throws InitializationFailureException If DoerDatabase Implementation failed to initialize.
+     */
+    public void forEachLocalRow(String sqlQuery, RowCallback rowCallback) throws SQLException, InitializationFailureException {
+        this.doerLocalDB.forEachRow(sqlQuery, rowCallback);
+    }
+
+    /**
+     * Executes a MySQL Query in Remote Database and passes each row of its result to a callback. The Statement and the ResultSet are closed before returning.
+     * @param sqlQuery The query to be executed on the databases.
+     * @param rowCallback RowCallback Processes the rows in the order of the result.
+     * @throws SQLException If any exception occurs during the query execution or while processing a row.
+     * @throws InitializationFailureException If DoerDatabase Implementation failed to initialize.
+     */
+    public void forEachRemoteRow(String sqlQuery, RowCallback rowCallback) throws SQLException, InitializationFailureException {
+        this.doerRemoteDB.forEachRow(sqlQuery, rowCallback);
+    }
+
     /**
      * Executes a MySQL Update type Query in Local Databases.
      * <b>Note: This is an attended query where it gets recorded in meta table.</b>
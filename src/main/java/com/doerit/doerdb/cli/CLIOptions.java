@@ -11,6 +11,13 @@ public class CLIOptions {
     public static String NAME_OPTION_CONVERT_DB = "convert";
     public static String NAME_OPTION_CONVERT_DB_SERVER = "server";
     public static String NAME_OPTION_CONVERT_DB_CLIENT = "client";
+    public static String NAME_OPTION_MIGRATE_DB = "migrate";
+    public static String NAME_OPTION_META_TABLE_PARTITION_SIZE = "partitionSize";
+    public static String NAME_OPTION_PURGE_DB = "purge";
+    public static String NAME_OPTION_PURGE_BATCH_SIZE = "purgeBatchSize";
+    public static String NAME_OPTION_PURGE_RETENTION_DAYS = "retentionDays";
+    public static String NAME_OPTION_PURGE_INTERVAL = "purgeInterval";
+    public static String NAME_OPTION_PURGE_EXCLUSIVE_REMOTE = "exclusiveRemote";
 
     public static String NAME_OPTION_COMMON_DB_HOST = "dbHost";
     public static String NAME_OPTION_COMMON_DB_PORT = "dbPort";
@@ -32,6 +39,13 @@ public class CLIOptions {
     public static Option OPTION_CONVERT_DB = new Option(NAME_OPTION_CONVERT_DB, NAME_OPTION_CONVERT_DB, BOOL_OPTION_HAS_NO_FLAGS,"Convert a pair of databases into a DoerDB.");
     public static Option OPTION_CONVERT_DB_SERVER = new Option(NAME_OPTION_CONVERT_DB_SERVER, NAME_OPTION_CONVERT_DB_SERVER, BOOL_OPTION_HAS_NO_FLAGS,"Flag for marking that the provided database should be converted to server.");
     public static Option OPTION_CONVERT_DB_CLIENT = new Option(NAME_OPTION_CONVERT_DB_CLIENT, NAME_OPTION_CONVERT_DB_CLIENT, BOOL_OPTION_HAS_NO_FLAGS,"Flag for marking that the provided database should be converted to client.");
+    public static Option OPTION_MIGRATE_DB = new Option(NAME_OPTION_MIGRATE_DB, NAME_OPTION_MIGRATE_DB, BOOL_OPTION_HAS_NO_FLAGS,"Migrate the meta tables and triggers of an existing DoerDB to the current layout.");
+    public static Option OPTION_PURGE_DB = new Option(NAME_OPTION_PURGE_DB, NAME_OPTION_PURGE_DB, BOOL_OPTION_HAS_NO_FLAGS,"Purge the changes of a pair of databases which both sides have synchronized past.");
+    public static Option OPTION_PURGE_BATCH_SIZE = new Option(NAME_OPTION_PURGE_BATCH_SIZE, NAME_OPTION_PURGE_BATCH_SIZE, BOOL_OPTION_HAS_FLAGS,"Provides the maximum number of changes deleted at once by the purge.");
+    public static Option OPTION_PURGE_RETENTION_DAYS = new Option(NAME_OPTION_PURGE_RETENTION_DAYS, NAME_OPTION_PURGE_RETENTION_DAYS, BOOL_OPTION_HAS_FLAGS,"Provides the number of days for which the synchronized changes are retained by the purge.");
+    public static Option OPTION_PURGE_INTERVAL = new Option(NAME_OPTION_PURGE_INTERVAL, NAME_OPTION_PURGE_INTERVAL, BOOL_OPTION_HAS_FLAGS,"Provides the interval in minutes at which the purge is repeated. The purge runs once if omitted.");
+    public static Option OPTION_PURGE_EXCLUSIVE_REMOTE = new Option(NAME_OPTION_PURGE_EXCLUSIVE_REMOTE, NAME_OPTION_PURGE_EXCLUSIVE_REMOTE, BOOL_OPTION_HAS_NO_FLAGS,"Flag for marking that the remote database is synchronized by no other local database, so that its changes are purged without a retention period.");
+    public static Option OPTION_META_TABLE_PARTITION_SIZE = new Option(NAME_OPTION_META_TABLE_PARTITION_SIZE, NAME_OPTION_META_TABLE_PARTITION_SIZE, BOOL_OPTION_HAS_FLAGS,"Provides the number of IDs per partition of the Meta Tables created or migrated. Meta Tables are not partitioned if omitted.");
 
     public static Option OPTION_COMMON_DB_HOST = new Option(NAME_OPTION_COMMON_DB_HOST, NAME_OPTION_COMMON_DB_HOST, BOOL_OPTION_HAS_FLAGS,"Provides the host for the database.");
     public static Option OPTION_COMMON_DB_PORT = new Option(NAME_OPTION_COMMON_DB_PORT, NAME_OPTION_COMMON_DB_PORT, BOOL_OPTION_HAS_FLAGS,"Provides the port for the database.");
@@ -56,6 +70,13 @@ public class CLIOptions {
         cliOptions.addOption(OPTION_CONVERT_DB);
         cliOptions.addOption(OPTION_CONVERT_DB_SERVER);
         cliOptions.addOption(OPTION_CONVERT_DB_CLIENT);
+        cliOptions.addOption(OPTION_MIGRATE_DB);
+        cliOptions.addOption(OPTION_META_TABLE_PARTITION_SIZE);
+        cliOptions.addOption(OPTION_PURGE_DB);
+        cliOptions.addOption(OPTION_PURGE_BATCH_SIZE);
+        cliOptions.addOption(OPTION_PURGE_RETENTION_DAYS);
+        cliOptions.addOption(OPTION_PURGE_INTERVAL);
+        cliOptions.addOption(OPTION_PURGE_EXCLUSIVE_REMOTE);
 
         cliOptions.addOption(OPTION_COMMON_DB_HOST);
         cliOptions.addOption(OPTION_COMMON_DB_PORT);
@@ -1,16 +1,35 @@
 package com.doerit.doerdb.cli;
 
 import com.doerit.doerdb.DBCredentialWrapper;
+import com.doerit.doerdb.DoerDB;
+import com.doerit.doerdb.exceptions.InitializationFailureException;
 import com.doerit.doerdb.exceptions.InvalidException;
+import com.doerit.doerdb.exceptions.NotFoundException;
+import com.doerit.doerdb.synchronizer.DoerDBChangeLogPurger;
 import com.doerit.doerdb.util.DatabaseConverter;
 import org.apache.commons.cli.*;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class CLIProcessor {
 
+    private static final List<String> PAIR_OPTION_NAMES = new ArrayList<String>() {{
+        add(CLIOptions.NAME_OPTION_LOCAL_DB_HOST);
+        add(CLIOptions.NAME_OPTION_LOCAL_DB_PORT);
+        add(CLIOptions.NAME_OPTION_LOCAL_DB_DB_NAME);
+        add(CLIOptions.NAME_OPTION_LOCAL_DB_USERNAME);
+        add(CLIOptions.NAME_OPTION_LOCAL_DB_PASSWORD);
+
+        add(CLIOptions.NAME_OPTION_REMOTE_DB_HOST);
+        add(CLIOptions.NAME_OPTION_REMOTE_DB_PORT);
+        add(CLIOptions.NAME_OPTION_REMOTE_DB_DB_NAME);
+        add(CLIOptions.NAME_OPTION_REMOTE_DB_USERNAME);
+        add(CLIOptions.NAME_OPTION_REMOTE_DB_PASSWORD);
+    }};
+
     private final CommandLine cliArgs;
 
     public CLIProcessor(String[] args) throws ParseException {
@@ -25,15 +44,63 @@ public class CLIProcessor {
         if (this.cliArgs.hasOption(CLIOptions.NAME_OPTION_CONVERT_DB)) {
             this.processConvertDB();
         }
+        else if (this.cliArgs.hasOption(CLIOptions.NAME_OPTION_MIGRATE_DB)) {
+            this.processMigrateDB();
+        }
+        else if (this.cliArgs.hasOption(CLIOptions.NAME_OPTION_PURGE_DB)) {
+            this.processPurgeDB();
+        }
     }
 
-    private void processConvertDB() {
+    /**
+     * Used to check whether every one of the given options is in the arguments, printing the first missing one.
+     * @param shouldHaveOptionsNames List of the option names.
+     * @return boolean true if every option is present, false otherwise.
+     */
+    private boolean hasOptions(List<String> shouldHaveOptionsNames) {
+        for (String shouldHaveOptionName : shouldHaveOptionsNames) {
+            if (!this.cliArgs.hasOption(shouldHaveOptionName)) {
+                System.err.println("Required Argument " + shouldHaveOptionName + " missing.");
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private DBCredentialWrapper getLocalDBCredentials() {
+        return new DBCredentialWrapper(
+                this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_LOCAL_DB_HOST),
+                Integer.parseInt(this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_LOCAL_DB_PORT)),
+                this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_LOCAL_DB_DB_NAME),
+                this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_LOCAL_DB_USERNAME),
+                this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_LOCAL_DB_PASSWORD)
+        );
+    }
+
+    private DBCredentialWrapper getRemoteDBCredentials() {
+        return new DBCredentialWrapper(
+                this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_REMOTE_DB_HOST),
+                Integer.parseInt(this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_REMOTE_DB_PORT)),
+                this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_REMOTE_DB_DB_NAME),
+                this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_REMOTE_DB_USERNAME),
+                this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_REMOTE_DB_PASSWORD)
+        );
+    }
+
+    /**
+     * Creates a DatabaseConverter for the databases given in the arguments, i.e. a single client or server database, or a pair of local and remote databases.
+     * @return DatabaseConverter for the databases, null if any argument is missing or invalid.
+     * @throws SQLException If any error occurs while connecting to the databases.
+     * @throws NumberFormatException If any port number or the partition size is not a number.
+     */
+    private DatabaseConverter createDatabaseConverter() throws SQLException {
         boolean hasClientOption = this.cliArgs.hasOption(CLIOptions.NAME_OPTION_CONVERT_DB_CLIENT);
         boolean hasServerOption = this.cliArgs.hasOption(CLIOptions.NAME_OPTION_CONVERT_DB_SERVER);
 
         if (hasClientOption && hasServerOption) {
             System.err.println("Both Server and Client flags cannot be set on a single database.");
-            return;
+            return null;
         }
 
         List<String> shouldHaveOptionsNames;
@@ -47,78 +114,70 @@ public class CLIProcessor {
             }};
         }
         else {
-            shouldHaveOptionsNames = new ArrayList<String>() {{
-                add(CLIOptions.NAME_OPTION_LOCAL_DB_HOST);
-                add(CLIOptions.NAME_OPTION_LOCAL_DB_PORT);
-                add(CLIOptions.NAME_OPTION_LOCAL_DB_DB_NAME);
-                add(CLIOptions.NAME_OPTION_LOCAL_DB_USERNAME);
-                add(CLIOptions.NAME_OPTION_LOCAL_DB_PASSWORD);
-
-                add(CLIOptions.NAME_OPTION_REMOTE_DB_HOST);
-                add(CLIOptions.NAME_OPTION_REMOTE_DB_PORT);
-                add(CLIOptions.NAME_OPTION_REMOTE_DB_DB_NAME);
-                add(CLIOptions.NAME_OPTION_REMOTE_DB_USERNAME);
-                add(CLIOptions.NAME_OPTION_REMOTE_DB_PASSWORD);
-            }};
+            shouldHaveOptionsNames = CLIProcessor.PAIR_OPTION_NAMES;
         }
 
-        for (String shouldHaveOptionName : shouldHaveOptionsNames) {
-            if (!this.cliArgs.hasOption(shouldHaveOptionName)) {
-                System.err.println("Required Argument " + shouldHaveOptionName + " missing.");
-                return;
-            }
+        if (!this.hasOptions(shouldHaveOptionsNames)) {
+            return null;
         }
 
-        try {
-            DBCredentialWrapper localDBCredentials = null;
-            DBCredentialWrapper remoteDBCredentials = null;
+        DBCredentialWrapper localDBCredentials = null;
+        DBCredentialWrapper remoteDBCredentials = null;
 
-            if (!hasServerOption && !hasClientOption) {
+        if (!hasServerOption && !hasClientOption) {
+            localDBCredentials = this.getLocalDBCredentials();
+            remoteDBCredentials = this.getRemoteDBCredentials();
+        }
+        else {
+            if (!hasServerOption) {
                 localDBCredentials = new DBCredentialWrapper(
-                        this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_LOCAL_DB_HOST),
-                        Integer.parseInt(this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_LOCAL_DB_PORT)),
-                        this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_LOCAL_DB_DB_NAME),
-                        this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_LOCAL_DB_USERNAME),
-                        this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_LOCAL_DB_PASSWORD)
+                        this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_COMMON_DB_HOST),
+                        Integer.parseInt(this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_COMMON_DB_PORT)),
+                        this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_COMMON_DB_DB_NAME),
+                        this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_COMMON_DB_USERNAME),
+                        this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_COMMON_DB_PASSWORD)
                 );
-
+            }
+            else {
                 remoteDBCredentials = new DBCredentialWrapper(
-                        this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_REMOTE_DB_HOST),
-                        Integer.parseInt(this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_REMOTE_DB_PORT)),
-                        this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_REMOTE_DB_DB_NAME),
-                        this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_REMOTE_DB_USERNAME),
-                        this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_REMOTE_DB_PASSWORD)
+                        this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_COMMON_DB_HOST),
+                        Integer.parseInt(this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_COMMON_DB_PORT)),
+                        this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_COMMON_DB_DB_NAME),
+                        this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_COMMON_DB_USERNAME),
+                        this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_COMMON_DB_PASSWORD)
                 );
             }
-            else {
-                if (!hasServerOption) {
-                    localDBCredentials = new DBCredentialWrapper(
-                            this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_COMMON_DB_HOST),
-                            Integer.parseInt(this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_COMMON_DB_PORT)),
-                            this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_COMMON_DB_DB_NAME),
-                            this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_COMMON_DB_USERNAME),
-                            this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_COMMON_DB_PASSWORD)
-                    );
-                }
-                else {
-                    remoteDBCredentials = new DBCredentialWrapper(
-                            this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_COMMON_DB_HOST),
-                            Integer.parseInt(this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_COMMON_DB_PORT)),
-                            this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_COMMON_DB_DB_NAME),
-                            this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_COMMON_DB_USERNAME),
-                            this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_COMMON_DB_PASSWORD)
-                    );
-                }
+        }
+
+        long partitionSize = 0;
+        if (this.cliArgs.hasOption(CLIOptions.NAME_OPTION_META_TABLE_PARTITION_SIZE)) {
+            partitionSize = Long.parseLong(this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_META_TABLE_PARTITION_SIZE));
+            if (partitionSize <= 0) {
+                System.err.println("Invalid Partition Size. Please provide a positive number of IDs per partition.");
+                return null;
+            }
+        }
+
+        DatabaseConverter dbConverter = new DatabaseConverter(localDBCredentials, remoteDBCredentials);
+        dbConverter.setMetaTablePartitionSize(partitionSize);
+
+        return dbConverter;
+    }
+
+    private void processConvertDB() {
+        try {
+            DatabaseConverter dbConverter = this.createDatabaseConverter();
+            if (dbConverter == null) {
+                return;
             }
 
-            DatabaseConverter dbConverter = new DatabaseConverter(localDBCredentials, remoteDBCredentials);
             dbConverter.convertToDoerDB();
 
             System.out.println("Successfully Converted.");
         }
 
         catch (NumberFormatException numFormatEx) {
-            System.err.println("Invalid Port Numbers. Please recheck your local and remote port numbers.");
+            System.err.println("Invalid Port Numbers or Partition Size. Please recheck your port numbers and partition size.");
         }
 
         catch (SQLException sqlEx) {
@@ -130,4 +189,100 @@ public class CLIProcessor {
         }
     }
 
+    private void processMigrateDB() {
+        try {
+            DatabaseConverter dbConverter = this.createDatabaseConverter();
+            if (dbConverter == null) {
+                return;
+            }
+
+            dbConverter.migrateDoerDB();
+
+            System.out.println("Successfully Migrated.");
+        }
+
+        catch (NumberFormatException numFormatEx) {
+            System.err.println("Invalid Port Numbers or Partition Size. Please recheck your port numbers and partition size.");
+        }
+
+        catch (SQLException sqlEx) {
+            System.err.println("Database failure.\nError Message: " + sqlEx.getMessage());
+        }
+
+        catch (InvalidException | NotFoundException doerDBEx) {
+            System.err.println(doerDBEx.getMessage());
+        }
+    }
+
+    /**
+     * Purges the synchronized changes of a pair of local and remote databases once, or repeatedly at the given interval until the process is stopped.
+     */
+    private void processPurgeDB() {
+        if (!this.hasOptions(CLIProcessor.PAIR_OPTION_NAMES)) {
+            return;
+        }
+
+        DoerDB doerDB = null;
+        try {
+            int batchSize = this.cliArgs.hasOption(CLIOptions.NAME_OPTION_PURGE_BATCH_SIZE) ?
+                    Integer.parseInt(this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_PURGE_BATCH_SIZE)) : DoerDBChangeLogPurger.DEFAULT_BATCH_SIZE;
+            long retentionDays = this.cliArgs.hasOption(CLIOptions.NAME_OPTION_PURGE_RETENTION_DAYS) ?
+                    Long.parseLong(this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_PURGE_RETENTION_DAYS)) : 0;
+            long intervalMinutes = this.cliArgs.hasOption(CLIOptions.NAME_OPTION_PURGE_INTERVAL) ?
+                    Long.parseLong(this.cliArgs.getOptionValue(CLIOptions.NAME_OPTION_PURGE_INTERVAL)) : 0;
+            if (batchSize <= 0 || retentionDays < 0 || intervalMinutes < 0) {
+                System.err.println("Invalid Purge Options. The batch size should be positive, and the retention and interval should not be negative.");
+                return;
+            }
+
+            doerDB = new DoerDB(this.getLocalDBCredentials(), this.getRemoteDBCredentials(), true);
+            DoerDBChangeLogPurger changeLogPurger = new DoerDBChangeLogPurger(doerDB);
+            changeLogPurger.setBatchSize(batchSize);
+            changeLogPurger.setRetentionPeriod(TimeUnit.DAYS.toMillis(retentionDays));
+            changeLogPurger.setExclusiveRemote(this.cliArgs.hasOption(CLIOptions.NAME_OPTION_PURGE_EXCLUSIVE_REMOTE));
+            if (!changeLogPurger.isRemotePurged()) {
+                System.err.println("The remote database is not purged without a retention period, as other local databases may not have synchronized its changes yet. " +
+                        "Provide the retention days, or mark the remote database as exclusive.");
+            }
+
+            while (true) {
+                int deletedCount = changeLogPurger.purge();
+                System.out.println("Successfully Purged. Deleted Changes: " + deletedCount + ", Dropped Partitions: " + changeLogPurger.getDroppedPartitionCount());
+
+                if (intervalMinutes == 0) {
+                    break;
+                }
+
+                Thread.sleep(TimeUnit.MINUTES.toMillis(intervalMinutes));
+            }
+        }
+
+        catch (NumberFormatException numFormatEx) {
+            System.err.println("Invalid Port Numbers or Purge Options. Please recheck your port numbers, batch size, retention and interval.");
+        }
+
+        catch (SQLException sqlEx) {
+            System.err.println("Database failure.\nError Message: " + sqlEx.getMessage());
+        }
+
+        catch (InitializationFailureException | NotFoundException | com.doerit.doerdb.exceptions.InterruptedException doerDBEx) {
+            System.err.println(doerDBEx.getMessage());
+        }
+
+        catch (InterruptedException interruptedEx) {
+            Thread.currentThread().interrupt();
+        }
+
+        finally {
+            if (doerDB != null) {
+                try {
+                    doerDB.close();
+                }
+                catch (SQLException sqlEx) {
+                    System.err.println("Database failure while closing.\nError Message: " + sqlEx.getMessage());
+                }
+            }
+        }
+    }
+
 }
@@ -1,6 +1,11 @@
 package com.doerit.doerdb.db;
 
+import com.doerit.doerdb.DBCredentialWrapper;
+import com.doerit.doerdb.db.jdbc.ConnectionPool;
 import com.doerit.doerdb.db.jdbc.JDBCConstants;
+import com.doerit.doerdb.db.jdbc.ResultSetReader;
+import com.doerit.doerdb.db.jdbc.RowCallback;
+import com.doerit.doerdb.db.jdbc.ScopedStatements;
 import com.doerit.doerdb.db.metadata.DoerDBMetaTable;
 import com.doerit.doerdb.db.metadata.DoerDBSyncDataTable;
 import com.doerit.doerdb.db.metadata.DoerDBSyncStatusTable;
@@ -11,8 +16,15 @@ import com.doerit.doerdb.exceptions.NotFoundException;
 import com.doerit.doerdb.db.types.DatabaseType;
 import com.doerit.doerdb.util.DatabaseValidator;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.*;
 
+/**
+ * DoerDatabase connects DoerDB to a single MySQL database.
+ * The queries of applications and the reads of the DoerDB tables each run on a connection borrowed from the connection pool for the call, so that the synchronizer and applications can query the database at the same time.
+ * The connection established by the DoerDatabase itself is kept for its own QueryExecutor and the validation of the database.
+ */
 public class DoerDatabase {
 
     private static final String EXCEPTION_MESSAGE_INITIALIZATION_FAILURE = "Database initialization failed due to either connection failure or database not being a valid DoerDB.";
@@ -23,13 +35,18 @@ public class DoerDatabase {
     private final String hostUsername;
     private final String hostPassword;
 
-    private final Connection hostConnection;
+    private final String hostConnectionURL;
+    private final long idleValidationMillis;
+    private final ConnectionPool connectionPool;
+    private Connection hostConnection;
+    private long hostConnectionLastUsed;
     private final DoerDBMetaTable doerDBMetaTable;
     private final QueryExecutor queryExecutor;
     private DoerDBSyncDataTable doerDBSyncDataTable = null;
     private DoerDBSyncStatusTable doerDBSyncStatusTable = null;
 
     private boolean initSuccess;
+    private volatile boolean triggersValidated;
 
     /**
      * Constructs DoerDatabase instance with the given parameters.
@@ -43,16 +60,61 @@ public class DoerDatabase {
      * @throws NotFoundException If Meta Table / Sync Table / Any trigger(s) are not found in the given database.
      */
     public DoerDatabase(String hostURL, int hostPort, String dbName, String hostUsername, String hostPassword, DatabaseType dbType) throws SQLException, InitializationFailureException, NotFoundException {
-        this.hostURL = hostURL;
-        this.hostPort = hostPort;
-        this.dbName = dbName;
-        this.hostUsername = hostUsername;
-        this.hostPassword = hostPassword;
+        this(hostURL, hostPort, dbName, hostUsername, hostPassword, dbType, false);
+    }
+
+    /**
+     * Constructs DoerDatabase instance with the given parameters, optionally deferring the validation of the triggers.
+     * The DoerDB tables are always validated, while the triggers of the monitored tables are validated either now or by validateTriggers.
+     * @param hostURL The Host(IP) address to the databases.
+     * @param hostPort The port used by mysql servers.
+     * @param dbName The name of the database to connect.
+     * @param hostUsername Username which is used to establish the connection.
+     * @param hostPassword Password associated with the given username.
+     * @param dbType The type of the database.
+     * @param lazyValidation true to defer the validation of the triggers until validateTriggers is called, false to validate them now.
+     * @throws SQLException If JDBC Driver cannot establish a connection to the server.
+     * @throws InitializationFailureException If DoerDatabase fails to be initialized.
+     * @throws NotFoundException If Meta Table / Sync Table / Any trigger(s) validated are not found in the given database.
+     */
+    public DoerDatabase(String hostURL, int hostPort, String dbName, String hostUsername, String hostPassword, DatabaseType dbType, boolean lazyValidation) throws SQLException, InitializationFailureException, NotFoundException {
+        this(new DBCredentialWrapper(hostURL, hostPort, dbName, hostUsername, hostPassword), dbType, lazyValidation);
+    }
 
-        String fqURL = JDBCConstants.PROTOCOL + "://" + hostURL + ":" + String.valueOf(hostPort) + "/" + dbName + "?" + JDBCConstants.CONNECTION_USER_ARG + "=" + hostUsername + "&" + JDBCConstants.CONNECTION_PASSWORD_ARG + "=" + hostPassword + "&" + JDBCConstants.CONNECTION_USE_SSL_ARG + "=false&allowMultiQueries=true";
+    /**
+     * Constructs DoerDatabase instance with the given credentials and connection pool settings, optionally deferring the validation of the triggers.
+     * The connections of the pool are opened on demand, hence the pool costs nothing until a connection is borrowed.
+     * @param dbCredentials DBCredentialWrapper wrapping the credentials and the connection pool settings of the database.
+     * @param dbType The type of the database.
+     * @param lazyValidation true to defer the validation of the triggers until validateTriggers is called, false to validate them now.
+     * @throws SQLException If JDBC Driver cannot establish a connection to the server.
+     * @throws InitializationFailureException If DoerDatabase fails to be initialized.
+     * @throws NotFoundException If Meta Table / Sync Table / Any trigger(s) validated are not found in the given database.
+     */
+    public DoerDatabase(DBCredentialWrapper dbCredentials, DatabaseType dbType, boolean lazyValidation) throws SQLException, InitializationFailureException, NotFoundException {
+        this.hostURL = dbCredentials.hostURL;
+        this.hostPort = dbCredentials.hostPort;
+        this.dbName = dbCredentials.dbName;
+        this.hostUsername = dbCredentials.hostUsername;
+        this.hostPassword = dbCredentials.hostPassword;
+
+        String fqURL = JDBCConstants.PROTOCOL + "://" + hostURL + ":" + String.valueOf(hostPort) + "/" + dbName + "?" + JDBCConstants.CONNECTION_USER_ARG + "=" + hostUsername + "&" + JDBCConstants.CONNECTION_PASSWORD_ARG + "=" + hostPassword + "&" + JDBCConstants.CONNECTION_USE_SSL_ARG + "=false&allowMultiQueries=true&" + JDBCConstants.CONNECTION_USE_SERVER_PREPARED_STATEMENTS_ARG + "=true&" + JDBCConstants.CONNECTION_REWRITE_BATCHED_STATEMENTS_ARG + "=true";
+        this.hostConnectionURL = fqURL;
+        this.idleValidationMillis = dbCredentials.poolIdleValidationMillis;
+        this.connectionPool = new ConnectionPool(() -> DriverManager.getConnection(fqURL),
+                dbCredentials.poolSize, dbCredentials.poolIdleValidationMillis, dbCredentials.poolBorrowTimeoutMillis, QueryExecutor.MYSQL_QUERY_RESET_SESSION_TAGS);
         this.hostConnection = DriverManager.getConnection(fqURL);
+        this.hostConnectionLastUsed = System.currentTimeMillis();
 
-        this.initSuccess = DatabaseValidator.isDatabaseValid(this.hostConnection, dbName, dbType);
+        if (lazyValidation) {
+            DatabaseValidator.validateDoerDBTables(this.hostConnection, dbName, dbType);
+            this.initSuccess = true;
+            this.triggersValidated = false;
+        }
+        else {
+            this.initSuccess = DatabaseValidator.isDatabaseValid(this.hostConnection, dbName, dbType);
+            this.triggersValidated = this.initSuccess;
+        }
         if (!this.initSuccess) {
             throw new InitializationFailureException(ExceptionCodes.INITIALIZATION_FAILURE, EXCEPTION_MESSAGE_INITIALIZATION_FAILURE);
         }
@@ -67,17 +129,40 @@ public class DoerDatabase {
         }
     }
 
-    /*
-     * Executes a MySQL query on the databases.
+    /**
+     * Executes a MySQL query on the databases, on a connection borrowed from the pool until the ResultSet is closed.
+     * <b>Note: The caller is responsible for closing the ResultSet, which also closes its Statement and returns its connection. Prefer the ResultSetReader and RowCallback variants, which close all of them.</b>
      * @param sqlQuery The query to be executed on the databases.
      * @return java.sql.ResultSet returned after executing the query on the databases.
      * @throws SQLException If any exception occurs during the query execution.
      * @throws InitializationFailureException If DoerDatabase Implementation failed to initialize.
      */
     public ResultSet executeQuery(String sqlQuery) throws SQLException, InitializationFailureException {
+        return this.executeQuery(sqlQuery, JDBCConstants.FETCH_SIZE_DEFAULT);
+    }
+
+    /**
+     * Executes a MySQL query on the databases with the given JDBC fetch size.
+     * Use JDBCConstants.FETCH_SIZE_STREAMING to have the driver stream rows one by one instead of buffering the whole result.
+     * <b>Note: The caller is responsible for closing the ResultSet, which also closes its Statement and returns its connection to the pool.</b>
+     * @param sqlQuery The query to be executed on the databases.
+     * @param fetchSize int The fetch size hint to be passed to the JDBC driver.
+     * @return java.sql.ResultSet returned after executing the query on the databases.
+     * @throws SQLException If any exception occurs during the query execution.
+     * @throws InitializationFailureException If DoerDatabase Implementation failed to initialize.
+     */
+    public ResultSet executeQuery(String sqlQuery, int fetchSize) throws SQLException, InitializationFailureException {
         if (this.initSuccess) {
-            Statement sqlStatement = this.hostConnection.createStatement();
-            return sqlStatement.executeQuery(sqlQuery);
+            try {
+                return this.openResultSet(sqlQuery, fetchSize);
+            }
+            catch (SQLException e) {
+                if (!DoerDatabase.isConnectionFailure(e)) {
+                    throw e;
+                }
+
+                return this.openResultSet(sqlQuery, fetchSize);
+            }
         }
         else {
             throw new InitializationFailureException(ExceptionCodes.INITIALIZATION_FAILURE, EXCEPTION_MESSAGE_INITIALIZATION_FAILURE);
@@ -85,8 +170,138 @@ public class DoerDatabase {
     }
 
     /**
-     * Executes a raw SQL ADD/UPDATE/DELETE query on the databases.
+     * Executes a query on a borrowed connection whose ResultSet is handed to the caller, with its Statement closed and its connection returned along with the ResultSet.
+     * @param sqlQuery The query to be executed on the databases.
+     * @param fetchSize int The fetch size hint to be passed to the JDBC driver.
+     * @return java.sql.ResultSet returned after executing the query on the databases.
+     * @throws SQLException If any exception occurs during the query execution.
+     * @throws InitializationFailureException If DoerDatabase Implementation failed to initialize.
+     */
+    private ResultSet openResultSet(String sqlQuery, int fetchSize) throws SQLException, InitializationFailureException {
+        Connection connection = this.borrowConnection();
+        try {
+            Statement sqlStatement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ResultSet resultSet;
+            try {
+                if (fetchSize != JDBCConstants.FETCH_SIZE_DEFAULT) {
+                    sqlStatement.setFetchSize(fetchSize);
+                }
+                sqlStatement.closeOnCompletion();
+                resultSet = sqlStatement.executeQuery(sqlQuery);
+            }
+            catch (SQLException e) {
+                sqlStatement.close();
+                throw e;
+            }
+
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                if (method.getName().equals("close")) {
+                    try {
+                        resultSet.close();
+                    }
+                    finally {
+                        connection.close();
+                    }
+                    return null;
+                }
+
+                try {
+                    return method.invoke(resultSet, args);
+                }
+                catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+        }
+        catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Executes a MySQL query on the databases and reads a value out of its result. The Statement and the ResultSet are closed before returning.
+     * @param sqlQuery The query to be executed on the databases.
+     * @param resultSetReader ResultSetReader Reads the value out of the result.
+     * @param <T> The type of the value read.
+     * @return T The value read.
+     * @throws SQLException If any exception occurs during the query execution or while reading the result.
+     * @throws InitializationFailureException If DoerDatabase Implementation failed to initialize.
+     */
+    public <T> T executeQuery(String sqlQuery, ResultSetReader<T> resultSetReader) throws SQLException, InitializationFailureException {
+        return this.executeQuery(sqlQuery, JDBCConstants.FETCH_SIZE_DEFAULT, resultSetReader);
+    }
+
+    /**
+     * Executes a MySQL query on the databases with the given JDBC fetch size and reads a value out of its result. The Statement and the ResultSet are closed, and the connection borrowed for the query returned, before returning.
+     * The query is retried on another connection if the connection dropped before the result was read.
+     * @param sqlQuery The query to be executed on the databases.
+     * @param fetchSize int The fetch size hint to be passed to the JDBC driver.
+     * @param resultSetReader ResultSetReader Reads the value out of the result.
+     * @param <T> The type of the value read.
+     * @return T The value read.
+     * @throws SQLException If any exception occurs during the query execution or while reading the result.
+     * @throws InitializationFailureException If DoerDatabase Implementation failed to initialize.
+     */
+    public <T> T executeQuery(String sqlQuery, int fetchSize, ResultSetReader<T> resultSetReader) throws SQLException, InitializationFailureException {
+        if (this.initSuccess) {
+            boolean[] readStarted = {false};
+            try (Connection connection = this.borrowConnection()) {
+                return ScopedStatements.executeQuery(connection, sqlQuery, fetchSize, resultSet -> {
+                    readStarted[0] = true;
+                    return resultSetReader.read(resultSet);
+                });
+            }
+            catch (SQLException e) {
+                if (readStarted[0] || !DoerDatabase.isConnectionFailure(e)) {
+                    throw e;
+                }
+            }
+
+            /* The dropped connection failed to be reset when returned, hence the pool discarded it. */
+            try (Connection connection = this.borrowConnection()) {
+                return ScopedStatements.executeQuery(connection, sqlQuery, fetchSize, resultSetReader);
+            }
+        }
+        else {
+            throw new InitializationFailureException(ExceptionCodes.INITIALIZATION_FAILURE, EXCEPTION_MESSAGE_INITIALIZATION_FAILURE);
+        }
+    }
+
+    /**
+     * Executes a MySQL query on the databases and passes each row of its result to a callback. The Statement and the ResultSet are closed before returning.
+     * @param sqlQuery The query to be executed on the databases.
+     * @param rowCallback RowCallback Processes the rows in the order of the result.
+     * @throws SQLException If any exception occurs during the query execution or while processing a row.
+     * @throws InitializationFailureException If DoerDatabase Implementation failed to initialize.
+     */
+    public void forEachRow(String sqlQuery, RowCallback rowCallback) throws SQLException, InitializationFailureException {
+        this.forEachRow(sqlQuery, JDBCConstants.FETCH_SIZE_DEFAULT, rowCallback);
+    }
+
+    /**
+     * Executes a MySQL query on the databases with the given JDBC fetch size and passes each row of its result to a callback.
+     * Use JDBCConstants.FETCH_SIZE_STREAMING to process the rows as they are streamed from the server instead of buffering the whole result.
+     * The rows are streamed on a connection borrowed for the query, hence other queries may run on the DoerDatabase meanwhile.
+     * @param sqlQuery The query to be executed on the databases.
+     * @param fetchSize int The fetch size hint to be passed to the JDBC driver.
+     * @param rowCallback RowCallback Processes the rows in the order of the result.
+     * @throws SQLException If any exception occurs during the query execution or while processing a row.
+     * @throws InitializationFailureException If DoerDatabase Implementation failed to initialize.
+     */
+    public void forEachRow(String sqlQuery, int fetchSize, RowCallback rowCallback) throws SQLException, InitializationFailureException {
+        this.executeQuery(sqlQuery, fetchSize, resultSet -> {
+            while (resultSet.next()) {
+                rowCallback.processRow(resultSet);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Executes a raw SQL ADD/UPDATE/DELETE query on the databases, on a connection borrowed from the pool for the query.
      * No addition of the Query to Meta Table.
+     * The query is not retried on a dropped connection, since the server may have applied it before the connection dropped.
      * @param sqlQuery The ADD/UPDATE/DELETE query to be executed on the databases.
      * @return int The number of columns affected.
      * @throws SQLException If any exception occurs during the ADD/UPDATE/DELETE query execution.
@@ -94,14 +309,174 @@ public class DoerDatabase {
      */
     public int executeUpdate(String sqlQuery) throws SQLException, InitializationFailureException {
         if (this.initSuccess) {
-            Statement sqlStatement = this.hostConnection.createStatement();
-            return sqlStatement.executeUpdate(sqlQuery);
+            try (Connection connection = this.borrowConnection()) {
+                return ScopedStatements.executeUpdate(connection, sqlQuery);
+            }
+        }
+        else {
+            throw new InitializationFailureException(ExceptionCodes.INITIALIZATION_FAILURE, EXCEPTION_MESSAGE_INITIALIZATION_FAILURE);
+        }
+    }
+
+    /**
+     * Used to obtain the JDBC connection established by the DoerDatabase, on which its own QueryExecutor runs. The queries of applications run on pooled connections instead.
+     * <b>Note: The connection is replaced if it is found broken, hence use getValidConnection to obtain the current connection before using it.</b>
+     * @return Connection The connection established by the DoerDatabase.
+     */
+    public synchronized Connection getConnection() {
+        return hostConnection;
+    }
+
+    /**
+     * Used to obtain the JDBC connection to the database, reconnecting transparently if the connection is closed
+     * or, after being idle for longer than the idle validation interval, does not respond to a validation.
+     * The connection is never replaced while the QueryExecutor of the DoerDatabase has a transaction active on it,
+     * since the statements of the transaction would otherwise be lost silently.
+     * @return Connection The valid connection established by the DoerDatabase.
+     * @throws SQLException If JDBC Driver cannot establish a new connection to the server.
+     */
+    public synchronized Connection getValidConnection() throws SQLException {
+        long currentTime = System.currentTimeMillis();
+        boolean idle = currentTime - this.hostConnectionLastUsed >= this.idleValidationMillis;
+        this.hostConnectionLastUsed = currentTime;
+        if (this.queryExecutor != null && this.queryExecutor.isTransactionActive()) {
+            return this.hostConnection;
+        }
+
+        boolean valid;
+        try {
+            valid = !this.hostConnection.isClosed() && (!idle || this.hostConnection.isValid(JDBCConstants.CONNECTION_VALIDATION_TIMEOUT_SECONDS));
+        }
+        catch (SQLException e) {
+            valid = false;
+        }
+        if (!valid) {
+            this.reconnect();
+        }
+
+        return this.hostConnection;
+    }
+
+    /**
+     * Used to check whether a query failed because its connection dropped, in which case it may be retried on another connection.
+     * @param exception SQLException The exception the query failed with.
+     * @return boolean true if the connection dropped, false otherwise.
+     */
+    private static boolean isConnectionFailure(SQLException exception) {
+        return exception instanceof SQLNonTransientConnectionException || exception instanceof SQLRecoverableException ||
+                (exception.getSQLState() != null && exception.getSQLState().startsWith(JDBCConstants.SQL_STATE_CLASS_CONNECTION_EXCEPTION));
+    }
+
+    /**
+     * Replaces the connection of the DoerDatabase with a new connection.
+     * @throws SQLException If JDBC Driver cannot establish a new connection to the server.
+     */
+    private void reconnect() throws SQLException {
+        Connection brokenConnection = this.hostConnection;
+        this.hostConnection = DriverManager.getConnection(this.hostConnectionURL);
+        this.hostConnectionLastUsed = System.currentTimeMillis();
+        try {
+            brokenConnection.close();
+        }
+        catch (SQLException e) {
+            // The connection is already broken, and is released by the driver.
+        }
+    }
+
+    /**
+     * Borrows a connection from the connection pool of the database, separate from the connection established by the DoerDatabase.
+     * Pooled connections can be borrowed by the synchronizer and applications at the same time, up to the size of the pool. The query methods of the DoerDatabase borrow one per call.
+     * <b>Note: The caller is responsible for closing the connection, which returns it to the pool.</b>
+     * @return Connection A valid pooled connection.
+     * @throws SQLException If no connection is returned to the pool within the borrow timeout, or JDBC Driver cannot establish a connection to the server.
+     * @throws InitializationFailureException If DoerDatabase Implementation failed to initialize.
+     */
+    public Connection borrowConnection() throws SQLException, InitializationFailureException {
+        if (this.initSuccess) {
+            return this.connectionPool.borrowConnection();
         }
         else {
             throw new InitializationFailureException(ExceptionCodes.INITIALIZATION_FAILURE, EXCEPTION_MESSAGE_INITIALIZATION_FAILURE);
         }
     }
 
+    /**
+     * Used to obtain the connection pool of the database.
+     * @return ConnectionPool The connection pool.
+     */
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    /**
+     * Closes the connection established by the DoerDatabase and the idle connections of its pool.
+     * Borrowed connections are closed as they are returned.
+     * @throws SQLException If the connection cannot be closed.
+     */
+    public void close() throws SQLException {
+        this.connectionPool.close();
+        try {
+            if (this.queryExecutor != null) {
+                this.queryExecutor.close();
+            }
+        }
+        catch (SQLException e) {
+            // The statements are released with the connection.
+        }
+        this.getConnection().close();
+    }
+
+    /**
+     * Opens a new JDBC connection to the database, separate from the connection established by the DoerDatabase and from its pool.
+     * <b>Note: The caller is responsible for closing the connection.</b>
+     * @return Connection The new connection.
+     * @throws SQLException If JDBC Driver cannot establish a connection to the server.
+     * @throws InitializationFailureException If DoerDatabase Implementation failed to initialize.
+     */
+    public Connection openConnection() throws SQLException, InitializationFailureException {
+        if (this.initSuccess) {
+            return DriverManager.getConnection(this.hostConnectionURL);
+        }
+        else {
+            throw new InitializationFailureException(ExceptionCodes.INITIALIZATION_FAILURE, EXCEPTION_MESSAGE_INITIALIZATION_FAILURE);
+        }
+    }
+
+    /**
+     * Validates the triggers of the monitored tables of the database if they have not been validated yet.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     * @throws NotFoundException If any trigger is missing, in which case every missing trigger is reported.
+     */
+    public synchronized void validateTriggers() throws SQLException, NotFoundException {
+        if (this.triggersValidated) {
+            return;
+        }
+
+        DatabaseValidator.validateTriggers(this.getValidConnection(), this.dbName);
+        this.triggersValidated = true;
+    }
+
+    /**
+     * Reads the UUID of the MySQL server hosting the database, which is unique to the server.
+     * @return String The UUID of the server.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     * @throws InitializationFailureException If DoerDatabase Implementation failed to initialize.
+     */
+    public String readServerUUID() throws SQLException, InitializationFailureException {
+        return this.executeQuery(MySQL.SQL_SELECT_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_VARIABLE_SERVER_UUID, resultServerUUID -> {
+            resultServerUUID.next();
+            return resultServerUUID.getString(1);
+        });
+    }
+
+    /**
+     * Used to check whether the triggers of the monitored tables of the database have been validated.
+     * @return boolean true if validated, false if the validation is deferred.
+     */
+    public boolean isTriggersValidated() {
+        return triggersValidated;
+    }
+
     /**
      * Used to obtain the name of the database.
      * @return String The Name of the Database.
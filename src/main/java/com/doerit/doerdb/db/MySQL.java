@@ -10,10 +10,13 @@ public class MySQL {
 
     public static final String SQL_INSERT_PREFIX = MySQL.SQL_INSERT_CLAUSE + " INTO";
     public static final String SQL_INSERT_VALUES = "VALUES";
+    public static final String SQL_INSERT_ON_DUPLICATE_KEY_UPDATE = "ON DUPLICATE KEY UPDATE";
     public static final String SQL_UPDATE_PREFIX = "UPDATE";
     public static final String SQL_SHOW_CLAUSE = "SHOW";
+    public static final String SQL_ALTER_CLAUSE = "ALTER";
     public static final String SQL_CREATE_CLAUSE = "CREATE";
     public static final String SQL_DROP_CLAUSE = "DROP";
+    public static final String SQL_DELETE_PREFIX = "DELETE FROM";
     public static final String SQL_INSERT_CLAUSE = "INSERT";
     public static final String SQL_BEGIN_CLAUSE = "BEGIN";
     public static final String SQL_END_CLAUSE = "END";
@@ -36,24 +39,58 @@ public class MySQL {
     public static final String SQL_LIKE_OPERATOR = "LIKE";
     public static final String SQL_FOR_OPERATOR = "FOR";
     public static final String SQL_BY_OPERATOR = "BY";
+    public static final String SQL_AS_OPERATOR = "AS";
     public static final String SQL_NEW_OPERATOR = "NEW";
     public static final String SQL_OLD_OPERATOR = "OLD";
     public static final String SQL_LIMIT_OPERATOR = "LIMIT";
     public static final String SQL_SORT_ASC = "ASC";
     public static final String SQL_SORT_DESC = "DESC";
     public static final String SQL_VALUE_NULL = "NULL";
+    public static final String SQL_VALUE_TRUE = "TRUE";
+    public static final String SQL_VALUE_FALSE = "FALSE";
+    public static final String SQL_JSON_OBJECT_FUNCTION = "JSON_OBJECT";
+    public static final String SQL_JSON_MERGE_FUNCTION = "JSON_MERGE_PRESERVE";
+    public static final String SQL_TO_BASE64_FUNCTION = "TO_BASE64";
+    public static final String SQL_FROM_BASE64_FUNCTION = "FROM_BASE64";
+    public static final String SQL_CAST_FUNCTION = "CAST";
+    public static final String SQL_MAX_FUNCTION = "MAX";
+    public static final String SQL_VARIABLE_SERVER_UUID = "@@server_uuid";
     public static final String SQL_CONTENT_TRIGGER = "TRIGGER";
     public static final String SQL_CONTENT_TABLES = "TABLES";
     public static final String SQL_CONTENT_COLUMNS = "COLUMNS";
     public static final String SQL_CONTENT_TABLE_NAME = "table_name";
     public static final String SQL_CONTENT_COLUMN_NAME = "column_name";
+    public static final String SQL_CONTENT_DATA_TYPE = "data_type";
     public static final String SQL_CONTENT_TABLE_SCHEMA = "table_schema";
     public static final String SQL_CONTENT_FIELD = "Field";
     public static final String SQL_CONTENT_INFORMATION_SCHEMA_TABLES = "information_schema.tables";
+    public static final String SQL_CONTENT_INFORMATION_SCHEMA_STATISTICS = "information_schema.statistics";
+    public static final String SQL_CONTENT_INFORMATION_SCHEMA_COLUMNS = "information_schema.columns";
+    public static final String SQL_CONTENT_ORDINAL_POSITION = "ordinal_position";
+    public static final String SQL_CONTENT_INFORMATION_SCHEMA_TRIGGERS = "information_schema.triggers";
+    public static final String SQL_CONTENT_INFORMATION_SCHEMA_PARTITIONS = "information_schema.partitions";
+    public static final String SQL_CONTENT_INFORMATION_SCHEMA_REFERENTIAL_CONSTRAINTS = "information_schema.referential_constraints";
+    public static final String SQL_CONTENT_CONSTRAINT_SCHEMA = "constraint_schema";
+    public static final String SQL_CONTENT_REFERENCED_TABLE_NAME = "referenced_table_name";
+    public static final String SQL_CONTENT_PARTITION_NAME = "partition_name";
+    public static final String SQL_CONTENT_PARTITION_DESCRIPTION = "partition_description";
+    public static final String SQL_CONTENT_PARTITION_ORDINAL_POSITION = "partition_ordinal_position";
+    public static final String SQL_CONTENT_TRIGGER_SCHEMA = "trigger_schema";
+    public static final String SQL_CONTENT_TRIGGER_NAME = "trigger_name";
+    public static final String SQL_CONTENT_ACTION_STATEMENT = "action_statement";
+    public static final String SQL_CONTENT_COLUMNS_FINGERPRINT = "columns_fingerprint";
+    public static final String SQL_CONTENT_KEYS_FINGERPRINT = "keys_fingerprint";
+    public static final String SQL_CONTENT_INDEX_NAME = "index_name";
+    public static final String SQL_CONTENT_NON_UNIQUE = "non_unique";
+    public static final String SQL_CONTENT_NULLABLE = "nullable";
+    public static final String SQL_CONTENT_SEQ_IN_INDEX = "seq_in_index";
+    public static final String SQL_CONTENT_PRIMARY_KEY = "PRIMARY";
 
     public static final String SQL_INTERNAL_QUOTES = "`";
     public static final String SQL_EXTERNAL_QUOTES = "'";
     public static final String SQL_EQUATOR = "=";
+    public static final String SQL_NULL_SAFE_EQUATOR = "<=>";
+    public static final String SQL_PARAMETER = "?";
     public static final String SQL_SEPARATOR = ",";
     public static final String SQL_SPACE = " ";
     public static final String SQL_BRACKET_ROUND_OPEN = "(";
@@ -61,6 +98,15 @@ public class MySQL {
 
     public static final String SQL_DEFAULT_TIMESTAMP_FORMAT = "yyyy-M-d H:m:s";
 
+    /**
+     * Used to quote a string as a MySQL string literal, escaping the quotes and backslashes in it.
+     * @param value String The string to be quoted.
+     * @return String The string literal.
+     */
+    public static String getQuotedStringSQL(String value) {
+        return MySQL.SQL_EXTERNAL_QUOTES + value.replace("\\", "\\\\").replace(MySQL.SQL_EXTERNAL_QUOTES, MySQL.SQL_EXTERNAL_QUOTES + MySQL.SQL_EXTERNAL_QUOTES) + MySQL.SQL_EXTERNAL_QUOTES;
+    }
+
     /**
      * Used to obtain current date and time as a Timestamp.
      * @return Timestamp for the current date and time.
@@ -0,0 +1,328 @@
+package com.doerit.doerdb.db.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * ConnectionPool keeps a bounded number of JDBC connections to a database to be borrowed and returned by several threads at the same time.
+ * Connections are opened on demand up to the size of the pool, and a connection which has been idle for longer than the idle validation interval
+ * is validated before it is borrowed, so that a connection dropped by the server is replaced with a new one instead of being handed out.
+ * A borrowed connection is returned to the pool by closing it, which rolls back its open transaction and restores the session state it was borrowed with,
+ * i.e. auto-commit mode, the transaction isolation and, if a reset query is given, the session variables, so that the next borrower does not inherit them.
+ */
+public class ConnectionPool {
+
+    /**
+     * Opens the physical connections of a ConnectionPool.
+     */
+    public interface ConnectionFactory {
+
+        /**
+         * Opens a new connection to the database.
+         * @return Connection The new connection.
+         * @throws SQLException If the connection cannot be established.
+         */
+        Connection openConnection() throws SQLException;
+
+    }
+
+    private static final class IdleConnection {
+
+        private final Connection connection;
+        private final long idleSince;
+
+        private IdleConnection(Connection connection, long idleSince) {
+            this.connection = connection;
+            this.idleSince = idleSince;
+        }
+
+    }
+
+    private final ConnectionFactory connectionFactory;
+    private final int maxSize;
+    private final long idleValidationMillis;
+    private final long borrowTimeoutMillis;
+    private final String resetSessionQuery;
+
+    /* Idle connections are borrowed last in first out, so that the connections in use stay warm and the rest may be validated or dropped. */
+    private final Deque<IdleConnection> idleConnections = new ArrayDeque<>();
+    private int openCount = 0;
+    private boolean closed = false;
+
+    /**
+     * Constructor for ConnectionPool.
+     * @param connectionFactory ConnectionFactory Opens the connections of the pool.
+     * @param maxSize int The maximum number of connections open at the same time.
+     * @param idleValidationMillis long The time in milliseconds after which an idle connection is validated before it is borrowed, 0 to validate on every borrow.
+     * @param borrowTimeoutMillis long The maximum time in milliseconds to wait for a connection when every connection is borrowed.
+     */
+    public ConnectionPool(ConnectionFactory connectionFactory, int maxSize, long idleValidationMillis, long borrowTimeoutMillis) {
+        this(connectionFactory, maxSize, idleValidationMillis, borrowTimeoutMillis, null);
+    }
+
+    /**
+     * Constructor for ConnectionPool, resetting the session variables of the returned connections with a query.
+     * @param connectionFactory ConnectionFactory Opens the connections of the pool.
+     * @param maxSize int The maximum number of connections open at the same time.
+     * @param idleValidationMillis long The time in milliseconds after which an idle connection is validated before it is borrowed, 0 to validate on every borrow.
+     * @param borrowTimeoutMillis long The maximum time in milliseconds to wait for a connection when every connection is borrowed.
+     * @param resetSessionQuery String The query executed on every returned connection to reset its session variables, null to leave them as they are.
+     */
+    public ConnectionPool(ConnectionFactory connectionFactory, int maxSize, long idleValidationMillis, long borrowTimeoutMillis, String resetSessionQuery) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Pool size should be a positive integer.");
+        }
+        if (idleValidationMillis < 0 || borrowTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Pool intervals should not be negative.");
+        }
+
+        this.connectionFactory = connectionFactory;
+        this.maxSize = maxSize;
+        this.idleValidationMillis = idleValidationMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.resetSessionQuery = resetSessionQuery;
+    }
+
+    /**
+     * Borrows a connection from the pool, waiting up to the borrow timeout if every connection is borrowed.
+     * <b>Note: The connection is returned to the pool by closing it, after which it cannot be used by the borrower.</b>
+     * @return Connection A valid connection.
+     * @throws SQLException If the pool is closed, no connection is returned within the borrow timeout, or a new connection cannot be established.
+     */
+    public Connection borrowConnection() throws SQLException {
+        Connection connection = this.acquireConnection();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, new PooledConnectionHandler(connection));
+    }
+
+    /**
+     * Takes a healthy idle connection, or opens a new connection if the pool is not full.
+     * @return Connection The physical connection.
+     * @throws SQLException If the pool is closed, no connection is returned within the borrow timeout, or a new connection cannot be established.
+     */
+    private Connection acquireConnection() throws SQLException {
+        long deadline = System.currentTimeMillis() + this.borrowTimeoutMillis;
+        while (true) {
+            IdleConnection idleConnection;
+            synchronized (this) {
+                while (true) {
+                    if (this.closed) {
+                        throw new SQLException("The connection pool is closed.");
+                    }
+
+                    idleConnection = this.idleConnections.pollLast();
+                    if (idleConnection != null) {
+                        break;
+                    }
+                    if (this.openCount < this.maxSize) {
+                        this.openCount++;
+                        break;
+                    }
+
+                    long remainingMillis = deadline - System.currentTimeMillis();
+                    if (remainingMillis <= 0) {
+                        throw new SQLException("No connection was returned to the pool of " + this.maxSize + " connections within " + this.borrowTimeoutMillis + "ms.");
+                    }
+                    try {
+                        this.wait(remainingMillis);
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a connection from the pool.", e);
+                    }
+                }
+            }
+
+            if (idleConnection == null) {
+                try {
+                    return this.connectionFactory.openConnection();
+                }
+                catch (SQLException | RuntimeException e) {
+                    this.discardConnection(null);
+                    throw e;
+                }
+            }
+
+            if (this.isHealthy(idleConnection)) {
+                return idleConnection.connection;
+            }
+            this.discardConnection(idleConnection.connection);
+        }
+    }
+
+    /**
+     * Used to check whether an idle connection can be borrowed, validating it with the server if it has been idle for too long.
+     * @param idleConnection IdleConnection The idle connection.
+     * @return boolean true if the connection is open and, if validated, responded to the server, false otherwise.
+     */
+    private boolean isHealthy(IdleConnection idleConnection) {
+        try {
+            if (idleConnection.connection.isClosed()) {
+                return false;
+            }
+
+            return System.currentTimeMillis() - idleConnection.idleSince < this.idleValidationMillis ||
+                    idleConnection.connection.isValid(JDBCConstants.CONNECTION_VALIDATION_TIMEOUT_SECONDS);
+        }
+        catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns a borrowed connection to the pool, resetting it to auto-commit mode, the transaction isolation it was borrowed with, and the session variables.
+     * A connection which cannot be reset, or which is returned after the pool is closed, is closed instead.
+     * @param connection Connection The physical connection.
+     * @param borrowedIsolation Integer The transaction isolation of the connection when borrowed, null if the borrower did not change it.
+     */
+    private void returnConnection(Connection connection, Integer borrowedIsolation) {
+        try {
+            if (connection.isClosed()) {
+                this.discardConnection(connection);
+                return;
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            if (borrowedIsolation != null) {
+                connection.setTransactionIsolation(borrowedIsolation);
+            }
+            if (this.resetSessionQuery != null) {
+                ScopedStatements.executeUpdate(connection, this.resetSessionQuery);
+            }
+        }
+        catch (SQLException e) {
+            this.discardConnection(connection);
+            return;
+        }
+
+        synchronized (this) {
+            if (!this.closed) {
+                this.idleConnections.addLast(new IdleConnection(connection, System.currentTimeMillis()));
+                this.notifyAll();
+                return;
+            }
+        }
+        this.discardConnection(connection);
+    }
+
+    /**
+     * Closes a connection of the pool, freeing its place for a new connection.
+     * @param connection Connection The physical connection, null if the connection failed to open.
+     */
+    private void discardConnection(Connection connection) {
+        synchronized (this) {
+            this.openCount--;
+            this.notifyAll();
+        }
+
+        if (connection != null) {
+            try {
+                connection.close();
+            }
+            catch (SQLException e) {
+                // The connection is already broken, and is released by the driver.
+            }
+        }
+    }
+
+    /**
+     * Used to obtain the number of connections open, whether borrowed or idle.
+     * @return int The number of connections open.
+     */
+    public synchronized int getOpenCount() {
+        return openCount;
+    }
+
+    /**
+     * Used to obtain the number of connections idle in the pool.
+     * @return int The number of idle connections.
+     */
+    public synchronized int getIdleCount() {
+        return idleConnections.size();
+    }
+
+    /**
+     * Used to obtain the maximum number of connections open at the same time.
+     * @return int The size of the pool.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Closes the idle connections of the pool. The borrowed connections are closed when they are returned.
+     */
+    public void close() {
+        Deque<IdleConnection> closedConnections;
+        synchronized (this) {
+            this.closed = true;
+            closedConnections = new ArrayDeque<>(this.idleConnections);
+            this.idleConnections.clear();
+            this.notifyAll();
+        }
+
+        for (IdleConnection idleConnection : closedConnections) {
+            this.discardConnection(idleConnection.connection);
+        }
+    }
+
+    /**
+     * Routes the calls on a borrowed connection to its physical connection, and returns the physical connection to the pool when closed.
+     * The transaction isolation is read only when the borrower changes it, so that the connections left as they were are returned without a round trip for it.
+     */
+    private final class PooledConnectionHandler implements InvocationHandler {
+
+        private final AtomicReference<Connection> connection;
+        private volatile Integer borrowedIsolation = null;
+
+        private PooledConnectionHandler(Connection connection) {
+            this.connection = new AtomicReference<>(connection);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String methodName = method.getName();
+            if (methodName.equals("close")) {
+                Connection returnedConnection = this.connection.getAndSet(null);
+                if (returnedConnection != null) {
+                    ConnectionPool.this.returnConnection(returnedConnection, this.borrowedIsolation);
+                }
+                return null;
+            }
+
+            Connection physicalConnection = this.connection.get();
+            if (methodName.equals("isClosed") && physicalConnection == null) {
+                return true;
+            }
+            if (methodName.equals("equals")) {
+                return proxy == args[0];
+            }
+            if (methodName.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            if (physicalConnection == null) {
+                throw new SQLException("The connection has been returned to the pool.");
+            }
+            if (methodName.equals("setTransactionIsolation") && this.borrowedIsolation == null) {
+                this.borrowedIsolation = physicalConnection.getTransactionIsolation();
+            }
+
+            try {
+                return method.invoke(physicalConnection, args);
+            }
+            catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+    }
+
+}
@@ -6,5 +6,19 @@ public class JDBCConstants {
     public static final String CONNECTION_USER_ARG = "user";
     public static final String CONNECTION_PASSWORD_ARG = "password";
     public static final String CONNECTION_USE_SSL_ARG = "useSSL";
+    public static final String CONNECTION_USE_SERVER_PREPARED_STATEMENTS_ARG = "useServerPrepStmts";
+    public static final String CONNECTION_REWRITE_BATCHED_STATEMENTS_ARG = "rewriteBatchedStatements";
+
+    /* The fetch size leaving the number of rows fetched at once to the JDBC driver. */
+    public static final int FETCH_SIZE_DEFAULT = 0;
+
+    /* MySQL Connector/J streams the rows of a ResultSet one by one only when the fetch size is set to this value. */
+    public static final int FETCH_SIZE_STREAMING = Integer.MIN_VALUE;
+
+    /* The time in seconds a connection is given to respond to a validation before it is considered broken. */
+    public static final int CONNECTION_VALIDATION_TIMEOUT_SECONDS = 5;
+
+    /* The class of SQLState values reporting that a connection failed or was dropped. */
+    public static final String SQL_STATE_CLASS_CONNECTION_EXCEPTION = "08";
 
 }
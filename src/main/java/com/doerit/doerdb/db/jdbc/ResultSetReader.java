@@ -0,0 +1,21 @@
+package com.doerit.doerdb.db.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reads a value out of a ResultSet whose Statement is scoped by the caller.
+ * The ResultSet and its Statement are closed right after read returns, hence neither should be kept by the reader.
+ * @param <T> The type of the value read.
+ */
+public interface ResultSetReader<T> {
+
+    /**
+     * Reads a value out of the ResultSet.
+     * @param resultSet ResultSet The result of the query, positioned before the first row.
+     * @return T The value read.
+     * @throws SQLException If any exception is thrown while reading the ResultSet.
+     */
+    T read(ResultSet resultSet) throws SQLException;
+
+}
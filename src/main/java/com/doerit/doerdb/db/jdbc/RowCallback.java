@@ -0,0 +1,18 @@
+package com.doerit.doerdb.db.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Processes the rows of a query one by one, without holding the ResultSet of the query.
+ */
+public interface RowCallback {
+
+    /**
+     * Processes a single row.
+     * @param row ResultSet The result of the query, positioned at the row. It should not be advanced or kept by the callback.
+     * @throws SQLException If any exception is thrown while reading the row.
+     */
+    void processRow(ResultSet row) throws SQLException;
+
+}
@@ -0,0 +1,69 @@
+package com.doerit.doerdb.db.jdbc;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * ScopedStatements executes SQL on a connection with every Statement and ResultSet scoped to a single call,
+ * so that both are closed as soon as the call returns or fails and no driver or server side resources outlive the query.
+ */
+public final class ScopedStatements {
+
+    private ScopedStatements() {
+    }
+
+    /**
+     * Executes a query and reads a value out of its result.
+     * @param connection Connection The connection on which the query is executed.
+     * @param sqlQuery String The query.
+     * @param fetchSize int The fetch size hint to be passed to the JDBC driver, JDBCConstants.FETCH_SIZE_DEFAULT to leave it to the driver.
+     * @param resultSetReader ResultSetReader Reads the value out of the result.
+     * @param <T> The type of the value read.
+     * @return T The value read.
+     * @throws SQLException If any exception occurs during the query execution or while reading the result.
+     */
+    public static <T> T executeQuery(Connection connection, String sqlQuery, int fetchSize, ResultSetReader<T> resultSetReader) throws SQLException {
+        try (Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            if (fetchSize != JDBCConstants.FETCH_SIZE_DEFAULT) {
+                statement.setFetchSize(fetchSize);
+            }
+
+            try (ResultSet resultSet = statement.executeQuery(sqlQuery)) {
+                return resultSetReader.read(resultSet);
+            }
+        }
+    }
+
+    /**
+     * Executes a query and passes each row of its result to a callback.
+     * @param connection Connection The connection on which the query is executed.
+     * @param sqlQuery String The query.
+     * @param fetchSize int The fetch size hint to be passed to the JDBC driver, JDBCConstants.FETCH_SIZE_STREAMING to stream the rows one by one.
+     * @param rowCallback RowCallback Processes the rows in the order of the result.
+     * @throws SQLException If any exception occurs during the query execution or while processing a row.
+     */
+    public static void forEachRow(Connection connection, String sqlQuery, int fetchSize, RowCallback rowCallback) throws SQLException {
+        ScopedStatements.executeQuery(connection, sqlQuery, fetchSize, resultSet -> {
+            while (resultSet.next()) {
+                rowCallback.processRow(resultSet);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Executes an ADD/UPDATE/DELETE or DDL statement.
+     * @param connection Connection The connection on which the statement is executed.
+     * @param sqlQuery String The statement.
+     * @return int The number of rows affected.
+     * @throws SQLException If any exception occurs during the execution.
+     */
+    public static int executeUpdate(Connection connection, String sqlQuery) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            return statement.executeUpdate(sqlQuery);
+        }
+    }
+
+}
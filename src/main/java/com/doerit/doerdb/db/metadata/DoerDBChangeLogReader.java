@@ -0,0 +1,229 @@
+package com.doerit.doerdb.db.metadata;
+
+import com.doerit.doerdb.db.queries.BasicQuery;
+import com.doerit.doerdb.db.queries.builders.QueryBuilder;
+import com.doerit.doerdb.exceptions.InitializationFailureException;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * DoerDBChangeLogReader walks the records of a Meta Table in the ascending order of IDs and yields them as BasicQueries.
+ * Records are fetched lazily with keyset pagination, hence at most a single page is held in memory regardless of the size of the Meta Table.
+ * The changes applied by the synchronizer of an excluded origin are left out by the database, and the reader moves past them up to the upper bound.
+ * The next page may be prefetched on another thread while the current page is read, and is taken into the buffer only once the current page is exhausted.
+ */
+public class DoerDBChangeLogReader {
+
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
+    private final DoerDBMetaTable doerDBMetaTable;
+    private final long upperBoundID;
+    private final int pageSize;
+    private final String excludedOrigin;
+    private final Deque<BasicQuery> pageQueries = new ArrayDeque<>();
+
+    private long lastFetchedID;
+    private long lastReadID;
+    private boolean endReached = false;
+    private Future<List<Map<String, Object>>> prefetchedPage = null;
+
+    /**
+     * Constructor for DoerDBChangeLogReader.
+     * @param doerDBMetaTable DoerDBMetaTable The Meta Table to be read.
+     * @param thresholdID long The ID after which the records should be read.
+     * @param upperBoundID long The ID of the last record to be read(inclusive), -1 for no upper bound.
+     * @param pageSize int The number of records to be fetched from the database at once.
+     */
+    public DoerDBChangeLogReader(DoerDBMetaTable doerDBMetaTable, long thresholdID, long upperBoundID, int pageSize) {
+        this(doerDBMetaTable, thresholdID, upperBoundID, pageSize, null);
+    }
+
+    /**
+     * Constructor for DoerDBChangeLogReader.
+     * @param doerDBMetaTable DoerDBMetaTable The Meta Table to be read.
+     * @param thresholdID long The ID after which the records should be read.
+     * @param upperBoundID long The ID of the last record to be read(inclusive), -1 for no upper bound.
+     * @param pageSize int The number of records to be fetched from the database at once.
+     * @param excludedOrigin String The origin of the changes to be left out, null to read every change.
+     */
+    public DoerDBChangeLogReader(DoerDBMetaTable doerDBMetaTable, long thresholdID, long upperBoundID, int pageSize, String excludedOrigin) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size should be a positive integer.");
+        }
+
+        this.doerDBMetaTable = doerDBMetaTable;
+        this.upperBoundID = upperBoundID;
+        this.pageSize = pageSize;
+        this.excludedOrigin = excludedOrigin;
+        this.lastFetchedID = thresholdID;
+        this.lastReadID = thresholdID;
+    }
+
+    /**
+     * Fetches the next page of records from the Meta Table into the buffer.
+     * Records which cannot be represented as a BasicQuery are skipped, but still advance the position of the reader.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
+     */
+    private void fetchNextPage() throws SQLException, InitializationFailureException {
+        List<Map<String, Object>> pageRecordsInfo;
+        if (this.prefetchedPage != null) {
+            try {
+                pageRecordsInfo = DoerDBChangeLogReader.awaitPage(this.prefetchedPage);
+            }
+            finally {
+                this.prefetchedPage = null;
+            }
+        }
+        else {
+            pageRecordsInfo = this.doerDBMetaTable.getQueryRecordsInfoPageAfterID(this.lastFetchedID, this.upperBoundID, this.pageSize, this.excludedOrigin);
+        }
+
+        for (Map<String, Object> recordInfo : pageRecordsInfo) {
+            this.lastFetchedID = Long.parseLong(recordInfo.get(DoerDBMetaTable.TABLE_COL_ID).toString());
+
+            BasicQuery query = new QueryBuilder(recordInfo).getQuery();
+            if (query != null) {
+                this.pageQueries.add(query);
+            }
+        }
+
+        if (pageRecordsInfo.size() < this.pageSize) {
+            this.endReached = true;
+
+            /* Every record left up to the upper bound was left out by its origin, hence the reader is past them too. */
+            if (this.upperBoundID != -1 && this.upperBoundID > this.lastFetchedID) {
+                this.lastFetchedID = this.upperBoundID;
+            }
+        }
+    }
+
+    /**
+     * Waits for a page fetched on another thread and rethrows its failure, if any.
+     * @param page Future The page being fetched.
+     * @return List of HashMaps of the records of the page.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
+     */
+    private static List<Map<String, Object>> awaitPage(Future<List<Map<String, Object>>> page) throws SQLException, InitializationFailureException {
+        try {
+            return page.get();
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            else if (e.getCause() instanceof InitializationFailureException) {
+                throw (InitializationFailureException) e.getCause();
+            }
+            else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new SQLException("Fetching the Meta Table failed.", e.getCause());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Fetching the Meta Table was interrupted.", e);
+        }
+    }
+
+    /**
+     * Starts fetching the next page on another thread if no more than half of the current page is left to be read, so that it is ready by the time the current page is exhausted.
+     * Does nothing if a page is already being fetched or the end of the Meta Table is reached.
+     * <b>Note: The connection of the Meta Table must not be used by any other thread until the page is taken into the buffer or awaitPrefetch returns.</b>
+     * @param fetchExecutorService ExecutorService The executor on which the page is fetched.
+     */
+    public void prefetchNextPage(ExecutorService fetchExecutorService) {
+        if (this.prefetchedPage != null || this.endReached || this.pageQueries.size() > this.pageSize / 2) {
+            return;
+        }
+
+        long thresholdID = this.lastFetchedID;
+        this.prefetchedPage = fetchExecutorService.submit(() -> this.doerDBMetaTable.getQueryRecordsInfoPageAfterID(thresholdID, this.upperBoundID, this.pageSize, this.excludedOrigin));
+    }
+
+    /**
+     * Waits for the page being prefetched, if any, to be fetched. The page is kept until the current page is exhausted.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
+     */
+    public void awaitPrefetch() throws SQLException, InitializationFailureException {
+        if (this.prefetchedPage == null) {
+            return;
+        }
+
+        try {
+            DoerDBChangeLogReader.awaitPage(this.prefetchedPage);
+        }
+        catch (SQLException | InitializationFailureException | RuntimeException e) {
+            /* The page is fetched again on the calling thread when it is needed. */
+            this.prefetchedPage = null;
+            throw e;
+        }
+    }
+
+    /**
+     * Used to check whether there are more queries to be read.
+     * Fetches the next page(s) from the database if the current page is exhausted.
+     * @return boolean true if another query can be read, false otherwise.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
+     */
+    public boolean hasNext() throws SQLException, InitializationFailureException {
+        while (this.pageQueries.isEmpty() && !this.endReached) {
+            this.fetchNextPage();
+        }
+
+        return !this.pageQueries.isEmpty();
+    }
+
+    /**
+     * Used to obtain the next query from the Meta Table without advancing the reader.
+     * @return BasicQuery The next query in the ascending order of IDs.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
+     * @throws NoSuchElementException If there are no more queries to be read.
+     */
+    public BasicQuery peek() throws SQLException, InitializationFailureException {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException("No more queries in the Meta Table.");
+        }
+
+        return this.pageQueries.peek();
+    }
+
+    /**
+     * Used to read the next query from the Meta Table.
+     * @return BasicQuery The next query in the ascending order of IDs.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
+     * @throws NoSuchElementException If there are no more queries to be read.
+     */
+    public BasicQuery next() throws SQLException, InitializationFailureException {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException("No more queries in the Meta Table.");
+        }
+
+        BasicQuery query = this.pageQueries.poll();
+        this.lastReadID = query.getQueryID();
+        return query;
+    }
+
+    /**
+     * Used to obtain the ID of the last record consumed by the reader.
+     * This is the ID of the last query returned, or of a later skipped record if nothing is left in the current page.
+     * @return long ID of the last record consumed, or the threshold ID if nothing has been read yet.
+     */
+    public long getLastReadID() {
+        return this.pageQueries.isEmpty() ? this.lastFetchedID : this.lastReadID;
+    }
+
+}
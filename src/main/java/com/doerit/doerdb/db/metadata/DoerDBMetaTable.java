@@ -2,7 +2,11 @@ package com.doerit.doerdb.db.metadata;
 
 import com.doerit.doerdb.db.DoerDatabase;
 import com.doerit.doerdb.db.MySQL;
+import com.doerit.doerdb.db.jdbc.JDBCConstants;
+import com.doerit.doerdb.db.queries.executors.QueryExecutor;
+import com.doerit.doerdb.db.templates.MySQLQueryTemplates;
 import com.doerit.doerdb.exceptions.InitializationFailureException;
+import com.doerit.doerdb.synchronizer.DoerDBSynchronizer;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -17,6 +21,14 @@ public class DoerDBMetaTable {
     public static final String TABLE_COL_NEW_RECORD = "new_record";
     public static final String TABLE_COL_OLD_RECORD = "old_record";
     public static final String TABLE_COL_QUERY_TIMESTAMP = "query_timestamp";
+    /* The origin of the changes applied by the synchronizer. Not in TABLE_COLS, since the Meta Tables of the DoerDBs converted before it was introduced lack it. */
+    public static final String TABLE_COL_ORIGIN = "origin";
+    public static final String TABLE_INDEX_QUERY_TIMESTAMP = "idx_query_timestamp";
+    /* The Meta Table may be partitioned by RANGE on its ID, into partitions named by this prefix and their position, followed by a partition holding the rest of the IDs. */
+    public static final String TABLE_PARTITION_PREFIX = "p";
+    public static final String TABLE_PARTITION_MAX = "p_max";
+    /* The number of empty partitions kept after the one holding the last ID, so that the new changes do not fall into the partition holding the rest. */
+    public static final int TABLE_PARTITIONS_AHEAD = 4;
 
     /* Following list contains all the column names in the order as they exist in the real table. */
     public static final List<String> TABLE_COLS = new ArrayList<String>() {{
@@ -29,6 +41,7 @@ public class DoerDBMetaTable {
     }};
 
     private final DoerDatabase doerDatabase;
+    private volatile Boolean originTracked = null;
 
     /**
      * Constructor for DoerDBMetaTable
@@ -46,21 +59,90 @@ public class DoerDBMetaTable {
      * @throws InitializationFailureException If DoerDB failed to initialize.
      */
     private List<Map<String, Object>> getRecordsInfoByQuery(String query) throws SQLException, InitializationFailureException {
-        ResultSet resultsQueryInfo = this.doerDatabase.executeQuery(query);
-
         List<Map<String, Object>> recordsInfo = new ArrayList<>();
-        while (resultsQueryInfo.next()) {
-            Map<String, Object> mapQueryInfo = new HashMap<>();
-            for (String tableColumn : TABLE_COLS) {
-                mapQueryInfo.put(tableColumn, resultsQueryInfo.getObject(tableColumn));
-            }
+        this.doerDatabase.forEachRow(query, row -> recordsInfo.add(DoerDBMetaTable.getRecordInfo(row)));
+
+        return recordsInfo;
+    }
 
-            recordsInfo.add(mapQueryInfo);
+    /**
+     * Used to obtain the data of a record of the Meta Table.
+     * @param row ResultSet The result positioned at the record.
+     * @return HashMap containing all the fields in DoerDBMetaTable.TABLE_COLS.
+     * @throws SQLException If any exception is thrown while reading the row.
+     */
+    private static Map<String, Object> getRecordInfo(ResultSet row) throws SQLException {
+        Map<String, Object> mapQueryInfo = new HashMap<>();
+        for (String tableColumn : TABLE_COLS) {
+            mapQueryInfo.put(tableColumn, row.getObject(tableColumn));
         }
 
+        return mapQueryInfo;
+    }
+
+    /**
+     * Used to obtain a set of records by the provided query, streaming the rows from the server instead of buffering the whole result in the driver.
+     * The ResultSet is fully drained and closed before returning, so the query should be bounded(e.g. by a LIMIT clause).
+     * @param query String The query to be executed on Meta Table.
+     * @return List of HashMaps containing the data of the records queried.
+     * @throws SQLException                   If unexpected error occurs while querying the database.
+     * @throws InitializationFailureException If DoerDB failed to initialize.
+     */
+    private List<Map<String, Object>> getRecordsInfoByStreamingQuery(String query) throws SQLException, InitializationFailureException {
+        List<Map<String, Object>> recordsInfo = new ArrayList<>();
+        this.doerDatabase.forEachRow(query, JDBCConstants.FETCH_SIZE_STREAMING, row -> recordsInfo.add(DoerDBMetaTable.getRecordInfo(row)));
+
         return recordsInfo;
     }
 
+    /**
+     * Used to obtain the query finding a trigger of a database which records the changes in the Meta Table without regard to the sync origin,
+     * i.e. a trigger generated before the sync origin was introduced.
+     * @param databaseName String The name of the database.
+     * @return String The query, which returns a row only if such a trigger exists.
+     */
+    static String buildUntaggedTriggerQuery(String databaseName) {
+        return MySQL.SQL_SELECT_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_TRIGGER_NAME + MySQL.SQL_SPACE +
+                MySQL.SQL_FROM_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_INFORMATION_SCHEMA_TRIGGERS + MySQL.SQL_SPACE +
+                MySQL.SQL_WHERE_CLAUSE + MySQL.SQL_SPACE +
+                MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_CONTENT_TRIGGER_SCHEMA + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_EQUATOR + MySQL.getQuotedStringSQL(databaseName) + MySQL.SQL_SPACE +
+                MySQL.SQL_AND_OPERATOR + MySQL.SQL_SPACE +
+                MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_CONTENT_ACTION_STATEMENT + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SPACE + MySQL.SQL_LIKE_OPERATOR + MySQL.SQL_SPACE +
+                MySQL.getQuotedStringSQL("%" + MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_NAME + MySQL.SQL_INTERNAL_QUOTES + "%") + MySQL.SQL_SPACE +
+                MySQL.SQL_AND_OPERATOR + MySQL.SQL_SPACE +
+                MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_CONTENT_ACTION_STATEMENT + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SPACE + MySQL.SQL_NOT_OPERATOR + MySQL.SQL_SPACE + MySQL.SQL_LIKE_OPERATOR + MySQL.SQL_SPACE +
+                MySQL.getQuotedStringSQL("%" + DoerDBSynchronizer.MYSQL_TAG_SYNC_ORIGIN + "%") + MySQL.SQL_SPACE +
+                MySQL.SQL_LIMIT_OPERATOR + MySQL.SQL_SPACE + "1";
+    }
+
+    /**
+     * Used to check whether the changes recorded in the Meta Table are tagged with their origin, i.e. whether the Meta Table has the origin column
+     * and every trigger recording the changes in it regards the sync origin.
+     * Hence a Meta Table migrated to the current layout is not considered tracked until its triggers are regenerated as well.
+     * The columns and the triggers are read on first use only.
+     * @return boolean true if the origin of the changes is recorded, false otherwise.
+     * @throws SQLException                   If unexpected error occurs while querying the database.
+     * @throws InitializationFailureException If DoerDB failed to initialize.
+     */
+    public boolean isOriginTracked() throws SQLException, InitializationFailureException {
+        if (this.originTracked == null) {
+            String query = MySQLQueryTemplates.QUERY_ALL_COLUMNS.replace(MySQLQueryTemplates.PLACEHOLDER_TABLE_NAME, DoerDBMetaTable.TABLE_NAME);
+            boolean hasOriginColumn = this.doerDatabase.executeQuery(query, resultColumns -> {
+                while (resultColumns.next()) {
+                    if (DoerDBMetaTable.TABLE_COL_ORIGIN.equals(resultColumns.getString(MySQL.SQL_CONTENT_FIELD))) {
+                        return true;
+                    }
+                }
+                return false;
+            });
+
+            this.originTracked = hasOriginColumn &&
+                    !this.doerDatabase.executeQuery(DoerDBMetaTable.buildUntaggedTriggerQuery(this.doerDatabase.getDatabaseName()), ResultSet::next);
+        }
+
+        return this.originTracked;
+    }
+
     /**
      * Used to filter and obtain a record by its ID on the Meta Table.
      * @param queryID The ID of the record to be filtered out.
@@ -68,7 +150,7 @@ public class DoerDBMetaTable {
      * @throws SQLException                   If unexpected error occurs while querying the database.
      * @throws InitializationFailureException If DoerDB failed to initialize.
      */
-    public Map<String, Object> getRecordInfoByID(int queryID) throws SQLException, InitializationFailureException {
+    public Map<String, Object> getRecordInfoByID(long queryID) throws SQLException, InitializationFailureException {
         String query = MySQL.SQL_SELECT_CLAUSE + MySQL.SQL_SPACE + "*" + MySQL.SQL_SPACE + MySQL.SQL_FROM_CLAUSE + MySQL.SQL_SPACE +
                 MySQL.SQL_INTERNAL_QUOTES + TABLE_NAME + MySQL.SQL_INTERNAL_QUOTES +
                 MySQL.SQL_SPACE + MySQL.SQL_WHERE_CLAUSE + MySQL.SQL_SPACE +
@@ -85,7 +167,7 @@ public class DoerDBMetaTable {
      * @throws SQLException                   If unexpected error occurs while querying the database.
      * @throws InitializationFailureException If DoerDB failed to initialize.
      */
-    public void updateRecordInfoByID(int queryID, Map<String, String> columnValues) throws SQLException, InitializationFailureException {
+    public void updateRecordInfoByID(long queryID, Map<String, String> columnValues) throws SQLException, InitializationFailureException {
         String query = MySQL.SQL_UPDATE_PREFIX + MySQL.SQL_SPACE + MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_NAME + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SPACE +
                 MySQL.SQL_SET_OPERATOR + MySQL.SQL_SPACE;
 
@@ -113,7 +195,7 @@ public class DoerDBMetaTable {
      * @throws SQLException                   If unexpected error occurs while querying the database.
      * @throws InitializationFailureException If DoerDB failed to initialize.
      */
-    private List<Map<String, Object>> getRecordsByID(String comparator, int thresholdID) throws SQLException, InitializationFailureException {
+    private List<Map<String, Object>> getRecordsByID(String comparator, long thresholdID) throws SQLException, InitializationFailureException {
         String query = MySQL.SQL_SELECT_CLAUSE + MySQL.SQL_SPACE + "*" + MySQL.SQL_SPACE + MySQL.SQL_FROM_CLAUSE + MySQL.SQL_SPACE +
                 MySQL.SQL_INTERNAL_QUOTES + TABLE_NAME + MySQL.SQL_INTERNAL_QUOTES;
         if (thresholdID != -1) {
@@ -149,25 +231,243 @@ public class DoerDBMetaTable {
 
     /**
      * Used to obtain the ID of the latest query recorded in the Meta Table.
-     * @return int ID of the latest query.
+     * @return long ID of the latest query.
      * @throws SQLException                   If unexpected error occurs while querying the database.
      * @throws InitializationFailureException If DoerDB failed to initialize.
      */
-    public int getLastQueryID() throws SQLException, InitializationFailureException {
-        String query = MySQL.SQL_SELECT_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_COL_ID + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SPACE +
+    public long getLastQueryID() throws SQLException, InitializationFailureException {
+        return this.doerDatabase.executeQuery(DoerDBMetaTable.buildLastQueryIDQuery(), DoerDBMetaTable::readLastQueryID);
+    }
+
+    /**
+     * Used to obtain the ID of the latest query recorded in the Meta Table through a QueryExecutor, including those recorded by its uncommitted transaction.
+     * @param queryExecutor QueryExecutor The QueryExecutor applying the changes on the database.
+     * @return long ID of the latest query.
+     * @throws SQLException If unexpected error occurs while querying the database.
+     */
+    public long getLastQueryID(QueryExecutor queryExecutor) throws SQLException {
+        return queryExecutor.executeQuery(DoerDBMetaTable.buildLastQueryIDQuery(), DoerDBMetaTable::readLastQueryID);
+    }
+
+    /**
+     * Used to build the query reading the ID of the latest query recorded in the Meta Table.
+     * @return String The SELECT query.
+     */
+    private static String buildLastQueryIDQuery() {
+        return MySQL.SQL_SELECT_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_COL_ID + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SPACE +
                 MySQL.SQL_FROM_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_NAME + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SPACE +
                 MySQL.SQL_ORDER_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_BY_OPERATOR + MySQL.SQL_SPACE +
                 MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_COL_ID + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SPACE +
                 MySQL.SQL_SORT_DESC + MySQL.SQL_SPACE +
                 MySQL.SQL_LIMIT_OPERATOR + MySQL.SQL_SPACE + "1";
+    }
 
-        ResultSet resultLastQuery = this.doerDatabase.executeQuery(query);
+    /**
+     * Reads the ID of the latest query out of the result of buildLastQueryIDQuery.
+     * @param resultLastQuery ResultSet The result.
+     * @return long ID of the latest query, -1 if the Meta Table is empty.
+     * @throws SQLException If the result cannot be read.
+     */
+    private static long readLastQueryID(ResultSet resultLastQuery) throws SQLException {
         if (resultLastQuery.next()) {
-            return resultLastQuery.getInt(DoerDBMetaTable.TABLE_COL_ID);
+            return resultLastQuery.getLong(DoerDBMetaTable.TABLE_COL_ID);
         }
         else {
-            return -1;
+            return -1L;
+        }
+    }
+
+    /**
+     * Builds the query deleting a page of the records before an ID, in the ascending order of their IDs.
+     * @param thresholdID long The ID before which the records are deleted, exclusive.
+     * @param thresholdTimestamp Date The timestamp before which the records are deleted, exclusive. null to delete regardless of the timestamp.
+     * @param pageSize int The maximum number of records deleted.
+     * @return String The MySQL query.
+     */
+    static String buildDeleteRecordsPageQuery(long thresholdID, Date thresholdTimestamp, int pageSize) {
+        String query = MySQL.SQL_DELETE_PREFIX + MySQL.SQL_SPACE + MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_NAME + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SPACE +
+                MySQL.SQL_WHERE_CLAUSE + MySQL.SQL_SPACE +
+                MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_COL_ID + MySQL.SQL_INTERNAL_QUOTES + "<" + String.valueOf(thresholdID) + MySQL.SQL_SPACE;
+        if (thresholdTimestamp != null) {
+            query += MySQL.SQL_AND_OPERATOR + MySQL.SQL_SPACE +
+                    MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_COL_QUERY_TIMESTAMP + MySQL.SQL_INTERNAL_QUOTES + "<" +
+                    MySQL.SQL_EXTERNAL_QUOTES + MySQL.getFormattedTimestampSQL(thresholdTimestamp) + MySQL.SQL_EXTERNAL_QUOTES + MySQL.SQL_SPACE;
+        }
+        query += MySQL.SQL_ORDER_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_BY_OPERATOR + MySQL.SQL_SPACE +
+                MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_COL_ID + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SPACE +
+                MySQL.SQL_SORT_ASC + MySQL.SQL_SPACE +
+                MySQL.SQL_LIMIT_OPERATOR + MySQL.SQL_SPACE + String.valueOf(pageSize);
+
+        return query;
+    }
+
+    /**
+     * Deletes a page of the records before an ID, in the ascending order of their IDs.
+     * Deleting in small pages keeps each transaction short, so that the triggers recording the new changes are not blocked.
+     * @param thresholdID long The ID before which the records are deleted, exclusive.
+     * @param thresholdTimestamp Date The timestamp before which the records are deleted, exclusive. null to delete regardless of the timestamp.
+     * @param pageSize int The maximum number of records deleted.
+     * @return int The number of records deleted. Less than pageSize if no records are left to be deleted.
+     * @throws SQLException                   If unexpected error occurs while querying the database.
+     * @throws InitializationFailureException If DoerDB failed to initialize.
+     */
+    public int deleteRecordsPageBeforeID(long thresholdID, Date thresholdTimestamp, int pageSize) throws SQLException, InitializationFailureException {
+        return this.doerDatabase.executeUpdate(DoerDBMetaTable.buildDeleteRecordsPageQuery(thresholdID, thresholdTimestamp, pageSize));
+    }
+
+    /**
+     * Builds the definitions of a range of the partitions of the Meta Table, followed by the partition holding the rest of the IDs.
+     * The partition at a position holds the IDs less than the position times the partition size.
+     * @param partitionSize long The number of IDs per partition.
+     * @param firstPosition long The position of the first partition defined, starting from 1.
+     * @param lastPosition long The position of the last partition defined.
+     * @return String The partition definitions, enclosed in brackets.
+     */
+    public static String getPartitionDefinitions(long partitionSize, long firstPosition, long lastPosition) {
+        List<String> partitionDefinitions = new ArrayList<>();
+        for (long position = firstPosition; position <= lastPosition; position++) {
+            partitionDefinitions.add("PARTITION " + MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_PARTITION_PREFIX + position + MySQL.SQL_INTERNAL_QUOTES +
+                    " VALUES LESS THAN " + MySQL.SQL_BRACKET_ROUND_OPEN + (position * partitionSize) + MySQL.SQL_BRACKET_ROUND_CLOSE);
         }
+        partitionDefinitions.add("PARTITION " + MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_PARTITION_MAX + MySQL.SQL_INTERNAL_QUOTES + " VALUES LESS THAN MAXVALUE");
+
+        return MySQL.SQL_BRACKET_ROUND_OPEN + String.join(MySQL.SQL_SEPARATOR, partitionDefinitions) + MySQL.SQL_BRACKET_ROUND_CLOSE;
+    }
+
+    /**
+     * Builds the query reading the partitions of the Meta Table of a database, in the order of the partitions.
+     * @param databaseName String The name of the database.
+     * @return String The MySQL query, whose result is read by readPartitionBounds.
+     */
+    public static String buildPartitionBoundsQuery(String databaseName) {
+        return MySQL.SQL_SELECT_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_PARTITION_NAME + MySQL.SQL_SEPARATOR + MySQL.SQL_CONTENT_PARTITION_DESCRIPTION + MySQL.SQL_SPACE +
+                MySQL.SQL_FROM_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_INFORMATION_SCHEMA_PARTITIONS + MySQL.SQL_SPACE +
+                MySQL.SQL_WHERE_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_TABLE_SCHEMA + MySQL.SQL_EQUATOR + MySQL.getQuotedStringSQL(databaseName) + MySQL.SQL_SPACE +
+                MySQL.SQL_AND_OPERATOR + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_TABLE_NAME + MySQL.SQL_EQUATOR + MySQL.getQuotedStringSQL(DoerDBMetaTable.TABLE_NAME) + MySQL.SQL_SPACE +
+                MySQL.SQL_AND_OPERATOR + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_PARTITION_NAME + MySQL.SQL_SPACE + MySQL.SQL_IS_OPERATOR + MySQL.SQL_SPACE + MySQL.SQL_NOT_OPERATOR + MySQL.SQL_SPACE + MySQL.SQL_VALUE_NULL + MySQL.SQL_SPACE +
+                MySQL.SQL_ORDER_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_BY_OPERATOR + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_PARTITION_ORDINAL_POSITION;
+    }
+
+    /**
+     * Reads the upper bounds of the partitions from the result of the query built by buildPartitionBoundsQuery, except the partition holding the rest of the IDs.
+     * @param resultPartitions ResultSet The result of the query.
+     * @return Map of the partition names to the IDs before which they hold the records, in the order of the partitions. Empty if the Meta Table is not partitioned.
+     * @throws SQLException If any exception is thrown while reading the result.
+     */
+    public static Map<String, Long> readPartitionBounds(ResultSet resultPartitions) throws SQLException {
+        Map<String, Long> partitionBounds = new LinkedHashMap<>();
+        while (resultPartitions.next()) {
+            String partitionName = resultPartitions.getString(MySQL.SQL_CONTENT_PARTITION_NAME);
+            if (!DoerDBMetaTable.TABLE_PARTITION_MAX.equals(partitionName)) {
+                partitionBounds.put(partitionName, Long.parseLong(resultPartitions.getString(MySQL.SQL_CONTENT_PARTITION_DESCRIPTION)));
+            }
+        }
+
+        return partitionBounds;
+    }
+
+    /**
+     * Used to obtain the upper bounds of the partitions of the Meta Table, except the partition holding the rest of the IDs.
+     * @return Map of the partition names to the IDs before which they hold the records, in the order of the partitions. Empty if the Meta Table is not partitioned.
+     * @throws SQLException                   If unexpected error occurs while querying the database.
+     * @throws InitializationFailureException If DoerDB failed to initialize.
+     */
+    public Map<String, Long> getPartitionBounds() throws SQLException, InitializationFailureException {
+        return this.doerDatabase.executeQuery(DoerDBMetaTable.buildPartitionBoundsQuery(this.doerDatabase.getDatabaseName()), DoerDBMetaTable::readPartitionBounds);
+    }
+
+    /**
+     * Used to obtain the timestamp of the latest query recorded in a partition of the Meta Table.
+     * @param partitionName String The name of the partition.
+     * @return Date Timestamp of the latest query in the partition, null if the partition is empty.
+     * @throws SQLException                   If unexpected error occurs while querying the database.
+     * @throws InitializationFailureException If DoerDB failed to initialize.
+     */
+    public Date getLastQueryTimestampInPartition(String partitionName) throws SQLException, InitializationFailureException {
+        String query = MySQL.SQL_SELECT_CLAUSE + MySQL.SQL_SPACE +
+                MySQL.SQL_MAX_FUNCTION + MySQL.SQL_BRACKET_ROUND_OPEN + MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_COL_QUERY_TIMESTAMP + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_BRACKET_ROUND_CLOSE + MySQL.SQL_SPACE +
+                MySQL.SQL_FROM_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_NAME + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SPACE +
+                "PARTITION" + MySQL.SQL_SPACE + MySQL.SQL_BRACKET_ROUND_OPEN + MySQL.SQL_INTERNAL_QUOTES + partitionName + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_BRACKET_ROUND_CLOSE;
+
+        return this.doerDatabase.executeQuery(query, resultLastQuery -> {
+            if (resultLastQuery.next() && resultLastQuery.getTimestamp(1) != null) {
+                return MySQL.getFormattedTimestampDateSQL(resultLastQuery.getTimestamp(1));
+            }
+            else {
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Drops partitions of the Meta Table along with their records, which takes a fraction of the time of deleting the records one by one.
+     * @param partitionNames List of the names of the partitions.
+     * @throws SQLException                   If unexpected error occurs while querying the database.
+     * @throws InitializationFailureException If DoerDB failed to initialize.
+     */
+    public void dropPartitions(List<String> partitionNames) throws SQLException, InitializationFailureException {
+        if (partitionNames.isEmpty()) {
+            return;
+        }
+
+        List<String> quotedPartitionNames = new ArrayList<>();
+        for (String partitionName : partitionNames) {
+            quotedPartitionNames.add(MySQL.SQL_INTERNAL_QUOTES + partitionName + MySQL.SQL_INTERNAL_QUOTES);
+        }
+
+        this.doerDatabase.executeUpdate(MySQL.SQL_ALTER_CLAUSE + MySQL.SQL_SPACE + "TABLE" + MySQL.SQL_SPACE + MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_NAME + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SPACE +
+                MySQL.SQL_DROP_CLAUSE + MySQL.SQL_SPACE + "PARTITION" + MySQL.SQL_SPACE + String.join(MySQL.SQL_SEPARATOR, quotedPartitionNames));
+    }
+
+    /**
+     * Builds the query splitting new partitions off the partition holding the rest of the IDs, so that TABLE_PARTITIONS_AHEAD empty partitions follow the one holding the last ID.
+     * The partition size is derived from the bound of the last partition, whose name holds its position.
+     * @param partitionBounds Map of the partition names to their bounds, as returned by getPartitionBounds.
+     * @param lastQueryID long The last ID of the Meta Table, 0 or less if the Meta Table is empty.
+     * @return String The MySQL query, null if the Meta Table is not partitioned or already has enough partitions.
+     */
+    public static String buildExtendPartitionsQuery(Map<String, Long> partitionBounds, long lastQueryID) {
+        if (partitionBounds.isEmpty()) {
+            return null;
+        }
+
+        String lastPartitionName = null;
+        for (String partitionName : partitionBounds.keySet()) {
+            lastPartitionName = partitionName;
+        }
+        long lastPosition = Long.parseLong(lastPartitionName.substring(DoerDBMetaTable.TABLE_PARTITION_PREFIX.length()));
+        long partitionSize = partitionBounds.get(lastPartitionName) / lastPosition;
+
+        long requiredPosition = Math.max(lastQueryID, 0) / partitionSize + 1 + DoerDBMetaTable.TABLE_PARTITIONS_AHEAD;
+        if (requiredPosition <= lastPosition) {
+            return null;
+        }
+
+        return MySQL.SQL_ALTER_CLAUSE + MySQL.SQL_SPACE + "TABLE" + MySQL.SQL_SPACE + MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_NAME + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SPACE +
+                "REORGANIZE PARTITION" + MySQL.SQL_SPACE + MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_PARTITION_MAX + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SPACE +
+                "INTO" + MySQL.SQL_SPACE + DoerDBMetaTable.getPartitionDefinitions(partitionSize, lastPosition + 1, requiredPosition);
+    }
+
+    /**
+     * Splits new partitions off the partition holding the rest of the IDs, so that TABLE_PARTITIONS_AHEAD empty partitions follow the one holding the last ID.
+     * Does nothing if the Meta Table is not partitioned or already has enough partitions.
+     * @param partitionBounds Map of the partition names to their bounds, as returned by getPartitionBounds.
+     * @return boolean true if partitions were added, false otherwise.
+     * @throws SQLException                   If unexpected error occurs while querying the database.
+     * @throws InitializationFailureException If DoerDB failed to initialize.
+     */
+    public boolean extendPartitions(Map<String, Long> partitionBounds) throws SQLException, InitializationFailureException {
+        if (partitionBounds.isEmpty()) {
+            return false;
+        }
+
+        String query = DoerDBMetaTable.buildExtendPartitionsQuery(partitionBounds, this.getLastQueryID());
+        if (query == null) {
+            return false;
+        }
+
+        this.doerDatabase.executeUpdate(query);
+        return true;
     }
 
     /**
@@ -184,13 +484,14 @@ public class DoerDBMetaTable {
                 MySQL.SQL_SORT_DESC + MySQL.SQL_SPACE +
                 MySQL.SQL_LIMIT_OPERATOR + MySQL.SQL_SPACE + "1";
 
-        ResultSet resultLastQuery = this.doerDatabase.executeQuery(query);
-        if (resultLastQuery.next()) {
-            return MySQL.getFormattedTimestampDateSQL(resultLastQuery.getTimestamp(DoerDBMetaTable.TABLE_COL_QUERY_TIMESTAMP));
-        }
-        else {
-            return null;
-        }
+        return this.doerDatabase.executeQuery(query, resultLastQuery -> {
+            if (resultLastQuery.next()) {
+                return MySQL.getFormattedTimestampDateSQL(resultLastQuery.getTimestamp(DoerDBMetaTable.TABLE_COL_QUERY_TIMESTAMP));
+            }
+            else {
+                return null;
+            }
+        });
     }
 
     /**
@@ -200,7 +501,7 @@ public class DoerDBMetaTable {
      * @throws SQLException                   If unexpected error occurs while querying the database.
      * @throws InitializationFailureException If DoerDB failed to initialize.
      */
-    public List<Map<String, Object>> getQueryRecordsInfoBeforeID(int thresholdID) throws SQLException, InitializationFailureException {
+    public List<Map<String, Object>> getQueryRecordsInfoBeforeID(long thresholdID) throws SQLException, InitializationFailureException {
         return this.getRecordsByID("<", thresholdID);
     }
 
@@ -222,10 +523,114 @@ public class DoerDBMetaTable {
      * @throws SQLException                   If unexpected error occurs while querying the database.
      * @throws InitializationFailureException If DoerDB failed to initialize.
      */
-    public List<Map<String, Object>> getQueryRecordsInfoAfterID(int thresholdID) throws SQLException, InitializationFailureException {
+    public List<Map<String, Object>> getQueryRecordsInfoAfterID(long thresholdID) throws SQLException, InitializationFailureException {
         return this.getRecordsByID(">", thresholdID);
     }
 
+    /**
+     * Used to obtain a single page of records of the queries executed <b>after</b> a given ID(higher ID), in the ascending order of IDs.
+     * Uses keyset pagination, hence the cost of a page does not depend on how many records precede it.
+     * @param thresholdID The threshold ID to be used for comparison(filtering) the queries. The next page starts at the last ID of the previous page.
+     * @param pageSize int The maximum number of records in the page.
+     * @return List of HashMaps of records' data. Contains less than pageSize records only if the end of the Meta Table is reached.
+     * @throws SQLException                   If unexpected error occurs while querying the database.
+     * @throws InitializationFailureException If DoerDB failed to initialize.
+     */
+    public List<Map<String, Object>> getQueryRecordsInfoPageAfterID(long thresholdID, int pageSize) throws SQLException, InitializationFailureException {
+        return this.getQueryRecordsInfoPageAfterID(thresholdID, -1, pageSize);
+    }
+
+    /**
+     * Used to obtain a single page of records of the queries executed <b>after</b> a given ID(higher ID) and up to an upper bound ID, in the ascending order of IDs.
+     * @param thresholdID The threshold ID to be used for comparison(filtering) the queries. The next page starts at the last ID of the previous page.
+     * @param upperBoundID The ID of the last record to be included(inclusive), -1 for no upper bound.
+     * @param pageSize int The maximum number of records in the page.
+     * @return List of HashMaps of records' data. Contains less than pageSize records only if the upper bound or the end of the Meta Table is reached.
+     * @throws SQLException                   If unexpected error occurs while querying the database.
+     * @throws InitializationFailureException If DoerDB failed to initialize.
+     */
+    public List<Map<String, Object>> getQueryRecordsInfoPageAfterID(long thresholdID, long upperBoundID, int pageSize) throws SQLException, InitializationFailureException {
+        return this.getQueryRecordsInfoPageAfterID(thresholdID, upperBoundID, pageSize, null);
+    }
+
+    /**
+     * Used to obtain a single page of records of the queries executed <b>after</b> a given ID(higher ID) and up to an upper bound ID, in the ascending order of IDs,
+     * leaving out the changes applied by the synchronizer of the given origin.
+     * The changes are left out only if the Meta Table records the origin of the changes.
+     * @param thresholdID The threshold ID to be used for comparison(filtering) the queries. The next page starts at the last ID of the previous page.
+     * @param upperBoundID The ID of the last record to be included(inclusive), -1 for no upper bound.
+     * @param pageSize int The maximum number of records in the page.
+     * @param excludedOrigin String The origin of the changes to be left out, null to include every change.
+     * @return List of HashMaps of records' data. Contains less than pageSize records only if the upper bound or the end of the Meta Table is reached.
+     * @throws SQLException                   If unexpected error occurs while querying the database.
+     * @throws InitializationFailureException If DoerDB failed to initialize.
+     */
+    public List<Map<String, Object>> getQueryRecordsInfoPageAfterID(long thresholdID, long upperBoundID, int pageSize, String excludedOrigin) throws SQLException, InitializationFailureException {
+        String query = MySQL.SQL_SELECT_CLAUSE + MySQL.SQL_SPACE + "*" + MySQL.SQL_SPACE + MySQL.SQL_FROM_CLAUSE + MySQL.SQL_SPACE +
+                MySQL.SQL_INTERNAL_QUOTES + TABLE_NAME + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SPACE +
+                MySQL.SQL_WHERE_CLAUSE + MySQL.SQL_SPACE +
+                MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_COL_ID + MySQL.SQL_INTERNAL_QUOTES + ">" + String.valueOf(thresholdID) + MySQL.SQL_SPACE;
+        if (upperBoundID != -1) {
+            query += MySQL.SQL_AND_OPERATOR + MySQL.SQL_SPACE +
+                    MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_COL_ID + MySQL.SQL_INTERNAL_QUOTES + "<=" + String.valueOf(upperBoundID) + MySQL.SQL_SPACE;
+        }
+        if (excludedOrigin != null && this.isOriginTracked()) {
+            query += MySQL.SQL_AND_OPERATOR + MySQL.SQL_SPACE + MySQL.SQL_NOT_OPERATOR + MySQL.SQL_SPACE +
+                    MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_COL_ORIGIN + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SPACE + MySQL.SQL_NULL_SAFE_EQUATOR + MySQL.SQL_SPACE +
+                    MySQL.getQuotedStringSQL(excludedOrigin) + MySQL.SQL_SPACE;
+        }
+        query += MySQL.SQL_ORDER_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_BY_OPERATOR + MySQL.SQL_SPACE +
+                MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_COL_ID + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SPACE +
+                MySQL.SQL_SORT_ASC + MySQL.SQL_SPACE +
+                MySQL.SQL_LIMIT_OPERATOR + MySQL.SQL_SPACE + String.valueOf(pageSize);
+
+        return this.getRecordsInfoByStreamingQuery(query);
+    }
+
+    /**
+     * Used to obtain a reader which walks the queries executed <b>after</b> a given ID(higher ID) page by page.
+     * Unlike getQueryRecordsInfoAfterID, only a single page of records is held in memory at a time.
+     * @param thresholdID The threshold ID to be used for comparison(filtering) the queries.
+     * @param pageSize int The number of records to be fetched from the database at once.
+     * @return DoerDBChangeLogReader Reader positioned right after the given ID.
+     */
+    public DoerDBChangeLogReader getChangeLogReaderAfterID(long thresholdID, int pageSize) {
+        return new DoerDBChangeLogReader(this, thresholdID, -1, pageSize, null);
+    }
+
+    /**
+     * Used to obtain a reader which walks the queries executed <b>after</b> a given ID(higher ID) and up to an upper bound ID page by page.
+     * @param thresholdID The threshold ID to be used for comparison(filtering) the queries.
+     * @param upperBoundID The ID of the last record to be read(inclusive), -1 for no upper bound.
+     * @param pageSize int The number of records to be fetched from the database at once.
+     * @return DoerDBChangeLogReader Reader positioned right after the given ID.
+     */
+    public DoerDBChangeLogReader getChangeLogReaderBetweenIDs(long thresholdID, long upperBoundID, int pageSize) {
+        return this.getChangeLogReaderBetweenIDs(thresholdID, upperBoundID, pageSize, null);
+    }
+
+    /**
+     * Used to obtain a reader which walks the queries executed <b>after</b> a given ID(higher ID) and up to an upper bound ID page by page,
+     * leaving out the changes applied by the synchronizer of the given origin.
+     * @param thresholdID The threshold ID to be used for comparison(filtering) the queries.
+     * @param upperBoundID The ID of the last record to be read(inclusive), -1 for no upper bound.
+     * @param pageSize int The number of records to be fetched from the database at once.
+     * @param excludedOrigin String The origin of the changes to be left out, null to read every change.
+     * @return DoerDBChangeLogReader Reader positioned right after the given ID.
+     */
+    public DoerDBChangeLogReader getChangeLogReaderBetweenIDs(long thresholdID, long upperBoundID, int pageSize, String excludedOrigin) {
+        return new DoerDBChangeLogReader(this, thresholdID, upperBoundID, pageSize, excludedOrigin);
+    }
+
+    /**
+     * Used to obtain a reader which walks the queries executed <b>after</b> a given ID(higher ID) page by page, using the default page size.
+     * @param thresholdID The threshold ID to be used for comparison(filtering) the queries.
+     * @return DoerDBChangeLogReader Reader positioned right after the given ID.
+     */
+    public DoerDBChangeLogReader getChangeLogReaderAfterID(long thresholdID) {
+        return this.getChangeLogReaderAfterID(thresholdID, DoerDBChangeLogReader.DEFAULT_PAGE_SIZE);
+    }
+
     /**
      * Used to obtain a List of HashMaps containing data(records) of the queries executed <b>after</b> a given timestamp.
      * @param thresholdTimestamp The threshold timestamp to be used for comparison(filtering) the queries.
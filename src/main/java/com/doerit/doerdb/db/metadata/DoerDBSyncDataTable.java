@@ -2,9 +2,9 @@ package com.doerit.doerdb.db.metadata;
 
 import com.doerit.doerdb.db.DoerDatabase;
 import com.doerit.doerdb.db.MySQL;
+import com.doerit.doerdb.db.queries.executors.QueryExecutor;
 import com.doerit.doerdb.exceptions.InitializationFailureException;
 
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
@@ -34,14 +34,13 @@ public class DoerDBSyncDataTable {
     }
 
     /**
-     * Sets the Last Synchronized IDs of the local and remote Meta Tables.
-     * @param localID int The last synchronized ID of the local Meta Table.
-     * @param remoteID int The last synchronized ID of the remote Meta Table.
-     * @throws SQLException If any exception is thrown during the execution of MySQL query.
-     * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
+     * Used to build the query recording the Last Synchronized IDs of the local and remote Meta Tables.
+     * @param localID long The last synchronized ID of the local Meta Table.
+     * @param remoteID long The last synchronized ID of the remote Meta Table.
+     * @return String The INSERT query.
      */
-    public void setLastSyncIDs(int localID, int remoteID) throws SQLException, InitializationFailureException {
-        String query = MySQL.SQL_INSERT_PREFIX + MySQL.SQL_SPACE + MySQL.SQL_INTERNAL_QUOTES + DoerDBSyncDataTable.TABLE_NAME + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_BRACKET_ROUND_OPEN +
+    private static String buildSetLastSyncIDsQuery(long localID, long remoteID) {
+        return MySQL.SQL_INSERT_PREFIX + MySQL.SQL_SPACE + MySQL.SQL_INTERNAL_QUOTES + DoerDBSyncDataTable.TABLE_NAME + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_BRACKET_ROUND_OPEN +
                 MySQL.SQL_INTERNAL_QUOTES + DoerDBSyncDataTable.TABLE_COL_LOCAL_LAST_ID + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SEPARATOR +
                 MySQL.SQL_INTERNAL_QUOTES + DoerDBSyncDataTable.TABLE_COL_REMOTE_LAST_ID + MySQL.SQL_INTERNAL_QUOTES +
                 MySQL.SQL_BRACKET_ROUND_CLOSE + MySQL.SQL_SPACE +
@@ -49,17 +48,38 @@ public class DoerDBSyncDataTable {
                 String.valueOf(localID) + MySQL.SQL_SEPARATOR +
                 String.valueOf(remoteID) +
                 MySQL.SQL_BRACKET_ROUND_CLOSE;
+    }
+
+    /**
+     * Sets the Last Synchronized IDs of the local and remote Meta Tables.
+     * @param localID long The last synchronized ID of the local Meta Table.
+     * @param remoteID long The last synchronized ID of the remote Meta Table.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
+     */
+    public void setLastSyncIDs(long localID, long remoteID) throws SQLException, InitializationFailureException {
+        this.doerDatabase.executeUpdate(DoerDBSyncDataTable.buildSetLastSyncIDsQuery(localID, remoteID));
+    }
 
-        this.doerDatabase.executeUpdate(query);
+    /**
+     * Sets the Last Synchronized IDs of the local and remote Meta Tables through a QueryExecutor, so that they are committed along with its transaction.
+     * @param queryExecutor QueryExecutor The QueryExecutor applying the changes on the local database.
+     * @param localID long The last synchronized ID of the local Meta Table.
+     * @param remoteID long The last synchronized ID of the remote Meta Table.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     */
+    public void setLastSyncIDs(QueryExecutor queryExecutor, long localID, long remoteID) throws SQLException {
+        queryExecutor.executeUpdate(DoerDBSyncDataTable.buildSetLastSyncIDsQuery(localID, remoteID));
     }
 
     /**
-     * Used to obtain the last entered record of the Meta Tables.
-     * @return ResultSet MySQL ResultSet representing the last record of the DoerDBSyncDataTable.
+     * Returns the value of the last record's column(specifically ID)
+     * @param columnName The name of the column whose value is to be obtained.
+     * @return long The value(ID) related to the column.
      * @throws SQLException If any exception is thrown during the execution of MySQL query.
      * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
      */
-    private ResultSet getLastRecord() throws SQLException, InitializationFailureException {
+    private long getLastID(String columnName) throws SQLException, InitializationFailureException {
         String query = MySQL.SQL_SELECT_CLAUSE + MySQL.SQL_SPACE + "*" + MySQL.SQL_SPACE + MySQL.SQL_FROM_CLAUSE + MySQL.SQL_SPACE +
                 MySQL.SQL_INTERNAL_QUOTES + DoerDBSyncDataTable.TABLE_NAME + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SPACE +
                 MySQL.SQL_ORDER_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_BY_OPERATOR + MySQL.SQL_SPACE +
@@ -67,44 +87,53 @@ public class DoerDBSyncDataTable {
                 MySQL.SQL_SORT_DESC + MySQL.SQL_SPACE +
                 MySQL.SQL_LIMIT_OPERATOR + MySQL.SQL_SPACE + "1";
 
-        return this.doerDatabase.executeQuery(query);
+        return this.doerDatabase.executeQuery(query, resultSyncLast -> {
+            if (resultSyncLast.next()) {
+                return resultSyncLast.getLong(columnName);
+            }
+            else {
+                return -1L;
+            }
+        });
     }
 
     /**
-     * Returns the value of the last record's column(specifically ID)
-     * @param columnName The name of the column whose value is to be obtained.
-     * @return int The value(ID) related to the column.
+     * Used to obtain the last synchronized ID of the local Meta Table(Local Database's Meta Table ID).
+     * @return long Last Synchronized Local Meta Table ID
      * @throws SQLException If any exception is thrown during the execution of MySQL query.
      * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
      */
-    private int getLastID(String columnName) throws SQLException, InitializationFailureException {
-        ResultSet resultSyncLast = this.getLastRecord();
-        if (resultSyncLast.next()) {
-            return resultSyncLast.getInt(columnName);
-        }
-        else {
-            return -1;
-        }
+    public long getLastLocalID() throws SQLException, InitializationFailureException {
+        return this.getLastID(DoerDBSyncDataTable.TABLE_COL_LOCAL_LAST_ID);
     }
 
     /**
-     * Used to obtain the last synchronized ID of the local Meta Table(Local Database's Meta Table ID).
-     * @return int Last Synchronized Local Meta Table ID
+     * Used to obtain the last synchronized ID of the remote Meta Table(Remote Database's Meta Table ID).
+     * @return long Last Synchronized Remote Meta Table ID
      * @throws SQLException If any exception is thrown during the execution of MySQL query.
      * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
      */
-    public int getLastLocalID() throws SQLException, InitializationFailureException {
-        return this.getLastID(DoerDBSyncDataTable.TABLE_COL_LOCAL_LAST_ID);
+    public long getLastRemoteID() throws SQLException, InitializationFailureException {
+        return this.getLastID(DoerDBSyncDataTable.TABLE_COL_REMOTE_LAST_ID);
     }
 
     /**
-     * Used to obtain the last synchronized ID of the remote Meta Table(Remote Database's Meta Table ID).
-     * @return int Last Synchronized Remote Meta Table ID
+     * Deletes the records of the previous synchronizations, keeping only the last one from which the next synchronization resumes.
+     * @return int The number of records deleted.
      * @throws SQLException If any exception is thrown during the execution of MySQL query.
      * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
      */
-    public int getLastRemoteID() throws SQLException, InitializationFailureException {
-        return this.getLastID(DoerDBSyncDataTable.TABLE_COL_REMOTE_LAST_ID);
+    public int deletePreviousSyncIDs() throws SQLException, InitializationFailureException {
+        long lastRecordID = this.getLastID(DoerDBSyncDataTable.TABLE_COL_ID);
+        if (lastRecordID == -1) {
+            return 0;
+        }
+
+        String query = MySQL.SQL_DELETE_PREFIX + MySQL.SQL_SPACE + MySQL.SQL_INTERNAL_QUOTES + DoerDBSyncDataTable.TABLE_NAME + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SPACE +
+                MySQL.SQL_WHERE_CLAUSE + MySQL.SQL_SPACE +
+                MySQL.SQL_INTERNAL_QUOTES + DoerDBSyncDataTable.TABLE_COL_ID + MySQL.SQL_INTERNAL_QUOTES + "<" + String.valueOf(lastRecordID);
+
+        return this.doerDatabase.executeUpdate(query);
     }
 
 }
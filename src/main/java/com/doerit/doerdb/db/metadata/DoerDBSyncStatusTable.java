@@ -4,7 +4,6 @@ import com.doerit.doerdb.db.DoerDatabase;
 import com.doerit.doerdb.db.MySQL;
 import com.doerit.doerdb.exceptions.InitializationFailureException;
 
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
@@ -41,8 +40,7 @@ public class DoerDBSyncStatusTable {
                 MySQL.SQL_WHERE_CLAUSE + MySQL.SQL_SPACE +
                 "1";
 
-        ResultSet resultSyncStatus = this.doerDatabase.executeQuery(query);
-        return resultSyncStatus.next() && resultSyncStatus.getBoolean(DoerDBSyncStatusTable.TABLE_COL_SYNC_STATUS);
+        return this.doerDatabase.executeQuery(query, resultSyncStatus -> resultSyncStatus.next() && resultSyncStatus.getBoolean(DoerDBSyncStatusTable.TABLE_COL_SYNC_STATUS));
     }
 
     /**
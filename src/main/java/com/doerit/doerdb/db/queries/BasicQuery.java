@@ -1,8 +1,18 @@
 package com.doerit.doerdb.db.queries;
 
+import com.doerit.doerdb.db.MySQL;
 import org.json.JSONObject;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 
 /**
  * BasicQuery provides the interface for each query in the MetaTable
@@ -11,20 +21,23 @@ public abstract class BasicQuery {
 
     protected static final String EXCEPTION_MESSAGE_COLUMN_KEY_NOT_FOUND = "The column name is not found in the query.";
     public static final String QUERY_NULL = "@NULL";
+    /* The only key of the object a trigger records a binary value as, holding the bytes encoded as base64. */
+    public static final String RECORD_BINARY_KEY = "$base64";
     public static String QUERY_TYPE = null;
 
-    private int queryID = -1;
+    private long queryID = -1;
     private String implQueryType = null;
     private String tableName = null;
     private JSONObject newRecord = null;
     private JSONObject oldRecord = null;
     private Date queryTimestamp = null;
+    private List<String> keyColumnNames = null;
 
-    public void setQueryID(int queryID) {
+    public void setQueryID(long queryID) {
         this.queryID = queryID;
     }
 
-    public int getQueryID() {
+    public long getQueryID() {
         return queryID;
     }
 
@@ -108,6 +121,41 @@ public abstract class BasicQuery {
         return tableName;
     }
 
+    /**
+     * Sets the columns of the key identifying the rows of the table on which the query is executed.
+     * @param keyColumnNames List of the column names of the key, null if the table has no known key.
+     */
+    public void setKeyColumnNames(List<String> keyColumnNames) {
+        this.keyColumnNames = keyColumnNames;
+    }
+
+    /**
+     * Used to obtain the columns of the key identifying the rows of the table on which the query is executed.
+     * @return List of the column names of the key, null if the table has no known key.
+     */
+    public List<String> getKeyColumnNames() {
+        return keyColumnNames;
+    }
+
+    /**
+     * Used to check whether every column of the key of the table is present in a record of the query.
+     * @param record JSONObject The record.
+     * @return boolean true if the key is known and every column of it has a value in the record, false otherwise.
+     */
+    public boolean hasKeyColumns(JSONObject record) {
+        if (this.keyColumnNames == null || this.keyColumnNames.isEmpty() || record == null) {
+            return false;
+        }
+
+        for (String keyColumnName : this.keyColumnNames) {
+            if (!record.has(keyColumnName)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     /**
      * Used to obtain MySQL query from the provided data.
      * @param queryTimestamp The timestamp at which the query was executed on the databases.
@@ -115,6 +163,119 @@ public abstract class BasicQuery {
      */
     public abstract String getMySQLQuery(Date queryTimestamp);
 
+    /**
+     * Used to obtain a key identifying the shape of the parameterized MySQL query, i.e. its type, table and columns.
+     * Queries with equal keys share the same parameterized MySQL query and differ only in the bound values.
+     * @return String The key of the parameterized MySQL query.
+     */
+    public abstract String getPreparedStatementKey();
+
+    /**
+     * Used to obtain the parameterized MySQL query, with a placeholder for each value.
+     * <b>Note: Unlike getMySQLQuery, this does not set the query timestamp.</b>
+     * @return String Parameterized MySQL query.
+     */
+    public abstract String getPreparedMySQLQuery();
+
+    /**
+     * Binds the values of the query to the placeholders of a statement prepared from getPreparedMySQLQuery.
+     * @param preparedStatement PreparedStatement The statement prepared for a query with the same key.
+     * @throws SQLException If any value cannot be bound.
+     */
+    public abstract void bindPreparedValues(PreparedStatement preparedStatement) throws SQLException;
+
+    /**
+     * Used to obtain the column names of a record in a deterministic order, so that records with the same columns produce the same parameterized query.
+     * @param record JSONObject The record.
+     * @return List of column names sorted in the ascending order.
+     */
+    protected static List<String> getSortedColumnNames(JSONObject record) {
+        List<String> columnNames = new ArrayList<>(record.keySet());
+        Collections.sort(columnNames);
+        return columnNames;
+    }
+
+    /**
+     * Used to check whether a value of a record is a binary value, i.e. an object holding only its bytes encoded as base64.
+     * @param value Object The value from the record.
+     * @return boolean true if the value is a binary value, false otherwise.
+     */
+    protected static boolean isBinaryValue(Object value) {
+        if (!(value instanceof JSONObject)) {
+            return false;
+        }
+
+        JSONObject binaryValue = (JSONObject) value;
+        return binaryValue.length() == 1 && binaryValue.opt(BasicQuery.RECORD_BINARY_KEY) instanceof String;
+    }
+
+    /**
+     * Used to obtain the bytes of a binary value of a record.
+     * @param value Object The binary value from the record.
+     * @return byte[] The decoded bytes.
+     */
+    protected static byte[] getBinaryValue(Object value) {
+        /* MySQL's TO_BASE64 wraps the encoded value in lines of 76 characters. */
+        return Base64.getMimeDecoder().decode(((JSONObject) value).getString(BasicQuery.RECORD_BINARY_KEY));
+    }
+
+    /**
+     * Binds a value of a record to a placeholder of a statement, with the type the value has in the record.
+     * @param preparedStatement PreparedStatement The statement.
+     * @param parameterIndex int The index of the placeholder, starting from 1.
+     * @param value Object The value from the record.
+     * @throws SQLException If the value cannot be bound.
+     */
+    protected static void bindValue(PreparedStatement preparedStatement, int parameterIndex, Object value) throws SQLException {
+        if (value == null || JSONObject.NULL.equals(value)) {
+            preparedStatement.setNull(parameterIndex, Types.NULL);
+        }
+        else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            preparedStatement.setLong(parameterIndex, ((Number) value).longValue());
+        }
+        else if (value instanceof Double || value instanceof Float) {
+            preparedStatement.setDouble(parameterIndex, ((Number) value).doubleValue());
+        }
+        else if (value instanceof BigDecimal) {
+            preparedStatement.setBigDecimal(parameterIndex, (BigDecimal) value);
+        }
+        else if (value instanceof BigInteger) {
+            preparedStatement.setBigDecimal(parameterIndex, new BigDecimal((BigInteger) value));
+        }
+        else if (value instanceof Boolean) {
+            preparedStatement.setBoolean(parameterIndex, (Boolean) value);
+        }
+        else if (BasicQuery.isBinaryValue(value)) {
+            preparedStatement.setBytes(parameterIndex, BasicQuery.getBinaryValue(value));
+        }
+        else {
+            preparedStatement.setString(parameterIndex, value.toString());
+        }
+    }
+
+    /**
+     * Used to obtain a value of a record as a MySQL literal, with the type the value has in the record.
+     * @param value Object The value from the record.
+     * @return String The MySQL literal of the value.
+     */
+    protected static String getValueSQL(Object value) {
+        if (value == null || JSONObject.NULL.equals(value)) {
+            return MySQL.SQL_VALUE_NULL;
+        }
+        else if (value instanceof Number) {
+            return value.toString();
+        }
+        else if (value instanceof Boolean) {
+            return (Boolean) value ? MySQL.SQL_VALUE_TRUE : MySQL.SQL_VALUE_FALSE;
+        }
+        else if (BasicQuery.isBinaryValue(value)) {
+            return MySQL.SQL_FROM_BASE64_FUNCTION + MySQL.SQL_BRACKET_ROUND_OPEN +
+                    MySQL.getQuotedStringSQL(Base64.getEncoder().encodeToString(BasicQuery.getBinaryValue(value))) + MySQL.SQL_BRACKET_ROUND_CLOSE;
+        }
+
+        return MySQL.getQuotedStringSQL(value.toString());
+    }
+
     /**
      * Determines whether the current Basic Query's Old Record(the record entries before executing the query) is similar to that of another BasicQuery instance.
      * This will be valid only in the context of two UpdateQueries whereas all other comparisons would return false.
@@ -5,7 +5,10 @@ import com.doerit.doerdb.synchronizer.DoerDBSynchronizer;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.util.Date;
+import java.util.List;
 
 public class InsertQuery extends BasicQuery {
 
@@ -14,14 +17,16 @@ public class InsertQuery extends BasicQuery {
     private static final String PLACEHOLDER_QUERY_COLUMN_NAMES = "[COLUMN_NAMES]";
     private static final String PLACEHOLDER_QUERY_VALUES = "[COLUMN_VALUES]";
 
+    private boolean upsert = false;
+
     /**
      * Constructor for Query class representing MySQL Update queries.
-     * @param queryID int The ID of the query in the Meta Table.
+     * @param queryID long The ID of the query in the Meta Table.
      * @param tableName String The name of the table affected by the Query.
      * @param newRecord JSONObject The new record whose keys are the column names of the table and values are the new values.
      * @param queryTimestamp Date The timestamp of the time at which the query was generated.
      */
-    public InsertQuery(int queryID, String tableName, JSONObject newRecord, Date queryTimestamp) {
+    public InsertQuery(long queryID, String tableName, JSONObject newRecord, Date queryTimestamp) {
         setQueryID(queryID);
         setQueryType(InsertQuery.QUERY_TYPE);
         setTableName(tableName);
@@ -29,6 +34,47 @@ public class InsertQuery extends BasicQuery {
         setQueryTimestamp(queryTimestamp);
     }
 
+    /**
+     * Used to check whether the query updates the existing row instead of failing when a row with the same key already exists.
+     * @return boolean true if the query is an upsert, false otherwise.
+     */
+    public boolean isUpsert() {
+        return upsert;
+    }
+
+    /**
+     * Sets whether the query updates the existing row instead of failing when a row with the same key already exists.
+     * An upsert is idempotent, hence a change which is applied again(e.g. after an interrupted synchronization) does not fail.
+     * @param upsert boolean true to render the query as INSERT ... ON DUPLICATE KEY UPDATE, false to render a plain INSERT.
+     */
+    public void setUpsert(boolean upsert) {
+        this.upsert = upsert;
+    }
+
+    /**
+     * Used to obtain the ON DUPLICATE KEY UPDATE clause which sets every inserted column of an existing row to the inserted value.
+     * @param columnNames Iterable of the inserted column names.
+     * @return String The clause preceded by a space, or an empty string if the query is not an upsert.
+     */
+    private String getUpsertClause(Iterable<String> columnNames) {
+        if (!this.upsert) {
+            return "";
+        }
+
+        StringBuilder subQueryUpdate = new StringBuilder();
+        for (String columnName : columnNames) {
+            if (subQueryUpdate.length() > 0) {
+                subQueryUpdate.append(MySQL.SQL_SEPARATOR);
+            }
+
+            String quotedColumnName = MySQL.SQL_INTERNAL_QUOTES + columnName + MySQL.SQL_INTERNAL_QUOTES;
+            subQueryUpdate.append(quotedColumnName).append(MySQL.SQL_EQUATOR)
+                    .append(MySQL.SQL_INSERT_VALUES).append(MySQL.SQL_BRACKET_ROUND_OPEN).append(quotedColumnName).append(MySQL.SQL_BRACKET_ROUND_CLOSE);
+        }
+
+        return MySQL.SQL_SPACE + MySQL.SQL_INSERT_ON_DUPLICATE_KEY_UPDATE + MySQL.SQL_SPACE + subQueryUpdate;
+    }
+
     /**
      * Used to obtain Insert MySQL query from the provided data.
      * @param queryTimestamp The timestamp at which the query was executed on the databases.
@@ -42,10 +88,10 @@ public class InsertQuery extends BasicQuery {
         JSONArray jsonColumnNames = newRecord.names();
         for (int i = 0; i < jsonColumnNames.length(); i++) {
             String columnName = jsonColumnNames.getString(i);
-            String columnValue = newRecord.getString(columnName);
+            String columnValue = BasicQuery.getValueSQL(newRecord.opt(columnName));
 
             columnNames += MySQL.SQL_INTERNAL_QUOTES + columnName + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SEPARATOR;
-            columnValues += MySQL.SQL_EXTERNAL_QUOTES + columnValue + MySQL.SQL_EXTERNAL_QUOTES + MySQL.SQL_SEPARATOR;
+            columnValues += columnValue + MySQL.SQL_SEPARATOR;
         }
         columnNames = columnNames.substring(0, columnNames.length() - 1);
         columnValues = columnValues.substring(0, columnValues.length() - 1);
@@ -56,9 +102,114 @@ public class InsertQuery extends BasicQuery {
                 MySQL.SQL_INSERT_VALUES + MySQL.SQL_SPACE +
                 MySQL.SQL_BRACKET_ROUND_OPEN + InsertQuery.PLACEHOLDER_QUERY_VALUES + MySQL.SQL_BRACKET_ROUND_CLOSE)
                 .replace(InsertQuery.PLACEHOLDER_QUERY_COLUMN_NAMES, columnNames)
-                .replace(InsertQuery.PLACEHOLDER_QUERY_VALUES, columnValues);
+                .replace(InsertQuery.PLACEHOLDER_QUERY_VALUES, columnValues) +
+                this.getUpsertClause(newRecord.keySet());
 
         return queryMySQL;
     }
 
+    /**
+     * Used to obtain a key identifying the table and the inserted columns of the query, and whether it is an upsert.
+     * @return String The key of the parameterized Insert MySQL query.
+     */
+    @Override
+    public String getPreparedStatementKey() {
+        return InsertQuery.QUERY_TYPE + MySQL.SQL_SPACE + this.getTableName() + MySQL.SQL_SPACE +
+                String.join(MySQL.SQL_SEPARATOR, BasicQuery.getSortedColumnNames(this.getNewRecord())) +
+                (this.upsert ? MySQL.SQL_SPACE + MySQL.SQL_INSERT_ON_DUPLICATE_KEY_UPDATE : "");
+    }
+
+    /**
+     * Used to obtain the parameterized Insert MySQL query.
+     * @return String Parameterized Insert MySQL query.
+     */
+    @Override
+    public String getPreparedMySQLQuery() {
+        return this.getPreparedMySQLQuery(1);
+    }
+
+    /**
+     * Used to obtain the parameterized Insert MySQL query inserting several rows of the same columns at once.
+     * @param rowCount int The number of rows inserted by the query.
+     * @return String Parameterized multi-row Insert MySQL query.
+     */
+    public String getPreparedMySQLQuery(int rowCount) {
+        if (rowCount <= 0) {
+            throw new IllegalArgumentException("Row count should be a positive integer.");
+        }
+
+        List<String> columnNames = BasicQuery.getSortedColumnNames(this.getNewRecord());
+
+        StringBuilder queryColumnNames = new StringBuilder();
+        StringBuilder queryColumnValues = new StringBuilder();
+        for (String columnName : columnNames) {
+            if (queryColumnNames.length() > 0) {
+                queryColumnNames.append(MySQL.SQL_SEPARATOR);
+                queryColumnValues.append(MySQL.SQL_SEPARATOR);
+            }
+
+            queryColumnNames.append(MySQL.SQL_INTERNAL_QUOTES).append(columnName).append(MySQL.SQL_INTERNAL_QUOTES);
+            queryColumnValues.append(MySQL.SQL_PARAMETER);
+        }
+
+        StringBuilder queryRows = new StringBuilder();
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) {
+                queryRows.append(MySQL.SQL_SEPARATOR);
+            }
+
+            queryRows.append(MySQL.SQL_BRACKET_ROUND_OPEN).append(queryColumnValues).append(MySQL.SQL_BRACKET_ROUND_CLOSE);
+        }
+
+        return MySQL.SQL_INSERT_PREFIX + MySQL.SQL_SPACE + MySQL.SQL_INTERNAL_QUOTES + this.getTableName() + MySQL.SQL_INTERNAL_QUOTES +
+                MySQL.SQL_BRACKET_ROUND_OPEN + queryColumnNames + MySQL.SQL_BRACKET_ROUND_CLOSE + MySQL.SQL_SPACE +
+                MySQL.SQL_INSERT_VALUES + MySQL.SQL_SPACE +
+                queryRows +
+                this.getUpsertClause(columnNames);
+    }
+
+    /**
+     * Used to obtain an upper estimate of the number of bytes the inserted values add to a multi-row Insert MySQL query.
+     * @return int The estimated size of the row in bytes.
+     */
+    public int getEstimatedRowBytes() {
+        JSONObject newRecord = this.getNewRecord();
+
+        /* The brackets of the row and a separator, a separator and the length prefix of each value, and up to 4 bytes per character in utf8mb4. */
+        int rowBytes = 3;
+        for (String columnName : newRecord.keySet()) {
+            Object columnValue = newRecord.opt(columnName);
+            rowBytes += 9 + (columnValue == null || columnValue == JSONObject.NULL ? 0 : 4 * columnValue.toString().length());
+        }
+
+        return rowBytes;
+    }
+
+    /**
+     * Binds the inserted values to a statement prepared from getPreparedMySQLQuery.
+     * @param preparedStatement PreparedStatement The statement prepared for a query with the same key.
+     * @throws SQLException If any value cannot be bound.
+     */
+    @Override
+    public void bindPreparedValues(PreparedStatement preparedStatement) throws SQLException {
+        this.bindPreparedValues(preparedStatement, 1);
+    }
+
+    /**
+     * Binds the inserted values to a row of a statement prepared from getPreparedMySQLQuery(rowCount).
+     * @param preparedStatement PreparedStatement The statement prepared for queries with the same key.
+     * @param parameterIndex int The index of the first parameter of the row.
+     * @return int The index of the first parameter of the next row.
+     * @throws SQLException If any value cannot be bound.
+     */
+    public int bindPreparedValues(PreparedStatement preparedStatement, int parameterIndex) throws SQLException {
+        JSONObject newRecord = this.getNewRecord();
+
+        for (String columnName : BasicQuery.getSortedColumnNames(newRecord)) {
+            BasicQuery.bindValue(preparedStatement, parameterIndex++, newRecord.opt(columnName));
+        }
+
+        return parameterIndex;
+    }
+
 }
@@ -5,21 +5,33 @@ import com.doerit.doerdb.synchronizer.DoerDBSynchronizer;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.Objects;
 
+/**
+ * UpdateQuery represents an update of a row recorded in the Meta Table.
+ * The records may be partial: the triggers of a table with a key record only the key columns and the changed columns.
+ * Only the columns whose values differ between the records are set, and the row is identified by its key whenever the key is present in the Old Record.
+ */
 public class UpdateQuery extends BasicQuery {
 
     public static final String QUERY_TYPE = "UPDATE";
 
     /**
      * Constructor for Query class representing MySQL Update queries.
-     * @param queryID int The ID of the query in the Meta Table.
+     * @param queryID long The ID of the query in the Meta Table.
      * @param tableName String The name of the table affected by the Query.
      * @param newRecord JSONObject The new record whose keys are the column names of the table and values are the new values.
      * @param oldRecord JSONObject The old record whose keys are the column names of the table and values are the old values.
      * @param queryTimestamp Date The timestamp of the time at which the query was generated.
      */
-    public UpdateQuery(int queryID, String tableName, JSONObject newRecord, JSONObject oldRecord, Date queryTimestamp) {
+    public UpdateQuery(long queryID, String tableName, JSONObject newRecord, JSONObject oldRecord, Date queryTimestamp) {
         setQueryID(queryID);
         setQueryType(UpdateQuery.QUERY_TYPE);
         setTableName(tableName);
@@ -28,6 +40,62 @@ public class UpdateQuery extends BasicQuery {
         setQueryTimestamp(queryTimestamp);
     }
 
+    /**
+     * Used to obtain the columns of the New Record which are changed by the query, i.e. those missing from the Old Record or having a different value in it.
+     * The unchanged columns, such as the key columns of a partial record, are left out so that they are not set to their own values.
+     * @return List of column names, sorted in the ascending order. Empty if no column is changed.
+     */
+    public List<String> getSetColumnNames() {
+        JSONObject newRecord = this.getNewRecord();
+        JSONObject oldRecord = this.getOldRecord();
+
+        List<String> setColumnNames = new ArrayList<>();
+        for (String columnName : BasicQuery.getSortedColumnNames(newRecord)) {
+            if (oldRecord == null || !oldRecord.has(columnName) || !UpdateQuery.isSameValue(newRecord.opt(columnName), oldRecord.opt(columnName))) {
+                setColumnNames.add(columnName);
+            }
+        }
+
+        return setColumnNames;
+    }
+
+    /**
+     * Used to check whether two values of the records represent the same value of a column.
+     * Numbers are compared by their values, so that a value is not considered changed only because it was parsed into a different type,
+     * and objects such as binary values are compared by their contents.
+     * @param newValue Object The value from the New Record.
+     * @param oldValue Object The value from the Old Record.
+     * @return boolean true if the values are the same, false otherwise.
+     */
+    private static boolean isSameValue(Object newValue, Object oldValue) {
+        if (newValue instanceof Number && oldValue instanceof Number) {
+            return new BigDecimal(newValue.toString()).compareTo(new BigDecimal(oldValue.toString())) == 0;
+        }
+        else if (newValue instanceof JSONObject && oldValue instanceof JSONObject) {
+            return ((JSONObject) newValue).similar(oldValue);
+        }
+        else if (newValue instanceof JSONArray && oldValue instanceof JSONArray) {
+            return ((JSONArray) newValue).similar(oldValue);
+        }
+
+        return Objects.equals(newValue, oldValue);
+    }
+
+    /**
+     * Used to obtain the columns of the Old Record by which the updated row is identified.
+     * These are the columns of the key of the table if known and present in the Old Record, otherwise every column of the Old Record.
+     * @return List of column names, sorted in the ascending order.
+     */
+    public List<String> getWhereColumnNames() {
+        if (this.hasKeyColumns(this.getOldRecord())) {
+            List<String> keyColumnNames = new ArrayList<>(this.getKeyColumnNames());
+            Collections.sort(keyColumnNames);
+            return keyColumnNames;
+        }
+
+        return BasicQuery.getSortedColumnNames(this.getOldRecord());
+    }
+
     /**
      * Used to obtain MySQL Update query from the provided data.
      * @param queryTimestamp The timestamp at which the query was executed on the databases.
@@ -39,25 +107,21 @@ public class UpdateQuery extends BasicQuery {
         JSONObject oldRecord = this.getOldRecord();
 
         String subQuerySet = "";
-        JSONArray setQueryColumnNames = newRecord.names();
-        for (int i = 0; i < setQueryColumnNames.length(); i++) {
-            String setQueryColumnName = setQueryColumnNames.getString(i);
-            String setQueryColumnValue = newRecord.getString(setQueryColumnName);
+        for (String setQueryColumnName : this.getSetColumnNames()) {
+            String setQueryColumnValue = BasicQuery.getValueSQL(newRecord.opt(setQueryColumnName));
 
             subQuerySet += MySQL.SQL_INTERNAL_QUOTES + setQueryColumnName + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_EQUATOR +
-                    MySQL.SQL_EXTERNAL_QUOTES + setQueryColumnValue + MySQL.SQL_EXTERNAL_QUOTES + MySQL.SQL_SEPARATOR;
+                    setQueryColumnValue + MySQL.SQL_SEPARATOR;
         }
         subQuerySet = subQuerySet.substring(0, subQuerySet.length() - 1);
 
         String subQueryWhere = "";
         String subQueryWhereSeparator = MySQL.SQL_SPACE + MySQL.SQL_AND_OPERATOR + MySQL.SQL_SPACE;
-        JSONArray whereQueryColumnNames = oldRecord.names();
-        for (int i = 0; i < whereQueryColumnNames.length(); i++) {
-            String whereQueryColumnName = whereQueryColumnNames.getString(i);
-            String whereQueryColumnValue = oldRecord.getString(whereQueryColumnName);
+        for (String whereQueryColumnName : this.getWhereColumnNames()) {
+            String whereQueryColumnValue = BasicQuery.getValueSQL(oldRecord.opt(whereQueryColumnName));
 
-            subQueryWhere += MySQL.SQL_INTERNAL_QUOTES + whereQueryColumnName + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_EQUATOR +
-                    MySQL.SQL_EXTERNAL_QUOTES + whereQueryColumnValue + MySQL.SQL_EXTERNAL_QUOTES + subQueryWhereSeparator;
+            subQueryWhere += MySQL.SQL_INTERNAL_QUOTES + whereQueryColumnName + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_NULL_SAFE_EQUATOR +
+                    whereQueryColumnValue + subQueryWhereSeparator;
         }
         subQueryWhere = subQueryWhere.substring(0, subQueryWhere.length() - subQueryWhereSeparator.length());
 
@@ -69,4 +133,69 @@ public class UpdateQuery extends BasicQuery {
         return queryMySQL;
     }
 
+    /**
+     * Used to obtain a key identifying the table, the updated columns and the compared columns of the query.
+     * @return String The key of the parameterized Update MySQL query.
+     */
+    @Override
+    public String getPreparedStatementKey() {
+        return UpdateQuery.QUERY_TYPE + MySQL.SQL_SPACE + this.getTableName() + MySQL.SQL_SPACE +
+                String.join(MySQL.SQL_SEPARATOR, this.getSetColumnNames()) + MySQL.SQL_SPACE +
+                String.join(MySQL.SQL_SEPARATOR, this.getWhereColumnNames());
+    }
+
+    /**
+     * Used to obtain the parameterized Update MySQL query.
+     * Only the changed columns are set. The row is identified by the key of the table if known, otherwise by every column of the Old Record.
+     * Old values are compared with the NULL-safe equality operator, so that the columns which were NULL are matched as well.
+     * @return String Parameterized Update MySQL query.
+     */
+    @Override
+    public String getPreparedMySQLQuery() {
+        StringBuilder subQuerySet = new StringBuilder();
+        for (String setQueryColumnName : this.getSetColumnNames()) {
+            if (subQuerySet.length() > 0) {
+                subQuerySet.append(MySQL.SQL_SEPARATOR);
+            }
+
+            subQuerySet.append(MySQL.SQL_INTERNAL_QUOTES).append(setQueryColumnName).append(MySQL.SQL_INTERNAL_QUOTES)
+                    .append(MySQL.SQL_EQUATOR).append(MySQL.SQL_PARAMETER);
+        }
+
+        StringBuilder subQueryWhere = new StringBuilder();
+        String subQueryWhereSeparator = MySQL.SQL_SPACE + MySQL.SQL_AND_OPERATOR + MySQL.SQL_SPACE;
+        for (String whereQueryColumnName : this.getWhereColumnNames()) {
+            if (subQueryWhere.length() > 0) {
+                subQueryWhere.append(subQueryWhereSeparator);
+            }
+
+            subQueryWhere.append(MySQL.SQL_INTERNAL_QUOTES).append(whereQueryColumnName).append(MySQL.SQL_INTERNAL_QUOTES)
+                    .append(MySQL.SQL_NULL_SAFE_EQUATOR).append(MySQL.SQL_PARAMETER);
+        }
+
+        return MySQL.SQL_UPDATE_PREFIX + MySQL.SQL_SPACE + MySQL.SQL_INTERNAL_QUOTES + this.getTableName() + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SPACE +
+                MySQL.SQL_SET_OPERATOR + MySQL.SQL_SPACE + subQuerySet + MySQL.SQL_SPACE +
+                MySQL.SQL_WHERE_CLAUSE + MySQL.SQL_SPACE + subQueryWhere;
+    }
+
+    /**
+     * Binds the changed new values followed by the old values identifying the row to a statement prepared from getPreparedMySQLQuery.
+     * @param preparedStatement PreparedStatement The statement prepared for a query with the same key.
+     * @throws SQLException If any value cannot be bound.
+     */
+    @Override
+    public void bindPreparedValues(PreparedStatement preparedStatement) throws SQLException {
+        JSONObject newRecord = this.getNewRecord();
+        JSONObject oldRecord = this.getOldRecord();
+
+        int parameterIndex = 1;
+        for (String setQueryColumnName : this.getSetColumnNames()) {
+            BasicQuery.bindValue(preparedStatement, parameterIndex++, newRecord.opt(setQueryColumnName));
+        }
+
+        for (String whereQueryColumnName : this.getWhereColumnNames()) {
+            BasicQuery.bindValue(preparedStatement, parameterIndex++, oldRecord.opt(whereQueryColumnName));
+        }
+    }
+
 }
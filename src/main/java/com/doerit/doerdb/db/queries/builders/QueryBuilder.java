@@ -4,7 +4,6 @@ import com.doerit.doerdb.db.metadata.DoerDBMetaTable;
 import com.doerit.doerdb.db.queries.BasicQuery;
 import com.doerit.doerdb.db.queries.InsertQuery;
 import com.doerit.doerdb.db.queries.UpdateQuery;
-import jdk.nashorn.internal.parser.JSONParser;
 import org.json.JSONObject;
 
 import java.util.Date;
@@ -19,7 +18,7 @@ public class QueryBuilder {
     }
 
     public BasicQuery getQuery() {
-        int queryID = Integer.parseInt(this.queryRecordInfo.get(DoerDBMetaTable.TABLE_COL_ID).toString());
+        long queryID = Long.parseLong(this.queryRecordInfo.get(DoerDBMetaTable.TABLE_COL_ID).toString());
         String tableName = this.queryRecordInfo.get(DoerDBMetaTable.TABLE_COL_TABLE_NAME).toString();
         String queryType = this.queryRecordInfo.get(DoerDBMetaTable.TABLE_COL_QUERY_TYPE).toString();
         JSONObject newRecord = new JSONObject(this.queryRecordInfo.get(DoerDBMetaTable.TABLE_COL_NEW_RECORD).toString());
@@ -29,7 +28,13 @@ public class QueryBuilder {
             case InsertQuery.QUERY_TYPE:
                 return new InsertQuery(queryID, tableName, newRecord, queryTimestamp);
             case UpdateQuery.QUERY_TYPE:
-                JSONObject oldRecord = new JSONObject(this.queryRecordInfo.get(DoerDBMetaTable.TABLE_COL_OLD_RECORD).toString());
+                /* The records of an update may hold only the key and the changed columns, the Old Record is needed to tell which columns are changed. */
+                Object oldRecordInfo = this.queryRecordInfo.get(DoerDBMetaTable.TABLE_COL_OLD_RECORD);
+                if (oldRecordInfo == null) {
+                    return null;
+                }
+
+                JSONObject oldRecord = new JSONObject(oldRecordInfo.toString());
                 return new UpdateQuery(queryID, tableName, newRecord, oldRecord, queryTimestamp);
             default:
                 return null;
@@ -1,17 +1,20 @@
 package com.doerit.doerdb.db.queries.executors;
 
+import com.doerit.doerdb.db.DoerDatabase;
 import com.doerit.doerdb.db.queries.BasicQuery;
+import com.doerit.doerdb.db.queries.InsertQuery;
 import com.doerit.doerdb.db.queries.UpdateQuery;
 import com.doerit.doerdb.exceptions.InitializationFailureException;
 import com.doerit.doerdb.synchronizer.DoerDBChange;
 import com.doerit.doerdb.synchronizer.DoerDBSynchronizer;
-import com.doerit.doerdb.synchronizer.mappers.ColumnMapper;
-import com.doerit.doerdb.synchronizer.mappers.DatabaseMapper;
-import com.doerit.doerdb.synchronizer.mappers.TableMapper;
-import org.json.JSONArray;
+import com.doerit.doerdb.synchronizer.mappers.ColumnProjection;
+import com.doerit.doerdb.synchronizer.mappers.DatabaseMapping;
+import com.doerit.doerdb.synchronizer.mappers.TableMapping;
 import org.json.JSONObject;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class DoerDBChangeExecutor {
 
@@ -25,6 +28,79 @@ public class DoerDBChangeExecutor {
         this.doerDBSynchronizer = doerDBSynchronizer;
     }
 
+    /**
+     * Maps the table and columns of the query of a DoerDBChange to those of the opposite database.
+     * Columns which are not synchronized are eliminated from the records of the query, and the key columns of the opposite table are set on it.
+     * Inserts are turned into upserts if the synchronizer applies inserts as upserts.
+     * @param doerDBChange DoerDBChange Instance whose query is to be mapped.
+     * @return boolean true if the mapped query has any column to be synchronized, and an update changes any of them, false otherwise.
+     */
+    private boolean mapDoerDBChange(DoerDBChange doerDBChange) {
+        BasicQuery changeQuery = doerDBChange.getQuery();
+        DatabaseMapping databaseMapping = this.doerDBSynchronizer.getDoerDBMapping();
+
+        String oppositeTableName;
+        List<String> oppositeKeyColumnNames;
+        ColumnProjection columnProjection;
+        if (doerDBChange.getSyncDirection() == DoerDBChange.SyncDirection.LOCAL_TO_REMOTE) {
+            TableMapping tableMapping = databaseMapping.getTableMappingByLocalTable(changeQuery.getTableName());
+            oppositeTableName = tableMapping.getRemoteTableName();
+            oppositeKeyColumnNames = tableMapping.getRemoteKeyColumnNames();
+            columnProjection = tableMapping.getLocalToRemoteProjection();
+        }
+        else {
+            TableMapping tableMapping = databaseMapping.getTableMappingByRemoteTable(changeQuery.getTableName());
+            oppositeTableName = tableMapping.getLocalTableName();
+            oppositeKeyColumnNames = tableMapping.getLocalKeyColumnNames();
+            columnProjection = tableMapping.getRemoteToLocalProjection();
+        }
+
+        // Columns which are not synchronized are eliminated from the records by the projection.
+        JSONObject newNewRecord = columnProjection.project(changeQuery.getNewRecord());
+        JSONObject newOldRecord = changeQuery.getQueryType().equals(UpdateQuery.QUERY_TYPE) ? columnProjection.project(changeQuery.getOldRecord()) : null;
+
+        if (newNewRecord.length() > 0) {
+            changeQuery.setTableName(oppositeTableName);
+            changeQuery.setNewRecord(newNewRecord);
+            changeQuery.setOldRecord(newOldRecord);
+            changeQuery.setKeyColumnNames(oppositeKeyColumnNames == null || oppositeKeyColumnNames.isEmpty() ? null : oppositeKeyColumnNames);
+            if (changeQuery instanceof InsertQuery) {
+                ((InsertQuery) changeQuery).setUpsert(this.doerDBSynchronizer.isUpsertInserts());
+            }
+
+            // An update which changed only the columns not synchronized leaves nothing to be set.
+            return !(changeQuery instanceof UpdateQuery) || !((UpdateQuery) changeQuery).getSetColumnNames().isEmpty();
+        }
+
+        return false;
+    }
+
+    /**
+     * Used to obtain the database on which a DoerDBChange is executed.
+     * @param doerDBChange DoerDBChange Instance to be executed.
+     * @return DoerDatabase The opposite database.
+     */
+    private DoerDatabase getTargetDatabase(DoerDBChange doerDBChange) {
+        if (doerDBChange.getSyncDirection() == DoerDBChange.SyncDirection.LOCAL_TO_REMOTE) {
+            return this.doerDBSynchronizer.getDoerDB().getRemoteDatabase();
+        }
+        else {
+            return this.doerDBSynchronizer.getDoerDB().getLocalDatabase();
+        }
+    }
+
+    /**
+     * Used to obtain the QueryExecutor on which a DoerDBChange is executed, i.e. that of the synchronization in progress on the opposite database.
+     * Outside of a synchronization, the QueryExecutor of the opposite database itself is used.
+     * @param doerDBChange DoerDBChange Instance to be executed.
+     * @return QueryExecutor The QueryExecutor of the opposite database.
+     */
+    private QueryExecutor getTargetQueryExecutor(DoerDBChange doerDBChange) {
+        QueryExecutor syncQueryExecutor = doerDBChange.getSyncDirection() == DoerDBChange.SyncDirection.LOCAL_TO_REMOTE ?
+                this.doerDBSynchronizer.getRemoteQueryExecutor() : this.doerDBSynchronizer.getLocalQueryExecutor();
+        return syncQueryExecutor != null ? syncQueryExecutor : this.getTargetDatabase(doerDBChange).getQueryExecutor();
+    }
+
     /**
      * Executes a DoerDBChange on the relavant database.
      * @param doerDBChange DoerDBChange Instance that is needed to be executed.
@@ -32,73 +108,79 @@ public class DoerDBChangeExecutor {
      * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
      */
     public void executeDoerDBChange(DoerDBChange doerDBChange) throws SQLException, InitializationFailureException {
-        BasicQuery changeQuery = doerDBChange.getQuery();
+        if (this.mapDoerDBChange(doerDBChange)) {
+            this.getTargetQueryExecutor(doerDBChange).executeQuery(doerDBChange.getQuery());
+        }
+    }
 
-        JSONObject oldNewRecord = changeQuery.getNewRecord();
-        JSONArray oldNewRecordColumns = oldNewRecord.names();
-        JSONObject oldOldRecord = changeQuery.getOldRecord();
+    /**
+     * Maps the tables and columns of the queries of a list of DoerDBChanges to those of the opposite databases.
+     * @param doerDBChanges List of DoerDBChange instances to be mapped. Their queries are modified in place.
+     * @return List of the mapped DoerDBChange instances which have any column to be synchronized, in the same order.
+     */
+    public List<DoerDBChange> mapDoerDBChanges(List<DoerDBChange> doerDBChanges) {
+        List<DoerDBChange> mappedDoerDBChanges = new ArrayList<>();
+        for (DoerDBChange doerDBChange : doerDBChanges) {
+            if (this.mapDoerDBChange(doerDBChange)) {
+                mappedDoerDBChanges.add(doerDBChange);
+            }
+        }
 
-        DoerDBChange.SyncDirection changeDirection = doerDBChange.getSyncDirection();
-        DatabaseMapper databaseMapper = this.doerDBSynchronizer.getDoerDBMapper();
+        return mappedDoerDBChanges;
+    }
 
-        String oppositeTableName;
-        JSONObject newNewRecord = new JSONObject();
-        JSONObject newOldRecord = changeQuery.getQueryType().equals(UpdateQuery.QUERY_TYPE) ? new JSONObject() : null;
-        QueryExecutor queryExecutor;
-
-        if (changeDirection == DoerDBChange.SyncDirection.LOCAL_TO_REMOTE) {
-            TableMapper tableMapper = databaseMapper.getTableMapperByLocalTable(changeQuery.getTableName());
-            oppositeTableName = tableMapper.getRemoteTableName();
-
-            for (int i = 0; i < oldNewRecordColumns.length(); i++) {
-                String oldRecordColumn = oldNewRecordColumns.getString(i);
-                ColumnMapper columnMapper = tableMapper.getColumnMapperByLocalColumn(oldRecordColumn);
-
-                String newRecordColumn = columnMapper.getRemoteColumnName();
-                String newNewRecordValue = oldNewRecord.getString(oldRecordColumn);
-                // Prevent the column from synchronizing by eliminating it from the columns list.
-                if (newRecordColumn != null) {
-                    newNewRecord.put(newRecordColumn, newNewRecordValue);
-
-                    if (changeQuery.getQueryType().equals(UpdateQuery.QUERY_TYPE)) {
-                        String newOldRecordValue = oldOldRecord.getString(oldRecordColumn);
-                        newOldRecord.put(newRecordColumn, newOldRecordValue);
-                    }
-                }
-            }
+    /**
+     * Executes a list of DoerDBChanges on the relavant databases in JDBC batches.
+     * @param doerDBChanges List of DoerDBChange instances to be executed, in the order of execution.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
+     * @see #executeMappedDoerDBChanges(List)
+     */
+    public void executeDoerDBChanges(List<DoerDBChange> doerDBChanges) throws SQLException, InitializationFailureException {
+        this.executeMappedDoerDBChanges(this.mapDoerDBChanges(doerDBChanges));
+    }
 
-            queryExecutor = this.doerDBSynchronizer.getDoerDB().getRemoteDatabase().getQueryExecutor();
-        }
-        else {
-            TableMapper tableMapper = databaseMapper.getTableMapperByRemoteTable(changeQuery.getTableName());
-            oppositeTableName = tableMapper.getLocalTableName();
-
-            for (int i = 0; i < oldNewRecordColumns.length(); i++) {
-                String oldRecordColumn = oldNewRecordColumns.getString(i);
-                ColumnMapper columnMapper = tableMapper.getColumnMapperByRemoteColumn(oldRecordColumn);
-
-                String newRecordColumn = columnMapper.getLocalColumnName();
-                String newNewRecordValue = oldNewRecord.getString(oldRecordColumn);
-                // Prevent the column from synchronizing by eliminating it from the columns list.
-                if (newRecordColumn != null) {
-                    newNewRecord.put(newRecordColumn, newNewRecordValue);
-
-                    if (changeQuery.getQueryType().equals(UpdateQuery.QUERY_TYPE)) {
-                        String newOldRecordValue = oldOldRecord.getString(oldRecordColumn);
-                        newOldRecord.put(newRecordColumn, newOldRecordValue);
-                    }
-                }
+    /**
+     * Executes a list of DoerDBChanges, already mapped by mapDoerDBChanges, on the relavant databases in JDBC batches.
+     * Consecutive changes to the same database with the same table, columns and timestamp are sent as a single batch of at most applyBatchSize statements.
+     * Such runs of inserts are sent as multi-row INSERT statements of at most maxInsertPacketBytes bytes instead.
+     * If a database executes the changes in a transaction, the transaction is left open, so that the synchronizer commits it at a window boundary along with the cursor.
+     * The order of the changes on each database is preserved.
+     * If the synchronizer has a ParallelQueryExecutor, the changes are distributed among its lanes instead, preserving the order of the changes to each row.
+     * @param mappedDoerDBChanges List of mapped DoerDBChange instances to be executed, in the order of execution.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
+     */
+    public void executeMappedDoerDBChanges(List<DoerDBChange> mappedDoerDBChanges) throws SQLException, InitializationFailureException {
+        QueryExecutor localQueryExecutor = this.doerDBSynchronizer.getLocalQueryExecutor() != null ?
+                this.doerDBSynchronizer.getLocalQueryExecutor() : this.doerDBSynchronizer.getDoerDB().getLocalDatabase().getQueryExecutor();
+        QueryExecutor remoteQueryExecutor = this.doerDBSynchronizer.getRemoteQueryExecutor() != null ?
+                this.doerDBSynchronizer.getRemoteQueryExecutor() : this.doerDBSynchronizer.getDoerDB().getRemoteDatabase().getQueryExecutor();
+
+        int applyBatchSize = this.doerDBSynchronizer.getApplyBatchSize();
+        int maxInsertPacketBytes = this.doerDBSynchronizer.getMaxInsertPacketBytes();
+        ParallelQueryExecutor parallelQueryExecutor = this.doerDBSynchronizer.getParallelQueryExecutor();
+        if (parallelQueryExecutor != null) {
+            for (DoerDBChange doerDBChange : mappedDoerDBChanges) {
+                parallelQueryExecutor.addQuery(this.getTargetDatabase(doerDBChange), doerDBChange.getQuery());
             }
 
-            queryExecutor = this.doerDBSynchronizer.getDoerDB().getLocalDatabase().getQueryExecutor();
+            parallelQueryExecutor.execute(applyBatchSize, maxInsertPacketBytes, this.doerDBSynchronizer.getGroupCommitSize(), this.doerDBSynchronizer.getGroupCommitInterval());
+            return;
         }
 
-        if (newNewRecord.length() > 0) {
-            changeQuery.setTableName(oppositeTableName);
-            changeQuery.setNewRecord(newNewRecord);
-            changeQuery.setOldRecord(newOldRecord);
+        try {
+            for (DoerDBChange doerDBChange : mappedDoerDBChanges) {
+                QueryExecutor queryExecutor = doerDBChange.getSyncDirection() == DoerDBChange.SyncDirection.LOCAL_TO_REMOTE ? remoteQueryExecutor : localQueryExecutor;
+                queryExecutor.addBatchQuery(doerDBChange.getQuery(), applyBatchSize, maxInsertPacketBytes);
+            }
 
-            queryExecutor.executeQuery(changeQuery);
+            localQueryExecutor.executeBatch();
+            remoteQueryExecutor.executeBatch();
+        }
+        finally {
+            localQueryExecutor.clearBatch();
+            remoteQueryExecutor.clearBatch();
         }
     }
 }
@@ -0,0 +1,398 @@
+package com.doerit.doerdb.db.queries.executors;
+
+import com.doerit.doerdb.db.DoerDatabase;
+import com.doerit.doerdb.db.MySQL;
+import com.doerit.doerdb.db.queries.BasicQuery;
+import com.doerit.doerdb.db.queries.InsertQuery;
+import com.doerit.doerdb.db.queries.UpdateQuery;
+import com.doerit.doerdb.db.templates.MySQLQueryTemplates;
+import com.doerit.doerdb.exceptions.InitializationFailureException;
+import org.json.JSONObject;
+
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * ParallelQueryExecutor executes queries on a database over several lanes, each running on its own connection and thread.
+ * Queries are assigned to lanes by the rows they change, so the queries changing a row are executed in the order they were added, while the lanes are drained concurrently.
+ * The tables related by foreign keys form a family whose queries share a lane, so that e.g. a parent row is inserted before its children.
+ * As each lane commits on its own connection, a failed lane does not roll back the others, and the changes are applied again by the next synchronization.
+ * Hence inserts are always applied as upserts, so that applying the changes again is idempotent for the tables with a known key.
+ * The connections of the lanes are borrowed from the connection pools of the databases on first use, and returned by releaseLanes at the end of each synchronization,
+ * so that the pools serve other borrowers between synchronizations. The parallelism should not exceed the size of the pools.
+ */
+public class ParallelQueryExecutor {
+
+    private static final String LANE_KEY_SEPARATOR = "\u0000";
+
+    private final int parallelism;
+    private final ExecutorService executorService;
+    private final Map<DoerDatabase, QueryExecutor[]> laneQueryExecutors = new IdentityHashMap<>();
+    private final Map<DoerDatabase, List<BasicQuery>> pendingQueries = new IdentityHashMap<>();
+    private final Map<DoerDatabase, Map<String, String>> tableFamilies = new IdentityHashMap<>();
+    private String syncOrigin = null;
+
+    /**
+     * Constructor for ParallelQueryExecutor.
+     * @param parallelism int The number of lanes per database.
+     */
+    public ParallelQueryExecutor(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism should be a positive integer.");
+        }
+
+        this.parallelism = parallelism;
+        this.executorService = Executors.newCachedThreadPool(runnable -> {
+            Thread laneThread = new Thread(runnable, "doerdb-apply-lane");
+            laneThread.setDaemon(true);
+            return laneThread;
+        });
+    }
+
+    /**
+     * Used to obtain the values of the key of the row changed by a query.
+     * @param query BasicQuery The query.
+     * @return String The values of the key columns, or null if the key of the table is unknown or the query changes the key of the row.
+     */
+    private static String getRowKey(BasicQuery query) {
+        JSONObject newRecord = query.getNewRecord();
+        if (!query.hasKeyColumns(newRecord)) {
+            return null;
+        }
+
+        String newRowKey = ParallelQueryExecutor.getRowKey(query.getKeyColumnNames(), newRecord);
+        if (query.getQueryType().equals(UpdateQuery.QUERY_TYPE)) {
+            JSONObject oldRecord = query.getOldRecord();
+            if (!query.hasKeyColumns(oldRecord) || !newRowKey.equals(ParallelQueryExecutor.getRowKey(query.getKeyColumnNames(), oldRecord))) {
+                return null;
+            }
+        }
+
+        return newRowKey;
+    }
+
+    /**
+     * Used to obtain the values of the given key columns of a record, joined into a single string.
+     * @param keyColumnNames List of the column names of the key.
+     * @param record JSONObject The record.
+     * @return String The values of the key columns.
+     */
+    private static String getRowKey(List<String> keyColumnNames, JSONObject record) {
+        StringBuilder rowKey = new StringBuilder();
+        for (String keyColumnName : keyColumnNames) {
+            rowKey.append(record.opt(keyColumnName)).append(LANE_KEY_SEPARATOR);
+        }
+
+        return rowKey.toString();
+    }
+
+    /**
+     * Groups the tables related by foreign keys into families, directly or through other tables.
+     * A table referencing itself forms a family on its own, since its rows may depend on each other.
+     * @param referencedTableNames Map of the names of the tables to the names of the tables they reference by foreign keys.
+     * @return Map of the names of the tables in any family to the name of their family, i.e. the least table name in the family.
+     */
+    static Map<String, String> getTableFamilies(Map<String, Set<String>> referencedTableNames) {
+        Map<String, String> parentTableNames = new HashMap<>();
+        for (Map.Entry<String, Set<String>> tableReferences : referencedTableNames.entrySet()) {
+            for (String referencedTableName : tableReferences.getValue()) {
+                String tableFamily = ParallelQueryExecutor.findTableFamily(parentTableNames, tableReferences.getKey());
+                String referencedTableFamily = ParallelQueryExecutor.findTableFamily(parentTableNames, referencedTableName);
+                if (tableFamily.compareTo(referencedTableFamily) < 0) {
+                    parentTableNames.put(referencedTableFamily, tableFamily);
+                }
+                else {
+                    parentTableNames.put(tableFamily, referencedTableFamily);
+                }
+            }
+        }
+
+        Map<String, String> tableFamilies = new HashMap<>();
+        for (String tableName : parentTableNames.keySet()) {
+            tableFamilies.put(tableName, ParallelQueryExecutor.findTableFamily(parentTableNames, tableName));
+        }
+
+        return tableFamilies;
+    }
+
+    /**
+     * Used to obtain the family of a table from the parents of the tables, i.e. the table reached by following the parents up to a table which is its own parent.
+     * @param parentTableNames Map of the names of the tables to the names of their parents. A table not in the map is registered as its own parent.
+     * @param tableName String The name of the table.
+     * @return String The name of the family of the table.
+     */
+    private static String findTableFamily(Map<String, String> parentTableNames, String tableName) {
+        String familyName = tableName;
+        while (!familyName.equals(parentTableNames.computeIfAbsent(familyName, k -> k))) {
+            familyName = parentTableNames.get(familyName);
+        }
+
+        return familyName;
+    }
+
+    /**
+     * Reads the families of the tables of a database related by foreign keys.
+     * @param doerDatabase DoerDatabase The database.
+     * @return Map of the names of the tables in any family to the name of their family.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     * @throws InitializationFailureException If DoerDatabase Implementation failed to initialize.
+     */
+    public static Map<String, String> readTableFamilies(DoerDatabase doerDatabase) throws SQLException, InitializationFailureException {
+        String querySchemaForeignKeyTables = MySQLQueryTemplates.QUERY_SCHEMA_FOREIGN_KEY_TABLES
+                .replace(MySQLQueryTemplates.PLACEHOLDER_DATABASE_NAME, doerDatabase.getDatabaseName());
+
+        Map<String, Set<String>> referencedTableNames = new HashMap<>();
+        doerDatabase.forEachRow(querySchemaForeignKeyTables, rowForeignKeyTable -> referencedTableNames
+                .computeIfAbsent(rowForeignKeyTable.getString(MySQL.SQL_CONTENT_TABLE_NAME), k -> new HashSet<>())
+                .add(rowForeignKeyTable.getString(MySQL.SQL_CONTENT_REFERENCED_TABLE_NAME)));
+
+        return ParallelQueryExecutor.getTableFamilies(referencedTableNames);
+    }
+
+    /**
+     * Assigns the queries to a database to lanes, preserving their order within each lane.
+     * Queries are assigned by the table and the key of the row they change, so that the changes of different rows of a table are executed concurrently.
+     * All queries to a table share a lane if the table has no known key, or if any query changes the key of a row, since the later changes of the row would be keyed differently.
+     * All queries to the tables of a family share a lane, so that the order of the changes across the tables related by foreign keys is preserved.
+     * @param queries List of queries to a database, in the order of execution.
+     * @param parallelism int The number of lanes.
+     * @param tableFamilies Map of the names of the tables in any family to the name of their family.
+     * @return List of the queries of each lane, in the order of execution.
+     */
+    static List<List<BasicQuery>> assignLanes(List<BasicQuery> queries, int parallelism, Map<String, String> tableFamilies) {
+        Set<String> tablesLanedByTable = new HashSet<>();
+        for (BasicQuery query : queries) {
+            if (ParallelQueryExecutor.getRowKey(query) == null) {
+                tablesLanedByTable.add(query.getTableName());
+            }
+        }
+
+        List<List<BasicQuery>> laneQueries = new ArrayList<>();
+        for (int i = 0; i < parallelism; i++) {
+            laneQueries.add(new ArrayList<>());
+        }
+
+        for (BasicQuery query : queries) {
+            String laneKey = query.getTableName();
+            if (tableFamilies.containsKey(laneKey)) {
+                laneKey = tableFamilies.get(laneKey);
+            }
+            else if (!tablesLanedByTable.contains(query.getTableName())) {
+                laneKey += LANE_KEY_SEPARATOR + ParallelQueryExecutor.getRowKey(query);
+            }
+
+            laneQueries.get(Math.floorMod(laneKey.hashCode(), parallelism)).add(query);
+        }
+
+        return laneQueries;
+    }
+
+    /**
+     * Adds a query to be executed on a database by the next call to execute.
+     * An insert is turned into an upsert, so that it does not fail if it was committed by a lane before an earlier failure.
+     * @param doerDatabase DoerDatabase The database on which the query is executed.
+     * @param query BasicQuery The query to be executed.
+     */
+    public void addQuery(DoerDatabase doerDatabase, BasicQuery query) {
+        if (query instanceof InsertQuery) {
+            ((InsertQuery) query).setUpsert(true);
+        }
+
+        this.pendingQueries.computeIfAbsent(doerDatabase, k -> new ArrayList<>()).add(query);
+    }
+
+    /**
+     * Used to obtain the QueryExecutor of a lane of a database, borrowing its connection if not borrowed yet.
+     * @param doerDatabase DoerDatabase The database.
+     * @param lane int The index of the lane.
+     * @return QueryExecutor The QueryExecutor of the lane.
+     * @throws SQLException If no pooled connection is available, or JDBC Driver cannot establish a connection to the server.
+     * @throws InitializationFailureException If DoerDatabase Implementation failed to initialize.
+     */
+    private QueryExecutor getLaneQueryExecutor(DoerDatabase doerDatabase, int lane) throws SQLException, InitializationFailureException {
+        QueryExecutor[] queryExecutors = this.laneQueryExecutors.computeIfAbsent(doerDatabase, k -> new QueryExecutor[this.parallelism]);
+        if (queryExecutors[lane] == null) {
+            queryExecutors[lane] = QueryExecutor.borrow(doerDatabase, this.syncOrigin);
+        }
+
+        return queryExecutors[lane];
+    }
+
+    /**
+     * Executes the queries of a lane in JDBC batches, multi-row inserts and group-committed transactions, and commits the last transaction.
+     * @param queryExecutor QueryExecutor The QueryExecutor of the lane.
+     * @param queries List of queries of the lane, in the order of execution.
+     * @param maxBatchSize int The maximum number of queries other than inserts in a batch.
+     * @param maxPacketBytes int The maximum size in bytes of a multi-row INSERT statement.
+     * @param groupCommitSize int The maximum number of queries in a transaction, 0 to commit every query on its own.
+     * @param groupCommitInterval long The maximum duration of a transaction in milliseconds.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
+     */
+    private static void executeLane(QueryExecutor queryExecutor, List<BasicQuery> queries, int maxBatchSize, int maxPacketBytes, int groupCommitSize, long groupCommitInterval) throws SQLException, InitializationFailureException {
+        if (groupCommitSize > 0) {
+            queryExecutor.beginTransaction();
+        }
+
+        try {
+            for (BasicQuery query : queries) {
+                queryExecutor.addBatchQuery(query, maxBatchSize, maxPacketBytes);
+                if (queryExecutor.isTransactionCommitDue(groupCommitSize, groupCommitInterval)) {
+                    queryExecutor.commitTransaction();
+                }
+            }
+
+            queryExecutor.endTransaction();
+        }
+        catch (SQLException | RuntimeException e) {
+            try {
+                queryExecutor.rollbackTransaction();
+            }
+            catch (SQLException rollbackException) {
+                e.addSuppressed(rollbackException);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Executes the added queries on their lanes concurrently and waits for every lane to complete.
+     * Each lane commits its own transactions, hence the queries of the lanes which completed remain committed if another lane fails.
+     * They are applied again by the next synchronization, which the upserts and the updates by key tolerate.
+     * @param maxBatchSize int The maximum number of queries other than inserts in a batch.
+     * @param maxPacketBytes int The maximum size in bytes of a multi-row INSERT statement.
+     * @param groupCommitSize int The maximum number of queries in a transaction, 0 to commit every query on its own.
+     * @param groupCommitInterval long The maximum duration of a transaction in milliseconds.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query on any lane.
+     * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
+     */
+    public void execute(int maxBatchSize, int maxPacketBytes, int groupCommitSize, long groupCommitInterval) throws SQLException, InitializationFailureException {
+        Map<QueryExecutor, List<BasicQuery>> lanes = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<DoerDatabase, List<BasicQuery>> databaseQueries : this.pendingQueries.entrySet()) {
+                Map<String, String> tableFamilies = this.tableFamilies.get(databaseQueries.getKey());
+                if (tableFamilies == null) {
+                    tableFamilies = ParallelQueryExecutor.readTableFamilies(databaseQueries.getKey());
+                    this.tableFamilies.put(databaseQueries.getKey(), tableFamilies);
+                }
+
+                List<List<BasicQuery>> laneQueries = ParallelQueryExecutor.assignLanes(databaseQueries.getValue(), this.parallelism, tableFamilies);
+                for (int lane = 0; lane < laneQueries.size(); lane++) {
+                    if (!laneQueries.get(lane).isEmpty()) {
+                        lanes.put(this.getLaneQueryExecutor(databaseQueries.getKey(), lane), laneQueries.get(lane));
+                    }
+                }
+            }
+        }
+        finally {
+            this.pendingQueries.clear();
+        }
+
+        List<Future<Void>> laneFutures = new ArrayList<>();
+        for (Map.Entry<QueryExecutor, List<BasicQuery>> lane : lanes.entrySet()) {
+            laneFutures.add(this.executorService.submit(() -> {
+                ParallelQueryExecutor.executeLane(lane.getKey(), lane.getValue(), maxBatchSize, maxPacketBytes, groupCommitSize, groupCommitInterval);
+                return null;
+            }));
+        }
+
+        ParallelQueryExecutor.awaitLanes(laneFutures);
+    }
+
+    /**
+     * Waits for every lane to complete and rethrows the first failure of a lane, if any.
+     * @param laneFutures List of futures of the lanes.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query on any lane.
+     * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
+     */
+    private static void awaitLanes(List<Future<Void>> laneFutures) throws SQLException, InitializationFailureException {
+        Exception laneException = null;
+        for (Future<Void> laneFuture : laneFutures) {
+            try {
+                laneFuture.get();
+            }
+            catch (ExecutionException e) {
+                if (laneException == null) {
+                    laneException = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+                else {
+                    laneException.addSuppressed(e.getCause());
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (laneException == null) {
+                    laneException = e;
+                }
+            }
+        }
+
+        if (laneException instanceof SQLException) {
+            throw (SQLException) laneException;
+        }
+        else if (laneException instanceof InitializationFailureException) {
+            throw (InitializationFailureException) laneException;
+        }
+        else if (laneException instanceof RuntimeException) {
+            throw (RuntimeException) laneException;
+        }
+        else if (laneException != null) {
+            throw new SQLException("Execution of a lane was interrupted.", laneException);
+        }
+    }
+
+    /**
+     * Sets the origin which the queries of the lanes are tagged with. Applies to the lanes borrowing their connections after it is set.
+     * @param syncOrigin String The origin, null to not tag the queries.
+     */
+    public void setSyncOrigin(String syncOrigin) {
+        this.syncOrigin = syncOrigin;
+    }
+
+    /**
+     * Used to obtain the number of lanes per database.
+     * @return int The number of lanes per database.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Closes the statements of every lane and returns the connections of the lanes to their pools. The lanes borrow their connections again on the next execute.
+     * <b>Note: Should not be called while an execute is in progress.</b>
+     * @throws SQLException If any statement or connection cannot be closed.
+     */
+    public void releaseLanes() throws SQLException {
+        SQLException closeException = null;
+        for (QueryExecutor[] queryExecutors : this.laneQueryExecutors.values()) {
+            for (QueryExecutor queryExecutor : queryExecutors) {
+                if (queryExecutor != null) {
+                    try {
+                        queryExecutor.close();
+                    }
+                    catch (SQLException e) {
+                        closeException = e;
+                    }
+                }
+            }
+        }
+        this.laneQueryExecutors.clear();
+
+        if (closeException != null) {
+            throw closeException;
+        }
+    }
+
+    /**
+     * Closes the statements and connections of every lane and stops the threads of the lanes.
+     * @throws SQLException If any statement or connection cannot be closed.
+     */
+    public void close() throws SQLException {
+        this.executorService.shutdown();
+        this.pendingQueries.clear();
+        this.tableFamilies.clear();
+        this.releaseLanes();
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.doerit.doerdb.db.queries.executors;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * PreparedStatementCache holds the statements prepared on a single connection, keyed by the shape of the queries they were prepared for.
+ * Statements are prepared once per shape and reused for every later query of the same shape, hence the server parses each shape only once.
+ * The least recently used statement is closed once the cache exceeds its capacity.
+ */
+public class PreparedStatementCache {
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final Connection connection;
+    private final int capacity;
+    private final LinkedHashMap<String, PreparedStatement> preparedStatements = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Constructor for PreparedStatementCache.
+     * @param connection Connection The connection on which the statements are prepared.
+     * @param capacity int The maximum number of statements kept open at once.
+     */
+    public PreparedStatementCache(Connection connection, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity should be a positive integer.");
+        }
+
+        this.connection = connection;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Used to obtain the statement prepared for the given key, preparing it from the given MySQL query if not cached.
+     * @param key String The key identifying the shape of the query.
+     * @param mysqlQuery String The parameterized MySQL query, used only if the statement is not cached.
+     * @return PreparedStatement The prepared statement.
+     * @throws SQLException If the statement cannot be prepared.
+     */
+    public PreparedStatement getPreparedStatement(String key, String mysqlQuery) throws SQLException {
+        PreparedStatement preparedStatement = this.preparedStatements.get(key);
+        if (preparedStatement == null) {
+            preparedStatement = this.connection.prepareStatement(mysqlQuery);
+            this.preparedStatements.put(key, preparedStatement);
+            this.evictExcess();
+        }
+
+        return preparedStatement;
+    }
+
+    /**
+     * Closes the least recently used statements until the cache is within its capacity.
+     * @throws SQLException If any statement cannot be closed.
+     */
+    private void evictExcess() throws SQLException {
+        Iterator<Map.Entry<String, PreparedStatement>> iterator = this.preparedStatements.entrySet().iterator();
+        while (this.preparedStatements.size() > this.capacity && iterator.hasNext()) {
+            PreparedStatement preparedStatement = iterator.next().getValue();
+            iterator.remove();
+            preparedStatement.close();
+        }
+    }
+
+    /**
+     * Closes every cached statement and empties the cache.
+     * @throws SQLException If any statement cannot be closed.
+     */
+    public void clear() throws SQLException {
+        SQLException closeException = null;
+        for (PreparedStatement preparedStatement : this.preparedStatements.values()) {
+            try {
+                preparedStatement.close();
+            }
+            catch (SQLException e) {
+                closeException = e;
+            }
+        }
+        this.preparedStatements.clear();
+
+        if (closeException != null) {
+            throw closeException;
+        }
+    }
+
+    /**
+     * Used to obtain the number of cached statements.
+     * @return int The number of cached statements.
+     */
+    public int size() {
+        return this.preparedStatements.size();
+    }
+
+}
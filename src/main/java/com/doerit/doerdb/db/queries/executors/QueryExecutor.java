@@ -1,22 +1,211 @@
 package com.doerit.doerdb.db.queries.executors;
 
 import com.doerit.doerdb.db.DoerDatabase;
+import com.doerit.doerdb.db.MySQL;
+import com.doerit.doerdb.db.jdbc.JDBCConstants;
+import com.doerit.doerdb.db.jdbc.ResultSetReader;
+import com.doerit.doerdb.db.jdbc.ScopedStatements;
 import com.doerit.doerdb.db.queries.BasicQuery;
+import com.doerit.doerdb.db.queries.InsertQuery;
 import com.doerit.doerdb.exceptions.InitializationFailureException;
-import com.doerit.doerdb.synchronizer.mappers.TableMapper;
+import com.doerit.doerdb.synchronizer.DoerDBSynchronizer;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
 
+/**
+ * QueryExecutor executes queries on a single connection of a DoerDatabase as prepared statements.
+ * Statements are cached per connection by the shape of the queries, i.e. their type, table and columns, and the values are bound instead of being concatenated.
+ * Queries of the same shape and timestamp can also be accumulated and sent to the server as a single JDBC batch.
+ * Runs of inserts of the same shape are instead sent as multi-row INSERT statements of power of two rows, capped by a maximum packet size.
+ * Queries can be grouped into explicit transactions, so that a group of queries costs a single commit on the server.
+ * A QueryExecutor on the connection of a DoerDatabase follows the DoerDatabase to a new connection whenever it reconnects, outside of batches and transactions.
+ * A QueryExecutor obtained by borrow runs on a pooled connection of its own, so that its transactions are not joined by the statements of applications, and returns the connection when closed.
+ * Along with the timestamp of the queries, the sync origin of a borrowed QueryExecutor is set on its connection, so that the triggers can tell the queries applied by the synchronizer from those of applications.
+ * The origin is never set on a connection handed to applications, whose changes would otherwise be skipped by the triggers.
+ */
 public class QueryExecutor {
 
+    public static final int DEFAULT_MAX_PACKET_BYTES = 1024 * 1024;
+
+    /* The number of placeholders MySQL accepts in a single prepared statement. */
+    private static final int MAX_PREPARED_STATEMENT_PARAMETERS = 65535;
+
+    private static final String MYSQL_QUERY_SET_SESSION_TAGS = MySQL.SQL_SET_OPERATOR + MySQL.SQL_SPACE +
+            DoerDBSynchronizer.MYSQL_TAG_QUERY_TIMESTAMP + MySQL.SQL_EQUATOR + MySQL.SQL_PARAMETER + MySQL.SQL_SEPARATOR +
+            DoerDBSynchronizer.MYSQL_TAG_SYNC_ORIGIN + MySQL.SQL_EQUATOR + MySQL.SQL_PARAMETER;
+    /* Clears the session variables tagging the changes of a synchronization. Also run by the connection pools on every returned connection. */
+    public static final String MYSQL_QUERY_RESET_SESSION_TAGS = MySQL.SQL_SET_OPERATOR + MySQL.SQL_SPACE +
+            DoerDBSynchronizer.MYSQL_TAG_QUERY_TIMESTAMP + MySQL.SQL_EQUATOR + MySQL.SQL_VALUE_NULL + MySQL.SQL_SEPARATOR +
+            DoerDBSynchronizer.MYSQL_TAG_SYNC_ORIGIN + MySQL.SQL_EQUATOR + MySQL.SQL_VALUE_NULL;
+
     private final DoerDatabase doerDatabase;
+    private final boolean followsHostConnection;
+    private final boolean ownsConnection;
+    private final String syncOrigin;
+    private Connection connection;
+    private PreparedStatementCache preparedStatementCache;
+
+    private String lastQueryTimestamp = null;
+    private String lastSyncOrigin = null;
+
+    private PreparedStatement batchStatement = null;
+    private String batchStatementKey = null;
+    private int batchCount = 0;
+    private final List<InsertQuery> batchInsertQueries = new ArrayList<>();
+    private long batchInsertBytes = 0;
+
+    private boolean transactionActive = false;
+    private int transactionQueryCount = 0;
+    private long transactionStartTime = 0;
 
     /**
      * Constructor for QueryExecutor.
      * @param doerDatabase DoerDatabase The instance of DoerDatabase associated with the QueryExecutor.
      */
     public QueryExecutor(DoerDatabase doerDatabase) {
+        this(doerDatabase, doerDatabase.getConnection(), true, false, null);
+    }
+
+    /**
+     * Constructor for QueryExecutor.
+     * @param doerDatabase DoerDatabase The instance of DoerDatabase associated with the QueryExecutor.
+     * @param connection Connection The connection to the DoerDatabase on which the queries are executed.
+     */
+    public QueryExecutor(DoerDatabase doerDatabase, Connection connection) {
+        this(doerDatabase, connection, false, false, null);
+    }
+
+    /**
+     * Constructor for QueryExecutor.
+     * @param doerDatabase DoerDatabase The instance of DoerDatabase associated with the QueryExecutor.
+     * @param connection Connection The connection to the DoerDatabase on which the queries are executed.
+     * @param followsHostConnection boolean true if the connection is that of the DoerDatabase, and should be replaced when the DoerDatabase reconnects.
+     * @param ownsConnection boolean true if the connection is closed along with the QueryExecutor.
+     * @param syncOrigin String The origin which the queries are tagged with, null to not tag the queries.
+     */
+    private QueryExecutor(DoerDatabase doerDatabase, Connection connection, boolean followsHostConnection, boolean ownsConnection, String syncOrigin) {
         this.doerDatabase = doerDatabase;
+        this.connection = connection;
+        this.followsHostConnection = followsHostConnection;
+        this.ownsConnection = ownsConnection;
+        this.syncOrigin = syncOrigin;
+        this.preparedStatementCache = new PreparedStatementCache(connection, PreparedStatementCache.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a QueryExecutor on a connection borrowed from the connection pool of a DoerDatabase, used by no one else until the QueryExecutor is closed.
+     * <b>Note: The caller is responsible for closing the QueryExecutor, which returns the connection to the pool.</b>
+     * @param doerDatabase DoerDatabase The DoerDatabase whose connection is borrowed.
+     * @return QueryExecutor The QueryExecutor on the borrowed connection.
+     * @throws SQLException If no pooled connection is available, or JDBC Driver cannot establish a connection to the server.
+     * @throws InitializationFailureException If DoerDatabase Implementation failed to initialize.
+     */
+    public static QueryExecutor borrow(DoerDatabase doerDatabase) throws SQLException, InitializationFailureException {
+        return QueryExecutor.borrow(doerDatabase, null);
+    }
+
+    /**
+     * Creates a QueryExecutor on a connection borrowed from the connection pool of a DoerDatabase, tagging its queries with a sync origin.
+     * The triggers of a local database skip the changes tagged with any origin, while those of a remote database record the origin of each change.
+     * <b>Note: The caller is responsible for closing the QueryExecutor, which clears the tags and returns the connection to the pool.</b>
+     * @param doerDatabase DoerDatabase The DoerDatabase whose connection is borrowed.
+     * @param syncOrigin String The origin which the queries are tagged with, null to not tag the queries.
+     * @return QueryExecutor The QueryExecutor on the borrowed connection.
+     * @throws SQLException If no pooled connection is available, or JDBC Driver cannot establish a connection to the server.
+     * @throws InitializationFailureException If DoerDatabase Implementation failed to initialize.
+     */
+    public static QueryExecutor borrow(DoerDatabase doerDatabase, String syncOrigin) throws SQLException, InitializationFailureException {
+        return new QueryExecutor(doerDatabase, doerDatabase.borrowConnection(), false, true, syncOrigin);
+    }
+
+    /**
+     * Moves to the current connection of the DoerDatabase if it reconnected since the last query, while no batch or transaction is pending on the old connection.
+     * @throws SQLException If JDBC Driver cannot establish a new connection to the server.
+     */
+    private void refreshConnection() throws SQLException {
+        if (!this.followsHostConnection || this.transactionActive || this.batchCount > 0) {
+            return;
+        }
+
+        Connection hostConnection = this.doerDatabase.getValidConnection();
+        if (hostConnection == this.connection) {
+            return;
+        }
+
+        try {
+            this.preparedStatementCache.clear();
+        }
+        catch (SQLException e) {
+            // The statements of a broken connection are released with it.
+        }
+        this.lastQueryTimestamp = null;
+        this.lastSyncOrigin = null;
+        this.connection = hostConnection;
+        this.preparedStatementCache = new PreparedStatementCache(hostConnection, PreparedStatementCache.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Sets the timestamp and the sync origin which the triggers record for the following queries.
+     * The variables are set only when either differs from that of the previous query on the connection.
+     * The statement is taken from the cache on every use rather than held, as the cache closes the statements it evicts.
+     * @param queryTimestamp Date The timestamp of the query.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     */
+    private void setQueryTimestamp(Date queryTimestamp) throws SQLException {
+        String formattedQueryTimestamp = MySQL.getFormattedTimestampSQL(queryTimestamp);
+        String syncOrigin = this.syncOrigin;
+        if (formattedQueryTimestamp.equals(this.lastQueryTimestamp) && Objects.equals(syncOrigin, this.lastSyncOrigin)) {
+            return;
+        }
+
+        PreparedStatement setSessionTagsStatement = this.preparedStatementCache.getPreparedStatement(MYSQL_QUERY_SET_SESSION_TAGS, MYSQL_QUERY_SET_SESSION_TAGS);
+
+        this.lastQueryTimestamp = null;
+        setSessionTagsStatement.setString(1, formattedQueryTimestamp);
+        if (syncOrigin != null) {
+            setSessionTagsStatement.setString(2, syncOrigin);
+        }
+        else {
+            setSessionTagsStatement.setNull(2, Types.VARCHAR);
+        }
+        setSessionTagsStatement.executeUpdate();
+        this.lastQueryTimestamp = formattedQueryTimestamp;
+        this.lastSyncOrigin = syncOrigin;
+    }
+
+    /**
+     * Clears the timestamp and the sync origin set on the connection, so that the following statements of applications on the same connection are recorded as their own.
+     * The variables are cleared only if any query was executed since they were last cleared.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     */
+    public void resetSessionTags() throws SQLException {
+        if (this.lastQueryTimestamp == null && this.lastSyncOrigin == null) {
+            return;
+        }
+
+        this.lastQueryTimestamp = null;
+        this.lastSyncOrigin = null;
+        ScopedStatements.executeUpdate(this.connection, MYSQL_QUERY_RESET_SESSION_TAGS);
+    }
+
+    /**
+     * Used to obtain the statement prepared for the shape of a query, with the values of the query bound to it.
+     * @param query BasicQuery The query.
+     * @return PreparedStatement The statement ready to be executed.
+     * @throws SQLException If the statement cannot be prepared or the values cannot be bound.
+     */
+    private PreparedStatement getBoundStatement(BasicQuery query) throws SQLException {
+        String preparedStatementKey = query.getPreparedStatementKey();
+        PreparedStatement preparedStatement = this.preparedStatementCache.getPreparedStatement(preparedStatementKey, query.getPreparedMySQLQuery());
+        query.bindPreparedValues(preparedStatement);
+        return preparedStatement;
     }
 
     /**
@@ -26,8 +215,285 @@ public class QueryExecutor {
      * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
      */
     public void executeQuery(BasicQuery query) throws SQLException, InitializationFailureException {
-        String mysqlQuery = query.getMySQLQuery(query.getQueryTimestamp());
-        this.doerDatabase.executeUpdate(mysqlQuery);
+        this.executeBatch();
+        this.refreshConnection();
+        this.setQueryTimestamp(query.getQueryTimestamp());
+        this.getBoundStatement(query).executeUpdate();
+        this.transactionQueryCount++;
+    }
+
+    /**
+     * Executes a raw SQL ADD/UPDATE/DELETE query on the connection of the QueryExecutor, within its current transaction if any.
+     * The current batch is executed first, so that the query follows the queries added before it.
+     * @param sqlQuery String The ADD/UPDATE/DELETE query to be executed.
+     * @return int The number of rows affected.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     */
+    public int executeUpdate(String sqlQuery) throws SQLException {
+        this.executeBatch();
+        this.refreshConnection();
+        return ScopedStatements.executeUpdate(this.connection, sqlQuery);
+    }
+
+    /**
+     * Executes a raw SQL query on the connection of the QueryExecutor and reads a value out of its result, seeing the changes of its current transaction if any.
+     * The current batch is executed first, so that the result includes the queries added before it.
+     * @param sqlQuery String The query to be executed.
+     * @param resultSetReader ResultSetReader Reads the value out of the result.
+     * @param <T> The type of the value read.
+     * @return T The value read.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query or while reading the result.
+     */
+    public <T> T executeQuery(String sqlQuery, ResultSetReader<T> resultSetReader) throws SQLException {
+        this.executeBatch();
+        this.refreshConnection();
+        return ScopedStatements.executeQuery(this.connection, sqlQuery, JDBCConstants.FETCH_SIZE_DEFAULT, resultSetReader);
+    }
+
+    /**
+     * Adds a query to the current batch.
+     * The current batch is executed first if the query differs in shape or timestamp from the queries in it, or if it is full.
+     * A batch of inserts is full when another row would take the multi-row INSERT statement over maxPacketBytes, any other batch when it holds maxBatchSize queries.
+     * <b>Note: The last batch is executed only when executeBatch is called.</b>
+     * @param query BasicQuery The query to be executed.
+     * @param maxBatchSize int The maximum number of queries other than inserts in a batch.
+     * @param maxPacketBytes int The maximum size in bytes of a multi-row INSERT statement. It should not exceed max_allowed_packet of the server.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     */
+    public void addBatchQuery(BasicQuery query, int maxBatchSize, int maxPacketBytes) throws SQLException {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Maximum batch size should be a positive integer.");
+        }
+        if (maxPacketBytes <= 0) {
+            throw new IllegalArgumentException("Maximum packet size should be a positive integer.");
+        }
+
+        this.refreshConnection();
+        String preparedStatementKey = query.getPreparedStatementKey();
+        InsertQuery insertQuery = query instanceof InsertQuery ? (InsertQuery) query : null;
+        int rowBytes = insertQuery != null ? insertQuery.getEstimatedRowBytes() : 0;
+        if (this.batchCount > 0) {
+            /* Every query of a batch is recorded by the triggers with the timestamp set before the batch. */
+            boolean sameTimestamp = MySQL.getFormattedTimestampSQL(query.getQueryTimestamp()).equals(this.lastQueryTimestamp);
+
+            boolean batchFull;
+            if (insertQuery != null) {
+                int rowParameterCount = insertQuery.getNewRecord().length();
+                batchFull = this.batchInsertBytes + rowBytes > maxPacketBytes ||
+                        (long) (this.batchCount + 1) * rowParameterCount > MAX_PREPARED_STATEMENT_PARAMETERS;
+            }
+            else {
+                batchFull = this.batchCount >= maxBatchSize;
+            }
+
+            if (!preparedStatementKey.equals(this.batchStatementKey) || !sameTimestamp || batchFull) {
+                this.executeBatch();
+            }
+        }
+
+        this.setQueryTimestamp(query.getQueryTimestamp());
+        if (insertQuery != null) {
+            if (this.batchCount == 0) {
+                this.batchInsertBytes = insertQuery.getPreparedMySQLQuery().length();
+            }
+
+            this.batchInsertQueries.add(insertQuery);
+            this.batchInsertBytes += rowBytes;
+        }
+        else {
+            this.batchStatement = this.getBoundStatement(query);
+            this.batchStatement.addBatch();
+        }
+        this.batchStatementKey = preparedStatementKey;
+        this.batchCount++;
+        this.transactionQueryCount++;
+    }
+
+    /**
+     * Executes the queries added to the current batch, if any.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     */
+    public void executeBatch() throws SQLException {
+        if (this.batchCount == 0) {
+            return;
+        }
+
+        PreparedStatement executedStatement = this.batchStatement;
+        String executedStatementKey = this.batchStatementKey;
+        List<InsertQuery> executedInsertQueries = new ArrayList<>(this.batchInsertQueries);
+        this.clearBatchState();
+
+        if (executedInsertQueries.isEmpty()) {
+            executedStatement.executeBatch();
+            return;
+        }
+
+        /*
+         * The number of rows is a part of the shape of a multi-row INSERT statement, hence the rows are executed in chunks of powers of two,
+         * largest first, so that at most one statement per power of two is cached for each shape of insert.
+         */
+        InsertQuery firstInsertQuery = executedInsertQueries.get(0);
+        int chunkStart = 0;
+        while (chunkStart < executedInsertQueries.size()) {
+            int chunkSize = Integer.highestOneBit(executedInsertQueries.size() - chunkStart);
+            executedStatement = this.preparedStatementCache.getPreparedStatement(
+                    executedStatementKey + MySQL.SQL_SPACE + chunkSize,
+                    firstInsertQuery.getPreparedMySQLQuery(chunkSize));
+
+            int parameterIndex = 1;
+            for (InsertQuery insertQuery : executedInsertQueries.subList(chunkStart, chunkStart + chunkSize)) {
+                parameterIndex = insertQuery.bindPreparedValues(executedStatement, parameterIndex);
+            }
+            executedStatement.executeUpdate();
+            chunkStart += chunkSize;
+        }
+    }
+
+    /**
+     * Resets the current batch to be empty.
+     */
+    private void clearBatchState() {
+        this.batchStatement = null;
+        this.batchStatementKey = null;
+        this.batchCount = 0;
+        this.batchInsertQueries.clear();
+        this.batchInsertBytes = 0;
+    }
+
+    /**
+     * Discards the queries added to the current batch without executing them.
+     * @throws SQLException If the batch cannot be cleared.
+     */
+    public void clearBatch() throws SQLException {
+        if (this.batchStatement != null) {
+            this.batchStatement.clearBatch();
+        }
+
+        this.clearBatchState();
+    }
+
+    /**
+     * Used to obtain the number of queries in the current batch.
+     * @return int The number of queries added and not yet executed.
+     */
+    public int getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * Starts executing the queries on the connection in explicit transactions instead of committing each of them.
+     * Any other statement executed on the same connection, such as an update of the Sync Data Table, joins the current transaction.
+     * @throws SQLException If auto-commit cannot be disabled on the connection.
+     */
+    public void beginTransaction() throws SQLException {
+        if (this.transactionActive) {
+            return;
+        }
+
+        this.refreshConnection();
+        this.connection.setAutoCommit(false);
+        this.transactionActive = true;
+        this.transactionQueryCount = 0;
+        this.transactionStartTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Executes the current batch and commits the current transaction. The following queries are executed in a new transaction.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query or the commit.
+     */
+    public void commitTransaction() throws SQLException {
+        this.executeBatch();
+        if (!this.transactionActive) {
+            return;
+        }
+
+        this.connection.commit();
+        this.transactionQueryCount = 0;
+        this.transactionStartTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Commits the current transaction and returns the connection to auto-commit mode.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query or the commit.
+     */
+    public void endTransaction() throws SQLException {
+        this.commitTransaction();
+        if (!this.transactionActive) {
+            return;
+        }
+
+        this.transactionActive = false;
+        this.connection.setAutoCommit(true);
+    }
+
+    /**
+     * Discards the current batch, rolls back the current transaction and returns the connection to auto-commit mode.
+     * @throws SQLException If the transaction cannot be rolled back.
+     */
+    public void rollbackTransaction() throws SQLException {
+        this.clearBatch();
+        if (!this.transactionActive) {
+            return;
+        }
+
+        this.transactionActive = false;
+        try {
+            this.connection.rollback();
+        }
+        finally {
+            this.connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Used to check whether the current transaction should be committed as per the given group commit limits.
+     * @param maxQueryCount int The maximum number of queries in a transaction.
+     * @param maxDurationMillis long The maximum time in milliseconds a transaction is kept open.
+     * @return boolean true if a transaction is active and has reached either limit, false otherwise.
+     */
+    public boolean isTransactionCommitDue(int maxQueryCount, long maxDurationMillis) {
+        return this.transactionActive &&
+                (this.transactionQueryCount >= maxQueryCount || System.currentTimeMillis() - this.transactionStartTime >= maxDurationMillis);
+    }
+
+    /**
+     * Used to check whether the queries are executed in explicit transactions.
+     * @return boolean true if a transaction is active, false otherwise.
+     */
+    public boolean isTransactionActive() {
+        return transactionActive;
+    }
+
+    /**
+     * Used to obtain the DoerDatabase associated with the QueryExecutor.
+     * @return DoerDatabase The DoerDatabase associated.
+     */
+    public DoerDatabase getDoerDatabase() {
+        return doerDatabase;
+    }
+
+    /**
+     * Closes every statement prepared by the QueryExecutor, clearing the variables it set on the connection.
+     * A borrowed connection is returned to its pool, which rolls back a transaction left open on it.
+     * @throws SQLException If any statement cannot be closed.
+     */
+    public void close() throws SQLException {
+        try {
+            this.clearBatch();
+            try {
+                this.resetSessionTags();
+            }
+            catch (SQLException e) {
+                // The variables of a broken connection are discarded with it.
+            }
+            this.preparedStatementCache.clear();
+        }
+        finally {
+            if (this.ownsConnection) {
+                this.transactionActive = false;
+                this.connection.close();
+            }
+        }
     }
 
 }
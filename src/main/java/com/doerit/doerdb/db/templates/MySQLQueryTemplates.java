@@ -24,7 +24,68 @@ public class MySQLQueryTemplates {
             MySQL.SQL_INTERNAL_QUOTES + "trigger_schema" + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_EQUATOR +  MySQL.SQL_EXTERNAL_QUOTES + PLACEHOLDER_DATABASE_NAME + MySQL.SQL_EXTERNAL_QUOTES + MySQL.SQL_SPACE + MySQL.SQL_AND_OPERATOR + MySQL.SQL_SPACE +
             MySQL.SQL_INTERNAL_QUOTES + "trigger_name" + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_EQUATOR +  MySQL.SQL_EXTERNAL_QUOTES + PLACEHOLDER_TRIGGER_NAME + MySQL.SQL_EXTERNAL_QUOTES;
 
+    public static final String QUERY_ALL_TRIGGERS = MySQL.SQL_SELECT_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_TRIGGER_NAME + MySQL.SQL_SPACE +
+            MySQL.SQL_FROM_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_INFORMATION_SCHEMA_TRIGGERS + MySQL.SQL_SPACE +
+            MySQL.SQL_WHERE_CLAUSE + MySQL.SQL_SPACE +
+            MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_CONTENT_TRIGGER_SCHEMA + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_EQUATOR + MySQL.SQL_EXTERNAL_QUOTES + PLACEHOLDER_DATABASE_NAME + MySQL.SQL_EXTERNAL_QUOTES;
+
     public static final String QUERY_ALL_COLUMNS = MySQL.SQL_SHOW_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_COLUMNS + MySQL.SQL_SPACE + MySQL.SQL_FROM_CLAUSE + MySQL.SQL_SPACE +
             MySQL.SQL_INTERNAL_QUOTES + PLACEHOLDER_TABLE_NAME + MySQL.SQL_INTERNAL_QUOTES;
 
+    /* Columns of the unique indexes of a table, the primary key first, each index in the order of its columns. */
+    public static final String QUERY_UNIQUE_KEY_COLUMNS = MySQL.SQL_SELECT_CLAUSE + MySQL.SQL_SPACE +
+            MySQL.SQL_CONTENT_INDEX_NAME + MySQL.SQL_SEPARATOR + MySQL.SQL_CONTENT_COLUMN_NAME + MySQL.SQL_SEPARATOR + MySQL.SQL_CONTENT_NULLABLE + MySQL.SQL_SPACE +
+            MySQL.SQL_FROM_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_INFORMATION_SCHEMA_STATISTICS + MySQL.SQL_SPACE +
+            MySQL.SQL_WHERE_CLAUSE + MySQL.SQL_SPACE +
+            MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_CONTENT_TABLE_SCHEMA + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_EQUATOR + MySQL.SQL_EXTERNAL_QUOTES + PLACEHOLDER_DATABASE_NAME + MySQL.SQL_EXTERNAL_QUOTES + MySQL.SQL_SPACE + MySQL.SQL_AND_OPERATOR + MySQL.SQL_SPACE +
+            MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_CONTENT_TABLE_NAME + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_EQUATOR + MySQL.SQL_EXTERNAL_QUOTES + PLACEHOLDER_TABLE_NAME + MySQL.SQL_EXTERNAL_QUOTES + MySQL.SQL_SPACE + MySQL.SQL_AND_OPERATOR + MySQL.SQL_SPACE +
+            MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_CONTENT_NON_UNIQUE + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_EQUATOR + "0" + MySQL.SQL_SPACE +
+            MySQL.SQL_ORDER_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_BY_OPERATOR + MySQL.SQL_SPACE +
+            MySQL.SQL_CONTENT_INDEX_NAME + MySQL.SQL_EQUATOR + MySQL.SQL_EXTERNAL_QUOTES + MySQL.SQL_CONTENT_PRIMARY_KEY + MySQL.SQL_EXTERNAL_QUOTES + MySQL.SQL_SPACE + MySQL.SQL_SORT_DESC + MySQL.SQL_SEPARATOR +
+            MySQL.SQL_CONTENT_INDEX_NAME + MySQL.SQL_SEPARATOR + MySQL.SQL_CONTENT_SEQ_IN_INDEX;
+
+    /* Columns of every table of a database, each table in the order of its columns. */
+    public static final String QUERY_SCHEMA_COLUMNS = MySQL.SQL_SELECT_CLAUSE + MySQL.SQL_SPACE +
+            MySQL.SQL_CONTENT_TABLE_NAME + MySQL.SQL_SEPARATOR + MySQL.SQL_CONTENT_COLUMN_NAME + MySQL.SQL_SPACE +
+            MySQL.SQL_FROM_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_INFORMATION_SCHEMA_COLUMNS + MySQL.SQL_SPACE +
+            MySQL.SQL_WHERE_CLAUSE + MySQL.SQL_SPACE +
+            MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_CONTENT_TABLE_SCHEMA + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_EQUATOR + MySQL.SQL_EXTERNAL_QUOTES + PLACEHOLDER_DATABASE_NAME + MySQL.SQL_EXTERNAL_QUOTES + MySQL.SQL_SPACE +
+            MySQL.SQL_ORDER_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_BY_OPERATOR + MySQL.SQL_SPACE +
+            MySQL.SQL_CONTENT_TABLE_NAME + MySQL.SQL_SEPARATOR + MySQL.SQL_CONTENT_ORDINAL_POSITION;
+
+    /* Columns of the unique indexes of every table of a database, as QUERY_UNIQUE_KEY_COLUMNS for each table. */
+    public static final String QUERY_SCHEMA_UNIQUE_KEY_COLUMNS = MySQL.SQL_SELECT_CLAUSE + MySQL.SQL_SPACE +
+            MySQL.SQL_CONTENT_TABLE_NAME + MySQL.SQL_SEPARATOR + MySQL.SQL_CONTENT_INDEX_NAME + MySQL.SQL_SEPARATOR + MySQL.SQL_CONTENT_COLUMN_NAME + MySQL.SQL_SEPARATOR + MySQL.SQL_CONTENT_NULLABLE + MySQL.SQL_SPACE +
+            MySQL.SQL_FROM_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_INFORMATION_SCHEMA_STATISTICS + MySQL.SQL_SPACE +
+            MySQL.SQL_WHERE_CLAUSE + MySQL.SQL_SPACE +
+            MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_CONTENT_TABLE_SCHEMA + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_EQUATOR + MySQL.SQL_EXTERNAL_QUOTES + PLACEHOLDER_DATABASE_NAME + MySQL.SQL_EXTERNAL_QUOTES + MySQL.SQL_SPACE + MySQL.SQL_AND_OPERATOR + MySQL.SQL_SPACE +
+            MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_CONTENT_NON_UNIQUE + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_EQUATOR + "0" + MySQL.SQL_SPACE +
+            MySQL.SQL_ORDER_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_BY_OPERATOR + MySQL.SQL_SPACE +
+            MySQL.SQL_CONTENT_TABLE_NAME + MySQL.SQL_SEPARATOR +
+            MySQL.SQL_CONTENT_INDEX_NAME + MySQL.SQL_EQUATOR + MySQL.SQL_EXTERNAL_QUOTES + MySQL.SQL_CONTENT_PRIMARY_KEY + MySQL.SQL_EXTERNAL_QUOTES + MySQL.SQL_SPACE + MySQL.SQL_SORT_DESC + MySQL.SQL_SEPARATOR +
+            MySQL.SQL_CONTENT_INDEX_NAME + MySQL.SQL_SEPARATOR + MySQL.SQL_CONTENT_SEQ_IN_INDEX;
+
+    /* Tables of a database referencing other tables by foreign keys, along with the referenced tables. */
+    public static final String QUERY_SCHEMA_FOREIGN_KEY_TABLES = MySQL.SQL_SELECT_CLAUSE + MySQL.SQL_SPACE +
+            MySQL.SQL_CONTENT_TABLE_NAME + MySQL.SQL_SEPARATOR + MySQL.SQL_CONTENT_REFERENCED_TABLE_NAME + MySQL.SQL_SPACE +
+            MySQL.SQL_FROM_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_INFORMATION_SCHEMA_REFERENTIAL_CONSTRAINTS + MySQL.SQL_SPACE +
+            MySQL.SQL_WHERE_CLAUSE + MySQL.SQL_SPACE +
+            MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_CONTENT_CONSTRAINT_SCHEMA + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_EQUATOR + MySQL.SQL_EXTERNAL_QUOTES + PLACEHOLDER_DATABASE_NAME + MySQL.SQL_EXTERNAL_QUOTES;
+
+    /* Checksums of the columns and the unique indexes of a database, which change whenever the schema relevant to the mappers changes. */
+    public static final String QUERY_SCHEMA_FINGERPRINT = MySQL.SQL_SELECT_CLAUSE + MySQL.SQL_SPACE +
+            MySQL.SQL_BRACKET_ROUND_OPEN + MySQL.SQL_SELECT_CLAUSE + MySQL.SQL_SPACE +
+            "CONCAT(COUNT(*),':',BIT_XOR(CRC32(CONCAT_WS(',',table_name,column_name,ordinal_position,column_type))))" + MySQL.SQL_SPACE +
+            MySQL.SQL_FROM_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_INFORMATION_SCHEMA_COLUMNS + MySQL.SQL_SPACE +
+            MySQL.SQL_WHERE_CLAUSE + MySQL.SQL_SPACE +
+            MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_CONTENT_TABLE_SCHEMA + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_EQUATOR + MySQL.SQL_EXTERNAL_QUOTES + PLACEHOLDER_DATABASE_NAME + MySQL.SQL_EXTERNAL_QUOTES +
+            MySQL.SQL_BRACKET_ROUND_CLOSE + MySQL.SQL_SPACE + MySQL.SQL_AS_OPERATOR + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_COLUMNS_FINGERPRINT + MySQL.SQL_SEPARATOR +
+            MySQL.SQL_BRACKET_ROUND_OPEN + MySQL.SQL_SELECT_CLAUSE + MySQL.SQL_SPACE +
+            "CONCAT(COUNT(*),':',BIT_XOR(CRC32(CONCAT_WS(',',table_name,index_name,column_name,seq_in_index,nullable))))" + MySQL.SQL_SPACE +
+            MySQL.SQL_FROM_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_INFORMATION_SCHEMA_STATISTICS + MySQL.SQL_SPACE +
+            MySQL.SQL_WHERE_CLAUSE + MySQL.SQL_SPACE +
+            MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_CONTENT_TABLE_SCHEMA + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_EQUATOR + MySQL.SQL_EXTERNAL_QUOTES + PLACEHOLDER_DATABASE_NAME + MySQL.SQL_EXTERNAL_QUOTES + MySQL.SQL_SPACE + MySQL.SQL_AND_OPERATOR + MySQL.SQL_SPACE +
+            MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_CONTENT_NON_UNIQUE + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_EQUATOR + "0" +
+            MySQL.SQL_BRACKET_ROUND_CLOSE + MySQL.SQL_SPACE + MySQL.SQL_AS_OPERATOR + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_KEYS_FINGERPRINT;
+
 }
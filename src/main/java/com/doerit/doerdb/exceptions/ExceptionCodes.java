@@ -8,5 +8,6 @@ public class ExceptionCodes {
     public static final int ALREADY_FOUND = 1003;
     public static final int STATUS_SYNCING = 1004;
     public static final int INVALID_OPERATION = 1005;
+    public static final int INTERRUPTED = 1006;
 
 }
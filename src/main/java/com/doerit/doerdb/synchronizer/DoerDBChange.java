@@ -37,6 +37,14 @@ public class DoerDBChange implements Comparable<DoerDBChange> {
         this.changeQuery = changeQuery;
     }
 
+    /**
+     * Used to obtain the DoerDatabase in which the change was recorded.
+     * @return DoerDatabase The DoerDatabase which the change is associated with.
+     */
+    public DoerDatabase getDoerDatabase() {
+        return doerDatabase;
+    }
+
     /**
      * Used to obtain the SyncDirection associated with the change.
      * @return SyncDirection The direction of the change.
@@ -55,9 +63,9 @@ public class DoerDBChange implements Comparable<DoerDBChange> {
 
     /**
      * Redirected method to obtain the Query ID(in the Meta Table) of the BasicQuery associated with the change.
-     * @return int The Query ID in the Meta Table for the BasicQuery associated.
+     * @return long The Query ID in the Meta Table for the BasicQuery associated.
      */
-    public int getQueryID() {
+    public long getQueryID() {
         return this.changeQuery.getQueryID();
     }
 
@@ -0,0 +1,206 @@
+package com.doerit.doerdb.synchronizer;
+
+import com.doerit.doerdb.db.queries.BasicQuery;
+import com.doerit.doerdb.db.queries.InsertQuery;
+import com.doerit.doerdb.db.queries.UpdateQuery;
+import com.doerit.doerdb.synchronizer.mappers.DatabaseMapping;
+import com.doerit.doerdb.synchronizer.mappers.TableMapping;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DoerDBChangeCoalescer folds the chains of changes made to a single row into one net change before they are executed.
+ * A chain is an insert or an update followed by the updates of the same row in the same direction.
+ * Rows are identified by the key columns of their tables when known, otherwise an update continues a chain if its Old Record is similar to the New Record of the chain.
+ * The net change takes the place of the first change of the chain and carries the timestamp of the last one.
+ * As the records of updates hold only the key and the changed columns, the records of the chain are merged column by column,
+ * i.e. the New Record of the net change holds the latest value of every changed column, and its Old Record the earliest.
+ * As the net change applies the final state of the row at the position of the first change, a chain is closed by any other change in the same direction
+ * to the same table or to a table of the same family of tables related by foreign keys, since such a change may depend on an intermediate state of the row,
+ * e.g. a child row inserted before its parent references it, or a unique value released by another row before the row takes it.
+ */
+public class DoerDBChangeCoalescer {
+
+    /* Marks a record shared by several rows, whose changes cannot be attributed to a single chain. */
+    private static final int CHAIN_AMBIGUOUS = -1;
+
+    private final Map<DoerDBChange.SyncDirection, Map<String, String>> tableFamilies = new EnumMap<>(DoerDBChange.SyncDirection.class);
+    private int eliminatedCount = 0;
+
+    /**
+     * Used to obtain the key columns of the table of a change.
+     * @param change DoerDBChange The change.
+     * @param databaseMapping DatabaseMapping The mapping of the tables, null if the keys are unknown.
+     * @return List of the key column names of the table, in its own database. Empty if the key is unknown.
+     */
+    private static List<String> getKeyColumnNames(DoerDBChange change, DatabaseMapping databaseMapping) {
+        if (databaseMapping == null) {
+            return Collections.emptyList();
+        }
+
+        String tableName = change.getQuery().getTableName();
+        if (change.getSyncDirection() == DoerDBChange.SyncDirection.REMOTE_TO_LOCAL) {
+            TableMapping tableMapping = databaseMapping.getTableMappingByRemoteTable(tableName);
+            return tableMapping != null ? tableMapping.getRemoteKeyColumnNames() : Collections.emptyList();
+        }
+
+        TableMapping tableMapping = databaseMapping.getTableMappingByLocalTable(tableName);
+        return tableMapping != null ? tableMapping.getLocalKeyColumnNames() : Collections.emptyList();
+    }
+
+    /**
+     * Used to obtain the key of the row of a record of a change, scoped by the direction and the table of the change.
+     * @param change DoerDBChange The change.
+     * @param query BasicQuery The query whose record is used, which may be a net query replacing that of the change.
+     * @param useOldRecord boolean true to use the Old Record, false to use the New Record.
+     * @param keyColumnNames List of the key column names of the table, empty to identify the row by the whole record.
+     * @return DoerDBRecordKey The key.
+     */
+    private static DoerDBRecordKey getKey(DoerDBChange change, BasicQuery query, boolean useOldRecord, List<String> keyColumnNames) {
+        return DoerDBRecordKey.getRowKey(change.getSyncDirection().name() + ":" + query.getTableName(), useOldRecord ? query.getOldRecord() : query.getNewRecord(), keyColumnNames);
+    }
+
+    /**
+     * Used to obtain the group of tables of a change, i.e. the family of its table scoped by the direction of the change, or its table if it is in no family.
+     * @param change DoerDBChange The change.
+     * @return String The group of the change.
+     */
+    private String getTableGroup(DoerDBChange change) {
+        String tableName = change.getQuery().getTableName();
+        Map<String, String> tableFamilies = this.tableFamilies.get(change.getSyncDirection());
+        if (tableFamilies != null && tableFamilies.containsKey(tableName)) {
+            tableName = tableFamilies.get(tableName);
+        }
+
+        return change.getSyncDirection().name() + ":" + tableName;
+    }
+
+    /**
+     * Merges two records of a row column by column.
+     * @param record JSONObject The record whose columns are kept, unless overridden.
+     * @param overridingRecord JSONObject The record whose columns override those of the first record.
+     * @return JSONObject A new record holding the columns of both records.
+     */
+    private static JSONObject mergeRecords(JSONObject record, JSONObject overridingRecord) {
+        JSONObject mergedRecord = new JSONObject();
+        for (String columnName : record.keySet()) {
+            mergedRecord.put(columnName, record.get(columnName));
+        }
+        for (String columnName : overridingRecord.keySet()) {
+            mergedRecord.put(columnName, overridingRecord.get(columnName));
+        }
+
+        return mergedRecord;
+    }
+
+    /**
+     * Registers the New Record of a chain so that a later update can be appended to it.
+     * @param openChains Map of the keys of the New Records of open chains to their positions.
+     * @param key DoerDBRecordKey The key of the New Record.
+     * @param position int The position of the chain, CHAIN_AMBIGUOUS if the record cannot be attributed to a single chain.
+     */
+    private static void openChain(Map<DoerDBRecordKey, Integer> openChains, DoerDBRecordKey key, int position) {
+        openChains.put(key, openChains.containsKey(key) ? CHAIN_AMBIGUOUS : position);
+    }
+
+    /**
+     * Coalesces the chains in a list of changes sorted by their timestamps, identifying the rows by their whole records.
+     * @param changes List of DoerDBChange instances sorted by their timestamps.
+     * @return List of DoerDBChange instances where each chain is replaced by a single net change.
+     */
+    public List<DoerDBChange> coalesce(List<DoerDBChange> changes) {
+        return this.coalesce(changes, null);
+    }
+
+    /**
+     * Coalesces the chains in a list of changes sorted by their timestamps.
+     * @param changes List of DoerDBChange instances sorted by their timestamps.
+     * @param databaseMapping DatabaseMapping The mapping used to identify the rows by the key columns of their tables, null to identify them by their whole records.
+     * @return List of DoerDBChange instances where each chain is replaced by a single net change.
+     */
+    public List<DoerDBChange> coalesce(List<DoerDBChange> changes, DatabaseMapping databaseMapping) {
+        List<DoerDBChange> netChanges = new ArrayList<>();
+        Map<DoerDBRecordKey, Integer> openChains = new HashMap<>();
+        /* The position of the last change of each group of tables which is not folded. Any chain before it is closed. */
+        Map<String, Integer> lastGroupPositions = new HashMap<>();
+
+        for (DoerDBChange change : changes) {
+            BasicQuery query = change.getQuery();
+            List<String> keyColumnNames = DoerDBChangeCoalescer.getKeyColumnNames(change, databaseMapping);
+            String tableGroup = this.getTableGroup(change);
+
+            if (query.getQueryType().equals(UpdateQuery.QUERY_TYPE)) {
+                Integer chainPosition = openChains.remove(DoerDBChangeCoalescer.getKey(change, query, true, keyColumnNames));
+
+                if (chainPosition != null && chainPosition != CHAIN_AMBIGUOUS && chainPosition.equals(lastGroupPositions.get(tableGroup))) {
+                    DoerDBChange chainChange = netChanges.get(chainPosition);
+                    BasicQuery chainQuery = chainChange.getQuery();
+
+                    JSONObject netNewRecord = DoerDBChangeCoalescer.mergeRecords(chainQuery.getNewRecord(), query.getNewRecord());
+                    BasicQuery netQuery;
+                    if (chainQuery.getQueryType().equals(InsertQuery.QUERY_TYPE)) {
+                        netQuery = new InsertQuery(chainQuery.getQueryID(), chainQuery.getTableName(), netNewRecord, query.getQueryTimestamp());
+                    }
+                    else {
+                        JSONObject netOldRecord = DoerDBChangeCoalescer.mergeRecords(query.getOldRecord(), chainQuery.getOldRecord());
+                        netQuery = new UpdateQuery(chainQuery.getQueryID(), chainQuery.getTableName(), netNewRecord, netOldRecord, query.getQueryTimestamp());
+                    }
+
+                    netChanges.set(chainPosition, new DoerDBChange(chainChange.getDoerDatabase(), chainChange.getSyncDirection(), netQuery));
+                    DoerDBChangeCoalescer.openChain(openChains, DoerDBChangeCoalescer.getKey(change, netQuery, false, keyColumnNames), chainPosition);
+                    this.eliminatedCount++;
+                    continue;
+                }
+
+                netChanges.add(change);
+                lastGroupPositions.put(tableGroup, netChanges.size() - 1);
+                if (chainPosition != null && chainPosition == CHAIN_AMBIGUOUS) {
+                    /* The update affects every row sharing the ambiguous record, so its New Record is ambiguous as well. */
+                    openChains.put(DoerDBChangeCoalescer.getKey(change, query, false, keyColumnNames), CHAIN_AMBIGUOUS);
+                    continue;
+                }
+            }
+            else {
+                netChanges.add(change);
+                lastGroupPositions.put(tableGroup, netChanges.size() - 1);
+            }
+
+            if (query.getNewRecord() != null) {
+                DoerDBChangeCoalescer.openChain(openChains, DoerDBChangeCoalescer.getKey(change, query, false, keyColumnNames), netChanges.size() - 1);
+            }
+        }
+
+        return netChanges;
+    }
+
+    /**
+     * Sets the families of the tables related by foreign keys, whose changes in a direction close the chains of each other.
+     * @param syncDirection DoerDBChange.SyncDirection The direction of the changes, whose tables are those of the database the changes are read from.
+     * @param tableFamilies Map of the names of the tables in any family to the name of their family.
+     */
+    public void setTableFamilies(DoerDBChange.SyncDirection syncDirection, Map<String, String> tableFamilies) {
+        this.tableFamilies.put(syncDirection, tableFamilies);
+    }
+
+    /**
+     * Used to obtain the number of changes eliminated by coalescing since the coalescer was created or reset.
+     * @return int The number of eliminated changes.
+     */
+    public int getEliminatedCount() {
+        return eliminatedCount;
+    }
+
+    /**
+     * Resets the number of eliminated changes.
+     */
+    public void resetEliminatedCount() {
+        this.eliminatedCount = 0;
+    }
+
+}
@@ -0,0 +1,208 @@
+package com.doerit.doerdb.synchronizer;
+
+import com.doerit.doerdb.db.queries.BasicQuery;
+import com.doerit.doerdb.db.queries.UpdateQuery;
+import com.doerit.doerdb.synchronizer.mappers.DatabaseMapping;
+import com.doerit.doerdb.synchronizer.mappers.TableMapping;
+import org.json.JSONObject;
+
+import java.util.*;
+
+/**
+ * DoerDBChangeIndex indexes the update changes of a synchronization by their table and the row of their Old Record.
+ * Rows are identified by the values of the key columns of the local table, so that the partial records of the changes to a row match regardless of the columns they changed.
+ * The changes of tables without a known key are indexed by their whole Old Records instead.
+ * It is used to find the later changes whose Old Records are similar to that of a given change in O(1) expected time, instead of comparing every pair of changes.
+ */
+public class DoerDBChangeIndex {
+
+    private final List<DoerDBChange> changes;
+    private final DatabaseMapping databaseMapping;
+    private final DoerDBRecordKey[] keysByPosition;
+    private final Map<DoerDBRecordKey, TreeSet<Integer>> positionsByKey = new HashMap<>();
+
+    /**
+     * Constructor for DoerDBChangeIndex.
+     * @param changes List of DoerDBChange instances to be indexed. The positions in this list are used to refer to the changes.
+     * @param databaseMapping DatabaseMapping The mapping used to identify a remote table by its local table name, null to identify tables only by their names.
+     */
+    public DoerDBChangeIndex(List<DoerDBChange> changes, DatabaseMapping databaseMapping) {
+        this.changes = changes;
+        this.databaseMapping = databaseMapping;
+        this.keysByPosition = new DoerDBRecordKey[changes.size()];
+
+        for (int i = 0; i < changes.size(); i++) {
+            this.add(i);
+        }
+    }
+
+    /**
+     * Used to obtain the Table Mapping of the table of a change.
+     * @param change DoerDBChange The change.
+     * @return TableMapping Instance, null if the table is not mapped or there is no mapping.
+     */
+    private TableMapping getTableMapping(DoerDBChange change) {
+        if (this.databaseMapping == null) {
+            return null;
+        }
+
+        String tableName = change.getQuery().getTableName();
+        return change.getSyncDirection() == DoerDBChange.SyncDirection.REMOTE_TO_LOCAL
+                ? this.databaseMapping.getTableMappingByRemoteTable(tableName)
+                : this.databaseMapping.getTableMappingByLocalTable(tableName);
+    }
+
+    /**
+     * Used to obtain the name which identifies the table of a change regardless of the direction of the change.
+     * Remote tables are identified by the local tables they are mapped to.
+     * @param change DoerDBChange The change.
+     * @return String The name identifying the table.
+     */
+    private String getTableKey(DoerDBChange change) {
+        TableMapping tableMapping = this.getTableMapping(change);
+        if (tableMapping != null && change.getSyncDirection() == DoerDBChange.SyncDirection.REMOTE_TO_LOCAL) {
+            return tableMapping.getLocalTableName();
+        }
+
+        return change.getQuery().getTableName();
+    }
+
+    /**
+     * Translates a record of a change into a record of the local table, so that the records of both directions can be compared.
+     * @param change DoerDBChange The change.
+     * @param record JSONObject The record of the change.
+     * @return JSONObject The record whose keys are the column names of the local table.
+     */
+    private JSONObject getLocalRecord(DoerDBChange change, JSONObject record) {
+        TableMapping tableMapping = this.getTableMapping(change);
+        if (tableMapping != null && change.getSyncDirection() == DoerDBChange.SyncDirection.REMOTE_TO_LOCAL) {
+            return tableMapping.getRemoteToLocalProjection().project(record);
+        }
+
+        return record;
+    }
+
+    /**
+     * Used to obtain the key of a change by the row of its current Old Record.
+     * @param position int The position of the change.
+     * @return DoerDBRecordKey The key, or null if the change is not an update.
+     */
+    private DoerDBRecordKey getKey(int position) {
+        DoerDBChange change = this.changes.get(position);
+        BasicQuery query = change.getQuery();
+        if (!query.getQueryType().equals(UpdateQuery.QUERY_TYPE) || query.getOldRecord() == null) {
+            return null;
+        }
+
+        String tableKey = this.getTableKey(change);
+        TableMapping tableMapping = this.getTableMapping(change);
+        if (tableMapping != null) {
+            DoerDBRecordKey rowKey = DoerDBRecordKey.getRowKey(tableKey, this.getLocalRecord(change, query.getOldRecord()), tableMapping.getLocalKeyColumnNames());
+            if (rowKey.isRowKey()) {
+                return rowKey;
+            }
+        }
+
+        return new DoerDBRecordKey(tableKey, query.getOldRecord());
+    }
+
+    /**
+     * Adds the change at the given position to the index using its current Old Record.
+     * @param position int The position of the change.
+     */
+    private void add(int position) {
+        DoerDBRecordKey key = this.getKey(position);
+        this.keysByPosition[position] = key;
+        if (key != null) {
+            this.positionsByKey.computeIfAbsent(key, k -> new TreeSet<>()).add(position);
+        }
+    }
+
+    /**
+     * Removes the change at the given position from the index.
+     * @param position int The position of the change.
+     */
+    public void remove(int position) {
+        DoerDBRecordKey key = this.keysByPosition[position];
+        if (key != null) {
+            TreeSet<Integer> positions = this.positionsByKey.get(key);
+            positions.remove(position);
+            if (positions.isEmpty()) {
+                this.positionsByKey.remove(key);
+            }
+
+            this.keysByPosition[position] = null;
+        }
+    }
+
+    /**
+     * Re-indexes the change at the given position after its Old Record has been changed.
+     * @param position int The position of the change.
+     */
+    public void reindex(int position) {
+        this.remove(position);
+        this.add(position);
+    }
+
+    /**
+     * Used to check whether the change at the given position is indexed by its row, rather than by its whole Old Record.
+     * @param position int The position of the change.
+     * @return boolean true if the change is identified by the key columns of its row, false otherwise.
+     */
+    public boolean isKeyedByRow(int position) {
+        DoerDBRecordKey key = this.keysByPosition[position] != null ? this.keysByPosition[position] : this.getKey(position);
+        return key != null && key.isRowKey();
+    }
+
+    /**
+     * Used to obtain the columns changed by both of two changes to the same row, e.g. the columns in conflict between a local and a remote update.
+     * The key columns are left out, as they identify the row rather than being changed.
+     * @param position int The position of the change whose column names are returned.
+     * @param otherPosition int The position of the other change.
+     * @return Set of the column names of the table of the change at position, which are in the New Records of both changes.
+     */
+    public Set<String> getCommonColumnNames(int position, int otherPosition) {
+        DoerDBChange change = this.changes.get(position);
+        DoerDBChange otherChange = this.changes.get(otherPosition);
+        TableMapping tableMapping = this.getTableMapping(change);
+
+        JSONObject otherNewRecord = otherChange.getQuery().getNewRecord();
+        List<String> keyColumnNames = new ArrayList<>();
+        if (tableMapping != null) {
+            keyColumnNames = change.getSyncDirection() == DoerDBChange.SyncDirection.REMOTE_TO_LOCAL ? tableMapping.getRemoteKeyColumnNames() : tableMapping.getLocalKeyColumnNames();
+            if (change.getSyncDirection() != otherChange.getSyncDirection()) {
+                otherNewRecord = change.getSyncDirection() == DoerDBChange.SyncDirection.REMOTE_TO_LOCAL
+                        ? tableMapping.getLocalToRemoteProjection().project(otherNewRecord)
+                        : tableMapping.getRemoteToLocalProjection().project(otherNewRecord);
+            }
+        }
+
+        Set<String> commonColumnNames = new TreeSet<>();
+        for (String columnName : change.getQuery().getNewRecord().keySet()) {
+            if (otherNewRecord != null && otherNewRecord.has(columnName) && !keyColumnNames.contains(columnName)) {
+                commonColumnNames.add(columnName);
+            }
+        }
+
+        return commonColumnNames;
+    }
+
+    /**
+     * Used to obtain the positions of the indexed changes whose Old Records are similar to that of the change at the given position.
+     * Changes indexed by their rows are similar if they change the same row.
+     * The change at the given position itself is excluded.
+     * @param position int The position of the change.
+     * @return List of positions in ascending order. Empty if the change is not an update.
+     */
+    public List<Integer> getSimilarChangePositions(int position) {
+        DoerDBRecordKey key = this.keysByPosition[position] != null ? this.keysByPosition[position] : this.getKey(position);
+        if (key == null || !this.positionsByKey.containsKey(key)) {
+            return new ArrayList<>();
+        }
+
+        List<Integer> similarPositions = new ArrayList<>(this.positionsByKey.get(key));
+        similarPositions.remove(Integer.valueOf(position));
+        return similarPositions;
+    }
+
+}
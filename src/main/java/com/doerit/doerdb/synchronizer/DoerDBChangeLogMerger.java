@@ -0,0 +1,125 @@
+package com.doerit.doerdb.synchronizer;
+
+import com.doerit.doerdb.db.DoerDatabase;
+import com.doerit.doerdb.db.metadata.DoerDBChangeLogReader;
+import com.doerit.doerdb.exceptions.InitializationFailureException;
+
+import java.sql.SQLException;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * DoerDBChangeLogMerger merges the changes of the local and remote Meta Tables into a single stream in the order of their timestamps.
+ * The triggers log the changes of each database in the order of their timestamps, hence a two-way merge yields the same order as sorting both logs together,
+ * with the local change taken first when the timestamps are equal.
+ * Each reader prefetches its next page on a separate thread as soon as its current page runs low, independently of the other reader,
+ * so that the pages of both Meta Tables are fetched while the changes already buffered are merged.
+ * <b>Note: The connections of both databases must not be used by any other thread from the first call to hasNext until awaitFetches returns.</b>
+ */
+class DoerDBChangeLogMerger {
+
+    private final DoerDBChangeLogReader localReader;
+    private final DoerDBChangeLogReader remoteReader;
+    private final DoerDatabase localDatabase;
+    private final DoerDatabase remoteDatabase;
+    private final ExecutorService fetchExecutorService;
+
+    /**
+     * Constructor for DoerDBChangeLogMerger.
+     * @param localDatabase DoerDatabase The local database.
+     * @param localReader DoerDBChangeLogReader Reader for the local Meta Table.
+     * @param remoteDatabase DoerDatabase The remote database.
+     * @param remoteReader DoerDBChangeLogReader Reader for the remote Meta Table.
+     */
+    DoerDBChangeLogMerger(DoerDatabase localDatabase, DoerDBChangeLogReader localReader, DoerDatabase remoteDatabase, DoerDBChangeLogReader remoteReader) {
+        this.localDatabase = localDatabase;
+        this.localReader = localReader;
+        this.remoteDatabase = remoteDatabase;
+        this.remoteReader = remoteReader;
+        this.fetchExecutorService = Executors.newFixedThreadPool(2, runnable -> {
+            Thread fetchThread = new Thread(runnable, "doerdb-sync-fetch");
+            fetchThread.setDaemon(true);
+            return fetchThread;
+        });
+    }
+
+    /**
+     * Waits for the pages being prefetched by both readers, so that the connections of both databases can be used by the calling thread again.
+     * The pages are kept in the readers until they are needed.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
+     */
+    void awaitFetches() throws SQLException, InitializationFailureException {
+        try {
+            this.localReader.awaitPrefetch();
+        }
+        finally {
+            this.remoteReader.awaitPrefetch();
+        }
+    }
+
+    /**
+     * Waits for the pages being prefetched after a failure, so that no fetch is left running on the connections, recording their failures as suppressed.
+     * @param failure Exception The failure being thrown.
+     */
+    private void awaitFetchesQuietly(Exception failure) {
+        try {
+            this.awaitFetches();
+        }
+        catch (SQLException | InitializationFailureException | RuntimeException e) {
+            if (e != failure) {
+                failure.addSuppressed(e);
+            }
+        }
+    }
+
+    /**
+     * Used to check whether there are more changes in either Meta Table.
+     * @return boolean true if another change can be read, false otherwise.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
+     */
+    boolean hasNext() throws SQLException, InitializationFailureException {
+        this.localReader.prefetchNextPage(this.fetchExecutorService);
+        this.remoteReader.prefetchNextPage(this.fetchExecutorService);
+        try {
+            return this.localReader.hasNext() || this.remoteReader.hasNext();
+        }
+        catch (SQLException | InitializationFailureException | RuntimeException e) {
+            this.awaitFetchesQuietly(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Used to read the change with the earliest timestamp from the two Meta Tables.
+     * @return DoerDBChange The next change in the order of timestamps.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
+     * @throws NoSuchElementException If there are no more changes to be read.
+     */
+    DoerDBChange next() throws SQLException, InitializationFailureException {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException("No more changes in the Meta Tables.");
+        }
+
+        boolean takeLocal = !this.remoteReader.hasNext() ||
+                (this.localReader.hasNext() && this.localReader.peek().getQueryTimestamp().compareTo(this.remoteReader.peek().getQueryTimestamp()) <= 0);
+
+        if (takeLocal) {
+            return new DoerDBChange(this.localDatabase, DoerDBChange.SyncDirection.LOCAL_TO_REMOTE, this.localReader.next());
+        }
+        else {
+            return new DoerDBChange(this.remoteDatabase, DoerDBChange.SyncDirection.REMOTE_TO_LOCAL, this.remoteReader.next());
+        }
+    }
+
+    /**
+     * Stops the threads used to prefetch the pages of the Meta Tables.
+     */
+    void close() {
+        this.fetchExecutorService.shutdown();
+    }
+
+}
@@ -0,0 +1,235 @@
+package com.doerit.doerdb.synchronizer;
+
+import com.doerit.doerdb.DoerDB;
+import com.doerit.doerdb.db.metadata.DoerDBMetaTable;
+import com.doerit.doerdb.db.metadata.DoerDBSyncDataTable;
+import com.doerit.doerdb.exceptions.ExceptionCodes;
+import com.doerit.doerdb.exceptions.InitializationFailureException;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DoerDBChangeLogPurger deletes the changes of the Meta Tables which both sides have synchronized past, i.e. those before the last synchronized IDs of the local DoerDB.
+ * The change at a last synchronized ID is kept, so that the Meta Tables never run empty and their IDs keep increasing from the cursors.
+ * Partitions of a partitioned Meta Table lying wholly before the cursor are dropped, and the rest of the changes are deleted in small batches so that the triggers are not blocked.
+ * <b>Note: A remote database shared by several local DoerDBs should be purged with a retention period long enough for every one of them to synchronize,
+ * as the remote database does not know the cursors of the other DoerDBs.</b>
+ * Hence the remote Meta Table is purged only if a retention period is set, or the remote database is marked as exclusive to this DoerDB.
+ */
+public class DoerDBChangeLogPurger {
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final long DEFAULT_BATCH_INTERVAL = 100;
+    public static final long RETENTION_PERIOD_NONE = 0;
+
+    private final DoerDB doerDB;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private long batchInterval = DEFAULT_BATCH_INTERVAL;
+    private long retentionPeriod = RETENTION_PERIOD_NONE;
+    private boolean exclusiveRemote = false;
+    private int droppedPartitionCount = 0;
+
+    /**
+     * Constructor for DoerDBChangeLogPurger.
+     * @param doerDB DoerDB The DoerDB whose Meta Tables are purged.
+     */
+    public DoerDBChangeLogPurger(DoerDB doerDB) {
+        this.doerDB = doerDB;
+    }
+
+    /**
+     * Returns the maximum number of changes deleted at once.
+     * @return int The batch size.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets the maximum number of changes deleted at once. Smaller batches hold the locks of the Meta Table for shorter.
+     * @param batchSize int The batch size, a positive integer.
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size should be a positive integer.");
+        }
+
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns the pause between two batches of deleted changes in milliseconds.
+     * @return long The batch interval.
+     */
+    public long getBatchInterval() {
+        return batchInterval;
+    }
+
+    /**
+     * Sets the pause between two batches of deleted changes, which leaves room for the triggers and the synchronizations in between.
+     * @param batchInterval long The batch interval in milliseconds, 0 to delete the batches back to back.
+     */
+    public void setBatchInterval(long batchInterval) {
+        if (batchInterval < 0) {
+            throw new IllegalArgumentException("Batch interval should be a non-negative integer.");
+        }
+
+        this.batchInterval = batchInterval;
+    }
+
+    /**
+     * Returns the period for which the synchronized changes are retained.
+     * @return long The retention period in milliseconds, RETENTION_PERIOD_NONE if the changes are purged as soon as they are synchronized.
+     */
+    public long getRetentionPeriod() {
+        return retentionPeriod;
+    }
+
+    /**
+     * Sets the period for which the synchronized changes are retained, i.e. only the changes older than the period are purged.
+     * @param retentionPeriod long The retention period in milliseconds, RETENTION_PERIOD_NONE to purge the changes as soon as they are synchronized.
+     */
+    public void setRetentionPeriod(long retentionPeriod) {
+        if (retentionPeriod < 0) {
+            throw new IllegalArgumentException("Retention period should be a non-negative integer.");
+        }
+
+        this.retentionPeriod = retentionPeriod;
+    }
+
+    /**
+     * Used to check whether the remote database is synchronized only by this DoerDB.
+     * @return boolean true if the remote database is exclusive to this DoerDB, false if it may be shared.
+     */
+    public boolean isExclusiveRemote() {
+        return exclusiveRemote;
+    }
+
+    /**
+     * Sets whether the remote database is synchronized only by this DoerDB, in which case its changes may be purged without a retention period.
+     * @param exclusiveRemote boolean true if the remote database is exclusive to this DoerDB, false if it may be shared.
+     */
+    public void setExclusiveRemote(boolean exclusiveRemote) {
+        this.exclusiveRemote = exclusiveRemote;
+    }
+
+    /**
+     * Used to check whether the remote Meta Table is purged, i.e. a retention period is set or the remote database is exclusive to this DoerDB.
+     * Otherwise the changes which the other DoerDBs sharing the remote database have not synchronized yet could be purged.
+     * @return boolean true if the remote Meta Table is purged, false otherwise.
+     */
+    public boolean isRemotePurged() {
+        return this.retentionPeriod != RETENTION_PERIOD_NONE || this.exclusiveRemote;
+    }
+
+    /**
+     * Returns the number of partitions dropped by the last purge.
+     * @return int The number of partitions dropped.
+     */
+    public int getDroppedPartitionCount() {
+        return droppedPartitionCount;
+    }
+
+    /**
+     * Used to obtain the partitions which hold only the IDs before a threshold ID.
+     * @param partitionBounds Map of the partition names to their bounds, in the order of the partitions.
+     * @param thresholdID long The ID before which the changes are purged, exclusive.
+     * @return List of the names of the partitions, in the order of the partitions.
+     */
+    static List<String> getPartitionNamesBeforeID(Map<String, Long> partitionBounds, long thresholdID) {
+        List<String> partitionNames = new ArrayList<>();
+        for (Map.Entry<String, Long> partitionBound : partitionBounds.entrySet()) {
+            if (partitionBound.getValue() > thresholdID) {
+                break;
+            }
+
+            partitionNames.add(partitionBound.getKey());
+        }
+
+        return partitionNames;
+    }
+
+    /**
+     * Purges the changes of a Meta Table before an ID.
+     * @param metaTable DoerDBMetaTable The Meta Table.
+     * @param thresholdID long The ID before which the changes are purged, exclusive.
+     * @param thresholdTimestamp Date The timestamp before which the changes are purged, exclusive. null to purge regardless of the timestamp.
+     * @return int The number of changes deleted in batches, excluding those of the dropped partitions.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
+     * @throws com.doerit.doerdb.exceptions.InterruptedException If the purge is interrupted between two batches.
+     */
+    private int purgeMetaTable(DoerDBMetaTable metaTable, long thresholdID, Date thresholdTimestamp) throws SQLException, InitializationFailureException, com.doerit.doerdb.exceptions.InterruptedException {
+        if (thresholdID <= 0) {
+            return 0;
+        }
+
+        Map<String, Long> partitionBounds = metaTable.getPartitionBounds();
+        if (!partitionBounds.isEmpty()) {
+            metaTable.extendPartitions(partitionBounds);
+
+            List<String> droppedPartitionNames = new ArrayList<>();
+            for (String partitionName : DoerDBChangeLogPurger.getPartitionNamesBeforeID(partitionBounds, thresholdID)) {
+                Date lastQueryTimestamp = thresholdTimestamp != null ? metaTable.getLastQueryTimestampInPartition(partitionName) : null;
+                if (lastQueryTimestamp != null && !lastQueryTimestamp.before(thresholdTimestamp)) {
+                    break;
+                }
+
+                droppedPartitionNames.add(partitionName);
+            }
+
+            metaTable.dropPartitions(droppedPartitionNames);
+            this.droppedPartitionCount += droppedPartitionNames.size();
+        }
+
+        int deletedCount = 0;
+        while (true) {
+            int batchDeletedCount = metaTable.deleteRecordsPageBeforeID(thresholdID, thresholdTimestamp, this.batchSize);
+            deletedCount += batchDeletedCount;
+            if (batchDeletedCount < this.batchSize) {
+                return deletedCount;
+            }
+
+            if (this.batchInterval > 0) {
+                try {
+                    Thread.sleep(this.batchInterval);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new com.doerit.doerdb.exceptions.InterruptedException(ExceptionCodes.INTERRUPTED, "The purge of the Meta Table was interrupted.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Purges the changes of the local and remote Meta Tables before the last synchronized IDs, and the records of the previous synchronizations.
+     * The remote Meta Table is left untouched unless isRemotePurged.
+     * Does nothing on a DoerDB which was never synchronized.
+     * @return int The number of changes deleted in batches, excluding those of the dropped partitions.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
+     * @throws com.doerit.doerdb.exceptions.InterruptedException If the purge is interrupted between two batches.
+     */
+    public int purge() throws SQLException, InitializationFailureException, com.doerit.doerdb.exceptions.InterruptedException {
+        this.droppedPartitionCount = 0;
+
+        DoerDBSyncDataTable localSyncTable = this.doerDB.getLocalDatabase().getSyncDataTable();
+        long lastLocalID = localSyncTable.getLastLocalID();
+        long lastRemoteID = localSyncTable.getLastRemoteID();
+        Date thresholdTimestamp = this.retentionPeriod != RETENTION_PERIOD_NONE ? new Date(System.currentTimeMillis() - this.retentionPeriod) : null;
+
+        int deletedCount = this.purgeMetaTable(this.doerDB.getLocalDatabase().getMetaTable(), lastLocalID, thresholdTimestamp);
+        if (this.isRemotePurged()) {
+            deletedCount += this.purgeMetaTable(this.doerDB.getRemoteDatabase().getMetaTable(), lastRemoteID, thresholdTimestamp);
+        }
+        localSyncTable.deletePreviousSyncIDs();
+
+        return deletedCount;
+    }
+
+}
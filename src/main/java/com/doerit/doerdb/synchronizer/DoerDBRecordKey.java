@@ -0,0 +1,119 @@
+package com.doerit.doerdb.synchronizer;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.List;
+
+/**
+ * DoerDBRecordKey identifies a record of a table in hash based collections.
+ * Two keys are equal if their scopes(e.g. table names) are the same and their records are similar as in JSONObject.similar.
+ * A row key is made of the key columns of a record only, so that the partial records of the changes to a row are identified by the row regardless of their other columns.
+ */
+class DoerDBRecordKey {
+
+    private final String scope;
+    private final JSONObject record;
+    private final boolean rowKey;
+    private final int hashCode;
+
+    /**
+     * Constructor for DoerDBRecordKey.
+     * @param scope String The scope of the record, such as the name of its table.
+     * @param record JSONObject The record.
+     */
+    DoerDBRecordKey(String scope, JSONObject record) {
+        this(scope, record, false);
+    }
+
+    /**
+     * Constructor for DoerDBRecordKey.
+     * @param scope String The scope of the record, such as the name of its table.
+     * @param record JSONObject The record.
+     * @param rowKey boolean true if the record holds only the key columns of a row, false otherwise.
+     */
+    private DoerDBRecordKey(String scope, JSONObject record, boolean rowKey) {
+        this.scope = scope;
+        this.record = record;
+        this.rowKey = rowKey;
+        this.hashCode = 31 * scope.hashCode() + DoerDBRecordKey.getCanonicalHash(record);
+    }
+
+    /**
+     * Used to obtain the key of the row of a record, i.e. of the values of its key columns.
+     * A record which does not hold every key column, e.g. one of a table without a known key, is identified by all of its columns instead.
+     * @param scope String The scope of the record, such as the name of its table.
+     * @param record JSONObject The record.
+     * @param keyColumnNames List of the key column names of the table, empty if the table has no known key.
+     * @return DoerDBRecordKey The row key of the record if it holds every key column, otherwise the key of the whole record.
+     */
+    static DoerDBRecordKey getRowKey(String scope, JSONObject record, List<String> keyColumnNames) {
+        if (keyColumnNames == null || keyColumnNames.isEmpty()) {
+            return new DoerDBRecordKey(scope, record);
+        }
+
+        JSONObject keyRecord = new JSONObject();
+        for (String keyColumnName : keyColumnNames) {
+            if (!record.has(keyColumnName)) {
+                return new DoerDBRecordKey(scope, record);
+            }
+
+            keyRecord.put(keyColumnName, record.get(keyColumnName));
+        }
+
+        return new DoerDBRecordKey(scope, keyRecord, true);
+    }
+
+    /**
+     * Used to check whether the key identifies a row by its key columns.
+     * @return boolean true if the key is a row key, false if it is made of a whole record.
+     */
+    boolean isRowKey() {
+        return rowKey;
+    }
+
+    /**
+     * Computes a hash of a JSON value which is consistent with JSONObject.similar, i.e. similar values have equal hashes regardless of the order of their keys.
+     * @param value Object The JSON value.
+     * @return int The hash of the value.
+     */
+    static int getCanonicalHash(Object value) {
+        if (value instanceof JSONObject) {
+            JSONObject jsonObject = (JSONObject) value;
+
+            int hash = 0;
+            for (String key : jsonObject.keySet()) {
+                hash += key.hashCode() ^ DoerDBRecordKey.getCanonicalHash(jsonObject.opt(key));
+            }
+            return hash;
+        }
+        else if (value instanceof JSONArray) {
+            JSONArray jsonArray = (JSONArray) value;
+
+            int hash = 1;
+            for (int i = 0; i < jsonArray.length(); i++) {
+                hash = 31 * hash + DoerDBRecordKey.getCanonicalHash(jsonArray.opt(i));
+            }
+            return hash;
+        }
+        else {
+            return value == null ? 0 : value.hashCode();
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hashCode;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof DoerDBRecordKey)) {
+            return false;
+        }
+
+        DoerDBRecordKey otherKey = (DoerDBRecordKey) other;
+        return this.hashCode == otherKey.hashCode && this.rowKey == otherKey.rowKey && this.scope.equals(otherKey.scope) && this.record.similar(otherKey.record);
+    }
+
+}
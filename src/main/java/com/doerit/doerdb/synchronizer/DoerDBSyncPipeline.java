@@ -0,0 +1,211 @@
+package com.doerit.doerdb.synchronizer;
+
+import com.doerit.doerdb.exceptions.InitializationFailureException;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DoerDBSyncPipeline passes the windows of a synchronization through a map stage and an apply stage, each running on its own thread.
+ * Windows are handed over through bounded queues, hence the producer blocks once the stages fall behind by the capacity of the queues.
+ * Windows leave the pipeline in the order they entered it, once they are applied.
+ */
+class DoerDBSyncPipeline {
+
+    /**
+     * A stage of the pipeline, processing one window at a time.
+     */
+    interface Stage {
+        void process(DoerDBSyncWindow window) throws Exception;
+    }
+
+    private static final DoerDBSyncWindow END_OF_WINDOWS = new DoerDBSyncWindow(null, -1, -1);
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final BlockingQueue<DoerDBSyncWindow> producedWindows;
+    private final BlockingQueue<DoerDBSyncWindow> mappedWindows;
+    private final BlockingQueue<DoerDBSyncWindow> appliedWindows = new LinkedBlockingQueue<>();
+    private final Thread mapThread;
+    private final Thread applyThread;
+
+    private volatile Exception failure = null;
+    private volatile boolean stopped = false;
+
+    /**
+     * Constructor for DoerDBSyncPipeline.
+     * @param queueCapacity int The number of windows each stage may fall behind the previous one.
+     * @param mapStage Stage The stage preparing the changes of a window for execution.
+     * @param applyStage Stage The stage executing the changes of a window.
+     */
+    DoerDBSyncPipeline(int queueCapacity, Stage mapStage, Stage applyStage) {
+        this.producedWindows = new ArrayBlockingQueue<>(queueCapacity);
+        this.mappedWindows = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.mapThread = this.createStageThread("doerdb-sync-map", mapStage, this.producedWindows, this.mappedWindows);
+        this.applyThread = this.createStageThread("doerdb-sync-apply", applyStage, this.mappedWindows, this.appliedWindows);
+    }
+
+    /**
+     * Creates the thread of a stage, which takes windows from its input queue, processes them and hands them to its output queue.
+     * @param name String The name of the thread.
+     * @param stage Stage The stage.
+     * @param input BlockingQueue The queue of windows to be processed.
+     * @param output BlockingQueue The queue of processed windows.
+     * @return Thread The thread of the stage, not started.
+     */
+    private Thread createStageThread(String name, Stage stage, BlockingQueue<DoerDBSyncWindow> input, BlockingQueue<DoerDBSyncWindow> output) {
+        Thread stageThread = new Thread(() -> {
+            try {
+                while (true) {
+                    DoerDBSyncWindow window = input.take();
+                    if (window == END_OF_WINDOWS) {
+                        this.handOver(output, END_OF_WINDOWS);
+                        break;
+                    }
+
+                    stage.process(window);
+                    if (!this.handOver(output, window)) {
+                        break;
+                    }
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            catch (Exception e) {
+                this.failure = e;
+            }
+        }, name);
+        stageThread.setDaemon(true);
+        return stageThread;
+    }
+
+    /**
+     * Puts a window into a queue, waiting while the queue is full unless the pipeline has failed or stopped.
+     * @param queue BlockingQueue The queue.
+     * @param window DoerDBSyncWindow The window.
+     * @return boolean true if the window was queued, false if the pipeline failed or stopped meanwhile.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    private boolean handOver(BlockingQueue<DoerDBSyncWindow> queue, DoerDBSyncWindow window) throws InterruptedException {
+        while (this.failure == null && !this.stopped) {
+            if (queue.offer(window, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Starts the threads of the stages.
+     */
+    void start() {
+        this.mapThread.start();
+        this.applyThread.start();
+    }
+
+    /**
+     * Rethrows the exception which failed a stage, if any.
+     * @throws SQLException If a stage failed during the execution of MySQL query.
+     * @throws InitializationFailureException If a stage failed during the initialization of DoerDatabase.
+     */
+    private void checkFailure() throws SQLException, InitializationFailureException {
+        Exception stageFailure = this.failure;
+        if (stageFailure instanceof SQLException) {
+            throw (SQLException) stageFailure;
+        }
+        else if (stageFailure instanceof InitializationFailureException) {
+            throw (InitializationFailureException) stageFailure;
+        }
+        else if (stageFailure instanceof RuntimeException) {
+            throw (RuntimeException) stageFailure;
+        }
+        else if (stageFailure != null) {
+            throw new SQLException("A stage of the synchronization pipeline failed.", stageFailure);
+        }
+    }
+
+    /**
+     * Puts a window into the pipeline, waiting while the map stage is behind by the capacity of the queue.
+     * @param window DoerDBSyncWindow The window.
+     * @throws SQLException If a stage failed during the execution of MySQL query.
+     * @throws InitializationFailureException If a stage failed during the initialization of DoerDatabase.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    void put(DoerDBSyncWindow window) throws SQLException, InitializationFailureException, InterruptedException {
+        if (!this.handOver(this.producedWindows, window)) {
+            this.checkFailure();
+        }
+        this.checkFailure();
+    }
+
+    /**
+     * Used to obtain the windows applied since the last call, without waiting.
+     * @return List of applied windows, in the order they were put.
+     * @throws SQLException If a stage failed during the execution of MySQL query.
+     * @throws InitializationFailureException If a stage failed during the initialization of DoerDatabase.
+     */
+    List<DoerDBSyncWindow> pollApplied() throws SQLException, InitializationFailureException {
+        this.checkFailure();
+
+        List<DoerDBSyncWindow> windows = new ArrayList<>();
+        this.appliedWindows.drainTo(windows);
+        return windows;
+    }
+
+    /**
+     * Signals the end of the windows and waits until every window put is applied.
+     * @return List of the windows applied since the last call to pollApplied, in the order they were put.
+     * @throws SQLException If a stage failed during the execution of MySQL query.
+     * @throws InitializationFailureException If a stage failed during the initialization of DoerDatabase.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    List<DoerDBSyncWindow> finish() throws SQLException, InitializationFailureException, InterruptedException {
+        if (!this.handOver(this.producedWindows, END_OF_WINDOWS)) {
+            this.checkFailure();
+        }
+
+        List<DoerDBSyncWindow> windows = new ArrayList<>();
+        while (true) {
+            DoerDBSyncWindow window = this.appliedWindows.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            if (window == END_OF_WINDOWS) {
+                break;
+            }
+            else if (window != null) {
+                windows.add(window);
+            }
+            else {
+                this.checkFailure();
+            }
+        }
+
+        return windows;
+    }
+
+    /**
+     * Stops the stages and waits for their threads to end, discarding the windows which are not being processed.
+     * A window already being applied is completed, so that no connection is left executing after the pipeline is stopped.
+     */
+    void stop() {
+        this.stopped = true;
+        this.producedWindows.clear();
+        this.mappedWindows.clear();
+        this.producedWindows.offer(END_OF_WINDOWS);
+        this.mappedWindows.offer(END_OF_WINDOWS);
+
+        try {
+            this.mapThread.join();
+            this.applyThread.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.doerit.doerdb.synchronizer;
+
+import java.util.List;
+
+/**
+ * DoerDBSyncWindow carries a window of changes through the stages of a pipelined synchronization,
+ * along with the synchronization cursor to be committed once the window is applied.
+ */
+class DoerDBSyncWindow {
+
+    private final long lastLocalID;
+    private final long lastRemoteID;
+    private List<DoerDBChange> changes;
+
+    /**
+     * Constructor for DoerDBSyncWindow.
+     * @param changes List of DoerDBChange instances in the window.
+     * @param lastLocalID long The ID of the last local change read for the window.
+     * @param lastRemoteID long The ID of the last remote change read for the window.
+     */
+    DoerDBSyncWindow(List<DoerDBChange> changes, long lastLocalID, long lastRemoteID) {
+        this.changes = changes;
+        this.lastLocalID = lastLocalID;
+        this.lastRemoteID = lastRemoteID;
+    }
+
+    /**
+     * Used to obtain the changes in the window, as produced by the last stage.
+     * @return List of DoerDBChange instances.
+     */
+    List<DoerDBChange> getChanges() {
+        return changes;
+    }
+
+    /**
+     * Replaces the changes in the window with those produced by a stage.
+     * @param changes List of DoerDBChange instances.
+     */
+    void setChanges(List<DoerDBChange> changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * Used to obtain the ID of the last local change read for the window.
+     * @return long The local cursor after the window.
+     */
+    long getLastLocalID() {
+        return lastLocalID;
+    }
+
+    /**
+     * Used to obtain the ID of the last remote change read for the window.
+     * @return long The remote cursor after the window.
+     */
+    long getLastRemoteID() {
+        return lastRemoteID;
+    }
+
+}
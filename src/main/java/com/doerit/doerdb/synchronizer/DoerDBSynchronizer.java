@@ -1,28 +1,57 @@
 package com.doerit.doerdb.synchronizer;
 
 import com.doerit.doerdb.DoerDB;
-import com.doerit.doerdb.db.DoerDatabase;
+import com.doerit.doerdb.db.metadata.DoerDBChangeLogReader;
 import com.doerit.doerdb.db.metadata.DoerDBMetaTable;
 import com.doerit.doerdb.db.metadata.DoerDBSyncDataTable;
 import com.doerit.doerdb.db.metadata.DoerDBSyncStatusTable;
 import com.doerit.doerdb.db.queries.BasicQuery;
-import com.doerit.doerdb.db.queries.builders.QueryBuilder;
+import com.doerit.doerdb.db.queries.UpdateQuery;
 import com.doerit.doerdb.db.queries.executors.DoerDBChangeExecutor;
+import com.doerit.doerdb.db.queries.executors.ParallelQueryExecutor;
+import com.doerit.doerdb.db.queries.executors.QueryExecutor;
 import com.doerit.doerdb.exceptions.ExceptionCodes;
 import com.doerit.doerdb.exceptions.InitializationFailureException;
+import com.doerit.doerdb.exceptions.NotFoundException;
 import com.doerit.doerdb.exceptions.SynchronizeException;
 import com.doerit.doerdb.synchronizer.mappers.DatabaseMapper;
+import com.doerit.doerdb.synchronizer.mappers.DatabaseMapping;
+import org.json.JSONObject;
 
+import java.io.File;
 import java.sql.SQLException;
 import java.util.*;
 
 public class DoerDBSynchronizer {
 
     public static final String MYSQL_TAG_QUERY_TIMESTAMP = "@QUERY_TIMESTAMP";
+    /* Identifies the DoerDB applying the current changes on a connection, NULL for the changes made by applications. */
+    public static final String MYSQL_TAG_SYNC_ORIGIN = "@DOERDB_SYNC_ORIGIN";
+    public static final int SYNC_WINDOW_SIZE_UNBOUNDED = 0;
+    public static final int DEFAULT_APPLY_BATCH_SIZE = 100;
+    public static final int GROUP_COMMIT_DISABLED = 0;
+    public static final int DEFAULT_GROUP_COMMIT_SIZE = 1000;
+    public static final long DEFAULT_GROUP_COMMIT_INTERVAL = 1000;
+    public static final int APPLY_PARALLELISM_SEQUENTIAL = 1;
+    public static final int PIPELINE_DISABLED = 0;
 
     private final DoerDB doerDB;
     private final DatabaseMapper doerDBMapper;
+    private volatile DatabaseMapping doerDBMapping = null;
     private final DoerDBChangeExecutor doerDBChangeExecutor;
+    private final DoerDBChangeCoalescer doerDBChangeCoalescer;
+    private int syncWindowSize = SYNC_WINDOW_SIZE_UNBOUNDED;
+    private boolean coalesceChanges = true;
+    private boolean upsertInserts = false;
+    private int applyBatchSize = DEFAULT_APPLY_BATCH_SIZE;
+    private int maxInsertPacketBytes = QueryExecutor.DEFAULT_MAX_PACKET_BYTES;
+    private int groupCommitSize = DEFAULT_GROUP_COMMIT_SIZE;
+    private long groupCommitInterval = DEFAULT_GROUP_COMMIT_INTERVAL;
+    private int applyParallelism = APPLY_PARALLELISM_SEQUENTIAL;
+    private ParallelQueryExecutor parallelQueryExecutor = null;
+    private volatile QueryExecutor localQueryExecutor = null;
+    private volatile QueryExecutor remoteQueryExecutor = null;
+    private int pipelineQueueCapacity = PIPELINE_DISABLED;
 
     /**
      * Basic Constructor for DoerDBSynchronizer
@@ -34,6 +63,7 @@ public class DoerDBSynchronizer {
         this.doerDBMapper = doerDBMapper;
 
         this.doerDBChangeExecutor = new DoerDBChangeExecutor(this);
+        this.doerDBChangeCoalescer = new DoerDBChangeCoalescer();
     }
 
     /**
@@ -46,6 +76,17 @@ public class DoerDBSynchronizer {
         this(doerDB, new DatabaseMapper(doerDB));
     }
 
+    /**
+     * Constructor for DoerDBSynchronizer whose mapper is loaded from a mapping cache file while the schemas are unchanged.
+     * @param doerDB DoerDB instance.
+     * @param mappingCacheFile File The mapping cache file, created if it does not exist.
+     * @throws SQLException If any exception is thrown during the execution of MySQL queries internally.
+     * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabases.
+     */
+    public DoerDBSynchronizer(DoerDB doerDB, File mappingCacheFile) throws SQLException, InitializationFailureException {
+        this(doerDB, new DatabaseMapper(doerDB, mappingCacheFile));
+    }
+
     /**
      * Used to obtain a mapper for DoerDB's Tables and their columns.
      * @return DatabaseMapper Mapper for the DoerDB instance.
@@ -54,6 +95,19 @@ public class DoerDBSynchronizer {
         return doerDBMapper;
     }
 
+    /**
+     * Used to obtain the mapping compiled from the mapper of the DoerDB at the start of the current or last synchronization.
+     * The mapping is compiled on first use if no synchronization has started yet.
+     * @return DatabaseMapping The compiled mapping used to map the changes.
+     */
+    public DatabaseMapping getDoerDBMapping() {
+        if (this.doerDBMapping == null) {
+            this.doerDBMapping = this.doerDBMapper.compile();
+        }
+
+        return doerDBMapping;
+    }
+
     /**
      * Used to obtain the DoerDB instance associated.
      * @return DoerDB An instance of DoerDB.
@@ -63,141 +117,591 @@ public class DoerDBSynchronizer {
     }
 
     /**
-     * Method to parse the changes in Meta Table as Queries after the given threshold ID.
-     * @param doerDBMetaTable DoerDBMetaTable The Meta Table where queries are to be parsed.
-     * @param thresholdID Date The threshold timestamp to be used to obtain the executed queries.
-     * @return List of BasicQuery implementations for each change in the meta table.
+     * Used to obtain the number of changes synchronized per window.
+     * @return int The size of a synchronization window, SYNC_WINDOW_SIZE_UNBOUNDED if the whole backlog is synchronized at once.
+     */
+    public int getSyncWindowSize() {
+        return syncWindowSize;
+    }
+
+    /**
+     * Sets the number of changes synchronized per window.
+     * The synchronization cursor is committed to the Sync Data Table after each window, hence an interrupted synchronization resumes from the last completed window.
+     * <b>Note: Conflicting updates are only detected within a window. Use a window larger than the expected span of concurrent updates to the same rows.</b>
+     * @param syncWindowSize int The size of a synchronization window, SYNC_WINDOW_SIZE_UNBOUNDED to synchronize the whole backlog at once.
+     */
+    public void setSyncWindowSize(int syncWindowSize) {
+        if (syncWindowSize < 0) {
+            throw new IllegalArgumentException("Synchronization window size should not be negative.");
+        }
+
+        this.syncWindowSize = syncWindowSize;
+    }
+
+    /**
+     * Used to check whether the chains of changes to a single row are coalesced before execution.
+     * @return boolean true if changes are coalesced, false otherwise.
+     */
+    public boolean isCoalesceChanges() {
+        return coalesceChanges;
+    }
+
+    /**
+     * Sets whether the chains of changes to a single row are coalesced before execution.
+     * When enabled, an insert or update followed by updates of the same row is executed as a single net insert or update.
+     * A chain is closed by any other change to the same table or to a table related to it by foreign keys, so that changes depending on an intermediate state of the row still apply.
+     * @param coalesceChanges boolean true to coalesce changes, false to execute every intermediate change.
+     */
+    public void setCoalesceChanges(boolean coalesceChanges) {
+        this.coalesceChanges = coalesceChanges;
+    }
+
+    /**
+     * Used to check whether inserts are applied as upserts.
+     * @return boolean true if inserts are applied as INSERT ... ON DUPLICATE KEY UPDATE, false otherwise.
+     */
+    public boolean isUpsertInserts() {
+        return upsertInserts;
+    }
+
+    /**
+     * Sets whether inserts are applied as upserts.
+     * When enabled, an insert of a row whose key already exists in the opposite table updates that row with the inserted values instead of failing,
+     * hence replaying a window after an interrupted synchronization, or a row inserted with the same key on both sides, does not abort the synchronization.
+     * <b>Note: With upserts, the later of two inserts with the same key overwrites the earlier one.</b>
+     * Changes applied over parallel lanes or a pipeline always apply inserts as upserts, as the lanes commit independently of the cursor.
+     * @param upsertInserts boolean true to apply inserts as INSERT ... ON DUPLICATE KEY UPDATE, false to apply plain inserts.
+     */
+    public void setUpsertInserts(boolean upsertInserts) {
+        this.upsertInserts = upsertInserts;
+    }
+
+    /**
+     * Used to obtain the maximum number of changes executed as a single JDBC batch.
+     * @return int The maximum size of a batch, 1 if the changes are executed one by one.
+     */
+    public int getApplyBatchSize() {
+        return applyBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of changes executed as a single JDBC batch.
+     * Consecutive changes to the same table with the same columns and timestamp are batched, while the order of the changes on each database is preserved.
+     * @param applyBatchSize int The maximum size of a batch, 1 to execute the changes one by one.
+     */
+    public void setApplyBatchSize(int applyBatchSize) {
+        if (applyBatchSize <= 0) {
+            throw new IllegalArgumentException("Apply batch size should be a positive integer.");
+        }
+
+        this.applyBatchSize = applyBatchSize;
+    }
+
+    /**
+     * Used to obtain the maximum size of a multi-row INSERT statement applying a run of inserts.
+     * @return int The maximum size of a statement in bytes.
+     */
+    public int getMaxInsertPacketBytes() {
+        return maxInsertPacketBytes;
+    }
+
+    /**
+     * Sets the maximum size of a multi-row INSERT statement applying a run of inserts.
+     * Consecutive inserts into the same table with the same columns and timestamp are combined into a single statement regardless of the apply batch size.
+     * @param maxInsertPacketBytes int The maximum size of a statement in bytes, which should not exceed max_allowed_packet of either server.
+     */
+    public void setMaxInsertPacketBytes(int maxInsertPacketBytes) {
+        if (maxInsertPacketBytes <= 0) {
+            throw new IllegalArgumentException("Maximum insert packet size should be a positive integer.");
+        }
+
+        this.maxInsertPacketBytes = maxInsertPacketBytes;
+    }
+
+    /**
+     * Used to obtain the maximum number of changes applied to a database in a single transaction.
+     * @return int The maximum number of changes in a transaction, GROUP_COMMIT_DISABLED if every change is committed on its own.
+     */
+    public int getGroupCommitSize() {
+        return groupCommitSize;
+    }
+
+    /**
+     * Used to obtain the maximum time a transaction applying changes is kept open.
+     * @return long The maximum duration of a transaction in milliseconds.
+     */
+    public long getGroupCommitInterval() {
+        return groupCommitInterval;
+    }
+
+    /**
+     * Sets the limits of the transactions in which the changes are applied.
+     * Transactions are committed only at the end of a window, once the window reaches groupCommitSize changes or groupCommitInterval milliseconds, whichever comes first.
+     * Hence a window is never split between transactions, and an unbounded window is applied in a single transaction.
+     * The synchronization cursor is stored in the same transaction as the last changes applied to the local database, which makes them atomic provided the tables are transactional, i.e. InnoDB.
+     * @param groupCommitSize int The maximum number of changes in a transaction, GROUP_COMMIT_DISABLED to commit every change on its own.
+     * @param groupCommitInterval long The maximum duration of a transaction in milliseconds.
+     */
+    public void setGroupCommit(int groupCommitSize, long groupCommitInterval) {
+        if (groupCommitSize < 0 || groupCommitInterval < 0) {
+            throw new IllegalArgumentException("Group commit size and interval should not be negative.");
+        }
+
+        this.groupCommitSize = groupCommitSize;
+        this.groupCommitInterval = groupCommitInterval;
+    }
+
+    /**
+     * Used to obtain the number of lanes over which the changes are applied to each database.
+     * @return int The number of lanes per database, APPLY_PARALLELISM_SEQUENTIAL if the changes are applied one after another.
+     */
+    public int getApplyParallelism() {
+        return applyParallelism;
+    }
+
+    /**
+     * Sets the number of lanes over which the changes are applied to each database.
+     * Each lane runs on its own thread and connection, and the changes to a row(or to a table without a known key) are always applied by the same lane in their order.
+     * The connections of the lanes are borrowed from the connection pools by each synchronization and returned at its end, while the threads of the lanes are kept until close is called.
+     * A synchronization borrows a further connection of each pool for its own transaction, hence the parallelism should stay below the size of the pools.
+     * <b>Note: Changes to different rows may be committed in a different order than they were made.</b>
+     * @param applyParallelism int The number of lanes per database, APPLY_PARALLELISM_SEQUENTIAL to apply the changes one after another on the connection of each database.
+     */
+    public void setApplyParallelism(int applyParallelism) {
+        if (applyParallelism <= 0) {
+            throw new IllegalArgumentException("Apply parallelism should be a positive integer.");
+        }
+
+        this.applyParallelism = applyParallelism;
+    }
+
+    /**
+     * Used to obtain the number of windows by which each stage of a pipelined synchronization may fall behind the previous one.
+     * @return int The capacity of the queues between the stages, PIPELINE_DISABLED if the stages run one after another.
+     */
+    public int getPipelineQueueCapacity() {
+        return pipelineQueueCapacity;
+    }
+
+    /**
+     * Sets whether windowed synchronizations are pipelined, and the capacity of the queues between the stages.
+     * When pipelined, the windows are read and resolved on the calling thread, while the earlier windows are coalesced and mapped on a second thread and applied on a third.
+     * Changes are applied over the connections of the parallel lanes(a single lane unless apply parallelism is set), so that the reads and the writes do not share a connection.
+     * <b>Note: Pipelining takes effect only when a window size is set.</b>
+     * @param pipelineQueueCapacity int The number of windows each stage may fall behind the previous one, PIPELINE_DISABLED to run the stages one after another.
+     */
+    public void setPipelineQueueCapacity(int pipelineQueueCapacity) {
+        if (pipelineQueueCapacity < 0) {
+            throw new IllegalArgumentException("Pipeline queue capacity should not be negative.");
+        }
+
+        this.pipelineQueueCapacity = pipelineQueueCapacity;
+    }
+
+    /**
+     * Used to check whether the next synchronization is pipelined.
+     * @return boolean true if both a window size and a pipeline queue capacity are set, false otherwise.
+     */
+    private boolean isPipelined() {
+        return this.syncWindowSize != SYNC_WINDOW_SIZE_UNBOUNDED && this.pipelineQueueCapacity != PIPELINE_DISABLED;
+    }
+
+    /**
+     * Used to obtain the QueryExecutor applying the changes on the local database during a synchronization, on a connection borrowed for the synchronization.
+     * @return QueryExecutor The QueryExecutor of the local database, null outside of a synchronization.
+     */
+    public QueryExecutor getLocalQueryExecutor() {
+        return localQueryExecutor;
+    }
+
+    /**
+     * Used to obtain the QueryExecutor applying the changes on the remote database during a synchronization, on a connection borrowed for the synchronization.
+     * @return QueryExecutor The QueryExecutor of the remote database, null outside of a synchronization.
+     */
+    public QueryExecutor getRemoteQueryExecutor() {
+        return remoteQueryExecutor;
+    }
+
+    /**
+     * Used to obtain the executor which applies the changes in parallel lanes.
+     * @return ParallelQueryExecutor The executor of the lanes, null if the changes are applied sequentially.
+     */
+    public ParallelQueryExecutor getParallelQueryExecutor() {
+        return parallelQueryExecutor;
+    }
+
+    /**
+     * Prepares the executor of the lanes as per the current apply parallelism, replacing the executor of a previous parallelism.
+     * A pipelined synchronization always applies the changes through the lanes, even with a single lane.
+     * @throws SQLException If the connections of the previous executor cannot be closed.
+     */
+    private void prepareParallelQueryExecutor() throws SQLException {
+        if (this.parallelQueryExecutor != null && this.parallelQueryExecutor.getParallelism() != this.applyParallelism) {
+            this.close();
+        }
+
+        if (this.parallelQueryExecutor == null && (this.applyParallelism != APPLY_PARALLELISM_SEQUENTIAL || this.isPipelined())) {
+            this.parallelQueryExecutor = new ParallelQueryExecutor(this.applyParallelism);
+        }
+    }
+
+    /**
+     * Returns the connections of the lanes to the connection pools at the end of a synchronization, so that they are not held between synchronizations.
+     * A connection which cannot be returned is broken, and is discarded by its pool.
+     */
+    private void releaseLanes() {
+        if (this.parallelQueryExecutor == null) {
+            return;
+        }
+
+        try {
+            this.parallelQueryExecutor.releaseLanes();
+        }
+        catch (SQLException e) {
+            // The statements of a broken connection are released with it.
+        }
+    }
+
+    /**
+     * Stops the threads applying the changes in parallel lanes, if any, and returns any connection still borrowed by the lanes.
+     * @throws SQLException If any connection cannot be returned.
+     */
+    public void close() throws SQLException {
+        if (this.parallelQueryExecutor != null) {
+            ParallelQueryExecutor closedQueryExecutor = this.parallelQueryExecutor;
+            this.parallelQueryExecutor = null;
+            closedQueryExecutor.close();
+        }
+    }
+
+    /**
+     * Used to obtain the number of changes eliminated by coalescing during the last synchronization.
+     * @return int The number of changes which were folded into other changes instead of being executed.
+     */
+    public int getLastCoalescedChangeCount() {
+        return this.doerDBChangeCoalescer.getEliminatedCount();
+    }
+
+    /**
+     * Used to obtain the next window of changes from the local and remote Meta Tables.
+     * Changes are taken from the merger in the order of their timestamps, until windowSize changes are collected or both Meta Tables are exhausted.
+     * The pages still being prefetched are awaited before returning, so that the connections are free to apply the window.
+     * @param changeLogMerger DoerDBChangeLogMerger The merger of the local and remote Meta Tables.
+     * @param windowSize int The maximum number of changes in the window, SYNC_WINDOW_SIZE_UNBOUNDED to collect every change.
+     * @return List of DoerDBChange instances in the window, sorted by their timestamps.
      * @throws SQLException If any exception is thrown during the execution of MySQL query.
      * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
      */
-    private List<BasicQuery> getChangesAsQueries(DoerDBMetaTable doerDBMetaTable, int thresholdID) throws SQLException, InitializationFailureException {
-        List<Map<String, Object>> resultsChanges = doerDBMetaTable.getQueryRecordsInfoAfterID(thresholdID);
-        List<BasicQuery> changes = new ArrayList<>();
-        for (Map<String, Object> resultsChange : resultsChanges) {
-            QueryBuilder changeQueryBuilder = new QueryBuilder(resultsChange);
-            BasicQuery changeQuery = changeQueryBuilder.getQuery();
-            if (changeQuery != null) {
-                changes.add(changeQuery);
-            }
+    private List<DoerDBChange> getNextChangesWindow(DoerDBChangeLogMerger changeLogMerger, int windowSize) throws SQLException, InitializationFailureException {
+        List<DoerDBChange> changes = new ArrayList<>();
+        while ((windowSize == SYNC_WINDOW_SIZE_UNBOUNDED || changes.size() < windowSize) && changeLogMerger.hasNext()) {
+            changes.add(changeLogMerger.next());
         }
+        changeLogMerger.awaitFetches();
 
         return changes;
     }
 
     /**
-     * Used to obtain the changes recorded in the local Meta Table after the given ID.
-     * @param thresholdID Date The threshold timestamp to be used to obtain the executed queries.
-     * @return List of BasicQuery implementations for each change in the meta table.
+     * Resolves the changes which update the same record from both sides, in a list of changes sorted by their timestamps.
+     * For the changes identified by the key columns of their rows, a later change from the opposite side takes over only the columns it changes as well,
+     * so the columns of the earlier change which are not in conflict are still applied, and the change is dropped only if no column remains.
+     * Otherwise, a change is dropped if a later change in the list updates the same record, in which case the later change takes over.
+     * Later changes updating the same record are looked up in a DoerDBChangeIndex rather than by comparing every pair of changes.
+     * @param changes List of DoerDBChange instances sorted by their timestamps.
+     * @param databaseMapping DatabaseMapping The mapping used to identify the rows of the tables, null to identify the changes by their whole Old Records.
+     * @return List of DoerDBChange instances to be executed, in the same order.
      * @throws SQLException If any exception is thrown during the execution of MySQL query.
      * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
      */
-    private List<BasicQuery> getLocalChangesAsQueries(int thresholdID) throws SQLException, InitializationFailureException {
-        DoerDatabase doerLocalDB = doerDB.getLocalDatabase();
-        DoerDBMetaTable doerDBMetaTable = doerLocalDB.getMetaTable();
-        return this.getChangesAsQueries(doerDBMetaTable, thresholdID);
+    static List<DoerDBChange> resolveChanges(List<DoerDBChange> changes, DatabaseMapping databaseMapping) throws SQLException, InitializationFailureException {
+        List<DoerDBChange> resolvedChanges = new ArrayList<>();
+        DoerDBChangeIndex changeIndex = new DoerDBChangeIndex(changes, databaseMapping);
+        for (int i = 0; i < changes.size(); i++) {
+            DoerDBChange currentChange = changes.get(i);
+            BasicQuery changeQuery = currentChange.getQuery();
+
+            /* Only the changes after the current one remain in the index. */
+            List<Integer> similarPositions = changeIndex.getSimilarChangePositions(i);
+            if (changeIndex.isKeyedByRow(i)) {
+                Set<String> conflictingColumnNames = new HashSet<>();
+                for (int k : similarPositions) {
+                    if (changes.get(k).getSyncDirection() != currentChange.getSyncDirection()) {
+                        conflictingColumnNames.addAll(changeIndex.getCommonColumnNames(i, k));
+                    }
+                }
+
+                changeIndex.remove(i);
+                if (conflictingColumnNames.isEmpty()) {
+                    resolvedChanges.add(currentChange);
+                    continue;
+                }
+
+                JSONObject retainedNewRecord = new JSONObject(changeQuery.getNewRecord().toString());
+                JSONObject retainedOldRecord = new JSONObject(changeQuery.getOldRecord().toString());
+                for (String columnName : conflictingColumnNames) {
+                    retainedNewRecord.remove(columnName);
+                    retainedOldRecord.remove(columnName);
+                }
+
+                UpdateQuery retainedQuery = new UpdateQuery(changeQuery.getQueryID(), changeQuery.getTableName(), retainedNewRecord, retainedOldRecord, changeQuery.getQueryTimestamp());
+                if (!retainedQuery.getSetColumnNames().isEmpty()) {
+                    resolvedChanges.add(new DoerDBChange(currentChange.getDoerDatabase(), currentChange.getSyncDirection(), retainedQuery));
+                }
+                continue;
+            }
+
+            changeIndex.remove(i);
+
+            boolean similarFound = false;
+            for (int k : similarPositions) {
+                DoerDBChange checkerChange = changes.get(k);
+                checkerChange.updateOldRecord(changeQuery.getNewRecord());
+                changeIndex.reindex(k);
+                similarFound = true;
+            }
+
+            if (!similarFound) {
+                resolvedChanges.add(currentChange);
+            }
+        }
+
+        return resolvedChanges;
     }
 
     /**
-     * Used to obtain the changes recorded in the remote Meta Table after the given ID.
-     * @param thresholdID Date The threshold timestamp to be used to obtain the executed queries.
-     * @return List of BasicQuery implementations for each change in the meta table.
+     * Executes a list of changes, sorted by their timestamps, on the opposite databases.
+     * Conflicting changes are resolved first, then the chains of changes to a single row are coalesced if enabled.
+     * The remaining changes are executed in JDBC batches of at most applyBatchSize changes, and runs of inserts as multi-row INSERT statements.
+     * @param changes List of DoerDBChange instances sorted by their timestamps.
      * @throws SQLException If any exception is thrown during the execution of MySQL query.
      * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
      */
-    private List<BasicQuery> getRemoteChangesAsQueries(int thresholdID) throws SQLException, InitializationFailureException {
-        DoerDatabase doerRemoteDB = doerDB.getRemoteDatabase();
-        DoerDBMetaTable doerDBMetaTable = doerRemoteDB.getMetaTable();
-        return this.getChangesAsQueries(doerDBMetaTable, thresholdID);
+    private void executeChanges(List<DoerDBChange> changes) throws SQLException, InitializationFailureException {
+        DatabaseMapping databaseMapping = this.getDoerDBMapping();
+        List<DoerDBChange> resolvedChanges = DoerDBSynchronizer.resolveChanges(changes, databaseMapping);
+        if (this.coalesceChanges) {
+            resolvedChanges = this.doerDBChangeCoalescer.coalesce(resolvedChanges, databaseMapping);
+        }
+
+        this.doerDBChangeExecutor.executeDoerDBChanges(resolvedChanges);
     }
 
     /**
-     * Used to obtain a set of changes as DoerDBChange instances characterized by the direction of Synchronizing.
-     * @param syncDirection DoerDBChange.SyncDirection The direction of synchronizing for the List of BasicQueries.
-     * @param queries List of BasicQuery implementations.
-     * @return List of DoerDBChange instances.
+     * Commits the synchronization cursor after the last of the given windows, once they are applied.
+     * The remote changes are committed first, and the cursor is committed along with the local changes.
+     * @param appliedWindows List of applied windows, in the order of synchronization.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
      */
-    private List<DoerDBChange> getChangesByQueries(DoerDBChange.SyncDirection syncDirection, List<BasicQuery> queries) {
-        List<DoerDBChange> changes = new ArrayList<>();
-        for (BasicQuery query : queries) {
-            DoerDatabase databaseForChange = syncDirection == DoerDBChange.SyncDirection.LOCAL_TO_REMOTE ? this.doerDB.getLocalDatabase() : this.doerDB.getRemoteDatabase();
-            changes.add(new DoerDBChange(databaseForChange, syncDirection, query));
+    private void checkpointWindows(List<DoerDBSyncWindow> appliedWindows) throws SQLException, InitializationFailureException {
+        if (appliedWindows.isEmpty()) {
+            return;
         }
 
-        return changes;
+        DoerDBSyncWindow lastWindow = appliedWindows.get(appliedWindows.size() - 1);
+        this.remoteQueryExecutor.commitTransaction();
+        this.doerDB.getLocalDatabase().getSyncDataTable().setLastSyncIDs(this.localQueryExecutor, lastWindow.getLastLocalID(), lastWindow.getLastRemoteID());
+        this.localQueryExecutor.commitTransaction();
     }
 
     /**
-     * Used to obtain the set of changes done in local database as a List of DoerDBChange instances.
-     * @param thresholdID int The threshold ID to be used to obtain the executed queries.
-     * @return List of DoerDBChange instances representing all the changes done to the local database in the given ID interval(w.r.t the thresholdID and Now).
+     * Synchronizes the windows of changes through a DoerDBSyncPipeline.
+     * Windows are read and resolved on the calling thread, coalesced and mapped on the map stage, and applied on the apply stage, all concurrently.
+     * The cursor is checkpointed on the calling thread as the windows are applied.
+     * @param changeLogMerger DoerDBChangeLogMerger The merger of the local and remote readers.
+     * @param localReader DoerDBChangeLogReader Reader for the local Meta Table.
+     * @param remoteReader DoerDBChangeLogReader Reader for the remote Meta Table.
+     * @return boolean true if any change was found, false otherwise.
      * @throws SQLException If any exception is thrown during the execution of MySQL query.
      * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
+     * @throws SynchronizeException If the synchronization is interrupted.
      */
-    private List<DoerDBChange> getLocalChanges(int thresholdID) throws SQLException, InitializationFailureException {
-        List<BasicQuery> localChanges = this.getLocalChangesAsQueries(thresholdID);
-        return this.getChangesByQueries(DoerDBChange.SyncDirection.LOCAL_TO_REMOTE, localChanges);
+    private boolean synchronizeWindowsPipelined(DoerDBChangeLogMerger changeLogMerger, DoerDBChangeLogReader localReader, DoerDBChangeLogReader remoteReader) throws SQLException, InitializationFailureException, SynchronizeException {
+        DatabaseMapping databaseMapping = this.getDoerDBMapping();
+        DoerDBSyncPipeline syncPipeline = new DoerDBSyncPipeline(this.pipelineQueueCapacity,
+                window -> window.setChanges(this.doerDBChangeExecutor.mapDoerDBChanges(this.coalesceChanges ? this.doerDBChangeCoalescer.coalesce(window.getChanges(), databaseMapping) : window.getChanges())),
+                window -> this.doerDBChangeExecutor.executeMappedDoerDBChanges(window.getChanges()));
+
+        boolean changesFound = false;
+        syncPipeline.start();
+        try {
+            while (changeLogMerger.hasNext()) {
+                List<DoerDBChange> changes = this.getNextChangesWindow(changeLogMerger, this.syncWindowSize);
+
+                syncPipeline.put(new DoerDBSyncWindow(DoerDBSynchronizer.resolveChanges(changes, databaseMapping), localReader.getLastReadID(), remoteReader.getLastReadID()));
+                changesFound = true;
+
+                this.checkpointWindows(syncPipeline.pollApplied());
+            }
+
+            this.checkpointWindows(syncPipeline.finish());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SynchronizeException(ExceptionCodes.INTERRUPTED, "The synchronization was interrupted.");
+        }
+        finally {
+            syncPipeline.stop();
+        }
+
+        return changesFound;
     }
 
     /**
-     * Used to obtain the set of changes done in remote database as a List of DoerDBChange instances.
-     * @param thresholdID int The threshold ID to be used to obtain the executed queries.
-     * @return List of DoerDBChange instances representing all the changes done to the remote database in the given ID interval(w.r.t the thresholdID and Now).
-     * @throws SQLException If any exception is thrown during the execution of MySQL query.
-     * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
+     * Rolls back the transaction of a QueryExecutor after a failed synchronization.
+     * A failure of the rollback is attached to the exception which failed the synchronization, rather than hiding it.
+     * @param queryExecutor QueryExecutor The QueryExecutor whose transaction is to be rolled back.
+     * @param cause Exception The exception which failed the synchronization.
      */
-    private List<DoerDBChange> getRemoteChanges(int thresholdID) throws SQLException, InitializationFailureException {
-        List<BasicQuery> remoteChanges = this.getRemoteChangesAsQueries(thresholdID);
-        return this.getChangesByQueries(DoerDBChange.SyncDirection.REMOTE_TO_LOCAL, remoteChanges);
+    private static void rollbackTransaction(QueryExecutor queryExecutor, Exception cause) {
+        if (queryExecutor == null) {
+            return;
+        }
+
+        try {
+            queryExecutor.rollbackTransaction();
+        }
+        catch (SQLException rollbackException) {
+            cause.addSuppressed(rollbackException);
+        }
+    }
+
+    /**
+     * Closes a QueryExecutor borrowed by a synchronization, clearing the session variables it set and returning its connection to the pool.
+     * A connection which cannot be cleared is broken, and is discarded by its pool.
+     * @param queryExecutor QueryExecutor The QueryExecutor to be closed, null if it was not borrowed.
+     */
+    private static void closeQueryExecutor(QueryExecutor queryExecutor) {
+        if (queryExecutor == null) {
+            return;
+        }
+
+        try {
+            queryExecutor.close();
+        }
+        catch (SQLException e) {
+            // The statements of a broken connection are released with it.
+        }
     }
 
     /**
      * Synchronizes changes between the local database and remote database after the given ID.
-     * @param thresholdLocalID int The threshold ID to be used to obtain the executed queries. Uses all the changes done after this ID.
+     * Only the changes recorded before the synchronization started are considered, so that the changes made by the synchronization itself are not read back.
+     * The changes applied by the synchronization are tagged with the sync origin of the DoerDB. The local triggers skip them, and the remote changes of the same origin are left out when read,
+     * hence the cursor stops at the last change read instead of skipping the changes recorded during the synchronization. Meta Tables without the origin column, or with triggers generated before it, fall back to skipping them.
+     * The local and remote Meta Tables are read concurrently and merged in the order of timestamps.
+     * If a window size is set, the changes are synchronized window by window and the synchronization cursor is committed after the windows which reach the group commit limits.
+     * Unless group commit is disabled, the changes are applied in transactions which are rolled back if the synchronization fails.
+     * The transactions run on a connection borrowed from the pool of each database for the synchronization, hence the queries of applications are neither held in nor rolled back with them.
+     * If pipelining is enabled, reading, mapping and applying the windows overlap with each other.
+     * @param thresholdLocalID long The threshold ID to be used to obtain the executed queries. Uses all the changes done after this ID.
      * @throws SQLException If any exception is thrown during the execution of MySQL query.
-     * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
+     * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase, or any trigger is found missing by a deferred validation.
      * @throws SynchronizeException If the remote database is under another synchronization process at the moment.
      */
-    private void synchronizeChangesFrom(int thresholdLocalID, int thresholdRemoteID, boolean forceSyncLockRemove) throws SQLException, InitializationFailureException, SynchronizeException {
+    private void synchronizeChangesFrom(long thresholdLocalID, long thresholdRemoteID, boolean forceSyncLockRemove) throws SQLException, InitializationFailureException, SynchronizeException {
+        try {
+            // Validation of the triggers is deferred until the first synchronization if the DoerDB is lazily validated.
+            this.doerDB.validateTriggers();
+        }
+        catch (NotFoundException e) {
+            InitializationFailureException initializationFailure = new InitializationFailureException(ExceptionCodes.INITIALIZATION_FAILURE, e.getMessage());
+            initializationFailure.initCause(e);
+            throw initializationFailure;
+        }
+
         DoerDBSyncStatusTable remoteSyncStatusTable = this.doerDB.getRemoteDatabase().getSyncStatusTable();
         boolean remoteSyncStatus = remoteSyncStatusTable.getSyncStatus();
         if (remoteSyncStatus && !forceSyncLockRemove) {
             throw new SynchronizeException(ExceptionCodes.STATUS_SYNCING, "The remote database is currently synchronizing. Please try again later.");
         }
         remoteSyncStatusTable.setSyncStatus(true);
+        String syncOrigin = this.doerDB.getSyncOrigin();
+        this.doerDBChangeCoalescer.resetEliminatedCount();
+        this.doerDBMapping = this.doerDBMapper.compile();
+        if (this.coalesceChanges) {
+            this.doerDBChangeCoalescer.setTableFamilies(DoerDBChange.SyncDirection.LOCAL_TO_REMOTE, ParallelQueryExecutor.readTableFamilies(this.doerDB.getLocalDatabase()));
+            this.doerDBChangeCoalescer.setTableFamilies(DoerDBChange.SyncDirection.REMOTE_TO_LOCAL, ParallelQueryExecutor.readTableFamilies(this.doerDB.getRemoteDatabase()));
+        }
+        this.prepareParallelQueryExecutor();
+        if (this.parallelQueryExecutor != null) {
+            this.parallelQueryExecutor.setSyncOrigin(syncOrigin);
+        }
 
-        List<DoerDBChange> changes = this.getLocalChanges(thresholdLocalID);
-        changes.addAll(this.getRemoteChanges(thresholdRemoteID));
-
-        Collections.sort(changes);
-
-        for (int i = 0; i < changes.size(); i++) {
-            DoerDBChange currentChange = changes.get(i);
-            BasicQuery changeQuery = currentChange.getQuery();
-
-            boolean similarFound = false;
-            for (int k = i + 1; k < changes.size(); k++) {
-                DoerDBChange checkerChange = changes.get(k);
-                BasicQuery checkerQuery = checkerChange.getQuery();
+        DoerDBSyncDataTable localSyncTable = this.doerDB.getLocalDatabase().getSyncDataTable();
+        DoerDBMetaTable localMetaTable = this.doerDB.getLocalDatabase().getMetaTable();
+        DoerDBMetaTable remoteMetaTable = this.doerDB.getRemoteDatabase().getMetaTable();
+
+        DoerDBChangeLogReader localReader = localMetaTable.getChangeLogReaderBetweenIDs(thresholdLocalID, localMetaTable.getLastQueryID(), DoerDBChangeLogReader.DEFAULT_PAGE_SIZE);
+        DoerDBChangeLogReader remoteReader = remoteMetaTable.getChangeLogReaderBetweenIDs(thresholdRemoteID, remoteMetaTable.getLastQueryID(), DoerDBChangeLogReader.DEFAULT_PAGE_SIZE, syncOrigin);
+        DoerDBChangeLogMerger changeLogMerger = new DoerDBChangeLogMerger(this.doerDB.getLocalDatabase(), localReader, this.doerDB.getRemoteDatabase(), remoteReader);
+
+        /* The changes are applied on connections borrowed for the synchronization, so that the statements of applications never join its transactions or carry its origin. */
+        QueryExecutor localQueryExecutor = null;
+        QueryExecutor remoteQueryExecutor = null;
+        try {
+            localQueryExecutor = QueryExecutor.borrow(this.doerDB.getLocalDatabase(), syncOrigin);
+            remoteQueryExecutor = QueryExecutor.borrow(this.doerDB.getRemoteDatabase(), syncOrigin);
+            this.localQueryExecutor = localQueryExecutor;
+            this.remoteQueryExecutor = remoteQueryExecutor;
+            if (this.groupCommitSize != GROUP_COMMIT_DISABLED) {
+                localQueryExecutor.beginTransaction();
+                remoteQueryExecutor.beginTransaction();
+            }
 
-                if (changeQuery.compareOldRecordTo(checkerQuery)) {
-                    checkerChange.updateOldRecord(changeQuery.getNewRecord());
-                    similarFound = true;
+            boolean changesFound = false;
+            if (this.isPipelined()) {
+                changesFound = this.synchronizeWindowsPipelined(changeLogMerger, localReader, remoteReader);
+            }
+            else if (this.syncWindowSize == SYNC_WINDOW_SIZE_UNBOUNDED) {
+                List<DoerDBChange> changes = this.getNextChangesWindow(changeLogMerger, SYNC_WINDOW_SIZE_UNBOUNDED);
+                this.executeChanges(changes);
+                changesFound = changes.size() > 0;
+            }
+            else {
+                while (changeLogMerger.hasNext()) {
+                    List<DoerDBChange> changes = this.getNextChangesWindow(changeLogMerger, this.syncWindowSize);
+                    this.executeChanges(changes);
+                    changesFound = true;
+
+                    /* Checkpoints the window, so that an interrupted synchronization resumes after it. The checkpoint is committed along with the local changes of the window. */
+                    if (localQueryExecutor.isTransactionActive() && !localQueryExecutor.isTransactionCommitDue(this.groupCommitSize, this.groupCommitInterval)
+                            && !remoteQueryExecutor.isTransactionCommitDue(this.groupCommitSize, this.groupCommitInterval)) {
+                        continue;
+                    }
+
+                    remoteQueryExecutor.commitTransaction();
+                    localSyncTable.setLastSyncIDs(localQueryExecutor, localReader.getLastReadID(), remoteReader.getLastReadID());
+                    localQueryExecutor.commitTransaction();
                 }
             }
 
-            if (!similarFound) {
-                this.doerDBChangeExecutor.executeDoerDBChange(currentChange);
-            }
-        }
+            /* Remote changes are committed first, so that the cursor never gets ahead of the applied changes. */
+            remoteQueryExecutor.endTransaction();
 
-        /* Sets the timestamp of last query if there were changes. */
-        if (changes.size() > 0) {
-            DoerDBSyncDataTable localSyncTable = this.doerDB.getLocalDatabase().getSyncDataTable();
+            /* Sets the timestamp of last query if there were changes. The local Meta Table is read within the transaction, which the changes recorded by the synchronization are not committed outside of yet. */
+            if (changesFound) {
+                long lastLocalID = localMetaTable.isOriginTracked() ? localReader.getLastReadID() : localMetaTable.getLastQueryID(localQueryExecutor);
+                long lastRemoteID = remoteMetaTable.isOriginTracked() ? remoteReader.getLastReadID() : remoteMetaTable.getLastQueryID();
 
-            int lastLocalID = this.doerDB.getLocalDatabase().getMetaTable().getLastQueryID();
-            int lastRemoteID = this.doerDB.getRemoteDatabase().getMetaTable().getLastQueryID();
+                localSyncTable.setLastSyncIDs(localQueryExecutor, lastLocalID, lastRemoteID);
+            }
 
-            localSyncTable.setLastSyncIDs(lastLocalID, lastRemoteID);
+            localQueryExecutor.endTransaction();
+        }
+        catch (SQLException | InitializationFailureException | SynchronizeException | RuntimeException e) {
+            DoerDBSynchronizer.rollbackTransaction(remoteQueryExecutor, e);
+            DoerDBSynchronizer.rollbackTransaction(localQueryExecutor, e);
+            throw e;
+        }
+        finally {
+            changeLogMerger.close();
+            this.localQueryExecutor = null;
+            this.remoteQueryExecutor = null;
+            DoerDBSynchronizer.closeQueryExecutor(remoteQueryExecutor);
+            DoerDBSynchronizer.closeQueryExecutor(localQueryExecutor);
+            this.releaseLanes();
         }
 
         remoteSyncStatusTable.setSyncStatus(false);
@@ -212,8 +716,8 @@ public class DoerDBSynchronizer {
      */
     public void synchronizeChanges(boolean forceSyncLockRemove) throws SQLException, InitializationFailureException, SynchronizeException {
         DoerDBSyncDataTable localSyncTable = this.doerDB.getLocalDatabase().getSyncDataTable();
-        int lastLocalID = localSyncTable.getLastLocalID();
-        int lastRemoteID = localSyncTable.getLastRemoteID();
+        long lastLocalID = localSyncTable.getLastLocalID();
+        long lastRemoteID = localSyncTable.getLastRemoteID();
         this.synchronizeChangesFrom(lastLocalID, lastRemoteID, forceSyncLockRemove);
     }
 
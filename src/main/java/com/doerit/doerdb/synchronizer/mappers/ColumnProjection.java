@@ -0,0 +1,111 @@
+package com.doerit.doerdb.synchronizer.mappers;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ColumnProjection translates the records of a table in one database into the records of the mapped table in the opposite database.
+ * It is precomputed from the ColumnMappers of a TableMapper as an index array from the source columns to the target columns,
+ * hence a record is translated without looking up any mapper.
+ * A ColumnProjection is immutable.
+ */
+public final class ColumnProjection {
+
+    public static final int COLUMN_UNSYNCHRONIZED = -1;
+
+    private final String[] sourceColumnNames;
+    private final String[] targetColumnNames;
+    private final int[] targetColumnIndexes;
+
+    /**
+     * Constructor for ColumnProjection.
+     * @param columnMappers List of ColumnMapper instances of the table.
+     * @param localToRemote boolean true to project local records into remote records, false for the opposite direction.
+     */
+    ColumnProjection(List<ColumnMapper> columnMappers, boolean localToRemote) {
+        List<String> targetColumnNames = new ArrayList<>();
+
+        this.sourceColumnNames = new String[columnMappers.size()];
+        this.targetColumnIndexes = new int[columnMappers.size()];
+        for (int i = 0; i < columnMappers.size(); i++) {
+            ColumnMapper columnMapper = columnMappers.get(i);
+            String sourceColumnName = localToRemote ? columnMapper.getLocalColumnName() : columnMapper.getRemoteColumnName();
+            String targetColumnName = localToRemote ? columnMapper.getRemoteColumnName() : columnMapper.getLocalColumnName();
+
+            this.sourceColumnNames[i] = sourceColumnName;
+            if (sourceColumnName == null || targetColumnName == null) {
+                this.targetColumnIndexes[i] = COLUMN_UNSYNCHRONIZED;
+            }
+            else {
+                this.targetColumnIndexes[i] = targetColumnNames.size();
+                targetColumnNames.add(targetColumnName);
+            }
+        }
+
+        this.targetColumnNames = targetColumnNames.toArray(new String[0]);
+    }
+
+    /**
+     * Translates a record of the source table into a record of the target table.
+     * Columns which are not synchronized, or are not known to the mapper, are eliminated.
+     * @param sourceRecord JSONObject The record whose keys are the column names of the source table.
+     * @return JSONObject The record whose keys are the column names of the target table, null if the source record is null.
+     */
+    public JSONObject project(JSONObject sourceRecord) {
+        if (sourceRecord == null) {
+            return null;
+        }
+
+        JSONObject targetRecord = new JSONObject();
+        for (int i = 0; i < this.sourceColumnNames.length; i++) {
+            if (this.targetColumnIndexes[i] == COLUMN_UNSYNCHRONIZED) {
+                continue;
+            }
+
+            Object value = sourceRecord.opt(this.sourceColumnNames[i]);
+            if (value != null) {
+                targetRecord.put(this.targetColumnNames[this.targetColumnIndexes[i]], value);
+            }
+        }
+
+        return targetRecord;
+    }
+
+    /**
+     * Used to obtain the number of columns of the source table.
+     * @return int The number of source columns.
+     */
+    public int getSourceColumnCount() {
+        return sourceColumnNames.length;
+    }
+
+    /**
+     * Used to obtain the name of a column of the source table.
+     * @param sourceColumnIndex int The index of the source column.
+     * @return String The name of the source column.
+     */
+    public String getSourceColumnName(int sourceColumnIndex) {
+        return sourceColumnNames[sourceColumnIndex];
+    }
+
+    /**
+     * Used to obtain the index of the target column to which a source column is projected.
+     * @param sourceColumnIndex int The index of the source column.
+     * @return int The index of the target column, COLUMN_UNSYNCHRONIZED if the source column is not synchronized.
+     */
+    public int getTargetColumnIndex(int sourceColumnIndex) {
+        return targetColumnIndexes[sourceColumnIndex];
+    }
+
+    /**
+     * Used to obtain the name of a column of the target table.
+     * @param targetColumnIndex int The index of the target column.
+     * @return String The name of the target column.
+     */
+    public String getTargetColumnName(int targetColumnIndex) {
+        return targetColumnNames[targetColumnIndex];
+    }
+
+}
@@ -1,21 +1,23 @@
 package com.doerit.doerdb.synchronizer.mappers;
 
 import com.doerit.doerdb.DoerDB;
-import com.doerit.doerdb.db.MySQL;
-import com.doerit.doerdb.db.templates.MySQLQueryTemplates;
 import com.doerit.doerdb.exceptions.InitializationFailureException;
 import com.doerit.doerdb.util.DatabaseValidator;
 
-import java.sql.ResultSet;
+import java.io.File;
+import java.io.IOException;
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 public class DatabaseMapper {
 
     private final String localDatabaseName;
     private final String remoteDatabaseName;
     private List<TableMapper> tableMappers;
+    private Map<String, TableMapper> tableMappersByLocalTable = new HashMap<>();
+    private Map<String, TableMapper> tableMappersByRemoteTable = new HashMap<>();
+    private long introspectionTime = 0;
+    private boolean loadedFromCache = false;
 
     /**
      * Constructor.
@@ -30,50 +32,134 @@ public class DatabaseMapper {
         this.initTableMapper(doerDB);
     }
 
+    /**
+     * Constructor for a DatabaseMapper backed by a mapping cache file.
+     * The TableMappers are loaded from the cache file if it was written for the same schemas, as per a fingerprint of each schema read with a single query.
+     * Otherwise they are built from the live schemas and written to the cache file.
+     * <b>Note: Changes made to the mappers after construction are not cached.</b>
+     * @param doerDB DoerDB The DoerDB instance for which the Mapper should be created.
+     * @param cacheFile File The mapping cache file, created if it does not exist.
+     * @throws SQLException If any exception is thrown during the execution of MySQL queries internally.
+     * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabases.
+     */
+    public DatabaseMapper(DoerDB doerDB, File cacheFile) throws SQLException, InitializationFailureException {
+        this.localDatabaseName = doerDB.getLocalDatabase().getDatabaseName();
+        this.remoteDatabaseName = doerDB.getRemoteDatabase().getDatabaseName();
+
+        long introspectionStartTime = System.nanoTime();
+        String localFingerprint = DatabaseSchema.readFingerprint(doerDB.getLocalDatabase());
+        String remoteFingerprint = DatabaseSchema.readFingerprint(doerDB.getRemoteDatabase());
+
+        List<TableMapper> cachedTableMappers = DatabaseMappingCache.load(cacheFile, this.localDatabaseName, this.remoteDatabaseName, localFingerprint, remoteFingerprint);
+        if (cachedTableMappers != null) {
+            this.tableMappers = cachedTableMappers;
+            this.indexTableMappers();
+            this.loadedFromCache = true;
+        }
+        else {
+            this.initTableMapper(doerDB);
+            try {
+                DatabaseMappingCache.save(cacheFile, this.localDatabaseName, this.remoteDatabaseName, localFingerprint, remoteFingerprint, this.tableMappers);
+            }
+            catch (IOException e) {
+                // The cache only saves the introspection of the next start, hence the mapper is still usable without it.
+            }
+        }
+
+        this.introspectionTime = (System.nanoTime() - introspectionStartTime) / 1000000;
+    }
+
     /**
      * Initializes the TableMapper for the DatabaseMapper.
+     * The tables, columns and keys of each database are introspected in bulk, with a fixed number of queries regardless of the number of tables.
      * @param doerDB DoerDB The DoerDB instance related to the DatabaseMapper.
      * @throws SQLException If any exception is thrown during the execution of MySQL queries internally.
      * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabases.
      */
     private void initTableMapper(DoerDB doerDB) throws SQLException, InitializationFailureException {
-        String queryLocalAllTables = MySQLQueryTemplates.QUERY_ALL_TABLES
-                .replace(MySQLQueryTemplates.PLACEHOLDER_DATABASE_NAME, doerDB.getLocalDatabase().getDatabaseName());
-        String queryRemoteAllTables = MySQLQueryTemplates.QUERY_ALL_TABLES
-                .replace(MySQLQueryTemplates.PLACEHOLDER_DATABASE_NAME, doerDB.getRemoteDatabase().getDatabaseName());
+        long introspectionStartTime = System.nanoTime();
 
-        ResultSet resultLocalAllTables = doerDB.executeLocalQuery(queryLocalAllTables);
-        ResultSet resultRemoteAllTables = doerDB.executeRemoteQuery(queryRemoteAllTables);
+        DatabaseSchema localSchema = DatabaseSchema.read(doerDB.getLocalDatabase());
+        DatabaseSchema remoteSchema = DatabaseSchema.read(doerDB.getRemoteDatabase());
 
-        List<String> localTableNames = new ArrayList<>();
-        List<String> remoteTableNames = new ArrayList<>();
+        this.tableMappers = new ArrayList<>();
+        for (String localTableName : localSchema.getTableNames()) {
+            if (DatabaseValidator.isUnmonitoredTableName(localTableName)) {
+                continue;
+            }
 
-        while (resultLocalAllTables.next()) {
-            String localTableName = resultLocalAllTables.getString(MySQL.SQL_CONTENT_TABLE_NAME);
-            if (!DatabaseValidator.isUnmonitoredTableName(localTableName)) {
-                localTableNames.add(localTableName);
+            if (remoteSchema.hasTable(localTableName)) {
+                this.tableMappers.add(new TableMapper(localTableName, localTableName,
+                        localSchema.getColumnNames(localTableName), remoteSchema.getColumnNames(localTableName),
+                        localSchema.getKeyColumnNames(localTableName), remoteSchema.getKeyColumnNames(localTableName)));
+            }
+            else {
+                this.tableMappers.add(new TableMapper(localTableName, null,
+                        localSchema.getColumnNames(localTableName), Collections.emptyList(),
+                        localSchema.getKeyColumnNames(localTableName), new ArrayList<>()));
             }
         }
+        this.indexTableMappers();
 
-        while (resultRemoteAllTables.next()) {
-            String remoteTableName = resultRemoteAllTables.getString(MySQL.SQL_CONTENT_TABLE_NAME);
-            if (!DatabaseValidator.isUnmonitoredTableName(remoteTableName)) {
-                remoteTableNames.add(remoteTableName);
-            }
+        this.introspectionTime = (System.nanoTime() - introspectionStartTime) / 1000000;
+    }
+
+    /**
+     * Used to obtain the time taken to introspect the schemas of both databases and build the TableMappers.
+     * @return long The duration of the introspection in milliseconds.
+     */
+    public long getIntrospectionTime() {
+        return introspectionTime;
+    }
+
+    /**
+     * Used to check whether the TableMappers were loaded from a mapping cache file instead of the live schemas.
+     * @return boolean true if loaded from the cache, false otherwise.
+     */
+    public boolean isLoadedFromCache() {
+        return loadedFromCache;
+    }
+
+    /**
+     * Rebuilds the indexes of the TableMappers by their local and remote table names.
+     * The first TableMapper of a table name takes precedence, as in a scan of the list.
+     */
+    private void indexTableMappers() {
+        Map<String, TableMapper> tableMappersByLocalTable = new HashMap<>();
+        Map<String, TableMapper> tableMappersByRemoteTable = new HashMap<>();
+        for (TableMapper tableMapper : this.tableMappers) {
+            tableMappersByLocalTable.putIfAbsent(tableMapper.getLocalTableName(), tableMapper);
+            tableMappersByRemoteTable.putIfAbsent(tableMapper.getRemoteTableName(), tableMapper);
         }
 
-        this.tableMappers = new ArrayList<>();
-        for (String localTableName : localTableNames) {
-            String matchingRemoteTableName = null;
-            for (String remoteTableName : remoteTableNames) {
-                if (localTableName.equals(remoteTableName)) {
-                    matchingRemoteTableName = remoteTableName;
-                    break;
-                }
-            }
+        this.tableMappersByLocalTable = tableMappersByLocalTable;
+        this.tableMappersByRemoteTable = tableMappersByRemoteTable;
+    }
 
-            this.tableMappers.add(new TableMapper(doerDB, localTableName, matchingRemoteTableName));
+    /**
+     * Used to obtain an indexed TableMapper, re-indexing the TableMappers if the index is stale.
+     * The index may be stale if the list of TableMappers or the table names of a TableMapper are modified directly.
+     * @param localTable boolean true to look up by the local table name, false to look up by the remote table name.
+     * @param tableName String The name of the table.
+     * @return TableMapper Instance, null if no TableMapper has the table name.
+     */
+    private TableMapper getIndexedTableMapper(boolean localTable, String tableName) {
+        TableMapper tableMapper = (localTable ? this.tableMappersByLocalTable : this.tableMappersByRemoteTable).get(tableName);
+        if (tableMapper == null || !Objects.equals(tableName, localTable ? tableMapper.getLocalTableName() : tableMapper.getRemoteTableName())) {
+            this.indexTableMappers();
+            tableMapper = (localTable ? this.tableMappersByLocalTable : this.tableMappersByRemoteTable).get(tableName);
         }
+
+        return tableMapper;
+    }
+
+    /**
+     * Compiles the current TableMappers into an immutable, hash-indexed DatabaseMapping with a precomputed projection for each table.
+     * Changes made to the mappers afterwards require the mapping to be compiled again.
+     * @return DatabaseMapping The compiled mapping.
+     */
+    public DatabaseMapping compile() {
+        return new DatabaseMapping(this.localDatabaseName, this.remoteDatabaseName, this.tableMappers);
     }
 
     /**
@@ -106,6 +192,7 @@ public class DatabaseMapper {
      */
     public void setTableMappers(List<TableMapper> tableMappers) {
         this.tableMappers = tableMappers;
+        this.indexTableMappers();
     }
 
     /**
@@ -114,13 +201,7 @@ public class DatabaseMapper {
      * @return TableMapper Instance.
      */
     public TableMapper getTableMapperByLocalTable(String localTableName) {
-        for (TableMapper tableMapper : this.tableMappers) {
-            if (tableMapper.getLocalTableName().equals(localTableName)) {
-                return tableMapper;
-            }
-        }
-
-        return null;
+        return this.getIndexedTableMapper(true, localTableName);
     }
 
     /**
@@ -129,13 +210,7 @@ public class DatabaseMapper {
      * @return TableMapper Instance.
      */
     public TableMapper getTableMapperByRemoteTable(String remoteTableName) {
-        for (TableMapper tableMapper : this.tableMappers) {
-            if (tableMapper.getRemoteTableName().equals(remoteTableName)) {
-                return tableMapper;
-            }
-        }
-
-        return null;
+        return this.getIndexedTableMapper(false, remoteTableName);
     }
 
     /**
@@ -150,6 +225,7 @@ public class DatabaseMapper {
 
             if (iterTableMapper.getLocalTableName().equals(tableMapper.getLocalTableName()) || iterTableMapper.getRemoteTableName().equals(tableMapper.getRemoteTableName())) {
                 this.tableMappers.set(i, tableMapper);
+                this.indexTableMappers();
                 return true;
             }
         }
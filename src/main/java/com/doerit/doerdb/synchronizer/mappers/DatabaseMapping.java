@@ -0,0 +1,77 @@
+package com.doerit.doerdb.synchronizer.mappers;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DatabaseMapping is an immutable snapshot of a DatabaseMapper, whose TableMappings are indexed by their local and remote table names.
+ * It is safe to be shared among threads, and later changes to the DatabaseMapper do not affect it.
+ */
+public final class DatabaseMapping {
+
+    private final String localDatabaseName;
+    private final String remoteDatabaseName;
+    private final Map<String, TableMapping> tableMappingsByLocalTable;
+    private final Map<String, TableMapping> tableMappingsByRemoteTable;
+
+    /**
+     * Constructor for DatabaseMapping.
+     * @param localDatabaseName String The local database name used in mappings.
+     * @param remoteDatabaseName String The remote database name used in mappings.
+     * @param tableMappers List of TableMapper instances to be compiled.
+     */
+    DatabaseMapping(String localDatabaseName, String remoteDatabaseName, List<TableMapper> tableMappers) {
+        this.localDatabaseName = localDatabaseName;
+        this.remoteDatabaseName = remoteDatabaseName;
+
+        Map<String, TableMapping> tableMappingsByLocalTable = new HashMap<>();
+        Map<String, TableMapping> tableMappingsByRemoteTable = new HashMap<>();
+        for (TableMapper tableMapper : tableMappers) {
+            TableMapping tableMapping = new TableMapping(tableMapper);
+            tableMappingsByLocalTable.putIfAbsent(tableMapping.getLocalTableName(), tableMapping);
+            if (tableMapping.getRemoteTableName() != null) {
+                tableMappingsByRemoteTable.putIfAbsent(tableMapping.getRemoteTableName(), tableMapping);
+            }
+        }
+
+        this.tableMappingsByLocalTable = Collections.unmodifiableMap(tableMappingsByLocalTable);
+        this.tableMappingsByRemoteTable = Collections.unmodifiableMap(tableMappingsByRemoteTable);
+    }
+
+    /**
+     * Used to obtain the local database name used in mappings.
+     * @return String Local Database Name.
+     */
+    public String getLocalDatabaseName() {
+        return localDatabaseName;
+    }
+
+    /**
+     * Used to obtain the remote database name used in mappings.
+     * @return String Remote Database Name.
+     */
+    public String getRemoteDatabaseName() {
+        return remoteDatabaseName;
+    }
+
+    /**
+     * Used to obtain the Table Mapping related to the provided table name in the local database.
+     * @param localTableName String The name of the local table.
+     * @return TableMapping Instance, null if the table is not mapped.
+     */
+    public TableMapping getTableMappingByLocalTable(String localTableName) {
+        return tableMappingsByLocalTable.get(localTableName);
+    }
+
+    /**
+     * Used to obtain the Table Mapping related to the provided table name in the remote database.
+     * @param remoteTableName String The name of the remote table.
+     * @return TableMapping Instance, null if the table is not mapped.
+     */
+    public TableMapping getTableMappingByRemoteTable(String remoteTableName) {
+        return tableMappingsByRemoteTable.get(remoteTableName);
+    }
+
+}
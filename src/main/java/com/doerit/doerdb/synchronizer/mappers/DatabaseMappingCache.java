@@ -0,0 +1,168 @@
+package com.doerit.doerdb.synchronizer.mappers;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DatabaseMappingCache stores the TableMappers computed from the schemas of the databases in a local file, with the fingerprints of both schemas.
+ * The cached TableMappers are loaded only while the fingerprints of the live schemas still match, hence a schema change invalidates the cache.
+ */
+final class DatabaseMappingCache {
+
+    static final int CACHE_VERSION = 1;
+
+    private static final String KEY_VERSION = "version";
+    private static final String KEY_LOCAL_DATABASE = "local_database";
+    private static final String KEY_REMOTE_DATABASE = "remote_database";
+    private static final String KEY_LOCAL_FINGERPRINT = "local_fingerprint";
+    private static final String KEY_REMOTE_FINGERPRINT = "remote_fingerprint";
+    private static final String KEY_TABLES = "tables";
+    private static final String KEY_LOCAL_TABLE = "local_table";
+    private static final String KEY_REMOTE_TABLE = "remote_table";
+    private static final String KEY_LOCAL_KEY_COLUMNS = "local_key_columns";
+    private static final String KEY_REMOTE_KEY_COLUMNS = "remote_key_columns";
+    private static final String KEY_COLUMNS = "columns";
+    private static final String KEY_LOCAL_COLUMN = "local_column";
+    private static final String KEY_REMOTE_COLUMN = "remote_column";
+
+    private DatabaseMappingCache() {
+    }
+
+    /**
+     * Loads the cached TableMappers if the cache was written for the same databases and schemas.
+     * @param cacheFile File The cache file.
+     * @param localDatabaseName String The name of the local database.
+     * @param remoteDatabaseName String The name of the remote database.
+     * @param localFingerprint String The fingerprint of the live local schema.
+     * @param remoteFingerprint String The fingerprint of the live remote schema.
+     * @return List of the cached TableMapper instances, null if the cache is missing, unreadable or stale.
+     */
+    static List<TableMapper> load(File cacheFile, String localDatabaseName, String remoteDatabaseName, String localFingerprint, String remoteFingerprint) {
+        if (!cacheFile.isFile()) {
+            return null;
+        }
+
+        try {
+            JSONObject cache = new JSONObject(new String(Files.readAllBytes(cacheFile.toPath()), StandardCharsets.UTF_8));
+            if (cache.optInt(KEY_VERSION) != CACHE_VERSION ||
+                    !localDatabaseName.equals(cache.optString(KEY_LOCAL_DATABASE)) || !remoteDatabaseName.equals(cache.optString(KEY_REMOTE_DATABASE)) ||
+                    !localFingerprint.equals(cache.optString(KEY_LOCAL_FINGERPRINT)) || !remoteFingerprint.equals(cache.optString(KEY_REMOTE_FINGERPRINT))) {
+                return null;
+            }
+
+            List<TableMapper> tableMappers = new ArrayList<>();
+            JSONArray tables = cache.getJSONArray(KEY_TABLES);
+            for (int i = 0; i < tables.length(); i++) {
+                JSONObject table = tables.getJSONObject(i);
+
+                List<ColumnMapper> columnMappers = new ArrayList<>();
+                JSONArray columns = table.getJSONArray(KEY_COLUMNS);
+                for (int k = 0; k < columns.length(); k++) {
+                    JSONObject column = columns.getJSONObject(k);
+                    columnMappers.add(new ColumnMapper(DatabaseMappingCache.getNullableString(column, KEY_LOCAL_COLUMN), DatabaseMappingCache.getNullableString(column, KEY_REMOTE_COLUMN)));
+                }
+
+                tableMappers.add(new TableMapper(table.getString(KEY_LOCAL_TABLE), DatabaseMappingCache.getNullableString(table, KEY_REMOTE_TABLE), columnMappers,
+                        DatabaseMappingCache.getStrings(table.getJSONArray(KEY_LOCAL_KEY_COLUMNS)), DatabaseMappingCache.getStrings(table.getJSONArray(KEY_REMOTE_KEY_COLUMNS))));
+            }
+
+            return tableMappers;
+        }
+        catch (IOException | JSONException e) {
+            // A corrupt cache is treated as a stale one and rebuilt from the live schemas.
+            return null;
+        }
+    }
+
+    /**
+     * Writes the TableMappers to the cache file with the fingerprints of the schemas they were computed from.
+     * The file is replaced atomically, hence a concurrent process never reads a partially written cache.
+     * @param cacheFile File The cache file.
+     * @param localDatabaseName String The name of the local database.
+     * @param remoteDatabaseName String The name of the remote database.
+     * @param localFingerprint String The fingerprint of the local schema.
+     * @param remoteFingerprint String The fingerprint of the remote schema.
+     * @param tableMappers List of TableMapper instances to be cached.
+     * @throws IOException If the cache file cannot be written.
+     */
+    static void save(File cacheFile, String localDatabaseName, String remoteDatabaseName, String localFingerprint, String remoteFingerprint, List<TableMapper> tableMappers) throws IOException {
+        JSONArray tables = new JSONArray();
+        for (TableMapper tableMapper : tableMappers) {
+            JSONArray columns = new JSONArray();
+            for (ColumnMapper columnMapper : tableMapper.getColumnMappers()) {
+                columns.put(new JSONObject()
+                        .put(KEY_LOCAL_COLUMN, DatabaseMappingCache.toNullable(columnMapper.getLocalColumnName()))
+                        .put(KEY_REMOTE_COLUMN, DatabaseMappingCache.toNullable(columnMapper.getRemoteColumnName())));
+            }
+
+            tables.put(new JSONObject()
+                    .put(KEY_LOCAL_TABLE, tableMapper.getLocalTableName())
+                    .put(KEY_REMOTE_TABLE, DatabaseMappingCache.toNullable(tableMapper.getRemoteTableName()))
+                    .put(KEY_LOCAL_KEY_COLUMNS, new JSONArray(tableMapper.getLocalKeyColumnNames()))
+                    .put(KEY_REMOTE_KEY_COLUMNS, new JSONArray(tableMapper.getRemoteKeyColumnNames()))
+                    .put(KEY_COLUMNS, columns));
+        }
+
+        JSONObject cache = new JSONObject()
+                .put(KEY_VERSION, CACHE_VERSION)
+                .put(KEY_LOCAL_DATABASE, localDatabaseName)
+                .put(KEY_REMOTE_DATABASE, remoteDatabaseName)
+                .put(KEY_LOCAL_FINGERPRINT, localFingerprint)
+                .put(KEY_REMOTE_FINGERPRINT, remoteFingerprint)
+                .put(KEY_TABLES, tables);
+
+        Path cachePath = cacheFile.toPath().toAbsolutePath();
+        Path temporaryPath = Files.createTempFile(cachePath.getParent(), cachePath.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporaryPath, cache.toString().getBytes(StandardCharsets.UTF_8));
+            Files.move(temporaryPath, cachePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+    }
+
+    /**
+     * Used to obtain a string which may be null from a JSONObject.
+     * @param jsonObject JSONObject The object.
+     * @param key String The key of the string.
+     * @return String The string, null if the value is missing or null.
+     */
+    private static String getNullableString(JSONObject jsonObject, String key) {
+        return jsonObject.isNull(key) ? null : jsonObject.getString(key);
+    }
+
+    /**
+     * Used to obtain the JSON representation of a string which may be null.
+     * @param value String The string.
+     * @return Object The string, JSONObject.NULL if it is null.
+     */
+    private static Object toNullable(String value) {
+        return value == null ? JSONObject.NULL : value;
+    }
+
+    /**
+     * Used to obtain the strings of a JSONArray.
+     * @param jsonArray JSONArray The array of strings.
+     * @return List of the strings in the order of the array.
+     */
+    private static List<String> getStrings(JSONArray jsonArray) {
+        List<String> strings = new ArrayList<>();
+        for (int i = 0; i < jsonArray.length(); i++) {
+            strings.add(jsonArray.getString(i));
+        }
+
+        return strings;
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.doerit.doerdb.synchronizer.mappers;
+
+import com.doerit.doerdb.db.DoerDatabase;
+import com.doerit.doerdb.db.MySQL;
+import com.doerit.doerdb.db.templates.MySQLQueryTemplates;
+import com.doerit.doerdb.exceptions.InitializationFailureException;
+
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * DatabaseSchema holds the tables, columns and keys of a database, introspected with a single query on information_schema.columns
+ * and a single query on information_schema.statistics regardless of the number of tables.
+ */
+final class DatabaseSchema {
+
+    private final Map<String, List<String>> columnNamesByTable = new LinkedHashMap<>();
+    private final Map<String, List<String>> keyColumnNamesByTable = new HashMap<>();
+
+    /**
+     * Introspects the schema of a database.
+     * @param doerDatabase DoerDatabase The database to be introspected.
+     * @return DatabaseSchema The schema of the database.
+     * @throws SQLException If any exception is thrown during the execution of MySQL queries internally.
+     * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
+     */
+    static DatabaseSchema read(DoerDatabase doerDatabase) throws SQLException, InitializationFailureException {
+        DatabaseSchema databaseSchema = new DatabaseSchema();
+
+        String querySchemaColumns = MySQLQueryTemplates.QUERY_SCHEMA_COLUMNS
+                .replace(MySQLQueryTemplates.PLACEHOLDER_DATABASE_NAME, doerDatabase.getDatabaseName());
+        doerDatabase.forEachRow(querySchemaColumns, rowSchemaColumn -> databaseSchema.columnNamesByTable
+                .computeIfAbsent(rowSchemaColumn.getString(MySQL.SQL_CONTENT_TABLE_NAME), k -> new ArrayList<>())
+                .add(rowSchemaColumn.getString(MySQL.SQL_CONTENT_COLUMN_NAME)));
+
+        String querySchemaKeyColumns = MySQLQueryTemplates.QUERY_SCHEMA_UNIQUE_KEY_COLUMNS
+                .replace(MySQLQueryTemplates.PLACEHOLDER_DATABASE_NAME, doerDatabase.getDatabaseName());
+        Map<String, Map<String, List<String>>> indexColumnNamesByTable = new HashMap<>();
+        Map<String, Set<String>> nullableIndexNamesByTable = new HashMap<>();
+        doerDatabase.forEachRow(querySchemaKeyColumns, rowSchemaKeyColumn -> {
+            String tableName = rowSchemaKeyColumn.getString(MySQL.SQL_CONTENT_TABLE_NAME);
+            String indexName = rowSchemaKeyColumn.getString(MySQL.SQL_CONTENT_INDEX_NAME);
+            indexColumnNamesByTable.computeIfAbsent(tableName, k -> new LinkedHashMap<>())
+                    .computeIfAbsent(indexName, k -> new ArrayList<>())
+                    .add(rowSchemaKeyColumn.getString(MySQL.SQL_CONTENT_COLUMN_NAME));
+
+            String nullable = rowSchemaKeyColumn.getString(MySQL.SQL_CONTENT_NULLABLE);
+            if (nullable != null && !nullable.isEmpty()) {
+                nullableIndexNamesByTable.computeIfAbsent(tableName, k -> new HashSet<>()).add(indexName);
+            }
+        });
+
+        for (Map.Entry<String, Map<String, List<String>>> tableIndexes : indexColumnNamesByTable.entrySet()) {
+            Set<String> nullableIndexNames = nullableIndexNamesByTable.getOrDefault(tableIndexes.getKey(), Collections.emptySet());
+            databaseSchema.keyColumnNamesByTable.put(tableIndexes.getKey(), TableMapper.chooseKeyColumnNames(tableIndexes.getValue(), nullableIndexNames));
+        }
+
+        return databaseSchema;
+    }
+
+    /**
+     * Reads a fingerprint of the columns and the unique indexes of a database with a single query.
+     * The fingerprint changes whenever a column or a unique index is added, removed, renamed, reordered or retyped.
+     * @param doerDatabase DoerDatabase The database whose schema is fingerprinted.
+     * @return String The fingerprint of the schema.
+     * @throws SQLException If any exception is thrown during the execution of MySQL queries internally.
+     * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabase.
+     */
+    static String readFingerprint(DoerDatabase doerDatabase) throws SQLException, InitializationFailureException {
+        String querySchemaFingerprint = MySQLQueryTemplates.QUERY_SCHEMA_FINGERPRINT
+                .replace(MySQLQueryTemplates.PLACEHOLDER_DATABASE_NAME, doerDatabase.getDatabaseName());
+        return doerDatabase.executeQuery(querySchemaFingerprint, resultSchemaFingerprint -> {
+            resultSchemaFingerprint.next();
+            return resultSchemaFingerprint.getString(MySQL.SQL_CONTENT_COLUMNS_FINGERPRINT) + "/" +
+                    resultSchemaFingerprint.getString(MySQL.SQL_CONTENT_KEYS_FINGERPRINT);
+        });
+    }
+
+    /**
+     * Used to obtain the names of the tables of the database.
+     * @return Set of the table names, in the ascending order.
+     */
+    Set<String> getTableNames() {
+        return columnNamesByTable.keySet();
+    }
+
+    /**
+     * Used to check whether the database has a table.
+     * @param tableName String The name of the table.
+     * @return boolean true if the table exists, false otherwise.
+     */
+    boolean hasTable(String tableName) {
+        return columnNamesByTable.containsKey(tableName);
+    }
+
+    /**
+     * Used to obtain the columns of a table.
+     * @param tableName String The name of the table.
+     * @return List of the column names in the order of the table, empty if the table does not exist.
+     */
+    List<String> getColumnNames(String tableName) {
+        return columnNamesByTable.getOrDefault(tableName, Collections.emptyList());
+    }
+
+    /**
+     * Used to obtain the columns of the key identifying the rows of a table.
+     * @param tableName String The name of the table.
+     * @return List of the column names of the key, empty if the table has no primary key or suitable unique key.
+     */
+    List<String> getKeyColumnNames(String tableName) {
+        return new ArrayList<>(keyColumnNamesByTable.getOrDefault(tableName, Collections.emptyList()));
+    }
+
+}
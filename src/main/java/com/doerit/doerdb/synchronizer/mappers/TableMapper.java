@@ -7,14 +7,17 @@ import com.doerit.doerdb.exceptions.InitializationFailureException;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 public class TableMapper {
 
     private String localTableName;
     private String remoteTableName;
     private List<ColumnMapper> columnMappers;
+    private Map<String, ColumnMapper> columnMappersByLocalColumn = new HashMap<>();
+    private Map<String, ColumnMapper> columnMappersByRemoteColumn = new HashMap<>();
+    private List<String> localKeyColumnNames;
+    private List<String> remoteKeyColumnNames;
 
     /**
      * Constructor.
@@ -29,6 +32,45 @@ public class TableMapper {
         this.remoteTableName = remoteTableName;
 
         this.initColumnMapper(doerDB);
+        this.initKeyColumns(doerDB);
+    }
+
+    /**
+     * Constructor for a TableMapper of tables whose columns and keys are already introspected.
+     * @param localTableName String The name of the local table to be used in mapping.
+     * @param remoteTableName String The name of the remote table to be used in mapping, null if the table does not exist in the remote database.
+     * @param localColumnNames List of the column names of the local table.
+     * @param remoteColumnNames Collection of the column names of the remote table.
+     * @param localKeyColumnNames List of the local column names of the key, empty if the table has no known key.
+     * @param remoteKeyColumnNames List of the remote column names of the key, empty if the table has no known key.
+     */
+    TableMapper(String localTableName, String remoteTableName, List<String> localColumnNames, Collection<String> remoteColumnNames,
+                List<String> localKeyColumnNames, List<String> remoteKeyColumnNames) {
+        this.localTableName = localTableName;
+        this.remoteTableName = remoteTableName;
+        this.localKeyColumnNames = localKeyColumnNames;
+        this.remoteKeyColumnNames = remoteKeyColumnNames;
+
+        this.initColumnMapper(localColumnNames, remoteColumnNames);
+    }
+
+    /**
+     * Constructor for a TableMapper of already mapped columns, e.g. loaded from a mapping cache.
+     * @param localTableName String The name of the local table to be used in mapping.
+     * @param remoteTableName String The name of the remote table to be used in mapping, null if the table does not exist in the remote database.
+     * @param columnMappers List of ColumnMapper instances of the table.
+     * @param localKeyColumnNames List of the local column names of the key, empty if the table has no known key.
+     * @param remoteKeyColumnNames List of the remote column names of the key, empty if the table has no known key.
+     */
+    TableMapper(String localTableName, String remoteTableName, List<ColumnMapper> columnMappers,
+                List<String> localKeyColumnNames, List<String> remoteKeyColumnNames) {
+        this.localTableName = localTableName;
+        this.remoteTableName = remoteTableName;
+        this.columnMappers = columnMappers;
+        this.localKeyColumnNames = localKeyColumnNames;
+        this.remoteKeyColumnNames = remoteKeyColumnNames;
+
+        this.indexColumnMappers();
     }
 
     /**
@@ -43,32 +85,130 @@ public class TableMapper {
         String queryRemoteAllColumns = MySQLQueryTemplates.QUERY_ALL_COLUMNS
                 .replace(MySQLQueryTemplates.PLACEHOLDER_TABLE_NAME, this.remoteTableName);
 
-        ResultSet resultLocalAllColumns = doerDB.executeLocalQuery(queryLocalAllColumns);
-        ResultSet resultRemoteAllColumns = doerDB.executeRemoteQuery(queryRemoteAllColumns);
-
         List<String> localColumnNames = new ArrayList<>();
-        List<String> remoteColumnNames = new ArrayList<>();
+        Set<String> remoteColumnNames = new HashSet<>();
 
-        while (resultLocalAllColumns.next()) {
-            localColumnNames.add(resultLocalAllColumns.getString(MySQL.SQL_CONTENT_FIELD));
-        }
+        doerDB.getLocalDatabase().forEachRow(queryLocalAllColumns, rowLocalColumn -> localColumnNames.add(rowLocalColumn.getString(MySQL.SQL_CONTENT_FIELD)));
+        doerDB.getRemoteDatabase().forEachRow(queryRemoteAllColumns, rowRemoteColumn -> remoteColumnNames.add(rowRemoteColumn.getString(MySQL.SQL_CONTENT_FIELD)));
 
-        while (resultRemoteAllColumns.next()) {
-            remoteColumnNames.add(resultRemoteAllColumns.getString(MySQL.SQL_CONTENT_FIELD));
-        }
+        this.initColumnMapper(localColumnNames, remoteColumnNames);
+    }
+
+    /**
+     * Initializes the ColumnMapper for the TableMapper by matching the columns of the local and remote tables by their names.
+     * @param localColumnNames List of the column names of the local table.
+     * @param remoteColumnNames Collection of the column names of the remote table.
+     */
+    private void initColumnMapper(List<String> localColumnNames, Collection<String> remoteColumnNames) {
+        Set<String> remoteColumnNameSet = new HashSet<>(remoteColumnNames);
 
         this.columnMappers = new ArrayList<>();
         for (String localColumnName : localColumnNames) {
-            String matchingRemoteColumnName = null;
-            for (String remoteColumnName : remoteColumnNames) {
-                if (localColumnName.equals(remoteColumnName)) {
-                    matchingRemoteColumnName = remoteColumnName;
-                    break;
-                }
+            String matchingRemoteColumnName = remoteColumnNameSet.contains(localColumnName) ? localColumnName : null;
+            this.columnMappers.add(new ColumnMapper(localColumnName, matchingRemoteColumnName));
+        }
+        this.indexColumnMappers();
+    }
+
+    /**
+     * Rebuilds the indexes of the ColumnMappers by their local and remote column names.
+     * The first ColumnMapper of a column name takes precedence, as in a scan of the list.
+     */
+    private void indexColumnMappers() {
+        Map<String, ColumnMapper> columnMappersByLocalColumn = new HashMap<>();
+        Map<String, ColumnMapper> columnMappersByRemoteColumn = new HashMap<>();
+        for (ColumnMapper columnMapper : this.columnMappers) {
+            columnMappersByLocalColumn.putIfAbsent(columnMapper.getLocalColumnName(), columnMapper);
+            columnMappersByRemoteColumn.putIfAbsent(columnMapper.getRemoteColumnName(), columnMapper);
+        }
+
+        this.columnMappersByLocalColumn = columnMappersByLocalColumn;
+        this.columnMappersByRemoteColumn = columnMappersByRemoteColumn;
+    }
+
+    /**
+     * Used to obtain an indexed ColumnMapper, re-indexing the ColumnMappers if the index is stale.
+     * The index may be stale if the list of ColumnMappers or the column names of a ColumnMapper are modified directly.
+     * @param localColumn boolean true to look up by the local column name, false to look up by the remote column name.
+     * @param columnName String The name of the column.
+     * @return ColumnMapper Instance, null if no ColumnMapper has the column name.
+     */
+    private ColumnMapper getIndexedColumnMapper(boolean localColumn, String columnName) {
+        ColumnMapper columnMapper = (localColumn ? this.columnMappersByLocalColumn : this.columnMappersByRemoteColumn).get(columnName);
+        if (columnMapper == null || !Objects.equals(columnName, localColumn ? columnMapper.getLocalColumnName() : columnMapper.getRemoteColumnName())) {
+            this.indexColumnMappers();
+            columnMapper = (localColumn ? this.columnMappersByLocalColumn : this.columnMappersByRemoteColumn).get(columnName);
+        }
+
+        return columnMapper;
+    }
+
+    /**
+     * Compiles the current ColumnMappers into an immutable TableMapping with a precomputed projection for each direction.
+     * @return TableMapping The compiled mapping.
+     */
+    public TableMapping compile() {
+        return new TableMapping(this);
+    }
+
+    /**
+     * Initializes the key columns of the local and remote tables.
+     * @param doerDB DoerDB The DoerDB instance related to the TableMapper.
+     * @throws SQLException If any exception is thrown during the execution of MySQL queries internally.
+     * @throws InitializationFailureException If any exception is thrown during the initialization of DoerDatabases.
+     */
+    private void initKeyColumns(DoerDB doerDB) throws SQLException, InitializationFailureException {
+        String queryLocalKeyColumns = MySQLQueryTemplates.QUERY_UNIQUE_KEY_COLUMNS
+                .replace(MySQLQueryTemplates.PLACEHOLDER_DATABASE_NAME, doerDB.getLocalDatabase().getDatabaseName())
+                .replace(MySQLQueryTemplates.PLACEHOLDER_TABLE_NAME, this.localTableName);
+        this.localKeyColumnNames = doerDB.getLocalDatabase().executeQuery(queryLocalKeyColumns, TableMapper::getKeyColumnNames);
+
+        this.remoteKeyColumnNames = new ArrayList<>();
+        if (this.remoteTableName != null) {
+            String queryRemoteKeyColumns = MySQLQueryTemplates.QUERY_UNIQUE_KEY_COLUMNS
+                    .replace(MySQLQueryTemplates.PLACEHOLDER_DATABASE_NAME, doerDB.getRemoteDatabase().getDatabaseName())
+                    .replace(MySQLQueryTemplates.PLACEHOLDER_TABLE_NAME, this.remoteTableName);
+            this.remoteKeyColumnNames = doerDB.getRemoteDatabase().executeQuery(queryRemoteKeyColumns, TableMapper::getKeyColumnNames);
+        }
+    }
+
+    /**
+     * Chooses the key identifying the rows of a table from the columns of its unique indexes.
+     * The primary key is chosen if exists, otherwise the first unique index without nullable columns, as NULLs do not identify a row.
+     * @param resultKeyColumns ResultSet The result of QUERY_UNIQUE_KEY_COLUMNS for the table.
+     * @return List of the column names of the key, in the order of the index. Empty if the table has no such key.
+     * @throws SQLException If any exception is thrown while reading the ResultSet.
+     */
+    public static List<String> getKeyColumnNames(ResultSet resultKeyColumns) throws SQLException {
+        Map<String, List<String>> indexColumnNames = new LinkedHashMap<>();
+        Set<String> nullableIndexNames = new HashSet<>();
+        while (resultKeyColumns.next()) {
+            String indexName = resultKeyColumns.getString(MySQL.SQL_CONTENT_INDEX_NAME);
+            indexColumnNames.computeIfAbsent(indexName, k -> new ArrayList<>()).add(resultKeyColumns.getString(MySQL.SQL_CONTENT_COLUMN_NAME));
+
+            String nullable = resultKeyColumns.getString(MySQL.SQL_CONTENT_NULLABLE);
+            if (nullable != null && !nullable.isEmpty()) {
+                nullableIndexNames.add(indexName);
             }
+        }
 
-            this.columnMappers.add(new ColumnMapper(localColumnName, matchingRemoteColumnName));
+        return TableMapper.chooseKeyColumnNames(indexColumnNames, nullableIndexNames);
+    }
+
+    /**
+     * Chooses the key identifying the rows of a table from its unique indexes: the first index without nullable columns.
+     * @param indexColumnNames Map of the names of the unique indexes of the table, the primary key first, to their columns.
+     * @param nullableIndexNames Set of the names of the indexes having any nullable column.
+     * @return List of the column names of the key, in the order of the index. Empty if the table has no such key.
+     */
+    static List<String> chooseKeyColumnNames(Map<String, List<String>> indexColumnNames, Set<String> nullableIndexNames) {
+        for (Map.Entry<String, List<String>> index : indexColumnNames.entrySet()) {
+            if (!nullableIndexNames.contains(index.getKey())) {
+                return index.getValue();
+            }
         }
+
+        return new ArrayList<>();
     }
 
     /**
@@ -95,19 +235,45 @@ public class TableMapper {
         return columnMappers;
     }
 
+    /**
+     * Used to obtain the columns of the key identifying the rows of the local table.
+     * @return List of the local column names of the key, empty if the table has no primary key or suitable unique key.
+     */
+    public List<String> getLocalKeyColumnNames() {
+        return localKeyColumnNames;
+    }
+
+    /**
+     * Used to obtain the columns of the key identifying the rows of the remote table.
+     * @return List of the remote column names of the key, empty if the table has no primary key or suitable unique key.
+     */
+    public List<String> getRemoteKeyColumnNames() {
+        return remoteKeyColumnNames;
+    }
+
+    /**
+     * Sets the columns of the key identifying the rows of the local table.
+     * @param localKeyColumnNames List of the local column names of the key, empty to compare every column of the rows.
+     */
+    public void setLocalKeyColumnNames(List<String> localKeyColumnNames) {
+        this.localKeyColumnNames = localKeyColumnNames;
+    }
+
+    /**
+     * Sets the columns of the key identifying the rows of the remote table.
+     * @param remoteKeyColumnNames List of the remote column names of the key, empty to compare every column of the rows.
+     */
+    public void setRemoteKeyColumnNames(List<String> remoteKeyColumnNames) {
+        this.remoteKeyColumnNames = remoteKeyColumnNames;
+    }
+
     /**
      * Used to obtain the Column Mapper related to the provided table name in the local database.
      * @param localColumnName String The name of the local column.
      * @return ColumnMapper Instance.
      */
     public ColumnMapper getColumnMapperByLocalColumn(String localColumnName) {
-        for (ColumnMapper columnMapper : this.columnMappers) {
-            if (columnMapper.getLocalColumnName().equals(localColumnName)) {
-                return columnMapper;
-            }
-        }
-
-        return null;
+        return this.getIndexedColumnMapper(true, localColumnName);
     }
 
     /**
@@ -116,13 +282,7 @@ public class TableMapper {
      * @return ColumnMapper Instance.
      */
     public ColumnMapper getColumnMapperByRemoteColumn(String remoteColumnName) {
-        for (ColumnMapper columnMapper : this.columnMappers) {
-            if (columnMapper.getRemoteColumnName().equals(remoteColumnName)) {
-                return columnMapper;
-            }
-        }
-
-        return null;
+        return this.getIndexedColumnMapper(false, remoteColumnName);
     }
 
     /**
@@ -137,6 +297,7 @@ public class TableMapper {
 
             if (iterColumnMapper.getLocalColumnName().equals(columnMapper.getLocalColumnName()) || iterColumnMapper.getRemoteColumnName().equals(columnMapper.getRemoteColumnName())) {
                 this.columnMappers.set(i, columnMapper);
+                this.indexColumnMappers();
                 return true;
             }
         }
@@ -0,0 +1,90 @@
+package com.doerit.doerdb.synchronizer.mappers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * TableMapping is an immutable snapshot of a TableMapper, compiled into a ColumnProjection for each direction.
+ * Later changes to the TableMapper or its ColumnMappers do not affect the snapshot.
+ */
+public final class TableMapping {
+
+    private final String localTableName;
+    private final String remoteTableName;
+    private final List<String> localKeyColumnNames;
+    private final List<String> remoteKeyColumnNames;
+    private final ColumnProjection localToRemoteProjection;
+    private final ColumnProjection remoteToLocalProjection;
+
+    /**
+     * Constructor for TableMapping.
+     * @param tableMapper TableMapper The mapper to be compiled.
+     */
+    TableMapping(TableMapper tableMapper) {
+        this.localTableName = tableMapper.getLocalTableName();
+        this.remoteTableName = tableMapper.getRemoteTableName();
+        this.localKeyColumnNames = TableMapping.copyColumnNames(tableMapper.getLocalKeyColumnNames());
+        this.remoteKeyColumnNames = TableMapping.copyColumnNames(tableMapper.getRemoteKeyColumnNames());
+        this.localToRemoteProjection = new ColumnProjection(tableMapper.getColumnMappers(), true);
+        this.remoteToLocalProjection = new ColumnProjection(tableMapper.getColumnMappers(), false);
+    }
+
+    /**
+     * Used to obtain an unmodifiable copy of a list of column names.
+     * @param columnNames List of column names, may be null.
+     * @return List The unmodifiable copy, empty if the list is null.
+     */
+    private static List<String> copyColumnNames(List<String> columnNames) {
+        return columnNames == null ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(columnNames));
+    }
+
+    /**
+     * Used to obtain the local table name used in mappings.
+     * @return String Local Table Name.
+     */
+    public String getLocalTableName() {
+        return localTableName;
+    }
+
+    /**
+     * Used to obtain the remote table name used in mappings.
+     * @return String Remote Table Name.
+     */
+    public String getRemoteTableName() {
+        return remoteTableName;
+    }
+
+    /**
+     * Used to obtain the columns of the key identifying the rows of the local table.
+     * @return List of the local column names of the key, empty if the table has no known key.
+     */
+    public List<String> getLocalKeyColumnNames() {
+        return localKeyColumnNames;
+    }
+
+    /**
+     * Used to obtain the columns of the key identifying the rows of the remote table.
+     * @return List of the remote column names of the key, empty if the table has no known key.
+     */
+    public List<String> getRemoteKeyColumnNames() {
+        return remoteKeyColumnNames;
+    }
+
+    /**
+     * Used to obtain the projection of the records of the local table into records of the remote table.
+     * @return ColumnProjection The local to remote projection.
+     */
+    public ColumnProjection getLocalToRemoteProjection() {
+        return localToRemoteProjection;
+    }
+
+    /**
+     * Used to obtain the projection of the records of the remote table into records of the local table.
+     * @return ColumnProjection The remote to local projection.
+     */
+    public ColumnProjection getRemoteToLocalProjection() {
+        return remoteToLocalProjection;
+    }
+
+}
@@ -4,44 +4,72 @@ import com.doerit.doerdb.DBCredentialWrapper;
 import com.doerit.doerdb.DoerDB;
 import com.doerit.doerdb.db.MySQL;
 import com.doerit.doerdb.db.jdbc.JDBCConstants;
+import com.doerit.doerdb.db.jdbc.ScopedStatements;
 import com.doerit.doerdb.db.metadata.DoerDBMetaTable;
 import com.doerit.doerdb.db.metadata.DoerDBSyncDataTable;
 import com.doerit.doerdb.db.metadata.DoerDBSyncStatusTable;
+import com.doerit.doerdb.db.queries.BasicQuery;
 import com.doerit.doerdb.db.queries.InsertQuery;
 import com.doerit.doerdb.db.queries.UpdateQuery;
+import com.doerit.doerdb.db.templates.MySQLQueryTemplates;
+import com.doerit.doerdb.db.types.DatabaseType;
 import com.doerit.doerdb.exceptions.ExceptionCodes;
 import com.doerit.doerdb.exceptions.InitializationFailureException;
 import com.doerit.doerdb.exceptions.InvalidException;
 import com.doerit.doerdb.exceptions.NotFoundException;
 import com.doerit.doerdb.synchronizer.DoerDBSynchronizer;
+import com.doerit.doerdb.synchronizer.mappers.TableMapper;
 
 import java.sql.*;
+import java.util.*;
 
 /**
  * DatabaseConverter is used to convert the existing databases to DoerDBs.
  */
 public class DatabaseConverter {
 
+    /* The meta tables are InnoDB, so that the triggers take row locks instead of table locks, and utf8mb4 instead of the four bytes per character of utf32. */
+    private static final String META_TABLE_OPTIONS = "ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_bin";
+
+    private static final String META_TABLE_COL_DEF_ID = "`" + DoerDBMetaTable.TABLE_COL_ID + "` bigint(20) NOT NULL AUTO_INCREMENT";
+    private static final String META_TABLE_COL_DEF_TABLE_NAME = "`" + DoerDBMetaTable.TABLE_COL_TABLE_NAME + "` varchar(64) COLLATE utf8mb4_bin NOT NULL";
+    private static final String META_TABLE_COL_DEF_QUERY_TYPE = "`" + DoerDBMetaTable.TABLE_COL_QUERY_TYPE + "` varchar(16) COLLATE utf8mb4_bin NOT NULL";
+    private static final String META_TABLE_COL_DEF_ORIGIN = "`" + DoerDBMetaTable.TABLE_COL_ORIGIN + "` varchar(128) COLLATE utf8mb4_bin DEFAULT NULL";
+    private static final String META_TABLE_INDEX_DEF_QUERY_TIMESTAMP = "KEY `" + DoerDBMetaTable.TABLE_INDEX_QUERY_TIMESTAMP + "` (`" + DoerDBMetaTable.TABLE_COL_QUERY_TIMESTAMP + "`)";
+
     private static final String QUERY_META_TABLE_CREATE = "CREATE TABLE IF NOT EXISTS `" + DoerDBMetaTable.TABLE_NAME + "` (" +
-            "`" + DoerDBMetaTable.TABLE_COL_ID + "` int(11) NOT NULL AUTO_INCREMENT," +
-            "`" + DoerDBMetaTable.TABLE_COL_TABLE_NAME + "` text COLLATE utf32_bin NOT NULL," +
-            "`" + DoerDBMetaTable.TABLE_COL_QUERY_TYPE + "` text COLLATE utf32_bin NOT NULL," +
+            DatabaseConverter.META_TABLE_COL_DEF_ID + "," +
+            DatabaseConverter.META_TABLE_COL_DEF_TABLE_NAME + "," +
+            DatabaseConverter.META_TABLE_COL_DEF_QUERY_TYPE + "," +
             "`" + DoerDBMetaTable.TABLE_COL_NEW_RECORD + "` json NOT NULL," +
             "`" + DoerDBMetaTable.TABLE_COL_OLD_RECORD + "` json DEFAULT NULL," +
             "`" + DoerDBMetaTable.TABLE_COL_QUERY_TIMESTAMP + "` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP," +
-            "PRIMARY KEY (`" + DoerDBMetaTable.TABLE_COL_ID + "`)" +
-            ") ENGINE=MyISAM AUTO_INCREMENT=4 DEFAULT CHARSET=utf32 COLLATE=utf32_bin";
+            DatabaseConverter.META_TABLE_COL_DEF_ORIGIN + "," +
+            "PRIMARY KEY (`" + DoerDBMetaTable.TABLE_COL_ID + "`)," +
+            DatabaseConverter.META_TABLE_INDEX_DEF_QUERY_TIMESTAMP +
+            ") " + DatabaseConverter.META_TABLE_OPTIONS;
+
+    private static final String SYNC_DATA_TABLE_COL_DEF_ID = "`" + DoerDBSyncDataTable.TABLE_COL_ID + "` bigint(20) NOT NULL AUTO_INCREMENT";
+    private static final String SYNC_DATA_TABLE_COL_DEF_LOCAL_LAST_ID = "`" + DoerDBSyncDataTable.TABLE_COL_LOCAL_LAST_ID + "` bigint(20) NOT NULL";
+    private static final String SYNC_DATA_TABLE_COL_DEF_REMOTE_LAST_ID = "`" + DoerDBSyncDataTable.TABLE_COL_REMOTE_LAST_ID + "` bigint(20) NOT NULL";
 
     private static final String QUERY_SYNC_DATA_TABLE_CREATE = "CREATE TABLE IF NOT EXISTS `" + DoerDBSyncDataTable.TABLE_NAME + "` (" +
-            " `" + DoerDBSyncDataTable.TABLE_COL_ID + "` int(11) NOT NULL AUTO_INCREMENT," +
-            " `" + DoerDBSyncDataTable.TABLE_COL_LOCAL_LAST_ID + "` int(11) NOT NULL," +
-            " `" + DoerDBSyncDataTable.TABLE_COL_REMOTE_LAST_ID + "` int(11) NOT NULL," +
+            " " + DatabaseConverter.SYNC_DATA_TABLE_COL_DEF_ID + "," +
+            " " + DatabaseConverter.SYNC_DATA_TABLE_COL_DEF_LOCAL_LAST_ID + "," +
+            " " + DatabaseConverter.SYNC_DATA_TABLE_COL_DEF_REMOTE_LAST_ID + "," +
             " PRIMARY KEY (`" + DoerDBSyncDataTable.TABLE_COL_ID + "`)" +
-            ") ENGINE=MyISAM DEFAULT CHARSET=utf32 COLLATE=utf32_bin";
+            ") " + DatabaseConverter.META_TABLE_OPTIONS;
 
     private static final String QUERY_SYNC_STATUS_TABLE_CREATE = "CREATE TABLE IF NOT EXISTS `" + DoerDBSyncStatusTable.TABLE_NAME + "` (" +
             " `" + DoerDBSyncStatusTable.TABLE_COL_SYNC_STATUS + "` tinyint(1) NOT NULL DEFAULT '0'" +
-            ") ENGINE=MyISAM DEFAULT CHARSET=utf32 COLLATE=utf32_bin";
+            ") " + DatabaseConverter.META_TABLE_OPTIONS;
+
+    private static final String QUERY_SYNC_DATA_TABLE_MIGRATE = "ALTER TABLE `" + DoerDBSyncDataTable.TABLE_NAME + "` " + DatabaseConverter.META_TABLE_OPTIONS + "," +
+            " MODIFY " + DatabaseConverter.SYNC_DATA_TABLE_COL_DEF_ID + "," +
+            " MODIFY " + DatabaseConverter.SYNC_DATA_TABLE_COL_DEF_LOCAL_LAST_ID + "," +
+            " MODIFY " + DatabaseConverter.SYNC_DATA_TABLE_COL_DEF_REMOTE_LAST_ID;
+
+    private static final String QUERY_SYNC_STATUS_TABLE_MIGRATE = "ALTER TABLE `" + DoerDBSyncStatusTable.TABLE_NAME + "` " + DatabaseConverter.META_TABLE_OPTIONS;
 
     private static final String QUERY_SYNC_STATUS_TABLE_INSERT_STATUS = MySQL.SQL_INSERT_PREFIX + MySQL.SQL_SPACE +
             MySQL.SQL_INTERNAL_QUOTES + DoerDBSyncStatusTable.TABLE_NAME + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SPACE +
@@ -53,7 +81,11 @@ public class DatabaseConverter {
             "0" +
             MySQL.SQL_BRACKET_ROUND_CLOSE;
 
-    private static final String TRIGGER_JSON_PLACEHOLDER = "[REC_TYPE]";
+    /* Data types whose values are recorded as base64, as JSON has no representation of arbitrary bytes. */
+    private static final Set<String> TRIGGER_BINARY_DATA_TYPES = new HashSet<>(Arrays.asList("binary", "varbinary", "tinyblob", "blob", "mediumblob", "longblob", "bit"));
+
+    /* Data types whose values are recorded as strings, as the JSON numbers are parsed into doubles and would lose their precision. */
+    private static final Set<String> TRIGGER_EXACT_DATA_TYPES = new HashSet<>(Collections.singletonList("decimal"));
 
     private final DBCredentialWrapper localDBCredentials;
     private final DBCredentialWrapper remoteDBCredentials;
@@ -61,6 +93,8 @@ public class DatabaseConverter {
     private final Connection localConnection;
     private final Connection remoteConnection;
 
+    private long metaTablePartitionSize = 0;
+
     /**
      * Constructor for DatabaseConverter.
      * @param localDBCredentials DBCredentialWrapper wrapped with local database credentials.
@@ -88,6 +122,48 @@ public class DatabaseConverter {
         }
     }
 
+    /**
+     * Sets the number of IDs held by each partition of the Meta Tables created or migrated, so that the old changes can be dropped a partition at a time.
+     * @param metaTablePartitionSize long The number of IDs per partition, 0 to leave the Meta Tables unpartitioned.
+     */
+    public void setMetaTablePartitionSize(long metaTablePartitionSize) {
+        if (metaTablePartitionSize < 0) {
+            throw new IllegalArgumentException("Meta Table partition size should be a non-negative integer.");
+        }
+
+        this.metaTablePartitionSize = metaTablePartitionSize;
+    }
+
+    /**
+     * Builds the clause partitioning the Meta Table by RANGE on its ID.
+     * The partitions cover the IDs up to and a few partitions beyond the last ID, followed by a partition holding the rest of the IDs.
+     * @param partitionSize long The number of IDs per partition.
+     * @param lastID long The last ID in the Meta Table, 0 if it is empty.
+     * @return String The partitioning clause.
+     */
+    static String buildMetaTablePartitionClause(long partitionSize, long lastID) {
+        long partitionCount = lastID / partitionSize + 1 + DoerDBMetaTable.TABLE_PARTITIONS_AHEAD;
+
+        return "PARTITION BY RANGE " + MySQL.SQL_BRACKET_ROUND_OPEN + MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_COL_ID + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_BRACKET_ROUND_CLOSE + MySQL.SQL_SPACE +
+                DoerDBMetaTable.getPartitionDefinitions(partitionSize, 1, partitionCount);
+    }
+
+    /**
+     * Builds the statement migrating an existing Meta Table to the current layout.
+     * @param hasOriginColumn boolean true if the Meta Table already has the origin column.
+     * @param hasQueryTimestampIndex boolean true if the Meta Table already has the index on the query timestamp.
+     * @return String The statement altering the Meta Table.
+     */
+    static String buildMetaTableMigrateQuery(boolean hasOriginColumn, boolean hasQueryTimestampIndex) {
+        return MySQL.SQL_ALTER_CLAUSE + MySQL.SQL_SPACE + "TABLE" + MySQL.SQL_SPACE + MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_NAME + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SPACE +
+                DatabaseConverter.META_TABLE_OPTIONS + MySQL.SQL_SEPARATOR +
+                " MODIFY " + DatabaseConverter.META_TABLE_COL_DEF_ID + MySQL.SQL_SEPARATOR +
+                " MODIFY " + DatabaseConverter.META_TABLE_COL_DEF_TABLE_NAME + MySQL.SQL_SEPARATOR +
+                " MODIFY " + DatabaseConverter.META_TABLE_COL_DEF_QUERY_TYPE + MySQL.SQL_SEPARATOR +
+                (hasOriginColumn ? " MODIFY " : " ADD COLUMN ") + DatabaseConverter.META_TABLE_COL_DEF_ORIGIN +
+                (hasQueryTimestampIndex ? "" : MySQL.SQL_SEPARATOR + " ADD " + DatabaseConverter.META_TABLE_INDEX_DEF_QUERY_TIMESTAMP);
+    }
+
     /**
      * Checks for the existence of a meta table in a database specified by a MySQL JDBC connection.
      * @param connection MySQL JDBC Connection in which the existence of meta table should be checked.
@@ -95,11 +171,9 @@ public class DatabaseConverter {
      * @throws SQLException If any error occurs while querying the database.
      */
     private static boolean isMetaTableExisting(Connection connection) throws SQLException {
-        Statement statement = connection.createStatement();
-        ResultSet resultMetaTable = statement.executeQuery(MySQL.SQL_SHOW_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_TABLES + MySQL.SQL_SPACE +
-                MySQL.SQL_LIKE_OPERATOR + MySQL.SQL_SPACE + MySQL.SQL_EXTERNAL_QUOTES + DoerDBMetaTable.TABLE_NAME + MySQL.SQL_EXTERNAL_QUOTES);
-
-        return resultMetaTable.next();
+        return ScopedStatements.executeQuery(connection, MySQL.SQL_SHOW_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_TABLES + MySQL.SQL_SPACE +
+                MySQL.SQL_LIKE_OPERATOR + MySQL.SQL_SPACE + MySQL.SQL_EXTERNAL_QUOTES + DoerDBMetaTable.TABLE_NAME + MySQL.SQL_EXTERNAL_QUOTES,
+                JDBCConstants.FETCH_SIZE_DEFAULT, ResultSet::next);
     }
 
     /**
@@ -109,11 +183,9 @@ public class DatabaseConverter {
      * @throws SQLException If any error occurs while querying the database.
      */
     private static boolean isSyncDataTableExisting(Connection connection) throws SQLException {
-        Statement statement = connection.createStatement();
-        ResultSet resultSyncDataTable = statement.executeQuery(MySQL.SQL_SHOW_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_TABLES + MySQL.SQL_SPACE +
-                MySQL.SQL_LIKE_OPERATOR + MySQL.SQL_SPACE + MySQL.SQL_EXTERNAL_QUOTES + DoerDBSyncDataTable.TABLE_NAME + MySQL.SQL_EXTERNAL_QUOTES);
-
-        return resultSyncDataTable.next();
+        return ScopedStatements.executeQuery(connection, MySQL.SQL_SHOW_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_TABLES + MySQL.SQL_SPACE +
+                MySQL.SQL_LIKE_OPERATOR + MySQL.SQL_SPACE + MySQL.SQL_EXTERNAL_QUOTES + DoerDBSyncDataTable.TABLE_NAME + MySQL.SQL_EXTERNAL_QUOTES,
+                JDBCConstants.FETCH_SIZE_DEFAULT, ResultSet::next);
     }
 
     /**
@@ -123,26 +195,157 @@ public class DatabaseConverter {
      * @throws SQLException If any error occurs while querying the database.
      */
     private static boolean isSyncStatusTableExisting(Connection connection) throws SQLException {
-        Statement statement = connection.createStatement();
-        ResultSet resultSyncStatusTable = statement.executeQuery(MySQL.SQL_SHOW_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_TABLES + MySQL.SQL_SPACE +
-                MySQL.SQL_LIKE_OPERATOR + MySQL.SQL_SPACE + MySQL.SQL_EXTERNAL_QUOTES + DoerDBSyncStatusTable.TABLE_NAME + MySQL.SQL_EXTERNAL_QUOTES);
+        return ScopedStatements.executeQuery(connection, MySQL.SQL_SHOW_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_TABLES + MySQL.SQL_SPACE +
+                MySQL.SQL_LIKE_OPERATOR + MySQL.SQL_SPACE + MySQL.SQL_EXTERNAL_QUOTES + DoerDBSyncStatusTable.TABLE_NAME + MySQL.SQL_EXTERNAL_QUOTES,
+                JDBCConstants.FETCH_SIZE_DEFAULT, ResultSet::next);
+    }
+
+    /**
+     * Builds the expression of the value of a column of a record in a trigger, which keeps the type of the value in JSON.
+     * Binary values are wrapped as base64, and exact numbers are recorded as strings, as JSON numbers are parsed into doubles.
+     * @param recordType String The record of the trigger, i.e. NEW or OLD.
+     * @param columnName String The name of the column.
+     * @param dataType String The data type of the column, as in information_schema.columns.
+     * @return String The expression of the value.
+     */
+    private static String buildRecordValueExpression(String recordType, String columnName, String dataType) {
+        String columnValue = recordType + "." + MySQL.SQL_INTERNAL_QUOTES + columnName + MySQL.SQL_INTERNAL_QUOTES;
+        String normalizedDataType = dataType == null ? "" : dataType.toLowerCase();
+        if (DatabaseConverter.TRIGGER_BINARY_DATA_TYPES.contains(normalizedDataType)) {
+            return MySQL.SQL_IF_CONDITION + MySQL.SQL_BRACKET_ROUND_OPEN +
+                    columnValue + MySQL.SQL_SPACE + MySQL.SQL_IS_OPERATOR + MySQL.SQL_SPACE + MySQL.SQL_VALUE_NULL + MySQL.SQL_SEPARATOR + MySQL.SQL_VALUE_NULL + MySQL.SQL_SEPARATOR +
+                    MySQL.SQL_JSON_OBJECT_FUNCTION + MySQL.SQL_BRACKET_ROUND_OPEN + MySQL.getQuotedStringSQL(BasicQuery.RECORD_BINARY_KEY) + MySQL.SQL_SEPARATOR +
+                    MySQL.SQL_TO_BASE64_FUNCTION + MySQL.SQL_BRACKET_ROUND_OPEN + columnValue + MySQL.SQL_BRACKET_ROUND_CLOSE + MySQL.SQL_BRACKET_ROUND_CLOSE +
+                    MySQL.SQL_BRACKET_ROUND_CLOSE;
+        }
+        else if (DatabaseConverter.TRIGGER_EXACT_DATA_TYPES.contains(normalizedDataType)) {
+            return MySQL.SQL_CAST_FUNCTION + MySQL.SQL_BRACKET_ROUND_OPEN + columnValue + MySQL.SQL_SPACE + MySQL.SQL_AS_OPERATOR + MySQL.SQL_SPACE + "CHAR" + MySQL.SQL_BRACKET_ROUND_CLOSE;
+        }
+
+        return columnValue;
+    }
+
+    /**
+     * Builds the JSON_OBJECT of some columns of a record in a trigger.
+     * @param recordType String The record of the trigger, i.e. NEW or OLD.
+     * @param columnNames Iterable of the names of the columns.
+     * @param columnTypes Map of the column names of the table to their data types.
+     * @return String The expression of the JSON object.
+     */
+    private static String buildRecordObjectExpression(String recordType, Iterable<String> columnNames, Map<String, String> columnTypes) {
+        List<String> memberExpressions = new ArrayList<>();
+        for (String columnName : columnNames) {
+            memberExpressions.add(MySQL.getQuotedStringSQL(columnName) + MySQL.SQL_SEPARATOR +
+                    DatabaseConverter.buildRecordValueExpression(recordType, columnName, columnTypes.get(columnName)));
+        }
+
+        return MySQL.SQL_JSON_OBJECT_FUNCTION + MySQL.SQL_BRACKET_ROUND_OPEN + String.join(MySQL.SQL_SEPARATOR, memberExpressions) + MySQL.SQL_BRACKET_ROUND_CLOSE;
+    }
+
+    /**
+     * Builds the expression of the JSON of a record in a trigger.
+     * A delta record holds the key columns and only the columns whose values are changed by the update, the other columns are merged in as empty objects.
+     * @param recordType String The record of the trigger, i.e. NEW or OLD.
+     * @param columnTypes Map of the column names of the table, in the order of the table, to their data types.
+     * @param keyColumnNames List of the column names of the key of the table.
+     * @param deltaOnly boolean true to build a delta record of an update, false to hold every column.
+     * @return String The expression of the JSON of the record.
+     */
+    static String buildRecordExpression(String recordType, Map<String, String> columnTypes, List<String> keyColumnNames, boolean deltaOnly) {
+        if (!deltaOnly) {
+            return DatabaseConverter.buildRecordObjectExpression(recordType, columnTypes.keySet(), columnTypes);
+        }
+
+        List<String> partExpressions = new ArrayList<>();
+        partExpressions.add(DatabaseConverter.buildRecordObjectExpression(recordType, keyColumnNames, columnTypes));
+        for (String columnName : columnTypes.keySet()) {
+            if (keyColumnNames.contains(columnName)) {
+                continue;
+            }
+
+            String quotedColumnName = MySQL.SQL_INTERNAL_QUOTES + columnName + MySQL.SQL_INTERNAL_QUOTES;
+            partExpressions.add(MySQL.SQL_IF_CONDITION + MySQL.SQL_BRACKET_ROUND_OPEN +
+                    MySQL.SQL_NEW_OPERATOR + "." + quotedColumnName + MySQL.SQL_NULL_SAFE_EQUATOR + MySQL.SQL_OLD_OPERATOR + "." + quotedColumnName + MySQL.SQL_SEPARATOR +
+                    MySQL.SQL_JSON_OBJECT_FUNCTION + MySQL.SQL_BRACKET_ROUND_OPEN + MySQL.SQL_BRACKET_ROUND_CLOSE + MySQL.SQL_SEPARATOR +
+                    DatabaseConverter.buildRecordObjectExpression(recordType, Collections.singletonList(columnName), columnTypes) +
+                    MySQL.SQL_BRACKET_ROUND_CLOSE);
+        }
+
+        if (partExpressions.size() == 1) {
+            return partExpressions.get(0);
+        }
+
+        return MySQL.SQL_JSON_MERGE_FUNCTION + MySQL.SQL_BRACKET_ROUND_OPEN + String.join(MySQL.SQL_SEPARATOR, partExpressions) + MySQL.SQL_BRACKET_ROUND_CLOSE;
+    }
+
+    /**
+     * Builds the statement creating a trigger which records the changes of a table in the Meta Table.
+     * The changes applied by the synchronizer, i.e. those made while the sync origin is set on the connection, are skipped by the triggers of a local database,
+     * and recorded along with their origin by those of a remote database, so that the other DoerDBs sharing the remote database still receive them.
+     * @param triggerName String The name of the trigger.
+     * @param triggerEvent String The event of the trigger, i.e. INSERT or UPDATE.
+     * @param tableName String The name of the table.
+     * @param queryType String The type of the query recorded.
+     * @param newRecord String The expression of the JSON of the new record.
+     * @param oldRecord String The expression of the JSON of the old record, null if the query has no old record.
+     * @param databaseType DatabaseType The type of the database in which the trigger is created.
+     * @return String The statement creating the trigger.
+     */
+    static String buildTriggerQuery(String triggerName, String triggerEvent, String tableName, String queryType, String newRecord, String oldRecord, DatabaseType databaseType) {
+        String columns = MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_COL_TABLE_NAME + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SEPARATOR +
+                MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_COL_QUERY_TYPE + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SEPARATOR +
+                MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_COL_NEW_RECORD + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SEPARATOR;
+        String values = MySQL.SQL_EXTERNAL_QUOTES + tableName + MySQL.SQL_EXTERNAL_QUOTES + MySQL.SQL_SEPARATOR +
+                MySQL.SQL_EXTERNAL_QUOTES + queryType + MySQL.SQL_EXTERNAL_QUOTES + MySQL.SQL_SEPARATOR +
+                newRecord + MySQL.SQL_SEPARATOR;
+        if (oldRecord != null) {
+            columns += MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_COL_OLD_RECORD + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SEPARATOR;
+            values += oldRecord + MySQL.SQL_SEPARATOR;
+        }
+        columns += MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_COL_QUERY_TIMESTAMP + MySQL.SQL_INTERNAL_QUOTES;
+        values += MySQL.SQL_IF_CONDITION + MySQL.SQL_BRACKET_ROUND_OPEN + DoerDBSynchronizer.MYSQL_TAG_QUERY_TIMESTAMP + MySQL.SQL_SPACE + MySQL.SQL_IS_OPERATOR + MySQL.SQL_SPACE + MySQL.SQL_VALUE_NULL + MySQL.SQL_SEPARATOR + "CURRENT_TIMESTAMP" + MySQL.SQL_SEPARATOR + DoerDBSynchronizer.MYSQL_TAG_QUERY_TIMESTAMP + MySQL.SQL_BRACKET_ROUND_CLOSE;
+        if (databaseType == DatabaseType.REMOTE) {
+            columns += MySQL.SQL_SEPARATOR + MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_COL_ORIGIN + MySQL.SQL_INTERNAL_QUOTES;
+            values += MySQL.SQL_SEPARATOR + DoerDBSynchronizer.MYSQL_TAG_SYNC_ORIGIN;
+        }
+
+        String queryInsertRecord = MySQL.SQL_INSERT_PREFIX + MySQL.SQL_SPACE + MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_NAME + MySQL.SQL_INTERNAL_QUOTES +
+                MySQL.SQL_BRACKET_ROUND_OPEN + columns + MySQL.SQL_BRACKET_ROUND_CLOSE + MySQL.SQL_SPACE +
+                MySQL.SQL_INSERT_VALUES + MySQL.SQL_SPACE +
+                MySQL.SQL_BRACKET_ROUND_OPEN + values + MySQL.SQL_BRACKET_ROUND_CLOSE + ";";
+        if (databaseType == DatabaseType.LOCAL) {
+            queryInsertRecord = MySQL.SQL_IF_CONDITION + MySQL.SQL_SPACE + DoerDBSynchronizer.MYSQL_TAG_SYNC_ORIGIN + MySQL.SQL_SPACE + MySQL.SQL_IS_OPERATOR + MySQL.SQL_SPACE + MySQL.SQL_VALUE_NULL + MySQL.SQL_SPACE + MySQL.SQL_THEN_CLAUSE + " " +
+                    queryInsertRecord + " " +
+                    "\t\t" + MySQL.SQL_END_IF_CLAUSE + ";";
+        }
 
-        return resultSyncStatusTable.next();
+        return MySQL.SQL_CREATE_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_TRIGGER + MySQL.SQL_SPACE + triggerName + MySQL.SQL_SPACE +
+                MySQL.SQL_AFTER_CLAUSE + MySQL.SQL_SPACE + triggerEvent + MySQL.SQL_SPACE + MySQL.SQL_ON_OPERATOR + MySQL.SQL_SPACE + MySQL.SQL_INTERNAL_QUOTES + tableName + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SPACE +
+                "\t" + MySQL.SQL_FOR_OPERATOR + " EACH ROW " +
+                "\t" + MySQL.SQL_BEGIN_CLAUSE + " " +
+                "\t\t" + queryInsertRecord + " " +
+                "\t" + MySQL.SQL_END_CLAUSE + ";";
     }
 
     /**
      * Generates triggers for the given database.
      * @param connection Connection MySQL Connection to the database in which the triggers should be generated.
      * @param dbName String The name of the database specified by the connection.
+     * @param databaseType DatabaseType The type of the database, which decides how the triggers treat the changes applied by the synchronizer. Required.
      * @throws SQLException If any error occurs while querying the database.
      */
-    public void generateTriggers(Connection connection, String dbName) throws SQLException {
+    public void generateTriggers(Connection connection, String dbName, DatabaseType databaseType) throws SQLException {
+        if (databaseType == null) {
+            throw new IllegalArgumentException("Database type should be given to generate the triggers.");
+        }
+
         String queryTableSet = MySQL.SQL_SELECT_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_TABLE_NAME + MySQL.SQL_SPACE +
                 MySQL.SQL_FROM_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_INFORMATION_SCHEMA_TABLES + MySQL.SQL_SPACE +
                 MySQL.SQL_WHERE_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_TABLE_SCHEMA + MySQL.SQL_EQUATOR + MySQL.SQL_EXTERNAL_QUOTES + dbName + MySQL.SQL_EXTERNAL_QUOTES;
-        ResultSet resultTableSet = connection.createStatement().executeQuery(queryTableSet);
-        while (resultTableSet.next()) {
-            String tableName = resultTableSet.getString(MySQL.SQL_CONTENT_TABLE_NAME);
+        List<String> tableNames = new ArrayList<>();
+        ScopedStatements.forEachRow(connection, queryTableSet, JDBCConstants.FETCH_SIZE_DEFAULT, rowTable -> tableNames.add(rowTable.getString(MySQL.SQL_CONTENT_TABLE_NAME)));
+
+        for (String tableName : tableNames) {
             if (DatabaseValidator.isUnmonitoredTableName(tableName)) {
                 continue;
             }
@@ -152,73 +355,34 @@ public class DatabaseConverter {
 
             String queryDropTriggerInsert = MySQL.SQL_DROP_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_TRIGGER + MySQL.SQL_SPACE + MySQL.SQL_IF_CONDITION + MySQL.SQL_SPACE + MySQL.SQL_EXISTS_OPERATOR + MySQL.SQL_SPACE + tableTriggerNameInsert;
             String queryDropTriggerUpdate = MySQL.SQL_DROP_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_TRIGGER + MySQL.SQL_SPACE + MySQL.SQL_IF_CONDITION + MySQL.SQL_SPACE + MySQL.SQL_EXISTS_OPERATOR + MySQL.SQL_SPACE + tableTriggerNameUpdate;
-            connection.createStatement().executeUpdate(queryDropTriggerInsert);
-            connection.createStatement().executeUpdate(queryDropTriggerUpdate);
+            ScopedStatements.executeUpdate(connection, queryDropTriggerInsert);
+            ScopedStatements.executeUpdate(connection, queryDropTriggerUpdate);
 
-            String queryTableColumns = MySQL.SQL_SELECT_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_COLUMN_NAME + MySQL.SQL_SPACE +
+            String queryTableColumns = MySQL.SQL_SELECT_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_COLUMN_NAME + MySQL.SQL_SEPARATOR + MySQL.SQL_CONTENT_DATA_TYPE + MySQL.SQL_SPACE +
                     MySQL.SQL_FROM_CLAUSE + MySQL.SQL_INTERNAL_QUOTES + "INFORMATION_SCHEMA" + MySQL.SQL_INTERNAL_QUOTES + "." + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_CONTENT_COLUMNS + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SPACE +
                     MySQL.SQL_WHERE_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_INTERNAL_QUOTES + "TABLE_SCHEMA" + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_EQUATOR + MySQL.SQL_EXTERNAL_QUOTES + dbName + MySQL.SQL_EXTERNAL_QUOTES + MySQL.SQL_SPACE +
-                    MySQL.SQL_AND_OPERATOR + MySQL.SQL_SPACE + MySQL.SQL_INTERNAL_QUOTES + "TABLE_NAME" + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_EQUATOR + MySQL.SQL_EXTERNAL_QUOTES + tableName + MySQL.SQL_EXTERNAL_QUOTES;
-            ResultSet resultTableColumns = connection.createStatement().executeQuery(queryTableColumns);
-            String serialColumnsWithValues = "CONCAT('{";
-            while (resultTableColumns.next()) {
-                String columnName = resultTableColumns.getString(MySQL.SQL_CONTENT_COLUMN_NAME);
-                String columnValue = DatabaseConverter.TRIGGER_JSON_PLACEHOLDER + "." + columnName;
-                serialColumnsWithValues += "\"" + columnName + "\": \"', " + columnValue + ", '\", ";
-            }
-            serialColumnsWithValues = serialColumnsWithValues.substring(0, serialColumnsWithValues.length() - 4) + "'\"}')";
-
-            String queryCreateTriggerInsert = String.format(
-                            MySQL.SQL_CREATE_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_TRIGGER + MySQL.SQL_SPACE + tableTriggerNameInsert + MySQL.SQL_SPACE +
-                            MySQL.SQL_AFTER_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_INSERT_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_ON_OPERATOR + MySQL.SQL_SPACE + MySQL.SQL_INTERNAL_QUOTES + tableName + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SPACE +
-                            "\t" + MySQL.SQL_FOR_OPERATOR + " EACH ROW " +
-                            "\t" + MySQL.SQL_BEGIN_CLAUSE + " " +
-                            "\t\t" + MySQL.SQL_INSERT_PREFIX + MySQL.SQL_SPACE + MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_NAME + MySQL.SQL_INTERNAL_QUOTES +
-                            MySQL.SQL_BRACKET_ROUND_OPEN +
-                            MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_COL_TABLE_NAME + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SEPARATOR +
-                            MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_COL_QUERY_TYPE + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SEPARATOR +
-                            MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_COL_NEW_RECORD + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SEPARATOR +
-                            MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_COL_QUERY_TIMESTAMP + MySQL.SQL_INTERNAL_QUOTES +
-                            MySQL.SQL_BRACKET_ROUND_CLOSE + MySQL.SQL_SPACE +
-                            MySQL.SQL_INSERT_VALUES + MySQL.SQL_SPACE +
-                            MySQL.SQL_BRACKET_ROUND_OPEN +
-                            MySQL.SQL_EXTERNAL_QUOTES + tableName + MySQL.SQL_EXTERNAL_QUOTES + MySQL.SQL_SEPARATOR +
-                            MySQL.SQL_EXTERNAL_QUOTES + InsertQuery.QUERY_TYPE + MySQL.SQL_EXTERNAL_QUOTES + MySQL.SQL_SEPARATOR +
-                            "%s" + MySQL.SQL_SEPARATOR +
-                            MySQL.SQL_IF_CONDITION + MySQL.SQL_BRACKET_ROUND_OPEN + DoerDBSynchronizer.MYSQL_TAG_QUERY_TIMESTAMP + MySQL.SQL_SPACE + MySQL.SQL_IS_OPERATOR + MySQL.SQL_SPACE + MySQL.SQL_VALUE_NULL + MySQL.SQL_SEPARATOR + "CURRENT_TIMESTAMP" + MySQL.SQL_SEPARATOR + DoerDBSynchronizer.MYSQL_TAG_QUERY_TIMESTAMP + MySQL.SQL_BRACKET_ROUND_CLOSE +
-                            MySQL.SQL_BRACKET_ROUND_CLOSE + ";" +
-                            "\t" + MySQL.SQL_END_CLAUSE + ";",
-                    serialColumnsWithValues.replace(DatabaseConverter.TRIGGER_JSON_PLACEHOLDER, MySQL.SQL_NEW_OPERATOR));
-
-            String queryCreateTriggerUpdate = String.format(
-                            MySQL.SQL_CREATE_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_TRIGGER + MySQL.SQL_SPACE + tableTriggerNameUpdate + MySQL.SQL_SPACE +
-                            MySQL.SQL_AFTER_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_UPDATE_PREFIX + MySQL.SQL_SPACE + MySQL.SQL_ON_OPERATOR + MySQL.SQL_SPACE + MySQL.SQL_INTERNAL_QUOTES + tableName + MySQL.SQL_INTERNAL_QUOTES + " " +
-                            "\t" + MySQL.SQL_FOR_OPERATOR + " EACH ROW " +
-                            "\t" + MySQL.SQL_BEGIN_CLAUSE + " " +
-                            "\t\t" + MySQL.SQL_INSERT_PREFIX + MySQL.SQL_SPACE + MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_NAME + MySQL.SQL_INTERNAL_QUOTES +
-                            MySQL.SQL_BRACKET_ROUND_OPEN +
-                            MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_COL_TABLE_NAME + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SEPARATOR +
-                            MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_COL_QUERY_TYPE + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SEPARATOR +
-                            MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_COL_NEW_RECORD + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SEPARATOR +
-                            MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_COL_OLD_RECORD + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SEPARATOR +
-                            MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_COL_QUERY_TIMESTAMP + MySQL.SQL_INTERNAL_QUOTES +
-                            MySQL.SQL_BRACKET_ROUND_CLOSE + MySQL.SQL_SPACE +
-                            MySQL.SQL_INSERT_VALUES + MySQL.SQL_SPACE +
-                            MySQL.SQL_BRACKET_ROUND_OPEN +
-                            MySQL.SQL_EXTERNAL_QUOTES + tableName + MySQL.SQL_EXTERNAL_QUOTES + MySQL.SQL_SEPARATOR +
-                            MySQL.SQL_EXTERNAL_QUOTES + UpdateQuery.QUERY_TYPE + MySQL.SQL_EXTERNAL_QUOTES + MySQL.SQL_SEPARATOR +
-                            "%s" + MySQL.SQL_SEPARATOR +
-                            "%s" + MySQL.SQL_SEPARATOR +
-                            MySQL.SQL_IF_CONDITION + MySQL.SQL_BRACKET_ROUND_OPEN + DoerDBSynchronizer.MYSQL_TAG_QUERY_TIMESTAMP + MySQL.SQL_SPACE + MySQL.SQL_IS_OPERATOR + MySQL.SQL_SPACE + MySQL.SQL_VALUE_NULL + MySQL.SQL_SEPARATOR + "CURRENT_TIMESTAMP" + MySQL.SQL_SEPARATOR + DoerDBSynchronizer.MYSQL_TAG_QUERY_TIMESTAMP + MySQL.SQL_BRACKET_ROUND_CLOSE +
-                            MySQL.SQL_BRACKET_ROUND_CLOSE + "; " +
-                            "\t" + MySQL.SQL_END_CLAUSE + ";",
-                    serialColumnsWithValues.replace(DatabaseConverter.TRIGGER_JSON_PLACEHOLDER, MySQL.SQL_NEW_OPERATOR),
-                    serialColumnsWithValues.replace(DatabaseConverter.TRIGGER_JSON_PLACEHOLDER, MySQL.SQL_OLD_OPERATOR));
-
-            connection.createStatement().executeUpdate(queryCreateTriggerInsert);
-            connection.createStatement().executeUpdate(queryCreateTriggerUpdate);
+                    MySQL.SQL_AND_OPERATOR + MySQL.SQL_SPACE + MySQL.SQL_INTERNAL_QUOTES + "TABLE_NAME" + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_EQUATOR + MySQL.SQL_EXTERNAL_QUOTES + tableName + MySQL.SQL_EXTERNAL_QUOTES + MySQL.SQL_SPACE +
+                    MySQL.SQL_ORDER_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_BY_OPERATOR + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_ORDINAL_POSITION;
+            Map<String, String> columnTypes = new LinkedHashMap<>();
+            ScopedStatements.forEachRow(connection, queryTableColumns, JDBCConstants.FETCH_SIZE_DEFAULT,
+                    rowColumn -> columnTypes.put(rowColumn.getString(MySQL.SQL_CONTENT_COLUMN_NAME), rowColumn.getString(MySQL.SQL_CONTENT_DATA_TYPE)));
+
+            String queryKeyColumns = MySQLQueryTemplates.QUERY_UNIQUE_KEY_COLUMNS
+                    .replace(MySQLQueryTemplates.PLACEHOLDER_DATABASE_NAME, dbName)
+                    .replace(MySQLQueryTemplates.PLACEHOLDER_TABLE_NAME, tableName);
+            List<String> keyColumnNames = ScopedStatements.executeQuery(connection, queryKeyColumns, JDBCConstants.FETCH_SIZE_DEFAULT, TableMapper::getKeyColumnNames);
+
+            /* Updates of a table with a key record only the key and the changed columns, as the key is enough to identify the updated row. */
+            boolean updateDeltaOnly = !keyColumnNames.isEmpty();
+            String newRecord = DatabaseConverter.buildRecordExpression(MySQL.SQL_NEW_OPERATOR, columnTypes, keyColumnNames, false);
+            String newRecordDelta = DatabaseConverter.buildRecordExpression(MySQL.SQL_NEW_OPERATOR, columnTypes, keyColumnNames, updateDeltaOnly);
+            String oldRecordDelta = DatabaseConverter.buildRecordExpression(MySQL.SQL_OLD_OPERATOR, columnTypes, keyColumnNames, updateDeltaOnly);
+            String queryCreateTriggerInsert = DatabaseConverter.buildTriggerQuery(tableTriggerNameInsert, MySQL.SQL_INSERT_CLAUSE, tableName, InsertQuery.QUERY_TYPE, newRecord, null, databaseType);
+            String queryCreateTriggerUpdate = DatabaseConverter.buildTriggerQuery(tableTriggerNameUpdate, MySQL.SQL_UPDATE_PREFIX, tableName, UpdateQuery.QUERY_TYPE, newRecordDelta, oldRecordDelta, databaseType);
+
+            ScopedStatements.executeUpdate(connection, queryCreateTriggerInsert);
+            ScopedStatements.executeUpdate(connection, queryCreateTriggerUpdate);
         }
-        resultTableSet.close();
     }
 
     /**
@@ -265,20 +429,163 @@ public class DatabaseConverter {
             }
 
             if (shouldRunLocal) {
-                this.localConnection.createStatement().executeUpdate(DatabaseConverter.QUERY_META_TABLE_CREATE);
-                this.localConnection.createStatement().executeUpdate(DatabaseConverter.QUERY_SYNC_DATA_TABLE_CREATE);
-                this.generateTriggers(this.localConnection, this.localDBCredentials.dbName);
+                ScopedStatements.executeUpdate(this.localConnection, this.getMetaTableCreateQuery());
+                DatabaseConverter.extendMetaTablePartitions(this.localConnection, DatabaseConverter.getMetaTablePartitionBounds(this.localConnection, this.localDBCredentials.dbName));
+                ScopedStatements.executeUpdate(this.localConnection, DatabaseConverter.QUERY_SYNC_DATA_TABLE_CREATE);
+                this.generateTriggers(this.localConnection, this.localDBCredentials.dbName, DatabaseType.LOCAL);
             }
 
             if (shouldRunRemote) {
-                this.remoteConnection.createStatement().executeUpdate(DatabaseConverter.QUERY_META_TABLE_CREATE);
-                this.remoteConnection.createStatement().executeUpdate(DatabaseConverter.QUERY_SYNC_STATUS_TABLE_CREATE);
-                this.remoteConnection.createStatement().executeUpdate(DatabaseConverter.QUERY_SYNC_STATUS_TABLE_INSERT_STATUS);
-                this.generateTriggers(this.remoteConnection, this.remoteDBCredentials.dbName);
+                ScopedStatements.executeUpdate(this.remoteConnection, this.getMetaTableCreateQuery());
+                DatabaseConverter.extendMetaTablePartitions(this.remoteConnection, DatabaseConverter.getMetaTablePartitionBounds(this.remoteConnection, this.remoteDBCredentials.dbName));
+                ScopedStatements.executeUpdate(this.remoteConnection, DatabaseConverter.QUERY_SYNC_STATUS_TABLE_CREATE);
+                ScopedStatements.executeUpdate(this.remoteConnection, DatabaseConverter.QUERY_SYNC_STATUS_TABLE_INSERT_STATUS);
+                this.generateTriggers(this.remoteConnection, this.remoteDBCredentials.dbName, DatabaseType.REMOTE);
             }
         }
     }
 
+    /**
+     * Used to obtain the statement creating the Meta Table, partitioned if a partition size is set.
+     * @return String The statement creating the Meta Table.
+     */
+    private String getMetaTableCreateQuery() {
+        if (this.metaTablePartitionSize == 0) {
+            return DatabaseConverter.QUERY_META_TABLE_CREATE;
+        }
+
+        return DatabaseConverter.QUERY_META_TABLE_CREATE + MySQL.SQL_SPACE + DatabaseConverter.buildMetaTablePartitionClause(this.metaTablePartitionSize, 0);
+    }
+
+    /**
+     * Checks whether the Meta Table of a database has an index.
+     * @param connection MySQL JDBC Connection to the database.
+     * @param dbName String The name of the database.
+     * @param indexName String The name of the index.
+     * @return boolean true if the index exists, false otherwise.
+     * @throws SQLException If any error occurs while querying the database.
+     */
+    private static boolean isMetaTableIndexExisting(Connection connection, String dbName, String indexName) throws SQLException {
+        return ScopedStatements.executeQuery(connection, MySQL.SQL_SELECT_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_INDEX_NAME + MySQL.SQL_SPACE +
+                MySQL.SQL_FROM_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_INFORMATION_SCHEMA_STATISTICS + MySQL.SQL_SPACE +
+                MySQL.SQL_WHERE_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_TABLE_SCHEMA + MySQL.SQL_EQUATOR + MySQL.getQuotedStringSQL(dbName) + MySQL.SQL_SPACE +
+                MySQL.SQL_AND_OPERATOR + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_TABLE_NAME + MySQL.SQL_EQUATOR + MySQL.getQuotedStringSQL(DoerDBMetaTable.TABLE_NAME) + MySQL.SQL_SPACE +
+                MySQL.SQL_AND_OPERATOR + MySQL.SQL_SPACE + MySQL.SQL_CONTENT_INDEX_NAME + MySQL.SQL_EQUATOR + MySQL.getQuotedStringSQL(indexName),
+                JDBCConstants.FETCH_SIZE_DEFAULT, ResultSet::next);
+    }
+
+    /**
+     * Used to obtain the last ID of the Meta Table of a database.
+     * @param connection MySQL JDBC Connection to the database.
+     * @return long The last ID, 0 if the Meta Table is empty.
+     * @throws SQLException If any error occurs while querying the database.
+     */
+    private static long getMetaTableLastID(Connection connection) throws SQLException {
+        String queryLastID = MySQL.SQL_SELECT_CLAUSE + MySQL.SQL_SPACE +
+                MySQL.SQL_MAX_FUNCTION + MySQL.SQL_BRACKET_ROUND_OPEN + MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_COL_ID + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_BRACKET_ROUND_CLOSE + MySQL.SQL_SPACE +
+                MySQL.SQL_FROM_CLAUSE + MySQL.SQL_SPACE + MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_NAME + MySQL.SQL_INTERNAL_QUOTES;
+
+        return ScopedStatements.executeQuery(connection, queryLastID, JDBCConstants.FETCH_SIZE_DEFAULT, resultLastID -> resultLastID.next() ? resultLastID.getLong(1) : 0);
+    }
+
+    /**
+     * Splits new partitions off the partition holding the rest of the IDs of a partitioned Meta Table, so that TABLE_PARTITIONS_AHEAD empty partitions follow the one holding the last ID.
+     * Otherwise the partitions are only extended by DoerDBChangeLogPurger, and the changes recorded in between pile up in the partition holding the rest of the IDs.
+     * @param connection MySQL JDBC Connection to the database.
+     * @param partitionBounds Map of the partition names to their bounds, empty if the Meta Table is not partitioned.
+     * @throws SQLException If any error occurs while querying or altering the database.
+     */
+    private static void extendMetaTablePartitions(Connection connection, Map<String, Long> partitionBounds) throws SQLException {
+        if (partitionBounds.isEmpty()) {
+            return;
+        }
+
+        String queryExtendPartitions = DoerDBMetaTable.buildExtendPartitionsQuery(partitionBounds, DatabaseConverter.getMetaTableLastID(connection));
+        if (queryExtendPartitions != null) {
+            ScopedStatements.executeUpdate(connection, queryExtendPartitions);
+        }
+    }
+
+    /**
+     * Used to obtain the upper bounds of the partitions of the Meta Table of a database.
+     * @param connection MySQL JDBC Connection to the database.
+     * @param dbName String The name of the database.
+     * @return Map of the partition names to their bounds, in the order of the partitions. Empty if the Meta Table is not partitioned.
+     * @throws SQLException If any error occurs while querying the database.
+     */
+    private static Map<String, Long> getMetaTablePartitionBounds(Connection connection, String dbName) throws SQLException {
+        return ScopedStatements.executeQuery(connection, DoerDBMetaTable.buildPartitionBoundsQuery(dbName), JDBCConstants.FETCH_SIZE_DEFAULT, DoerDBMetaTable::readPartitionBounds);
+    }
+
+    /**
+     * Migrates the Meta Table of a database to the current layout, and partitions it if a partition size is set and it is not partitioned yet.
+     * The partitions of an already partitioned Meta Table are extended past its last ID instead.
+     * @param connection MySQL JDBC Connection to the database.
+     * @param dbName String The name of the database.
+     * @throws SQLException If any error occurs while querying or altering the database.
+     */
+    private void migrateMetaTable(Connection connection, String dbName) throws SQLException {
+        String queryAllColumns = MySQLQueryTemplates.QUERY_ALL_COLUMNS.replace(MySQLQueryTemplates.PLACEHOLDER_TABLE_NAME, DoerDBMetaTable.TABLE_NAME);
+        boolean hasOriginColumn = ScopedStatements.executeQuery(connection, queryAllColumns, JDBCConstants.FETCH_SIZE_DEFAULT, resultColumns -> {
+            while (resultColumns.next()) {
+                if (DoerDBMetaTable.TABLE_COL_ORIGIN.equals(resultColumns.getString(MySQL.SQL_CONTENT_FIELD))) {
+                    return true;
+                }
+            }
+            return false;
+        });
+        boolean hasQueryTimestampIndex = DatabaseConverter.isMetaTableIndexExisting(connection, dbName, DoerDBMetaTable.TABLE_INDEX_QUERY_TIMESTAMP);
+        ScopedStatements.executeUpdate(connection, DatabaseConverter.buildMetaTableMigrateQuery(hasOriginColumn, hasQueryTimestampIndex));
+
+        Map<String, Long> partitionBounds = DatabaseConverter.getMetaTablePartitionBounds(connection, dbName);
+        if (this.metaTablePartitionSize > 0 && partitionBounds.isEmpty()) {
+            ScopedStatements.executeUpdate(connection, MySQL.SQL_ALTER_CLAUSE + MySQL.SQL_SPACE + "TABLE" + MySQL.SQL_SPACE + MySQL.SQL_INTERNAL_QUOTES + DoerDBMetaTable.TABLE_NAME + MySQL.SQL_INTERNAL_QUOTES + MySQL.SQL_SPACE +
+                    DatabaseConverter.buildMetaTablePartitionClause(this.metaTablePartitionSize, DatabaseConverter.getMetaTableLastID(connection)));
+        }
+        else {
+            DatabaseConverter.extendMetaTablePartitions(connection, partitionBounds);
+        }
+    }
+
+    /**
+     * Migrates the given pair of existing DoerDBs to the current layout of the meta tables, and regenerates their triggers.
+     * The meta tables are converted to InnoDB and utf8mb4 with BIGINT IDs, the origin column and the index on the query timestamp are added to the Meta Tables if missing,
+     * and the Meta Tables are partitioned if a partition size is set.
+     * <b>Note: The tables are rebuilt and the triggers are recreated, hence the databases should not be written to while they are migrated.</b>
+     * @throws SQLException If any error occurs while querying or altering the database.
+     * @throws InvalidException If no database connection is provided.
+     * @throws NotFoundException If the meta tables are not found in any of the databases.
+     */
+    public void migrateDoerDB() throws SQLException, InvalidException, NotFoundException {
+        if (this.localConnection == null && this.remoteConnection == null) {
+            throw new InvalidException(ExceptionCodes.INVALID_OPERATION, "There should be a database connection to migrate. Please provide the credentials.");
+        }
+
+        if (this.localConnection != null) {
+            if (!DatabaseConverter.isMetaTableExisting(this.localConnection) || !DatabaseConverter.isSyncDataTableExisting(this.localConnection)) {
+                throw new NotFoundException(ExceptionCodes.NOT_FOUND, "The Local Database is not a DoerDB. Meta Table Name: " + DoerDBMetaTable.TABLE_NAME + ", Sync Data Table Name: " + DoerDBSyncDataTable.TABLE_NAME);
+            }
+        }
+
+        if (this.remoteConnection != null) {
+            if (!DatabaseConverter.isMetaTableExisting(this.remoteConnection) || !DatabaseConverter.isSyncStatusTableExisting(this.remoteConnection)) {
+                throw new NotFoundException(ExceptionCodes.NOT_FOUND, "The Remote Database is not a DoerDB. Meta Table Name: " + DoerDBMetaTable.TABLE_NAME + ", Sync Status Table Name: " + DoerDBSyncStatusTable.TABLE_NAME);
+            }
+        }
+
+        if (this.localConnection != null) {
+            this.migrateMetaTable(this.localConnection, this.localDBCredentials.dbName);
+            ScopedStatements.executeUpdate(this.localConnection, DatabaseConverter.QUERY_SYNC_DATA_TABLE_MIGRATE);
+            this.generateTriggers(this.localConnection, this.localDBCredentials.dbName, DatabaseType.LOCAL);
+        }
+
+        if (this.remoteConnection != null) {
+            this.migrateMetaTable(this.remoteConnection, this.remoteDBCredentials.dbName);
+            ScopedStatements.executeUpdate(this.remoteConnection, DatabaseConverter.QUERY_SYNC_STATUS_TABLE_MIGRATE);
+            this.generateTriggers(this.remoteConnection, this.remoteDBCredentials.dbName, DatabaseType.REMOTE);
+        }
+    }
+
     /**
      * Returns a DoerDB instance for the pair of databases provided initially.
      * @return DoerDB identified by the pair of databases.
@@ -12,6 +12,8 @@ import com.doerit.doerdb.exceptions.NotFoundException;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
 
 public class DatabaseValidator {
 
@@ -29,64 +31,129 @@ public class DatabaseValidator {
         return TRIGGER_PREFIX + "_" + triggerType + "_" + tableName;
     }
 
-    private static boolean triggerExists(Connection connection, String databaseName, String triggerName) throws SQLException {
-        String queryTriggerInsertExists = MySQLQueryTemplates.QUERY_TRIGGER_EXISTS
-                .replace(MySQLQueryTemplates.PLACEHOLDER_DATABASE_NAME, databaseName)
-                .replace(MySQLQueryTemplates.PLACEHOLDER_TRIGGER_NAME, triggerName);
-        ResultSet resultsTriggerExists = connection.createStatement().executeQuery(queryTriggerInsertExists);
-        return resultsTriggerExists.next();
+    /**
+     * Reads the values of a column of every row returned by a query into a set.
+     * @param connection Connection The connection to the database.
+     * @param query String The query to be executed.
+     * @param columnName String The name of the column to be read.
+     * @return Set of the values of the column.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     */
+    private static Set<String> readNames(Connection connection, String query, String columnName) throws SQLException {
+        Set<String> names = new HashSet<>();
+        try (Statement statement = connection.createStatement(); ResultSet results = statement.executeQuery(query)) {
+            while (results.next()) {
+                names.add(results.getString(columnName));
+            }
+        }
+
+        return names;
     }
 
-    public static boolean isDatabaseValid(Connection connection, String databaseName, DatabaseType databaseType) throws SQLException, NotFoundException {
-        String queryMetaTable = MySQLQueryTemplates.QUERY_TABLE_EXISTS
-                .replace(MySQLQueryTemplates.PLACEHOLDER_DATABASE_NAME, databaseName)
-                .replace(MySQLQueryTemplates.PLACEHOLDER_TABLE_NAME, DoerDBMetaTable.TABLE_NAME);
-        ResultSet resultsMetaTable = connection.createStatement().executeQuery(queryMetaTable);
-        if (!resultsMetaTable.next()) {
+    /**
+     * Used to obtain the names of the triggers expected on the given tables which are missing, checked against the set of existing triggers.
+     * @param tableNames Collection of the names of the tables of the database.
+     * @param triggerNames Set of the names of the triggers existing in the database.
+     * @return List of the names of the missing triggers, in the order of the tables. Empty if none is missing.
+     */
+    public static List<String> getMissingTriggerNames(Collection<String> tableNames, Set<String> triggerNames) {
+        List<String> missingTriggerNames = new ArrayList<>();
+        for (String tableName : tableNames) {
+            if (DatabaseValidator.isUnmonitoredTableName(tableName)) {
+                continue;
+            }
+
+            for (String triggerType : new String[] { DatabaseValidator.TRIGGER_INSERT, DatabaseValidator.TRIGGER_UPDATE }) {
+                String triggerName = DatabaseValidator.getTriggerName(tableName, triggerType);
+                if (!triggerNames.contains(triggerName)) {
+                    missingTriggerNames.add(triggerName);
+                }
+            }
+        }
+
+        return missingTriggerNames;
+    }
+
+    /**
+     * Validates that the DoerDB tables required for the type of a database exist, with a single query.
+     * @param connection Connection The connection to the database.
+     * @param databaseName String The name of the database.
+     * @param databaseType DatabaseType The type of the database.
+     * @return Set of the names of every table of the database.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     * @throws NotFoundException If a DoerDB table required for the type of the database is missing.
+     */
+    public static Set<String> validateDoerDBTables(Connection connection, String databaseName, DatabaseType databaseType) throws SQLException, NotFoundException {
+        String queryAllTables = MySQLQueryTemplates.QUERY_ALL_TABLES
+                .replace(MySQLQueryTemplates.PLACEHOLDER_DATABASE_NAME, databaseName);
+        Set<String> tableNames = DatabaseValidator.readNames(connection, queryAllTables, MySQL.SQL_CONTENT_TABLE_NAME);
+
+        if (!tableNames.contains(DoerDBMetaTable.TABLE_NAME)) {
             throw new NotFoundException(ExceptionCodes.NOT_FOUND, "Meta table in the database: " + databaseName + " is not found.");
         }
 
         if (databaseType == DatabaseType.LOCAL) {
-            String querySyncDataTable = MySQLQueryTemplates.QUERY_TABLE_EXISTS
-                    .replace(MySQLQueryTemplates.PLACEHOLDER_DATABASE_NAME, databaseName)
-                    .replace(MySQLQueryTemplates.PLACEHOLDER_TABLE_NAME, DoerDBSyncDataTable.TABLE_NAME);
-            ResultSet resultsSyncDataTable = connection.createStatement().executeQuery(querySyncDataTable);
-            if (!resultsSyncDataTable.next()) {
+            if (!tableNames.contains(DoerDBSyncDataTable.TABLE_NAME)) {
                 throw new NotFoundException(ExceptionCodes.NOT_FOUND, "Sync data table in the database: " + databaseName + " is not found.");
             }
         }
         else if (databaseType == DatabaseType.REMOTE) {
-            String querySyncStatusTable = MySQLQueryTemplates.QUERY_TABLE_EXISTS
-                    .replace(MySQLQueryTemplates.PLACEHOLDER_DATABASE_NAME, databaseName)
-                    .replace(MySQLQueryTemplates.PLACEHOLDER_TABLE_NAME, DoerDBSyncStatusTable.TABLE_NAME);
-            ResultSet resultsSyncStatusTable = connection.createStatement().executeQuery(querySyncStatusTable);
-            if (!resultsSyncStatusTable.next()) {
+            if (!tableNames.contains(DoerDBSyncStatusTable.TABLE_NAME)) {
                 throw new NotFoundException(ExceptionCodes.NOT_FOUND, "Sync status table in the database: " + databaseName + " is not found.");
             }
         }
 
+        return tableNames;
+    }
+
+    /**
+     * Validates that every monitored table of a database has its triggers, reading the tables and the triggers with a query each.
+     * @param connection Connection The connection to the database.
+     * @param databaseName String The name of the database.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     * @throws NotFoundException If any trigger is missing, in which case every missing trigger is reported.
+     */
+    public static void validateTriggers(Connection connection, String databaseName) throws SQLException, NotFoundException {
         String queryAllTables = MySQLQueryTemplates.QUERY_ALL_TABLES
                 .replace(MySQLQueryTemplates.PLACEHOLDER_DATABASE_NAME, databaseName);
-        ResultSet resultsAllTables = connection.createStatement().executeQuery(queryAllTables);
-        while (resultsAllTables.next()) {
-            String tableName = resultsAllTables.getString(MySQL.SQL_CONTENT_TABLE_NAME);
-
-            if (!DatabaseValidator.isUnmonitoredTableName(tableName)) {
-                String triggerNameInsert = DatabaseValidator.getTriggerName(tableName, DatabaseValidator.TRIGGER_INSERT);
-                boolean existsTriggerInsert = DatabaseValidator.triggerExists(connection, databaseName, triggerNameInsert);
+        DatabaseValidator.validateTriggers(connection, databaseName, DatabaseValidator.readNames(connection, queryAllTables, MySQL.SQL_CONTENT_TABLE_NAME));
+    }
 
-                String triggerNameUpdate = DatabaseValidator.getTriggerName(tableName, DatabaseValidator.TRIGGER_UPDATE);
-                boolean existsTriggerUpdate = DatabaseValidator.triggerExists(connection, databaseName, triggerNameUpdate);
+    /**
+     * Validates that every monitored table of a database has its triggers, reading the triggers once and checking every table in memory.
+     * @param connection Connection The connection to the database.
+     * @param databaseName String The name of the database.
+     * @param tableNames Collection of the names of the tables of the database.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     * @throws NotFoundException If any trigger is missing, in which case every missing trigger is reported.
+     */
+    private static void validateTriggers(Connection connection, String databaseName, Collection<String> tableNames) throws SQLException, NotFoundException {
+        String queryAllTriggers = MySQLQueryTemplates.QUERY_ALL_TRIGGERS
+                .replace(MySQLQueryTemplates.PLACEHOLDER_DATABASE_NAME, databaseName);
+        Set<String> triggerNames = DatabaseValidator.readNames(connection, queryAllTriggers, MySQL.SQL_CONTENT_TRIGGER_NAME);
 
-                if (!existsTriggerInsert) {
-                    throw new NotFoundException(ExceptionCodes.NOT_FOUND, "Trigger: " + triggerNameInsert + " not found. (Database: " + databaseName + ")");
-                }
-                else if (!existsTriggerUpdate) {
-                    throw new NotFoundException(ExceptionCodes.NOT_FOUND, "Trigger: " + triggerNameUpdate + " not found. (Database: " + databaseName + ")");
-                }
-            }
+        List<String> missingTriggerNames = DatabaseValidator.getMissingTriggerNames(new TreeSet<>(tableNames), triggerNames);
+        if (missingTriggerNames.size() == 1) {
+            throw new NotFoundException(ExceptionCodes.NOT_FOUND, "Trigger: " + missingTriggerNames.get(0) + " not found. (Database: " + databaseName + ")");
         }
+        else if (!missingTriggerNames.isEmpty()) {
+            throw new NotFoundException(ExceptionCodes.NOT_FOUND, missingTriggerNames.size() + " Triggers: " + String.join(", ", missingTriggerNames) + " not found. (Database: " + databaseName + ")");
+        }
+    }
 
+    /**
+     * Validates a database for DoerDB with a fixed number of queries regardless of the number of tables.
+     * The tables and the triggers of the database are read once and every table is checked in memory.
+     * @param connection Connection The connection to the database.
+     * @param databaseName String The name of the database.
+     * @param databaseType DatabaseType The type of the database.
+     * @return boolean true if the database is valid.
+     * @throws SQLException If any exception is thrown during the execution of MySQL query.
+     * @throws NotFoundException If a DoerDB table is missing, or any trigger is missing, in which case every missing trigger is reported.
+     */
+    public static boolean isDatabaseValid(Connection connection, String databaseName, DatabaseType databaseType) throws SQLException, NotFoundException {
+        Set<String> tableNames = DatabaseValidator.validateDoerDBTables(connection, databaseName, databaseType);
+        DatabaseValidator.validateTriggers(connection, databaseName, tableNames);
         return true;
     }
 }
@@ -23,4 +23,20 @@ public class DoerDBTest {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    public void createLazilyValidatedDatabaseShouldSucceed() throws SQLException, InitializationFailureException {
+        DBCredentialWrapper credentialsLocal = new DBCredentialWrapper("localhost", 3306, "db_doerdb_local", "root", "");
+        DBCredentialWrapper credentialsRemote = new DBCredentialWrapper("localhost", 3306, "db_doerdb_remote", "root", "");
+
+        try {
+            DoerDB doerDB = new DoerDB(credentialsLocal, credentialsRemote, true);
+            doerDB.validateTriggers();
+        }
+
+        catch (NotFoundException e) {
+            System.out.println(e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+}
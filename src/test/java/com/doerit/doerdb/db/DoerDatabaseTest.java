@@ -0,0 +1,391 @@
+package com.doerit.doerdb.db;
+
+import com.doerit.doerdb.db.jdbc.JDBCConstants;
+import com.doerit.doerdb.db.metadata.DoerDBMetaTable;
+import com.doerit.doerdb.db.metadata.DoerDBSyncDataTable;
+import com.doerit.doerdb.db.queries.InsertQuery;
+import com.doerit.doerdb.db.queries.executors.PreparedStatementCache;
+import com.doerit.doerdb.db.queries.executors.QueryExecutor;
+import com.doerit.doerdb.db.types.DatabaseType;
+import com.doerit.doerdb.exceptions.InitializationFailureException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.*;
+import java.util.Date;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.*;
+
+public class DoerDatabaseTest {
+
+    private static final int SOAK_CYCLES = 2000;
+    private static final int ROWS_PER_QUERY = 3;
+    private static final String DATABASE_NAME = "db_doerdb_fake";
+
+    /* Statements and ResultSets created by the fake connections and not closed yet. */
+    private final Set<Object> openResources = Collections.newSetFromMap(new IdentityHashMap<>());
+    /* Prepared statements created by the fake connections and not closed yet, which the QueryExecutor keeps in its cache. */
+    private final Set<Object> openPreparedStatements = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final List<String> sessionTagsSet = new ArrayList<>();
+    /* Changes recorded by the fake triggers, i.e. those executed on a connection without a sync origin set. */
+    private final List<String> loggedChanges = new ArrayList<>();
+    private Driver fakeDriver;
+
+    /**
+     * Driver answering the URL of the fake database with fake connections. Registered after the MySQL driver, which fails to connect to the closed port first.
+     */
+    private class FakeDriver implements Driver {
+
+        @Override
+        public Connection connect(String url, Properties info) {
+            return this.acceptsURL(url) ? DoerDatabaseTest.this.fakeConnection() : null;
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url.contains("/" + DATABASE_NAME + "?");
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+
+    @Before
+    public void registerFakeDriver() throws SQLException {
+        this.fakeDriver = new FakeDriver();
+        DriverManager.registerDriver(this.fakeDriver);
+    }
+
+    @After
+    public void deregisterFakeDriver() throws SQLException {
+        DriverManager.deregisterDriver(this.fakeDriver);
+    }
+
+    private static Object defaultValue(Class<?> returnType) {
+        if (returnType == boolean.class) {
+            return false;
+        }
+        else if (returnType == int.class) {
+            return 1;
+        }
+        else if (returnType == long.class) {
+            return 1L;
+        }
+        else if (returnType == int[].class) {
+            return new int[0];
+        }
+        return null;
+    }
+
+    /**
+     * Used to obtain the rows the fake database answers a query with: the DoerDB tables, the columns of the Meta Table, or a page of inserts in the Meta Table.
+     */
+    private static List<Map<String, Object>> getRows(String sqlQuery) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        if (sqlQuery.contains(MySQL.SQL_CONTENT_INFORMATION_SCHEMA_TABLES)) {
+            for (String tableName : new String[] { DoerDBMetaTable.TABLE_NAME, DoerDBSyncDataTable.TABLE_NAME }) {
+                rows.add(Collections.singletonMap(MySQL.SQL_CONTENT_TABLE_NAME, tableName));
+            }
+        }
+        else if (sqlQuery.startsWith(MySQL.SQL_SHOW_CLAUSE)) {
+            for (String columnName : DoerDBMetaTable.TABLE_COLS) {
+                rows.add(Collections.singletonMap(MySQL.SQL_CONTENT_FIELD, columnName));
+            }
+            rows.add(Collections.singletonMap(MySQL.SQL_CONTENT_FIELD, DoerDBMetaTable.TABLE_COL_ORIGIN));
+        }
+        else if (!sqlQuery.contains("information_schema")) {
+            for (long id = 1; id <= ROWS_PER_QUERY; id++) {
+                Map<String, Object> row = new HashMap<>();
+                row.put(DoerDBMetaTable.TABLE_COL_ID, id);
+                row.put(DoerDBMetaTable.TABLE_COL_TABLE_NAME, "tbl_sample");
+                row.put(DoerDBMetaTable.TABLE_COL_QUERY_TYPE, InsertQuery.QUERY_TYPE);
+                row.put(DoerDBMetaTable.TABLE_COL_NEW_RECORD, "{\"id\":" + id + "}");
+                row.put(DoerDBMetaTable.TABLE_COL_QUERY_TIMESTAMP, new Timestamp(id * 1000));
+                row.put(DoerDBSyncDataTable.TABLE_COL_LOCAL_LAST_ID, id);
+                rows.add(row);
+            }
+        }
+
+        return rows;
+    }
+
+    private ResultSet fakeResultSet(Statement statement, String sqlQuery, boolean[] closeOnCompletion) {
+        List<Map<String, Object>> rows = DoerDatabaseTest.getRows(sqlQuery);
+        int[] position = {0};
+        ResultSet resultSet = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+            Map<String, Object> row = position[0] >= 1 && position[0] <= rows.size() ? rows.get(position[0] - 1) : Collections.emptyMap();
+            switch (method.getName()) {
+                case "next":
+                    return ++position[0] <= rows.size();
+                case "getObject":
+                    return row.get(args[0]);
+                case "getString":
+                    Object value = row.get(args[0]);
+                    return value != null ? value.toString() : null;
+                case "getLong":
+                    Object longValue = row.get(args[0]);
+                    return longValue != null ? ((Number) longValue).longValue() : 0L;
+                case "close":
+                    this.openResources.remove(proxy);
+                    if (closeOnCompletion[0]) {
+                        statement.close();
+                    }
+                    return null;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    return DoerDatabaseTest.defaultValue(method.getReturnType());
+            }
+        });
+        this.openResources.add(resultSet);
+        return resultSet;
+    }
+
+    /**
+     * Records a change as the triggers of a local database would, unless the connection executing it is tagged with a sync origin.
+     */
+    private void recordChange(String sqlQuery, String[] syncOrigin) {
+        if (!sqlQuery.startsWith(MySQL.SQL_SET_OPERATOR) && syncOrigin[0] == null) {
+            this.loggedChanges.add(sqlQuery);
+        }
+    }
+
+    private Statement fakeStatement(String[] syncOrigin) {
+        boolean[] closeOnCompletion = {false};
+        Statement statement = (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{Statement.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "executeQuery":
+                    if (((String) args[0]).startsWith("BROKEN")) {
+                        throw new SQLException("Syntax error.", "42000");
+                    }
+                    return this.fakeResultSet((Statement) proxy, (String) args[0], closeOnCompletion);
+                case "executeUpdate":
+                    if (args[0].equals(QueryExecutor.MYSQL_QUERY_RESET_SESSION_TAGS)) {
+                        syncOrigin[0] = null;
+                    }
+                    this.recordChange((String) args[0], syncOrigin);
+                    return 1;
+                case "closeOnCompletion":
+                    closeOnCompletion[0] = true;
+                    return null;
+                case "close":
+                    this.openResources.remove(proxy);
+                    return null;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    return DoerDatabaseTest.defaultValue(method.getReturnType());
+            }
+        });
+        this.openResources.add(statement);
+        return statement;
+    }
+
+    /**
+     * Prepared statement which fails once closed, as the statements of a real driver do.
+     */
+    private PreparedStatement fakePreparedStatement(String sqlQuery, String[] syncOrigin) {
+        boolean[] closed = {false};
+        String[] boundSyncOrigin = {null};
+        PreparedStatement preparedStatement = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "close":
+                    closed[0] = true;
+                    this.openPreparedStatements.remove(proxy);
+                    return null;
+                case "isClosed":
+                    return closed[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    if (closed[0]) {
+                        throw new SQLException("No operations allowed after statement closed.");
+                    }
+                    /* The sync origin is the second parameter of the statement setting the session tags. */
+                    if (method.getName().equals("setString") && (int) args[0] == 2) {
+                        boundSyncOrigin[0] = (String) args[1];
+                    }
+                    else if (method.getName().equals("setNull") && (int) args[0] == 2) {
+                        boundSyncOrigin[0] = null;
+                    }
+                    else if (method.getName().equals("executeUpdate")) {
+                        if (sqlQuery.startsWith(MySQL.SQL_SET_OPERATOR)) {
+                            this.sessionTagsSet.add(sqlQuery);
+                            syncOrigin[0] = boundSyncOrigin[0];
+                        }
+                        this.recordChange(sqlQuery, syncOrigin);
+                    }
+                    return DoerDatabaseTest.defaultValue(method.getReturnType());
+            }
+        });
+        this.openPreparedStatements.add(preparedStatement);
+        return preparedStatement;
+    }
+
+    /**
+     * Connection keeping its own session variables, of which only the sync origin is tracked.
+     */
+    private Connection fakeConnection() {
+        String[] syncOrigin = {null};
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "createStatement":
+                    return this.fakeStatement(syncOrigin);
+                case "prepareStatement":
+                    return this.fakePreparedStatement((String) args[0], syncOrigin);
+                case "isValid":
+                    return true;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    return DoerDatabaseTest.defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    private DoerDatabase openFakeDatabase() throws Exception {
+        /* Nothing listens on port 1, hence the MySQL driver fails fast and the fake driver is asked next. */
+        return new DoerDatabase("127.0.0.1", 1, DATABASE_NAME, "user", "password", DatabaseType.LOCAL, true);
+    }
+
+    @Test
+    public void openStatementsShouldReturnToZeroOverManySyncCycles() throws Exception {
+        DoerDatabase doerDatabase = this.openFakeDatabase();
+        DoerDBMetaTable metaTable = doerDatabase.getMetaTable();
+        DoerDBSyncDataTable syncDataTable = doerDatabase.getSyncDataTable();
+        assertEquals("Resources leaked by the validation", 0, this.openResources.size());
+
+        int[] rowCount = {0};
+        for (int cycle = 0; cycle < SOAK_CYCLES; cycle++) {
+            /* The statements of a sync: the cursors, a page of each change log, a failed read, a raw ResultSet, and the cursor update. */
+            assertEquals(1L, syncDataTable.getLastLocalID());
+            assertEquals(1L, metaTable.getLastQueryID());
+            assertEquals(ROWS_PER_QUERY, metaTable.getQueryRecordsInfoPageAfterID(0, -1, ROWS_PER_QUERY, "origin").size());
+            assertTrue(metaTable.getPartitionBounds().isEmpty());
+            doerDatabase.forEachRow("SELECT page", JDBCConstants.FETCH_SIZE_STREAMING, row -> rowCount[0]++);
+            try {
+                doerDatabase.executeQuery("BROKEN", ResultSet::next);
+                fail("The failing query should throw.");
+            }
+            catch (SQLException expected) {
+                // A failed query should not leak its statement either.
+            }
+            try (ResultSet resultSet = doerDatabase.executeQuery("SELECT raw")) {
+                assertTrue(resultSet.next());
+            }
+            syncDataTable.setLastSyncIDs(ROWS_PER_QUERY, ROWS_PER_QUERY);
+
+            assertEquals("Resources leaked in cycle " + cycle, 0, this.openResources.size());
+            assertEquals("Connections kept in cycle " + cycle, doerDatabase.getConnectionPool().getOpenCount(), doerDatabase.getConnectionPool().getIdleCount());
+        }
+
+        assertEquals(SOAK_CYCLES * ROWS_PER_QUERY, rowCount[0]);
+        assertTrue(metaTable.isOriginTracked());
+
+        doerDatabase.close();
+        assertEquals(0, this.openResources.size());
+        assertEquals(0, this.openPreparedStatements.size());
+    }
+
+    @Test
+    public void sessionTagsShouldBeSetAfterTheirStatementIsEvicted() throws Exception {
+        DoerDatabase doerDatabase = this.openFakeDatabase();
+        QueryExecutor queryExecutor = doerDatabase.getQueryExecutor();
+
+        Date firstTimestamp = new Date(1000);
+        for (int shape = 0; shape <= PreparedStatementCache.DEFAULT_CAPACITY; shape++) {
+            queryExecutor.executeQuery(new InsertQuery(shape, "tbl_sample_" + shape, new JSONObject().put("id", shape), firstTimestamp));
+        }
+        assertEquals(1, this.sessionTagsSet.size());
+        assertTrue(this.openPreparedStatements.size() <= PreparedStatementCache.DEFAULT_CAPACITY);
+
+        /* The statement setting the session tags was evicted by the shapes above, and is prepared again. */
+        queryExecutor.executeQuery(new InsertQuery(0, "tbl_sample_0", new JSONObject().put("id", 0), new Date(2000)));
+        assertEquals(2, this.sessionTagsSet.size());
+
+        doerDatabase.close();
+        assertEquals(0, this.openPreparedStatements.size());
+    }
+
+    @Test
+    public void applicationChangesShouldBeLoggedDuringSync() throws Exception {
+        DoerDatabase doerDatabase = this.openFakeDatabase();
+        QueryExecutor syncQueryExecutor = QueryExecutor.borrow(doerDatabase, "server-uuid:" + DATABASE_NAME);
+        syncQueryExecutor.beginTransaction();
+        syncQueryExecutor.executeQuery(new InsertQuery(1, "tbl_sample", new JSONObject().put("id", 1), new Date(1000)));
+
+        /* Applications change the database while the synchronization has its origin set and its transaction open. */
+        doerDatabase.executeUpdate("UPDATE `tbl_sample` SET `name`='application' WHERE `id`=2");
+        doerDatabase.getQueryExecutor().executeQuery(new InsertQuery(3, "tbl_sample", new JSONObject().put("id", 3), new Date(2000)));
+
+        syncQueryExecutor.executeQuery(new InsertQuery(4, "tbl_sample", new JSONObject().put("id", 4), new Date(3000)));
+        syncQueryExecutor.endTransaction();
+        syncQueryExecutor.close();
+
+        assertEquals(2, this.loggedChanges.size());
+        assertTrue(this.loggedChanges.get(0).startsWith(MySQL.SQL_UPDATE_PREFIX));
+        assertTrue(this.loggedChanges.get(1).startsWith(MySQL.SQL_INSERT_CLAUSE));
+        assertEquals(doerDatabase.getConnectionPool().getOpenCount(), doerDatabase.getConnectionPool().getIdleCount());
+
+        doerDatabase.close();
+    }
+
+    @Test
+    public void queriesShouldRunWhileRowsAreStreamed() throws Exception {
+        DoerDatabase doerDatabase = this.openFakeDatabase();
+        List<Integer> borrowedCounts = new ArrayList<>();
+
+        doerDatabase.forEachRow("SELECT page", JDBCConstants.FETCH_SIZE_STREAMING, row -> {
+            try {
+                doerDatabase.executeUpdate("UPDATE `tbl_sample` SET `name`='application' WHERE `id`=" + row.getLong(DoerDBMetaTable.TABLE_COL_ID));
+            }
+            catch (InitializationFailureException e) {
+                throw new SQLException(e);
+            }
+            borrowedCounts.add(doerDatabase.getConnectionPool().getOpenCount() - doerDatabase.getConnectionPool().getIdleCount());
+        });
+
+        /* The stream holds its connection while each update borrows and returns another. */
+        assertEquals(Arrays.asList(1, 1, 1), borrowedCounts);
+        assertEquals(2, doerDatabase.getConnectionPool().getOpenCount());
+        assertEquals(ROWS_PER_QUERY, this.loggedChanges.size());
+
+        doerDatabase.close();
+    }
+
+}
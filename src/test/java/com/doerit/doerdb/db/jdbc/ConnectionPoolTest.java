@@ -0,0 +1,155 @@
+package com.doerit.doerdb.db.jdbc;
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ConnectionPoolTest {
+
+    /**
+     * Creates a connection which stays valid while the given flag is set, and tracks whether it is closed.
+     */
+    private static Connection fakeConnection(AtomicBoolean valid) {
+        AtomicBoolean closed = new AtomicBoolean(false);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "close":
+                    closed.set(true);
+                    return null;
+                case "isClosed":
+                    return closed.get();
+                case "isValid":
+                    return !closed.get() && valid.get();
+                case "getAutoCommit":
+                    return true;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return null;
+            }
+        });
+    }
+
+    @Test
+    public void returnedConnectionsShouldBeReused() throws Exception {
+        AtomicInteger openedCount = new AtomicInteger();
+        ConnectionPool connectionPool = new ConnectionPool(() -> {
+            openedCount.incrementAndGet();
+            return fakeConnection(new AtomicBoolean(true));
+        }, 2, 60000, 0);
+
+        Connection first = connectionPool.borrowConnection();
+        first.close();
+        assertTrue(first.isClosed());
+        assertEquals(1, connectionPool.getIdleCount());
+
+        Connection second = connectionPool.borrowConnection();
+        Connection third = connectionPool.borrowConnection();
+        assertEquals(2, openedCount.get());
+        assertEquals(2, connectionPool.getOpenCount());
+
+        second.close();
+        third.close();
+        assertEquals(2, connectionPool.getIdleCount());
+    }
+
+    @Test(expected = SQLException.class)
+    public void exhaustedPoolShouldTimeOut() throws Exception {
+        ConnectionPool connectionPool = new ConnectionPool(() -> fakeConnection(new AtomicBoolean(true)), 1, 60000, 10);
+        connectionPool.borrowConnection();
+        connectionPool.borrowConnection();
+    }
+
+    @Test
+    public void brokenIdleConnectionShouldBeReplaced() throws Exception {
+        AtomicBoolean firstValid = new AtomicBoolean(true);
+        AtomicInteger openedCount = new AtomicInteger();
+        ConnectionPool connectionPool = new ConnectionPool(() -> fakeConnection(openedCount.getAndIncrement() == 0 ? firstValid : new AtomicBoolean(true)), 1, 0, 0);
+
+        connectionPool.borrowConnection().close();
+        firstValid.set(false);
+
+        Connection connection = connectionPool.borrowConnection();
+        assertTrue(connection.isValid(1));
+        assertEquals(2, openedCount.get());
+        assertEquals(1, connectionPool.getOpenCount());
+    }
+
+    @Test(expected = SQLException.class)
+    public void returnedConnectionShouldNotBeUsable() throws Exception {
+        ConnectionPool connectionPool = new ConnectionPool(() -> fakeConnection(new AtomicBoolean(true)), 1, 60000, 0);
+        Connection connection = connectionPool.borrowConnection();
+        connection.close();
+        connection.createStatement();
+    }
+
+    @Test
+    public void returnedConnectionShouldBeReset() throws Exception {
+        int[] isolation = {Connection.TRANSACTION_REPEATABLE_READ};
+        boolean[] autoCommit = {true};
+        List<String> executedQueries = new ArrayList<>();
+        Connection physicalConnection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getTransactionIsolation":
+                    return isolation[0];
+                case "setTransactionIsolation":
+                    isolation[0] = (int) args[0];
+                    return null;
+                case "getAutoCommit":
+                    return autoCommit[0];
+                case "setAutoCommit":
+                    autoCommit[0] = (boolean) args[0];
+                    return null;
+                case "rollback":
+                    executedQueries.add("ROLLBACK");
+                    return null;
+                case "createStatement":
+                    return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{Statement.class}, (statementProxy, statementMethod, statementArgs) -> {
+                        if (statementMethod.getName().equals("executeUpdate")) {
+                            executedQueries.add((String) statementArgs[0]);
+                            return 0;
+                        }
+                        return null;
+                    });
+                case "isClosed":
+                    return false;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return null;
+            }
+        });
+        ConnectionPool connectionPool = new ConnectionPool(() -> physicalConnection, 1, 60000, 0, "SET @tag=NULL");
+
+        Connection connection = connectionPool.borrowConnection();
+        connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        connection.setAutoCommit(false);
+        connection.close();
+
+        assertEquals(Connection.TRANSACTION_REPEATABLE_READ, isolation[0]);
+        assertTrue(autoCommit[0]);
+        assertEquals(2, executedQueries.size());
+        assertEquals("ROLLBACK", executedQueries.get(0));
+        assertEquals("SET @tag=NULL", executedQueries.get(1));
+        assertEquals(1, connectionPool.getIdleCount());
+
+        /* A connection whose isolation was left as borrowed is not asked for it again. */
+        isolation[0] = Connection.TRANSACTION_SERIALIZABLE;
+        connectionPool.borrowConnection().close();
+        assertEquals(Connection.TRANSACTION_SERIALIZABLE, isolation[0]);
+    }
+
+}
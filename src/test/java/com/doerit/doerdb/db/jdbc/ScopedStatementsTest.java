@@ -0,0 +1,140 @@
+package com.doerit.doerdb.db.jdbc;
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ScopedStatementsTest {
+
+    private static final int SOAK_CYCLES = 10000;
+    private static final int ROWS_PER_QUERY = 3;
+
+    /* Statements and ResultSets created by the fake connection and not closed yet. */
+    private final Set<Object> openResources = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private ResultSet fakeResultSet() {
+        int[] row = {0};
+        ResultSet resultSet = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "next":
+                    return ++row[0] <= ROWS_PER_QUERY;
+                case "getInt":
+                    return row[0];
+                case "close":
+                    this.openResources.remove(proxy);
+                    return null;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    return null;
+            }
+        });
+        this.openResources.add(resultSet);
+        return resultSet;
+    }
+
+    private Connection fakeConnection() {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, (connectionProxy, connectionMethod, connectionArgs) -> {
+            if (!connectionMethod.getName().equals("createStatement")) {
+                return null;
+            }
+
+            Statement statement = (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{Statement.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "executeQuery":
+                        if (((String) args[0]).startsWith("BROKEN")) {
+                            throw new SQLException("Syntax error.");
+                        }
+                        return this.fakeResultSet();
+                    case "executeUpdate":
+                        return 1;
+                    case "close":
+                        this.openResources.remove(proxy);
+                        return null;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return null;
+                }
+            });
+            this.openResources.add(statement);
+            return statement;
+        });
+    }
+
+    @Test
+    public void rowsShouldBeReadAndResourcesClosed() throws Exception {
+        Connection connection = this.fakeConnection();
+
+        List<Integer> rows = new ArrayList<>();
+        ScopedStatements.forEachRow(connection, "SELECT", JDBCConstants.FETCH_SIZE_STREAMING, row -> rows.add(row.getInt(1)));
+        assertEquals(ROWS_PER_QUERY, rows.size());
+
+        boolean hasRow = ScopedStatements.executeQuery(connection, "SELECT", JDBCConstants.FETCH_SIZE_DEFAULT, ResultSet::next);
+        assertTrue(hasRow);
+        assertEquals(1, ScopedStatements.executeUpdate(connection, "UPDATE"));
+        assertTrue(this.openResources.isEmpty());
+    }
+
+    @Test
+    public void resourcesShouldBeClosedWhenQueriesOrCallbacksFail() throws Exception {
+        Connection connection = this.fakeConnection();
+
+        try {
+            ScopedStatements.executeQuery(connection, "BROKEN", JDBCConstants.FETCH_SIZE_DEFAULT, ResultSet::next);
+            fail("The failing query should throw.");
+        }
+        catch (SQLException expected) {
+            assertTrue(this.openResources.isEmpty());
+        }
+
+        try {
+            ScopedStatements.forEachRow(connection, "SELECT", JDBCConstants.FETCH_SIZE_DEFAULT, row -> {
+                throw new SQLException("Callback failure.");
+            });
+            fail("The failing callback should throw.");
+        }
+        catch (SQLException expected) {
+            assertTrue(this.openResources.isEmpty());
+        }
+    }
+
+    @Test
+    public void openResourcesShouldStayFlatOverManySyncCycles() throws Exception {
+        Connection connection = this.fakeConnection();
+
+        /* Each cycle issues the statements of a sync: reading the cursor and a page of the change log, a failed read, and the cursor update. */
+        int[] rowCount = {0};
+        for (int cycle = 0; cycle < SOAK_CYCLES; cycle++) {
+            ScopedStatements.executeQuery(connection, "SELECT cursor", JDBCConstants.FETCH_SIZE_DEFAULT, ResultSet::next);
+            ScopedStatements.forEachRow(connection, "SELECT page", JDBCConstants.FETCH_SIZE_STREAMING, row -> rowCount[0]++);
+            try {
+                ScopedStatements.executeQuery(connection, "BROKEN", JDBCConstants.FETCH_SIZE_DEFAULT, ResultSet::next);
+            }
+            catch (SQLException expected) {
+                // A failed query should not leak its statement either.
+            }
+            ScopedStatements.executeUpdate(connection, "UPDATE cursor");
+
+            assertEquals("Resources leaked in cycle " + cycle, 0, this.openResources.size());
+        }
+
+        assertEquals(SOAK_CYCLES * ROWS_PER_QUERY, rowCount[0]);
+    }
+
+}
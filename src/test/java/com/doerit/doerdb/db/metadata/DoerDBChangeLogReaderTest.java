@@ -0,0 +1,93 @@
+package com.doerit.doerdb.db.metadata;
+
+import com.doerit.doerdb.db.queries.InsertQuery;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class DoerDBChangeLogReaderTest {
+
+    /**
+     * Meta Table of inserts with consecutive IDs, recording the threads on which its pages are fetched.
+     */
+    static class FakeMetaTable extends DoerDBMetaTable {
+
+        private final long lastID;
+        final List<String> fetchThreadNames = Collections.synchronizedList(new ArrayList<>());
+
+        FakeMetaTable(long lastID) {
+            super(null);
+            this.lastID = lastID;
+        }
+
+        @Override
+        public List<Map<String, Object>> getQueryRecordsInfoPageAfterID(long thresholdID, long upperBoundID, int pageSize, String excludedOrigin) {
+            this.fetchThreadNames.add(Thread.currentThread().getName());
+
+            List<Map<String, Object>> pageRecordsInfo = new ArrayList<>();
+            for (long id = thresholdID + 1; id <= this.lastID && pageRecordsInfo.size() < pageSize; id++) {
+                Map<String, Object> recordInfo = new HashMap<>();
+                recordInfo.put(DoerDBMetaTable.TABLE_COL_ID, id);
+                recordInfo.put(DoerDBMetaTable.TABLE_COL_TABLE_NAME, "tbl_sample");
+                recordInfo.put(DoerDBMetaTable.TABLE_COL_QUERY_TYPE, InsertQuery.QUERY_TYPE);
+                recordInfo.put(DoerDBMetaTable.TABLE_COL_NEW_RECORD, "{\"id\":" + id + "}");
+                recordInfo.put(DoerDBMetaTable.TABLE_COL_QUERY_TIMESTAMP, new Date(id * 1000));
+                pageRecordsInfo.add(recordInfo);
+            }
+
+            return pageRecordsInfo;
+        }
+    }
+
+    @Test
+    public void nextPageShouldBePrefetchedWhileThePageIsRead() throws Exception {
+        FakeMetaTable metaTable = new FakeMetaTable(10);
+        DoerDBChangeLogReader reader = new DoerDBChangeLogReader(metaTable, 0, -1, 4);
+        ExecutorService fetchExecutorService = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "fetch"));
+        try {
+            List<Long> readIDs = new ArrayList<>();
+            while (true) {
+                reader.prefetchNextPage(fetchExecutorService);
+                if (!reader.hasNext()) {
+                    break;
+                }
+                readIDs.add(reader.next().getQueryID());
+            }
+
+            assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), readIDs);
+            assertEquals(10, reader.getLastReadID());
+            assertEquals(Arrays.asList("fetch", "fetch", "fetch"), metaTable.fetchThreadNames);
+        }
+        finally {
+            fetchExecutorService.shutdown();
+        }
+    }
+
+    @Test
+    public void prefetchedPageShouldNotAdvanceTheReader() throws Exception {
+        FakeMetaTable metaTable = new FakeMetaTable(10);
+        DoerDBChangeLogReader reader = new DoerDBChangeLogReader(metaTable, 0, -1, 4);
+        ExecutorService fetchExecutorService = Executors.newSingleThreadExecutor();
+        try {
+            for (int i = 0; i < 3; i++) {
+                reader.next();
+            }
+            reader.prefetchNextPage(fetchExecutorService);
+            reader.awaitPrefetch();
+
+            assertEquals(2, metaTable.fetchThreadNames.size());
+            assertEquals(3, reader.getLastReadID());
+            assertEquals(4, reader.next().getQueryID());
+            assertEquals(4, reader.getLastReadID());
+            assertEquals(5, reader.next().getQueryID());
+        }
+        finally {
+            fetchExecutorService.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.doerit.doerdb.db.metadata;
+
+import com.doerit.doerdb.db.MySQL;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class DoerDBMetaTableTest {
+
+    @Test
+    public void recordsShouldBeDeletedInPagesBeforeTheThreshold() {
+        assertEquals("DELETE FROM `tbl_version_table` WHERE `id`<500 ORDER BY `id` ASC LIMIT 100",
+                DoerDBMetaTable.buildDeleteRecordsPageQuery(500, null, 100));
+
+        Date thresholdTimestamp = new Date(0);
+        assertEquals("DELETE FROM `tbl_version_table` WHERE `id`<500 AND `query_timestamp`<'" + MySQL.getFormattedTimestampSQL(thresholdTimestamp) + "' ORDER BY `id` ASC LIMIT 100",
+                DoerDBMetaTable.buildDeleteRecordsPageQuery(500, thresholdTimestamp, 100));
+    }
+
+    @Test
+    public void partitionsShouldBeSplitOffTheLastPartition() {
+        Map<String, Long> partitionBounds = new LinkedHashMap<>();
+        partitionBounds.put("p3", 3000L);
+        partitionBounds.put("p4", 4000L);
+        partitionBounds.put("p5", 5000L);
+
+        assertNull(DoerDBMetaTable.buildExtendPartitionsQuery(new LinkedHashMap<>(), 500));
+        assertNull(DoerDBMetaTable.buildExtendPartitionsQuery(partitionBounds, 999));
+        assertEquals("ALTER TABLE `tbl_version_table` REORGANIZE PARTITION `p_max` INTO (" +
+                        "PARTITION `p6` VALUES LESS THAN (6000),PARTITION `p7` VALUES LESS THAN (7000),PARTITION `p_max` VALUES LESS THAN MAXVALUE)",
+                DoerDBMetaTable.buildExtendPartitionsQuery(partitionBounds, 2500));
+    }
+
+    @Test
+    public void triggersRecordingChangesWithoutTheSyncOriginShouldBeFound() {
+        assertEquals("SELECT trigger_name FROM information_schema.triggers WHERE `trigger_schema`='db_sample' " +
+                        "AND `action_statement` LIKE '%`tbl_version_table`%' AND `action_statement` NOT LIKE '%@DOERDB_SYNC_ORIGIN%' LIMIT 1",
+                DoerDBMetaTable.buildUntaggedTriggerQuery("db_sample"));
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.doerit.doerdb.db.queries;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PreparedQueryTest {
+
+    @Test
+    public void queriesWithSameColumnsShouldShareStatements() {
+        InsertQuery firstQuery = new InsertQuery(1, "tbl_test", new JSONObject().put("name", "a").put("id", "1"), new Date());
+        InsertQuery secondQuery = new InsertQuery(2, "tbl_test", new JSONObject().put("id", "2").put("name", "b"), new Date());
+        InsertQuery otherQuery = new InsertQuery(3, "tbl_test", new JSONObject().put("id", "3"), new Date());
+
+        assertEquals(firstQuery.getPreparedStatementKey(), secondQuery.getPreparedStatementKey());
+        assertNotEquals(firstQuery.getPreparedStatementKey(), otherQuery.getPreparedStatementKey());
+        assertEquals("INSERT INTO `tbl_test`(`id`,`name`) VALUES (?,?)", firstQuery.getPreparedMySQLQuery());
+    }
+
+    @Test
+    public void updateQueryShouldCompareOldValuesNullSafely() {
+        UpdateQuery query = new UpdateQuery(1, "tbl_test", new JSONObject().put("name", "b"), new JSONObject().put("name", "a").put("id", "1"), new Date());
+
+        assertEquals("UPDATE `tbl_test` SET `name`=? WHERE `id`<=>? AND `name`<=>?", query.getPreparedMySQLQuery());
+    }
+
+    @Test
+    public void updateQueryShouldTargetRowByKey() {
+        UpdateQuery query = new UpdateQuery(1, "tbl_test", new JSONObject().put("name", "b"), new JSONObject().put("name", "a").put("id", "1"), new Date());
+        query.setKeyColumnNames(Arrays.asList("id"));
+        assertEquals("UPDATE `tbl_test` SET `name`=? WHERE `id`<=>?", query.getPreparedMySQLQuery());
+
+        query.setKeyColumnNames(Arrays.asList("id", "code"));
+        assertEquals("UPDATE `tbl_test` SET `name`=? WHERE `id`<=>? AND `name`<=>?", query.getPreparedMySQLQuery());
+    }
+
+    @Test
+    public void updateQueryShouldSetOnlyChangedColumns() {
+        UpdateQuery query = new UpdateQuery(1, "tbl_test", new JSONObject().put("id", "1").put("name", "b").put("price", JSONObject.NULL),
+                new JSONObject().put("id", "1").put("name", "a").put("price", 5), new Date());
+        query.setKeyColumnNames(Arrays.asList("id"));
+
+        assertEquals(Arrays.asList("name", "price"), query.getSetColumnNames());
+        assertEquals("UPDATE `tbl_test` SET `name`=?,`price`=? WHERE `id`<=>?", query.getPreparedMySQLQuery());
+
+        UpdateQuery unchangedQuery = new UpdateQuery(2, "tbl_test", new JSONObject().put("id", "1").put("price", 5L), new JSONObject().put("id", "1").put("price", 5), new Date());
+        assertTrue(unchangedQuery.getSetColumnNames().isEmpty());
+    }
+
+    @Test
+    public void upsertShouldUpdateEveryInsertedColumn() {
+        InsertQuery query = new InsertQuery(1, "tbl_test", new JSONObject().put("name", "a").put("id", "1"), new Date());
+        String insertKey = query.getPreparedStatementKey();
+
+        query.setUpsert(true);
+        assertNotEquals(insertKey, query.getPreparedStatementKey());
+        assertEquals("INSERT INTO `tbl_test`(`id`,`name`) VALUES (?,?) ON DUPLICATE KEY UPDATE `id`=VALUES(`id`),`name`=VALUES(`name`)", query.getPreparedMySQLQuery());
+    }
+
+    @Test
+    public void insertQueryShouldRenderMultipleRows() {
+        InsertQuery query = new InsertQuery(1, "tbl_test", new JSONObject().put("name", "a").put("id", "1"), new Date());
+        assertEquals("INSERT INTO `tbl_test`(`id`,`name`) VALUES (?,?),(?,?),(?,?)", query.getPreparedMySQLQuery(3));
+
+        query.setUpsert(true);
+        assertEquals("INSERT INTO `tbl_test`(`id`,`name`) VALUES (?,?),(?,?) ON DUPLICATE KEY UPDATE `id`=VALUES(`id`),`name`=VALUES(`name`)", query.getPreparedMySQLQuery(2));
+    }
+
+    @Test
+    public void valuesShouldBeBoundWithTheirTypes() throws Exception {
+        JSONObject newRecord = new JSONObject("{\"count\": 5, \"id\": 1, \"name\": \"a\", \"note\": null, \"picture\": {\"$base64\": \"AAE=\"}, \"price\": \"10.50\", \"rate\": 0.5}");
+        InsertQuery query = new InsertQuery(1, "tbl_test", newRecord, new Date());
+
+        List<String> boundValues = new ArrayList<>();
+        PreparedStatement preparedStatement = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+            Object value = args[1] instanceof byte[] ? Arrays.toString((byte[]) args[1]) : args[1];
+            boundValues.add(method.getName() + " " + (method.getName().equals("setNull") ? "" : value));
+            return null;
+        });
+        query.bindPreparedValues(preparedStatement);
+
+        assertEquals(Arrays.asList("setLong 5", "setLong 1", "setString a", "setNull ", "setBytes [0, 1]", "setString 10.50", "setDouble 0.5"), boundValues);
+    }
+
+    @Test
+    public void valuesShouldBeRenderedAsTypedLiterals() {
+        assertEquals("NULL", BasicQuery.getValueSQL(JSONObject.NULL));
+        assertEquals("5", BasicQuery.getValueSQL(5));
+        assertEquals("10.50", BasicQuery.getValueSQL(new BigDecimal("10.50")));
+        assertEquals("TRUE", BasicQuery.getValueSQL(true));
+        assertEquals("'it''s'", BasicQuery.getValueSQL("it's"));
+        assertEquals("FROM_BASE64('AAE=')", BasicQuery.getValueSQL(new JSONObject().put(BasicQuery.RECORD_BINARY_KEY, "AAE=")));
+
+        UpdateQuery unchangedQuery = new UpdateQuery(1, "tbl_test", new JSONObject().put("id", 1).put("picture", new JSONObject().put(BasicQuery.RECORD_BINARY_KEY, "AAE=")),
+                new JSONObject().put("id", 1).put("picture", new JSONObject().put(BasicQuery.RECORD_BINARY_KEY, "AAE=")), new Date());
+        assertTrue(unchangedQuery.getSetColumnNames().isEmpty());
+    }
+
+}
@@ -0,0 +1,123 @@
+package com.doerit.doerdb.db.queries.executors;
+
+import com.doerit.doerdb.db.queries.BasicQuery;
+import com.doerit.doerdb.db.queries.InsertQuery;
+import com.doerit.doerdb.db.queries.UpdateQuery;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class ParallelQueryExecutorTest {
+
+    private static BasicQuery insert(String tableName, String id, List<String> keyColumnNames) {
+        BasicQuery query = new InsertQuery(0, tableName, new JSONObject().put("id", id).put("name", "a"), new Date());
+        query.setKeyColumnNames(keyColumnNames);
+        return query;
+    }
+
+    private static BasicQuery update(String tableName, String oldID, String newID, List<String> keyColumnNames) {
+        BasicQuery query = new UpdateQuery(0, tableName, new JSONObject().put("id", newID).put("name", "b"), new JSONObject().put("id", oldID).put("name", "a"), new Date());
+        query.setKeyColumnNames(keyColumnNames);
+        return query;
+    }
+
+    private static int laneOf(List<List<BasicQuery>> laneQueries, BasicQuery query) {
+        for (int lane = 0; lane < laneQueries.size(); lane++) {
+            if (laneQueries.get(lane).contains(query)) {
+                return lane;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void rowsOfKeyedTableShouldBeSpreadAcrossLanes() {
+        List<String> keyColumnNames = Collections.singletonList("id");
+        List<BasicQuery> queries = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            queries.add(insert("tbl_keyed", String.valueOf(i), keyColumnNames));
+            queries.add(update("tbl_keyed", String.valueOf(i), String.valueOf(i), keyColumnNames));
+        }
+
+        List<List<BasicQuery>> laneQueries = ParallelQueryExecutor.assignLanes(queries, 4, Collections.emptyMap());
+        Set<Integer> usedLanes = new HashSet<>();
+        for (int i = 0; i < queries.size(); i += 2) {
+            int lane = laneOf(laneQueries, queries.get(i));
+            assertEquals(lane, laneOf(laneQueries, queries.get(i + 1)));
+            assertTrue(laneQueries.get(lane).indexOf(queries.get(i)) < laneQueries.get(lane).indexOf(queries.get(i + 1)));
+            usedLanes.add(lane);
+        }
+        assertTrue(usedLanes.size() > 1);
+    }
+
+    @Test
+    public void tableShouldShareLaneWhenKeyChangesOrIsUnknown() {
+        List<String> keyColumnNames = Collections.singletonList("id");
+        List<BasicQuery> queries = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            queries.add(insert("tbl_rekeyed", String.valueOf(i), keyColumnNames));
+            queries.add(insert("tbl_keyless", String.valueOf(i), null));
+        }
+        queries.add(update("tbl_rekeyed", "1", "100", keyColumnNames));
+
+        List<List<BasicQuery>> laneQueries = ParallelQueryExecutor.assignLanes(queries, 4, Collections.emptyMap());
+        for (String tableName : Arrays.asList("tbl_rekeyed", "tbl_keyless")) {
+            Set<Integer> usedLanes = new HashSet<>();
+            for (BasicQuery query : queries) {
+                if (query.getTableName().equals(tableName)) {
+                    usedLanes.add(laneOf(laneQueries, query));
+                }
+            }
+            assertEquals(1, usedLanes.size());
+        }
+    }
+
+    @Test
+    public void tablesRelatedByForeignKeysShouldShareLane() {
+        Map<String, Set<String>> referencedTableNames = new HashMap<>();
+        referencedTableNames.put("tbl_order", Collections.singleton("tbl_customer"));
+        referencedTableNames.put("tbl_order_item", new HashSet<>(Arrays.asList("tbl_order", "tbl_product")));
+        referencedTableNames.put("tbl_category", Collections.singleton("tbl_category"));
+        Map<String, String> tableFamilies = ParallelQueryExecutor.getTableFamilies(referencedTableNames);
+
+        for (String tableName : Arrays.asList("tbl_customer", "tbl_order", "tbl_order_item", "tbl_product")) {
+            assertEquals("tbl_customer", tableFamilies.get(tableName));
+        }
+        assertEquals("tbl_category", tableFamilies.get("tbl_category"));
+        assertFalse(tableFamilies.containsKey("tbl_keyed"));
+
+        List<String> keyColumnNames = Collections.singletonList("id");
+        List<BasicQuery> queries = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            queries.add(insert("tbl_customer", String.valueOf(i), keyColumnNames));
+            queries.add(insert("tbl_order", String.valueOf(i), keyColumnNames));
+            queries.add(insert("tbl_category", String.valueOf(i), keyColumnNames));
+        }
+
+        List<List<BasicQuery>> laneQueries = ParallelQueryExecutor.assignLanes(queries, 4, tableFamilies);
+        for (List<String> family : Arrays.asList(Arrays.asList("tbl_customer", "tbl_order"), Collections.singletonList("tbl_category"))) {
+            Set<Integer> usedLanes = new HashSet<>();
+            List<BasicQuery> familyQueries = new ArrayList<>();
+            for (BasicQuery query : queries) {
+                if (family.contains(query.getTableName())) {
+                    usedLanes.add(laneOf(laneQueries, query));
+                    familyQueries.add(query);
+                }
+            }
+            assertEquals(1, usedLanes.size());
+            assertEquals(familyQueries, laneQueries.get(usedLanes.iterator().next()).stream().filter(familyQueries::contains).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void insertsShouldBeAppliedAsUpserts() {
+        InsertQuery query = new InsertQuery(0, "tbl_keyed", new JSONObject().put("id", "1"), new Date());
+        new ParallelQueryExecutor(2).addQuery(null, query);
+        assertTrue(query.isUpsert());
+    }
+
+}
@@ -0,0 +1,216 @@
+package com.doerit.doerdb.synchronizer;
+
+import com.doerit.doerdb.db.queries.BasicQuery;
+import com.doerit.doerdb.db.queries.InsertQuery;
+import com.doerit.doerdb.db.queries.UpdateQuery;
+import com.doerit.doerdb.synchronizer.mappers.DatabaseMapping;
+import com.doerit.doerdb.synchronizer.mappers.TestDatabaseMappings;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class DoerDBChangeCoalescerTest {
+
+    private static DoerDBChange insert(int id, String tableName, JSONObject newRecord) {
+        return new DoerDBChange(null, DoerDBChange.SyncDirection.LOCAL_TO_REMOTE, new InsertQuery(id, tableName, newRecord, new Date(id)));
+    }
+
+    private static DoerDBChange update(int id, String tableName, JSONObject newRecord, JSONObject oldRecord) {
+        return new DoerDBChange(null, DoerDBChange.SyncDirection.LOCAL_TO_REMOTE, new UpdateQuery(id, tableName, newRecord, oldRecord, new Date(id)));
+    }
+
+    private static JSONObject record(String id, String name) {
+        return new JSONObject().put("id", id).put("name", name);
+    }
+
+    /* Applies the changes to in-memory tables the way the generated MySQL queries would, and returns the resulting rows. */
+    private static List<String> apply(List<DoerDBChange> changes) {
+        Map<String, List<JSONObject>> tables = new HashMap<>();
+        for (DoerDBChange change : changes) {
+            BasicQuery query = change.getQuery();
+            List<JSONObject> rows = tables.computeIfAbsent(query.getTableName(), k -> new ArrayList<>());
+            if (query.getQueryType().equals(InsertQuery.QUERY_TYPE)) {
+                rows.add(query.getNewRecord());
+            }
+            else {
+                for (int i = 0; i < rows.size(); i++) {
+                    if (rows.get(i).similar(query.getOldRecord())) {
+                        rows.set(i, query.getNewRecord());
+                    }
+                }
+            }
+        }
+
+        List<String> result = new ArrayList<>();
+        for (Map.Entry<String, List<JSONObject>> table : tables.entrySet()) {
+            for (JSONObject row : table.getValue()) {
+                result.add(table.getKey() + ":" + row.getString("id") + ":" + row.getString("name"));
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    @Test
+    public void chainsShouldBeFoldedIntoNetChanges() {
+        List<DoerDBChange> changes = new ArrayList<>();
+        changes.add(insert(1, "tbl_a", record("1", "a")));
+        changes.add(update(2, "tbl_a", record("1", "b"), record("1", "a")));
+        changes.add(update(3, "tbl_b", record("1", "d"), record("1", "c")));
+        changes.add(update(4, "tbl_a", record("1", "c"), record("1", "b")));
+        changes.add(update(5, "tbl_a", record("2", "x"), record("2", "w")));
+        changes.add(update(6, "tbl_a", record("2", "y"), record("2", "x")));
+
+        DoerDBChangeCoalescer coalescer = new DoerDBChangeCoalescer();
+        List<DoerDBChange> netChanges = coalescer.coalesce(changes);
+
+        assertEquals(3, netChanges.size());
+        assertEquals(3, coalescer.getEliminatedCount());
+
+        BasicQuery netInsert = netChanges.get(0).getQuery();
+        assertEquals(InsertQuery.QUERY_TYPE, netInsert.getQueryType());
+        assertTrue(netInsert.getNewRecord().similar(record("1", "c")));
+        assertEquals(new Date(4), netInsert.getQueryTimestamp());
+
+        BasicQuery netUpdate = netChanges.get(2).getQuery();
+        assertEquals(UpdateQuery.QUERY_TYPE, netUpdate.getQueryType());
+        assertTrue(netUpdate.getOldRecord().similar(record("2", "w")));
+        assertTrue(netUpdate.getNewRecord().similar(record("2", "y")));
+
+        assertEquals(apply(changes), apply(netChanges));
+    }
+
+    @Test
+    public void chainsShouldBeClosedByChangesToTheSameFamily() {
+        Map<String, String> tableFamilies = new HashMap<>();
+        tableFamilies.put("tbl_child", "tbl_child");
+        tableFamilies.put("tbl_parent", "tbl_child");
+        List<DoerDBChange> changes = new ArrayList<>();
+        changes.add(insert(1, "tbl_parent", new JSONObject().put("id", "p").put("fav_child", JSONObject.NULL)));
+        changes.add(insert(2, "tbl_child", new JSONObject().put("id", "c").put("parent", "p")));
+        changes.add(update(3, "tbl_parent", new JSONObject().put("id", "p").put("fav_child", "c"), new JSONObject().put("id", "p").put("fav_child", JSONObject.NULL)));
+
+        DoerDBChangeCoalescer coalescer = new DoerDBChangeCoalescer();
+        coalescer.setTableFamilies(DoerDBChange.SyncDirection.LOCAL_TO_REMOTE, tableFamilies);
+        List<DoerDBChange> netChanges = coalescer.coalesce(changes);
+
+        /* The parent is inserted without its favourite child, which is not inserted yet. */
+        assertEquals(3, netChanges.size());
+        assertEquals(0, coalescer.getEliminatedCount());
+        assertTrue(netChanges.get(0).getQuery().getNewRecord().isNull("fav_child"));
+
+        coalescer.setTableFamilies(DoerDBChange.SyncDirection.LOCAL_TO_REMOTE, Collections.emptyMap());
+        assertEquals(2, coalescer.coalesce(changes).size());
+    }
+
+    @Test
+    public void chainsShouldBeClosedByChangesToTheSameTable() {
+        DatabaseMapping databaseMapping = TestDatabaseMappings.singleTable("tbl_user", Arrays.asList("id", "email"), Collections.singletonList("id"));
+        List<DoerDBChange> changes = new ArrayList<>();
+        changes.add(update(1, "tbl_user", new JSONObject().put("id", "a").put("email", "y"), new JSONObject().put("id", "a").put("email", "w")));
+        changes.add(update(2, "tbl_user", new JSONObject().put("id", "b").put("email", "z"), new JSONObject().put("id", "b").put("email", "x")));
+        changes.add(update(3, "tbl_user", new JSONObject().put("id", "a").put("email", "x"), new JSONObject().put("id", "a").put("email", "y")));
+
+        DoerDBChangeCoalescer coalescer = new DoerDBChangeCoalescer();
+        List<DoerDBChange> netChanges = coalescer.coalesce(changes, databaseMapping);
+
+        /* The row a takes the email x only after the row b releases it. */
+        assertEquals(3, netChanges.size());
+        assertEquals(0, coalescer.getEliminatedCount());
+        assertEquals("y", netChanges.get(0).getQuery().getNewRecord().getString("email"));
+        assertEquals("z", netChanges.get(1).getQuery().getNewRecord().getString("email"));
+        assertEquals("x", netChanges.get(2).getQuery().getNewRecord().getString("email"));
+    }
+
+    @Test
+    public void rowsSharingARecordShouldNotBeFolded() {
+        List<DoerDBChange> changes = new ArrayList<>();
+        changes.add(insert(1, "tbl_a", record("1", "a")));
+        changes.add(insert(2, "tbl_a", record("1", "a")));
+        changes.add(update(3, "tbl_a", record("1", "b"), record("1", "a")));
+        changes.add(update(4, "tbl_a", record("1", "c"), record("1", "b")));
+
+        List<DoerDBChange> netChanges = new DoerDBChangeCoalescer().coalesce(changes);
+
+        assertEquals(4, netChanges.size());
+        assertEquals(apply(changes), apply(netChanges));
+    }
+
+    @Test
+    public void finalStateShouldNotChange() {
+        for (long seed = 0; seed < 50; seed++) {
+            Random random = new Random(seed);
+            Map<String, JSONObject> currentRows = new HashMap<>();
+            List<DoerDBChange> changes = new ArrayList<>();
+
+            for (int i = 0; i < 300; i++) {
+                String id = String.valueOf(random.nextInt(20));
+                JSONObject newRecord = record(id, "name" + i);
+                if (!currentRows.containsKey(id)) {
+                    changes.add(insert(i, "tbl_test", newRecord));
+                }
+                else {
+                    changes.add(update(i, "tbl_test", newRecord, new JSONObject(currentRows.get(id).toString())));
+                }
+                currentRows.put(id, newRecord);
+            }
+
+            DoerDBChangeCoalescer coalescer = new DoerDBChangeCoalescer();
+            List<DoerDBChange> netChanges = coalescer.coalesce(changes);
+
+            assertEquals(changes.size() - coalescer.getEliminatedCount(), netChanges.size());
+            assertTrue(coalescer.getEliminatedCount() > 0);
+            assertEquals(apply(changes), apply(netChanges));
+        }
+    }
+
+    /* Applies partial updates to a single row by its key, setting only the changed columns as the generated MySQL queries would. */
+    private static JSONObject applyByKey(JSONObject row, List<DoerDBChange> changes) {
+        JSONObject currentRow = new JSONObject(row.toString());
+        for (DoerDBChange change : changes) {
+            UpdateQuery query = (UpdateQuery) change.getQuery();
+            if (query.getOldRecord().get("id").equals(currentRow.get("id"))) {
+                for (String columnName : query.getSetColumnNames()) {
+                    currentRow.put(columnName, query.getNewRecord().get(columnName));
+                }
+            }
+        }
+        return currentRow;
+    }
+
+    @Test
+    public void partialUpdatesOfARowShouldBeMergedByColumn() {
+        DatabaseMapping databaseMapping = TestDatabaseMappings.singleTable("tbl_a", Arrays.asList("id", "a", "b", "c"), Collections.singletonList("id"));
+        List<DoerDBChange> changes = new ArrayList<>();
+        changes.add(update(1, "tbl_a", new JSONObject().put("id", 1).put("a", 2), new JSONObject().put("id", 1).put("a", 1)));
+        changes.add(update(2, "tbl_a", new JSONObject().put("id", 1).put("a", 7).put("b", "y"), new JSONObject().put("id", 1).put("a", 2).put("b", "x")));
+        changes.add(update(3, "tbl_a", new JSONObject().put("id", 1).put("a", 2).put("c", "q"), new JSONObject().put("id", 1).put("a", 7).put("c", "p")));
+        changes.add(update(4, "tbl_a", new JSONObject().put("id", 1).put("a", 9), new JSONObject().put("id", 1).put("a", 2)));
+
+        DoerDBChangeCoalescer coalescer = new DoerDBChangeCoalescer();
+        List<DoerDBChange> netChanges = coalescer.coalesce(changes, databaseMapping);
+
+        assertEquals(1, netChanges.size());
+        assertEquals(3, coalescer.getEliminatedCount());
+        assertTrue(new JSONObject().put("id", 1).put("a", 9).put("b", "y").put("c", "q").similar(netChanges.get(0).getQuery().getNewRecord()));
+        assertTrue(new JSONObject().put("id", 1).put("a", 1).put("b", "x").put("c", "p").similar(netChanges.get(0).getQuery().getOldRecord()));
+
+        JSONObject row = new JSONObject().put("id", 1).put("a", 1).put("b", "x").put("c", "p");
+        assertEquals(9, applyByKey(row, changes).getInt("a"));
+        assertTrue(applyByKey(row, changes).similar(applyByKey(row, netChanges)));
+    }
+
+    @Test
+    public void partialUpdatesOfDifferentRowsShouldNotBeMerged() {
+        DatabaseMapping databaseMapping = TestDatabaseMappings.singleTable("tbl_a", Arrays.asList("id", "a"), Collections.singletonList("id"));
+        List<DoerDBChange> changes = new ArrayList<>();
+        changes.add(update(1, "tbl_a", new JSONObject().put("id", 1).put("a", 2), new JSONObject().put("id", 1).put("a", 1)));
+        changes.add(update(2, "tbl_a", new JSONObject().put("id", 2).put("a", 3), new JSONObject().put("id", 2).put("a", 2)));
+
+        assertEquals(2, new DoerDBChangeCoalescer().coalesce(changes, databaseMapping).size());
+    }
+
+}
@@ -0,0 +1,154 @@
+package com.doerit.doerdb.synchronizer;
+
+import com.doerit.doerdb.db.queries.BasicQuery;
+import com.doerit.doerdb.db.queries.InsertQuery;
+import com.doerit.doerdb.db.queries.UpdateQuery;
+import com.doerit.doerdb.synchronizer.mappers.DatabaseMapping;
+import com.doerit.doerdb.synchronizer.mappers.TestDatabaseMappings;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class DoerDBChangeIndexTest {
+
+    private static JSONObject randomRecord(Random random) {
+        JSONObject record = new JSONObject();
+        record.put("id", String.valueOf(random.nextInt(3)));
+        record.put("name", "name" + random.nextInt(2));
+        return record;
+    }
+
+    private static List<DoerDBChange> randomChanges(long seed, int count) {
+        Random random = new Random(seed);
+        List<DoerDBChange> changes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            DoerDBChange.SyncDirection syncDirection = random.nextBoolean() ? DoerDBChange.SyncDirection.LOCAL_TO_REMOTE : DoerDBChange.SyncDirection.REMOTE_TO_LOCAL;
+            BasicQuery query = random.nextInt(5) == 0 ?
+                    new InsertQuery(i, "tbl_test", randomRecord(random), new Date(i)) :
+                    new UpdateQuery(i, "tbl_test", randomRecord(random), randomRecord(random), new Date(i));
+            changes.add(new DoerDBChange(null, syncDirection, query));
+        }
+        return changes;
+    }
+
+    /* Pairwise scan as done by the synchronizer before the index, with Old Records updated in memory only. */
+    private static List<Integer> executedByPairwiseScan(List<DoerDBChange> changes) {
+        List<Integer> executed = new ArrayList<>();
+        for (int i = 0; i < changes.size(); i++) {
+            BasicQuery changeQuery = changes.get(i).getQuery();
+
+            boolean similarFound = false;
+            for (int k = i + 1; k < changes.size(); k++) {
+                BasicQuery checkerQuery = changes.get(k).getQuery();
+                if (changeQuery.compareOldRecordTo(checkerQuery)) {
+                    checkerQuery.setOldRecord(changeQuery.getNewRecord());
+                    similarFound = true;
+                }
+            }
+
+            if (!similarFound) {
+                executed.add(i);
+            }
+        }
+        return executed;
+    }
+
+    private static List<Integer> executedByIndex(List<DoerDBChange> changes) {
+        DoerDBChangeIndex changeIndex = new DoerDBChangeIndex(changes, null);
+        List<Integer> executed = new ArrayList<>();
+        for (int i = 0; i < changes.size(); i++) {
+            BasicQuery changeQuery = changes.get(i).getQuery();
+
+            List<Integer> similarPositions = changeIndex.getSimilarChangePositions(i);
+            changeIndex.remove(i);
+            for (int k : similarPositions) {
+                changes.get(k).getQuery().setOldRecord(changeQuery.getNewRecord());
+                changeIndex.reindex(k);
+            }
+
+            if (similarPositions.isEmpty()) {
+                executed.add(i);
+            }
+        }
+        return executed;
+    }
+
+    @Test
+    public void indexShouldProduceSameChainsAsPairwiseScan() {
+        for (long seed = 0; seed < 50; seed++) {
+            List<DoerDBChange> scannedChanges = randomChanges(seed, 200);
+            List<DoerDBChange> indexedChanges = randomChanges(seed, 200);
+
+            assertEquals(executedByPairwiseScan(scannedChanges), executedByIndex(indexedChanges));
+            for (int i = 0; i < scannedChanges.size(); i++) {
+                JSONObject scannedOldRecord = scannedChanges.get(i).getQuery().getOldRecord();
+                JSONObject indexedOldRecord = indexedChanges.get(i).getQuery().getOldRecord();
+                assertTrue(scannedOldRecord == null ? indexedOldRecord == null : scannedOldRecord.similar(indexedOldRecord));
+            }
+        }
+    }
+
+    @Test
+    public void similarRecordsInDifferentTablesShouldNotMatch() {
+        JSONObject oldRecord = new JSONObject().put("id", "1").put("name", "a");
+        List<DoerDBChange> changes = new ArrayList<>();
+        changes.add(new DoerDBChange(null, DoerDBChange.SyncDirection.LOCAL_TO_REMOTE, new UpdateQuery(1, "tbl_a", new JSONObject().put("id", "1").put("name", "b"), oldRecord, new Date(1))));
+        changes.add(new DoerDBChange(null, DoerDBChange.SyncDirection.REMOTE_TO_LOCAL, new UpdateQuery(2, "tbl_b", new JSONObject().put("id", "1").put("name", "c"), new JSONObject(oldRecord.toString()), new Date(2))));
+        changes.add(new DoerDBChange(null, DoerDBChange.SyncDirection.REMOTE_TO_LOCAL, new UpdateQuery(3, "tbl_a", new JSONObject().put("id", "1").put("name", "d"), new JSONObject(oldRecord.toString()), new Date(3))));
+
+        DoerDBChangeIndex changeIndex = new DoerDBChangeIndex(changes, null);
+        assertEquals(Collections.singletonList(2), changeIndex.getSimilarChangePositions(0));
+        assertTrue(changeIndex.getSimilarChangePositions(1).isEmpty());
+    }
+
+    private static DoerDBChange update(int id, DoerDBChange.SyncDirection syncDirection, JSONObject newRecord, JSONObject oldRecord) {
+        return new DoerDBChange(null, syncDirection, new UpdateQuery(id, "tbl_test", newRecord, oldRecord, new Date(id)));
+    }
+
+    @Test
+    public void partialRecordsOfARowShouldMatchByKey() {
+        DatabaseMapping databaseMapping = TestDatabaseMappings.singleTable("tbl_test", Arrays.asList("id", "a", "b"), Collections.singletonList("id"));
+        List<DoerDBChange> changes = new ArrayList<>();
+        changes.add(update(1, DoerDBChange.SyncDirection.LOCAL_TO_REMOTE, new JSONObject().put("id", 1).put("a", 2).put("b", "y"), new JSONObject().put("id", 1).put("a", 1).put("b", "x")));
+        changes.add(update(2, DoerDBChange.SyncDirection.REMOTE_TO_LOCAL, new JSONObject().put("id", 1).put("a", 3), new JSONObject().put("id", 1).put("a", 1)));
+        changes.add(update(3, DoerDBChange.SyncDirection.REMOTE_TO_LOCAL, new JSONObject().put("id", 2).put("a", 3), new JSONObject().put("id", 2).put("a", 1)));
+
+        DoerDBChangeIndex changeIndex = new DoerDBChangeIndex(changes, databaseMapping);
+        assertTrue(changeIndex.isKeyedByRow(0));
+        assertEquals(Collections.singletonList(1), changeIndex.getSimilarChangePositions(0));
+        assertEquals(Collections.singleton("a"), changeIndex.getCommonColumnNames(0, 1));
+        assertFalse(new DoerDBChangeIndex(changes, null).isKeyedByRow(0));
+    }
+
+    @Test
+    public void laterChangeShouldTakeOverOnlyConflictingColumns() throws Exception {
+        DatabaseMapping databaseMapping = TestDatabaseMappings.singleTable("tbl_test", Arrays.asList("id", "a", "b"), Collections.singletonList("id"));
+        List<DoerDBChange> changes = new ArrayList<>();
+        changes.add(update(1, DoerDBChange.SyncDirection.LOCAL_TO_REMOTE, new JSONObject().put("id", 1).put("a", 2).put("b", "y"), new JSONObject().put("id", 1).put("a", 1).put("b", "x")));
+        changes.add(update(2, DoerDBChange.SyncDirection.REMOTE_TO_LOCAL, new JSONObject().put("id", 1).put("a", 3), new JSONObject().put("id", 1).put("a", 1)));
+
+        List<DoerDBChange> resolvedChanges = DoerDBSynchronizer.resolveChanges(changes, databaseMapping);
+
+        assertEquals(2, resolvedChanges.size());
+        assertEquals(Collections.singletonList("b"), ((UpdateQuery) resolvedChanges.get(0).getQuery()).getSetColumnNames());
+        assertEquals("y", resolvedChanges.get(0).getQuery().getNewRecord().getString("b"));
+        assertSame(changes.get(1), resolvedChanges.get(1));
+    }
+
+    @Test
+    public void changeShouldBeDroppedWhenEveryColumnIsTakenOver() throws Exception {
+        DatabaseMapping databaseMapping = TestDatabaseMappings.singleTable("tbl_test", Arrays.asList("id", "a", "b"), Collections.singletonList("id"));
+        List<DoerDBChange> changes = new ArrayList<>();
+        changes.add(update(1, DoerDBChange.SyncDirection.REMOTE_TO_LOCAL, new JSONObject().put("id", 1).put("a", 3), new JSONObject().put("id", 1).put("a", 1)));
+        changes.add(update(2, DoerDBChange.SyncDirection.LOCAL_TO_REMOTE, new JSONObject().put("id", 1).put("a", 2).put("b", "y"), new JSONObject().put("id", 1).put("a", 1).put("b", "x")));
+        changes.add(update(3, DoerDBChange.SyncDirection.LOCAL_TO_REMOTE, new JSONObject().put("id", 1).put("b", "z"), new JSONObject().put("id", 1).put("b", "y")));
+
+        List<DoerDBChange> resolvedChanges = DoerDBSynchronizer.resolveChanges(changes, databaseMapping);
+
+        assertEquals(Arrays.asList(changes.get(1), changes.get(2)), resolvedChanges);
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.doerit.doerdb.synchronizer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class DoerDBChangeLogPurgerTest {
+
+    @Test
+    public void onlyPartitionsWhollyBeforeTheCursorShouldBeDropped() {
+        Map<String, Long> partitionBounds = new LinkedHashMap<>();
+        partitionBounds.put("p2", 2000L);
+        partitionBounds.put("p3", 3000L);
+        partitionBounds.put("p4", 4000L);
+
+        assertEquals(Collections.emptyList(), DoerDBChangeLogPurger.getPartitionNamesBeforeID(partitionBounds, 1999));
+        assertEquals(Collections.singletonList("p2"), DoerDBChangeLogPurger.getPartitionNamesBeforeID(partitionBounds, 2000));
+        assertEquals(Arrays.asList("p2", "p3"), DoerDBChangeLogPurger.getPartitionNamesBeforeID(partitionBounds, 3999));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void batchSizeShouldBePositive() {
+        new DoerDBChangeLogPurger(null).setBatchSize(0);
+    }
+
+    @Test
+    public void sharedRemoteShouldBePurgedOnlyWithARetentionPeriod() {
+        DoerDBChangeLogPurger changeLogPurger = new DoerDBChangeLogPurger(null);
+        assertFalse(changeLogPurger.isRemotePurged());
+
+        changeLogPurger.setRetentionPeriod(1000);
+        assertTrue(changeLogPurger.isRemotePurged());
+
+        changeLogPurger.setRetentionPeriod(DoerDBChangeLogPurger.RETENTION_PERIOD_NONE);
+        changeLogPurger.setExclusiveRemote(true);
+        assertTrue(changeLogPurger.isRemotePurged());
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.doerit.doerdb.synchronizer;
+
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DoerDBSyncPipelineTest {
+
+    @Test
+    public void windowsShouldBeAppliedInOrder() throws Exception {
+        List<Long> appliedIDs = Collections.synchronizedList(new ArrayList<>());
+        DoerDBSyncPipeline syncPipeline = new DoerDBSyncPipeline(2,
+                window -> Thread.sleep(1),
+                window -> appliedIDs.add(window.getLastLocalID()));
+
+        List<Long> checkpointedIDs = new ArrayList<>();
+        syncPipeline.start();
+        try {
+            for (int i = 0; i < 100; i++) {
+                syncPipeline.put(new DoerDBSyncWindow(new ArrayList<>(), i, i));
+                for (DoerDBSyncWindow window : syncPipeline.pollApplied()) {
+                    checkpointedIDs.add(window.getLastLocalID());
+                }
+            }
+
+            for (DoerDBSyncWindow window : syncPipeline.finish()) {
+                checkpointedIDs.add(window.getLastLocalID());
+            }
+        }
+        finally {
+            syncPipeline.stop();
+        }
+
+        List<Long> expectedIDs = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            expectedIDs.add((long) i);
+        }
+        assertEquals(expectedIDs, appliedIDs);
+        assertEquals(expectedIDs, checkpointedIDs);
+    }
+
+    @Test(expected = SQLException.class)
+    public void failureOfStageShouldBeRethrown() throws Exception {
+        DoerDBSyncPipeline syncPipeline = new DoerDBSyncPipeline(1,
+                window -> { },
+                window -> {
+                    if (window.getLastLocalID() == 5) {
+                        throw new SQLException("Apply failed.");
+                    }
+                });
+
+        syncPipeline.start();
+        try {
+            for (int i = 0; i < 100; i++) {
+                syncPipeline.put(new DoerDBSyncWindow(new ArrayList<>(), i, i));
+                syncPipeline.pollApplied();
+            }
+
+            syncPipeline.finish();
+        }
+        finally {
+            syncPipeline.stop();
+        }
+    }
+
+}
@@ -5,10 +5,17 @@ import com.doerit.doerdb.DoerDB;
 import com.doerit.doerdb.exceptions.InitializationFailureException;
 import com.doerit.doerdb.exceptions.NotFoundException;
 import com.doerit.doerdb.exceptions.SynchronizeException;
+import com.doerit.doerdb.synchronizer.mappers.ColumnMapper;
+import com.doerit.doerdb.synchronizer.mappers.DatabaseMapper;
+import com.doerit.doerdb.synchronizer.mappers.TableMapper;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
 
 public class DoerDBSynchronizerTest {
 
@@ -65,4 +72,34 @@ public class DoerDBSynchronizerTest {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    public void bulkIntrospectionShouldMatchPerTableIntrospection() throws SQLException, InitializationFailureException {
+        DatabaseMapper databaseMapper = new DatabaseMapper(this.doerDB);
+        assertFalse(databaseMapper.getTableMappers().isEmpty());
+
+        for (TableMapper bulkTableMapper : databaseMapper.getTableMappers()) {
+            if (bulkTableMapper.getRemoteTableName() == null) {
+                continue;
+            }
+
+            TableMapper tableMapper = new TableMapper(this.doerDB, bulkTableMapper.getLocalTableName(), bulkTableMapper.getRemoteTableName());
+            String tableName = bulkTableMapper.getLocalTableName();
+            assertEquals(tableName, tableMapper.getLocalKeyColumnNames(), bulkTableMapper.getLocalKeyColumnNames());
+            assertEquals(tableName, tableMapper.getRemoteKeyColumnNames(), bulkTableMapper.getRemoteKeyColumnNames());
+            assertEquals(tableName, DoerDBSynchronizerTest.getColumnNamePairs(tableMapper), DoerDBSynchronizerTest.getColumnNamePairs(bulkTableMapper));
+        }
+    }
+
+    /**
+     * Used to obtain the local and remote column names mapped by a TableMapper, in the order of its ColumnMappers.
+     */
+    private static List<String> getColumnNamePairs(TableMapper tableMapper) {
+        List<String> columnNamePairs = new ArrayList<>();
+        for (ColumnMapper columnMapper : tableMapper.getColumnMappers()) {
+            columnNamePairs.add(columnMapper.getLocalColumnName() + "=" + columnMapper.getRemoteColumnName());
+        }
+
+        return columnNamePairs;
+    }
+
+}
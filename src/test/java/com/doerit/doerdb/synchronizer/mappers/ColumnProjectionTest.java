@@ -0,0 +1,50 @@
+package com.doerit.doerdb.synchronizer.mappers;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ColumnProjectionTest {
+
+    private static List<ColumnMapper> columnMappers() {
+        return Arrays.asList(
+                new ColumnMapper("id", "id"),
+                new ColumnMapper("full_name", "total_name"),
+                new ColumnMapper("local_only", null));
+    }
+
+    @Test
+    public void recordsShouldBeProjectedInBothDirections() {
+        ColumnProjection localToRemote = new ColumnProjection(columnMappers(), true);
+        JSONObject remoteRecord = localToRemote.project(new JSONObject().put("id", "1").put("full_name", "a").put("local_only", "x"));
+        assertTrue(remoteRecord.similar(new JSONObject().put("id", "1").put("total_name", "a")));
+
+        ColumnProjection remoteToLocal = new ColumnProjection(columnMappers(), false);
+        JSONObject localRecord = remoteToLocal.project(new JSONObject().put("id", "1").put("total_name", "a"));
+        assertTrue(localRecord.similar(new JSONObject().put("id", "1").put("full_name", "a")));
+    }
+
+    @Test
+    public void projectionShouldIndexSourceColumnsToTargetColumns() {
+        ColumnProjection localToRemote = new ColumnProjection(columnMappers(), true);
+
+        assertEquals(3, localToRemote.getSourceColumnCount());
+        assertEquals("total_name", localToRemote.getTargetColumnName(localToRemote.getTargetColumnIndex(1)));
+        assertEquals(ColumnProjection.COLUMN_UNSYNCHRONIZED, localToRemote.getTargetColumnIndex(2));
+    }
+
+    @Test
+    public void nullValuesShouldBeKeptAndMissingColumnsSkipped() {
+        ColumnProjection localToRemote = new ColumnProjection(columnMappers(), true);
+        JSONObject remoteRecord = localToRemote.project(new JSONObject().put("id", JSONObject.NULL));
+
+        assertEquals(1, remoteRecord.length());
+        assertTrue(remoteRecord.isNull("id"));
+        assertNull(localToRemote.project(null));
+    }
+
+}
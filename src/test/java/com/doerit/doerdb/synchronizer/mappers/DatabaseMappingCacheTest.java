@@ -0,0 +1,63 @@
+package com.doerit.doerdb.synchronizer.mappers;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DatabaseMappingCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static List<TableMapper> tableMappers() {
+        List<TableMapper> tableMappers = new ArrayList<>();
+        tableMappers.add(new TableMapper("tbl_test", "tbl_test",
+                Arrays.asList("id", "full_name", "local_only"), Arrays.asList("id", "full_name"),
+                Collections.singletonList("id"), Collections.singletonList("id")));
+        tableMappers.add(new TableMapper("tbl_local", null,
+                Collections.singletonList("id"), Collections.emptyList(),
+                new ArrayList<>(), new ArrayList<>()));
+        return tableMappers;
+    }
+
+    @Test
+    public void cachedMappersShouldBeLoadedWhileFingerprintsMatch() throws Exception {
+        File cacheFile = new File(this.temporaryFolder.getRoot(), "mapping.json");
+        DatabaseMappingCache.save(cacheFile, "db_client", "db_server", "3:1", "2:7", tableMappers());
+
+        List<TableMapper> loadedTableMappers = DatabaseMappingCache.load(cacheFile, "db_client", "db_server", "3:1", "2:7");
+        assertNotNull(loadedTableMappers);
+        assertEquals(2, loadedTableMappers.size());
+
+        TableMapper tableMapper = loadedTableMappers.get(0);
+        assertEquals("tbl_test", tableMapper.getRemoteTableName());
+        assertEquals("full_name", tableMapper.getColumnMapperByLocalColumn("full_name").getRemoteColumnName());
+        assertNull(tableMapper.getColumnMapperByLocalColumn("local_only").getRemoteColumnName());
+        assertEquals(Collections.singletonList("id"), tableMapper.getRemoteKeyColumnNames());
+        assertNull(loadedTableMappers.get(1).getRemoteTableName());
+    }
+
+    @Test
+    public void staleOrCorruptCacheShouldNotBeLoaded() throws Exception {
+        File cacheFile = new File(this.temporaryFolder.getRoot(), "mapping.json");
+        assertNull(DatabaseMappingCache.load(cacheFile, "db_client", "db_server", "3:1", "2:7"));
+
+        DatabaseMappingCache.save(cacheFile, "db_client", "db_server", "3:1", "2:7", tableMappers());
+        assertNull(DatabaseMappingCache.load(cacheFile, "db_client", "db_server", "4:9", "2:7"));
+        assertNull(DatabaseMappingCache.load(cacheFile, "db_other", "db_server", "3:1", "2:7"));
+
+        Files.write(cacheFile.toPath(), "{\"version\":".getBytes(StandardCharsets.UTF_8));
+        assertNull(DatabaseMappingCache.load(cacheFile, "db_client", "db_server", "3:1", "2:7"));
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.doerit.doerdb.synchronizer.mappers;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Builds DatabaseMappings for the tests outside of the mappers package, without connecting to the databases.
+ */
+public final class TestDatabaseMappings {
+
+    private TestDatabaseMappings() {
+    }
+
+    public static DatabaseMapping singleTable(String tableName, List<String> columnNames, List<String> keyColumnNames) {
+        TableMapper tableMapper = new TableMapper(tableName, tableName, columnNames, columnNames, keyColumnNames, keyColumnNames);
+        return new DatabaseMapping("db_local", "db_remote", Collections.singletonList(tableMapper));
+    }
+
+}
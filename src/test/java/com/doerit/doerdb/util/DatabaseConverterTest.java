@@ -1,8 +1,16 @@
 package com.doerit.doerdb.util;
 
 import com.doerit.doerdb.DBCredentialWrapper;
+import com.doerit.doerdb.db.metadata.DoerDBMetaTable;
+import com.doerit.doerdb.db.queries.UpdateQuery;
+import com.doerit.doerdb.db.types.DatabaseType;
+import com.doerit.doerdb.synchronizer.DoerDBSynchronizer;
 import org.junit.Test;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import static org.junit.Assert.*;
 
 public class DatabaseConverterTest {
@@ -22,4 +30,72 @@ public class DatabaseConverterTest {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    public void localTriggersShouldSkipSyncedChanges() {
+        String queryCreateTrigger = DatabaseConverter.buildTriggerQuery("trigger_update", "UPDATE", "tbl_test", UpdateQuery.QUERY_TYPE, "NEW_JSON", "OLD_JSON", DatabaseType.LOCAL);
+
+        assertTrue(queryCreateTrigger.contains("IF " + DoerDBSynchronizer.MYSQL_TAG_SYNC_ORIGIN + " IS NULL THEN INSERT INTO"));
+        assertTrue(queryCreateTrigger.contains("END IF;"));
+        assertFalse(queryCreateTrigger.contains(DoerDBMetaTable.TABLE_COL_ORIGIN));
+    }
+
+    @Test
+    public void remoteTriggersShouldRecordOriginOfChanges() {
+        String queryCreateTrigger = DatabaseConverter.buildTriggerQuery("trigger_insert", "INSERT", "tbl_test", "INSERT", "NEW_JSON", null, DatabaseType.REMOTE);
+
+        assertTrue(queryCreateTrigger.contains("`" + DoerDBMetaTable.TABLE_COL_ORIGIN + "`)"));
+        assertTrue(queryCreateTrigger.contains(DoerDBSynchronizer.MYSQL_TAG_QUERY_TIMESTAMP + ")," + DoerDBSynchronizer.MYSQL_TAG_SYNC_ORIGIN + ");"));
+        assertFalse(queryCreateTrigger.contains("END IF"));
+        assertFalse(queryCreateTrigger.contains(DoerDBMetaTable.TABLE_COL_OLD_RECORD));
+    }
+
+    @Test
+    public void updateRecordsShouldHoldOnlyKeyAndChangedColumns() {
+        Map<String, String> columnTypes = new LinkedHashMap<>();
+        columnTypes.put("id", "int");
+        columnTypes.put("name", "varchar");
+        columnTypes.put("price", "decimal");
+
+        String deltaRecord = DatabaseConverter.buildRecordExpression("NEW", columnTypes, Collections.singletonList("id"), true);
+        assertTrue(deltaRecord.startsWith("JSON_MERGE_PRESERVE(JSON_OBJECT('id',NEW.`id`),"));
+        assertTrue(deltaRecord.contains("IF(NEW.`name`<=>OLD.`name`,JSON_OBJECT(),JSON_OBJECT('name',NEW.`name`))"));
+        assertTrue(deltaRecord.contains("IF(NEW.`price`<=>OLD.`price`,JSON_OBJECT(),JSON_OBJECT('price',CAST(NEW.`price` AS CHAR)))"));
+        assertFalse(deltaRecord.contains("NEW.`id`<=>OLD.`id`"));
+
+        String fullRecord = DatabaseConverter.buildRecordExpression("NEW", columnTypes, Collections.singletonList("id"), false);
+        assertEquals("JSON_OBJECT('id',NEW.`id`,'name',NEW.`name`,'price',CAST(NEW.`price` AS CHAR))", fullRecord);
+        assertFalse(fullRecord.contains("OLD."));
+    }
+
+    @Test
+    public void binaryColumnsShouldBeRecordedAsBase64() {
+        Map<String, String> columnTypes = new LinkedHashMap<>();
+        columnTypes.put("id", "int");
+        columnTypes.put("picture", "BLOB");
+
+        String fullRecord = DatabaseConverter.buildRecordExpression("OLD", columnTypes, Collections.singletonList("id"), false);
+        assertTrue(fullRecord.contains("'picture',IF(OLD.`picture` IS NULL,NULL,JSON_OBJECT('$base64',TO_BASE64(OLD.`picture`)))"));
+    }
+
+    @Test
+    public void metaTablePartitionsShouldCoverTheLastID() {
+        String partitionClause = DatabaseConverter.buildMetaTablePartitionClause(1000, 2500);
+        assertTrue(partitionClause.startsWith("PARTITION BY RANGE (`id`) (PARTITION `p1` VALUES LESS THAN (1000),"));
+        assertTrue(partitionClause.contains("PARTITION `p3` VALUES LESS THAN (3000)"));
+        assertTrue(partitionClause.endsWith("PARTITION `p7` VALUES LESS THAN (7000),PARTITION `p_max` VALUES LESS THAN MAXVALUE)"));
+    }
+
+    @Test
+    public void metaTableMigrationShouldAddOnlyMissingParts() {
+        String migrateQuery = DatabaseConverter.buildMetaTableMigrateQuery(false, false);
+        assertTrue(migrateQuery.startsWith("ALTER TABLE `" + DoerDBMetaTable.TABLE_NAME + "` ENGINE=InnoDB DEFAULT CHARSET=utf8mb4"));
+        assertTrue(migrateQuery.contains("MODIFY `id` bigint(20) NOT NULL AUTO_INCREMENT"));
+        assertTrue(migrateQuery.contains("ADD COLUMN `origin`"));
+        assertTrue(migrateQuery.contains("ADD KEY `" + DoerDBMetaTable.TABLE_INDEX_QUERY_TIMESTAMP + "`"));
+
+        String migratedQuery = DatabaseConverter.buildMetaTableMigrateQuery(true, true);
+        assertTrue(migratedQuery.contains("MODIFY `origin`"));
+        assertFalse(migratedQuery.contains(" ADD "));
+    }
+
+}
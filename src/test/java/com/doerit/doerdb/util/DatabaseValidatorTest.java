@@ -0,0 +1,35 @@
+package com.doerit.doerdb.util;
+
+import com.doerit.doerdb.db.metadata.DoerDBMetaTable;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class DatabaseValidatorTest {
+
+    @Test
+    public void everyMissingTriggerShouldBeReported() {
+        Set<String> triggerNames = new HashSet<>(Arrays.asList(
+                DatabaseValidator.getTriggerName("tbl_a", DatabaseValidator.TRIGGER_INSERT),
+                DatabaseValidator.getTriggerName("tbl_a", DatabaseValidator.TRIGGER_UPDATE),
+                DatabaseValidator.getTriggerName("tbl_b", DatabaseValidator.TRIGGER_UPDATE)));
+
+        assertEquals(
+                Arrays.asList(
+                        DatabaseValidator.getTriggerName("tbl_b", DatabaseValidator.TRIGGER_INSERT),
+                        DatabaseValidator.getTriggerName("tbl_c", DatabaseValidator.TRIGGER_INSERT),
+                        DatabaseValidator.getTriggerName("tbl_c", DatabaseValidator.TRIGGER_UPDATE)),
+                DatabaseValidator.getMissingTriggerNames(Arrays.asList("tbl_a", "tbl_b", "tbl_c", DoerDBMetaTable.TABLE_NAME), triggerNames));
+    }
+
+    @Test
+    public void unmonitoredTablesShouldNotNeedTriggers() {
+        assertTrue(DatabaseValidator.getMissingTriggerNames(Collections.singletonList(DoerDBMetaTable.TABLE_NAME), Collections.emptySet()).isEmpty());
+    }
+
+}